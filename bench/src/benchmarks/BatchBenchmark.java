@@ -0,0 +1,100 @@
+package benchmarks;
+
+import model.Matrix;
+import model.MatrixBatch;
+import operations.BatchOperations;
+import operations.MatrixOperations;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares one {@link Matrix} per small transform against the same
+ * transforms packed into a {@link MatrixBatch}, for batched multiply,
+ * inverse and determinant. Scores are per whole batch.
+ *
+ * @author Youssef Amin
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class BatchBenchmark {
+
+    @Param({"2", "3", "4"})
+    public int size;
+
+    @Param({"1000000"})
+    public int count;
+
+    private Matrix[] a;
+    private Matrix[] b;
+    private MatrixBatch batchA;
+    private MatrixBatch batchB;
+    private MatrixBatch product;
+    private double[] determinants;
+
+    @Setup
+    public void setUp() {
+        a = new Matrix[count];
+        b = new Matrix[count];
+        for (int k = 0; k < count; k++) {
+            a[k] = BenchmarkData.randomMatrix(size, size, 1.0, 2L * k);
+            b[k] = BenchmarkData.randomMatrix(size, size, 1.0, 2L * k + 1);
+        }
+        batchA = MatrixBatch.of(a);
+        batchB = MatrixBatch.of(b);
+        product = new MatrixBatch(count, size, size);
+        determinants = new double[count];
+    }
+
+    @Benchmark
+    public void multiplyMatrices(Blackhole bh) {
+        for (int k = 0; k < count; k++) {
+            bh.consume(MatrixOperations.multiply(a[k], b[k]));
+        }
+    }
+
+    @Benchmark
+    public MatrixBatch multiplyBatch() {
+        return BatchOperations.multiply(batchA, batchB, product);
+    }
+
+    @Benchmark
+    public void inverseMatrices(Blackhole bh) {
+        for (int k = 0; k < count; k++) {
+            bh.consume(MatrixOperations.inverse(a[k]));
+        }
+    }
+
+    @Benchmark
+    public MatrixBatch inverseBatch() {
+        return BatchOperations.inverse(batchA, product);
+    }
+
+    @Benchmark
+    public void determinantMatrices(Blackhole bh) {
+        for (int k = 0; k < count; k++) {
+            bh.consume(MatrixOperations.determinant(a[k]));
+        }
+    }
+
+    @Benchmark
+    public double[] determinantBatch() {
+        return BatchOperations.determinant(batchA, determinants);
+    }
+}
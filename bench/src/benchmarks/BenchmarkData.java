@@ -0,0 +1,43 @@
+package benchmarks;
+
+import model.Matrix;
+
+import java.util.SplittableRandom;
+
+/**
+ * Builds reproducible benchmark inputs.
+ *
+ * @author Youssef Amin
+ */
+
+final class BenchmarkData {
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * Creates a random matrix where roughly the given fraction of off-diagonal
+     * entries is non-zero. Square matrices get a dominant diagonal so they stay
+     * invertible at every density.
+     *
+     * @param rows    number of rows
+     * @param cols    number of columns
+     * @param density fraction of non-zero off-diagonal entries, between 0 and 1
+     * @param seed    seed for the random generator
+     * @return the generated matrix
+     */
+    static Matrix randomMatrix(int rows, int cols, double density, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        double[][] data = new double[rows][cols];
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < cols; j++) {
+                if (i == j && rows == cols) {
+                    data[i][j] = cols + 1.0;
+                } else if (random.nextDouble() < density) {
+                    data[i][j] = random.nextDouble(-1.0, 1.0);
+                }
+            }
+        }
+        return new Matrix(data);
+    }
+}
@@ -0,0 +1,83 @@
+package benchmarks;
+
+import model.Matrix;
+import model.MutableMatrix;
+import operations.MatrixExpr;
+import operations.MatrixOperations;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares chained eager {@link MatrixOperations} calls with the same
+ * pipelines built as a {@link MatrixExpr}: an eight-operation element-wise
+ * chain, which the expression fuses into one pass, and a product chain
+ * whose cheapest order differs from left to right.
+ *
+ * @author Youssef Amin
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExpressionBenchmark {
+
+    @Param({"64", "256", "1024"})
+    public int size;
+
+    private Matrix p;
+    private Matrix q;
+    private Matrix r;
+    private Matrix column;
+    private Matrix row;
+
+    @Setup
+    public void setUp() {
+        p = BenchmarkData.randomMatrix(size, size, 1.0, 42);
+        q = BenchmarkData.randomMatrix(size, size, 1.0, 43);
+        r = BenchmarkData.randomMatrix(size, size, 1.0, 44);
+        column = BenchmarkData.randomMatrix(size, 1, 1.0, 45);
+        row = BenchmarkData.randomMatrix(1, size, 1.0, 46);
+    }
+
+    @Benchmark
+    public Matrix elementwiseEager() {
+        Matrix left = MatrixOperations.subtract(scale(MatrixOperations.add(p, q), 0.5), r);
+        Matrix right = MatrixOperations.add(scale(MatrixOperations.subtract(q, r), 2.0), p);
+        return MatrixOperations.add(left, right);
+    }
+
+    @Benchmark
+    public Matrix elementwiseLazy() {
+        return MatrixExpr.of(p).add(q).scale(0.5).subtract(r)
+                .add(MatrixExpr.of(q).subtract(r).scale(2.0).add(p))
+                .evaluate();
+    }
+
+    @Benchmark
+    public Matrix chainEager() {
+        return MatrixOperations.multiply(MatrixOperations.multiply(MatrixOperations.multiply(p, column), row), q);
+    }
+
+    @Benchmark
+    public Matrix chainLazy() {
+        return MatrixExpr.of(p).multiply(column).multiply(row).multiply(q).evaluate();
+    }
+
+    private static Matrix scale(Matrix m, double scalar) {
+        return MatrixOperations.scale(m, scalar, new MutableMatrix(m.getNumRow(), m.getNumCol()));
+    }
+}
@@ -0,0 +1,84 @@
+package benchmarks;
+
+import model.Matrix;
+import model.MutableMatrix;
+import operations.MatrixOperations;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the allocating operations with their destination and in-place
+ * overloads. Run with the GC profiler (always attached by
+ * {@link BenchmarkRunner}, or {@code -prof gc} with the plain JMH runner):
+ * the destination variants should report a {@code gc.alloc.rate.norm} of
+ * about zero bytes per operation, while the allocating ones report the size
+ * of the result array.
+ *
+ * @author Youssef Amin
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InPlaceOperationsBenchmark {
+
+    @Param({"16", "64", "256"})
+    public int size;
+
+    private Matrix a;
+    private Matrix b;
+    private MutableMatrix dest;
+    private MutableMatrix acc;
+
+    @Setup
+    public void setUp() {
+        a = BenchmarkData.randomMatrix(size, size, 1.0, 42);
+        b = BenchmarkData.randomMatrix(size, size, 1.0, 43);
+        dest = new MutableMatrix(size, size);
+        acc = MutableMatrix.copyOf(a);
+    }
+
+    @Benchmark
+    public Matrix add() {
+        return MatrixOperations.add(a, b);
+    }
+
+    @Benchmark
+    public Matrix addIntoDestination() {
+        return MatrixOperations.add(a, b, dest);
+    }
+
+    @Benchmark
+    public Matrix addInPlace() {
+        return MatrixOperations.addInPlace(acc, b);
+    }
+
+    @Benchmark
+    public Matrix multiply() {
+        return MatrixOperations.multiply(a, b);
+    }
+
+    @Benchmark
+    public Matrix multiplyIntoDestination() {
+        return MatrixOperations.multiply(a, b, dest);
+    }
+
+    @Benchmark
+    public Matrix scaleInPlace() {
+        return MatrixOperations.scaleInPlace(acc, 1.0);
+    }
+}
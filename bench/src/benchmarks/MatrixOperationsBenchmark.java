@@ -0,0 +1,82 @@
+package benchmarks;
+
+import model.Matrix;
+import operations.MatrixOperations;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmarks for every public entry point of {@link MatrixOperations}.
+ * Each benchmark runs over a grid of matrix sizes and densities so scaling
+ * regressions show up as well as constant-factor ones.
+ * <p>
+ * Run through {@link BenchmarkRunner}, which also attaches the GC profiler
+ * so allocation rates are reported next to throughput and average time.
+ *
+ * @author Youssef Amin
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MatrixOperationsBenchmark {
+
+    @Param({"4", "16", "64", "256", "1024", "2048"})
+    public int size;
+
+    @Param({"1.0", "0.1"})
+    public double density;
+
+    private Matrix a;
+    private Matrix b;
+
+    @Setup
+    public void setUp() {
+        a = BenchmarkData.randomMatrix(size, size, density, 42);
+        b = BenchmarkData.randomMatrix(size, size, density, 43);
+    }
+
+    @Benchmark
+    public Matrix add() {
+        return MatrixOperations.add(a, b);
+    }
+
+    @Benchmark
+    public Matrix subtract() {
+        return MatrixOperations.subtract(a, b);
+    }
+
+    @Benchmark
+    public Matrix multiply() {
+        return MatrixOperations.multiply(a, b);
+    }
+
+    @Benchmark
+    public Matrix inverse() {
+        return MatrixOperations.inverse(a);
+    }
+
+    @Benchmark
+    public double determinant() {
+        return MatrixOperations.determinant(a);
+    }
+
+    @Benchmark
+    public Matrix rref() {
+        return MatrixOperations.rref(a);
+    }
+}
@@ -0,0 +1,69 @@
+package benchmarks;
+
+import model.Matrix;
+import operations.MatrixOperations;
+import operations.MultiplicationStrategy;
+import operations.ParallelMatrixOperations;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the classical and Strassen multiplication strategies on large
+ * dense square matrices, sequentially and on the common pool. Sizes just
+ * above a power of two show the cost of peeling odd dimensions. Vary the
+ * cutoff with {@code -p cutoff=...} to tune
+ * {@link MatrixOperations#setStrassenCutoff(int)} for a machine.
+ *
+ * @author Youssef Amin
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class StrassenBenchmark {
+
+    @Param({"1024", "1025", "2048"})
+    public int size;
+
+    @Param({"256"})
+    public int cutoff;
+
+    @Param({"CLASSICAL", "STRASSEN"})
+    public MultiplicationStrategy strategy;
+
+    private Matrix a;
+    private Matrix b;
+    private ParallelMatrixOperations parallel;
+
+    @Setup
+    public void setUp() {
+        a = BenchmarkData.randomMatrix(size, size, 1.0, 42);
+        b = BenchmarkData.randomMatrix(size, size, 1.0, 43);
+        parallel = new ParallelMatrixOperations();
+        MatrixOperations.setStrassenCutoff(cutoff);
+    }
+
+    @Benchmark
+    public Matrix multiply() {
+        return MatrixOperations.multiply(a, b, strategy);
+    }
+
+    @Benchmark
+    public Matrix multiplyParallel() {
+        return parallel.multiply(a, b, strategy);
+    }
+}
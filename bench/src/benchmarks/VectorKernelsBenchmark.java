@@ -0,0 +1,90 @@
+package benchmarks;
+
+import model.Matrix;
+import model.MutableMatrix;
+import operations.MatrixOperations;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the SIMD and scalar kernel backends on the operations whose inner
+ * loops they run: element-wise add, the blocked multiply and the row updates
+ * of inversion. The backend is chosen once per JVM, so each pair of
+ * benchmarks forks with different flags; {@link MatrixOperations#getKernelBackend()}
+ * is printed in setup so the log shows which one actually ran.
+ *
+ * @author Youssef Amin
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class VectorKernelsBenchmark {
+
+    private static final String SIMD = "--add-modules=jdk.incubator.vector";
+    private static final String SCALAR = "-Dmatrixmaster.vector=false";
+
+    @Param({"256", "1024"})
+    public int size;
+
+    private Matrix a;
+    private Matrix b;
+    private MutableMatrix dest;
+
+    @Setup
+    public void setUp() {
+        a = BenchmarkData.randomMatrix(size, size, 1.0, 42);
+        b = BenchmarkData.randomMatrix(size, size, 1.0, 43);
+        dest = new MutableMatrix(size, size);
+        System.out.println("Kernel backend: " + MatrixOperations.getKernelBackend());
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = SIMD)
+    public Matrix addSimd() {
+        return MatrixOperations.add(a, b, dest);
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = SCALAR)
+    public Matrix addScalar() {
+        return MatrixOperations.add(a, b, dest);
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = SIMD)
+    public Matrix multiplySimd() {
+        return MatrixOperations.multiply(a, b, dest);
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = SCALAR)
+    public Matrix multiplyScalar() {
+        return MatrixOperations.multiply(a, b, dest);
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = SIMD)
+    public Matrix inverseSimd() {
+        return MatrixOperations.inverse(a);
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = SCALAR)
+    public Matrix inverseScalar() {
+        return MatrixOperations.inverse(a);
+    }
+}
@@ -0,0 +1,191 @@
+package distributed;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Starts {@link TileWorker}s as separate JVMs on this machine, for tests and
+ * for spreading a multiply over more heaps than one process can have.
+ * <p>
+ * Workers run the same java binary and class path as the current JVM and
+ * inherit its JVM options, such as {@code --enable-preview}, except debugger
+ * and agent flags; extra options such as {@code -Xmx} are appended after
+ * them. Each worker listens on a free loopback port and exits when the pool
+ * is closed or when this JVM exits, however it exits. A worker that has not
+ * started listening within {@link #STARTUP_TIMEOUT_SECONDS} is killed and the
+ * pool fails to start. Worker error output goes to this JVM's standard error.
+ *
+ * @author Youssef Amin
+ */
+
+public class LocalWorkerPool implements AutoCloseable {
+
+    /** Longest wait for a worker JVM to start listening. */
+    public static final long STARTUP_TIMEOUT_SECONDS = 30;
+
+    private final List<Process> processes = new ArrayList<>();
+    private final List<InetSocketAddress> addresses = new ArrayList<>();
+
+    /**
+     * @param workers the number of worker processes to start
+     * @throws IOException if a worker cannot be started
+     */
+    public LocalWorkerPool(int workers) throws IOException {
+        this(workers, List.of());
+    }
+
+    /**
+     * @param workers    the number of worker processes to start
+     * @param jvmOptions extra options for every worker JVM, e.g. {@code -Xmx4g}
+     * @throws IllegalArgumentException if workers is not positive
+     * @throws IOException              if a worker cannot be started
+     */
+    public LocalWorkerPool(int workers, List<String> jvmOptions) throws IOException {
+        if (workers <= 0)
+            throw new IllegalArgumentException("At least one worker is required.");
+
+        List<String> command = command(jvmOptions);
+        try {
+            for (int w = 0; w < workers; w++) {
+                start(command);
+            }
+        } catch (IOException | RuntimeException e) {
+            stop();
+            throw e;
+        }
+    }
+
+    private void start(List<String> command) throws IOException {
+        Process process = new ProcessBuilder(command)
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+        processes.add(process);
+
+        // readLine cannot time out, so the line is read on its own thread
+        CompletableFuture<String> ready = new CompletableFuture<>();
+        Thread.ofVirtual().name("tile-worker-startup").start(() -> {
+            try {
+                ready.complete(readReadyLine(process));
+            } catch (IOException e) {
+                ready.completeExceptionally(e);
+            }
+        });
+
+        String line;
+        try {
+            line = ready.get(STARTUP_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            process.destroyForcibly();
+            throw new IOException("Worker process did not start listening within "
+                    + STARTUP_TIMEOUT_SECONDS + " seconds.");
+        } catch (ExecutionException e) {
+            throw new IOException("Could not read the worker's output.", e.getCause());
+        } catch (InterruptedException e) {
+            process.destroyForcibly();
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a worker to start.");
+        }
+        if (line == null)
+            throw new IOException("Worker process exited before it started listening.");
+
+        int port = Integer.parseInt(line.substring(TileWorker.READY.length()).trim());
+        addresses.add(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+    }
+
+    /**
+     * @return the worker's ready line, or null if its output ends first
+     */
+    private static String readReadyLine(Process process) throws IOException {
+        BufferedReader out = new BufferedReader(
+                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+        String line;
+        while ((line = out.readLine()) != null && !line.startsWith(TileWorker.READY)) {
+            // Skip anything printed before the worker is ready
+        }
+        return line;
+    }
+
+    private static List<String> command(List<String> jvmOptions) {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        for (String option : ManagementFactory.getRuntimeMXBean().getInputArguments()) {
+            if (!option.startsWith("-agentlib") && !option.startsWith("-agentpath")
+                    && !option.startsWith("-javaagent") && !option.startsWith("-Xrunjdwp")
+                    && !option.startsWith("-XX:StartFlightRecording")) {
+                command.add(option);
+            }
+        }
+        command.addAll(jvmOptions);
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(TileWorker.class.getName());
+        command.add("0");
+        command.add("--exit-with-parent");
+        return command;
+    }
+
+    /**
+     * @return the workers' addresses, in start order
+     */
+    public List<InetSocketAddress> getAddresses() {
+        return List.copyOf(addresses);
+    }
+
+    /**
+     * @return the number of workers started
+     */
+    public int size() {
+        return addresses.size();
+    }
+
+    /**
+     * Kills one worker abruptly, as a crash would. Useful to exercise the
+     * coordinator's retries.
+     *
+     * @param index the worker's position in {@link #getAddresses()}
+     */
+    public void kill(int index) {
+        processes.get(index).destroyForcibly();
+    }
+
+    /**
+     * Stops every worker and waits for them to exit.
+     */
+    @Override
+    public void close() {
+        stop();
+    }
+
+    private void stop() {
+        for (Process process : processes) {
+            try {
+                process.getOutputStream().close();
+            } catch (IOException e) {
+                process.destroy();
+            }
+        }
+        for (Process process : processes) {
+            try {
+                if (!process.waitFor(5, TimeUnit.SECONDS)) {
+                    process.destroyForcibly().waitFor();
+                }
+            } catch (InterruptedException e) {
+                process.destroyForcibly();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,394 @@
+package distributed;
+
+import model.Matrix;
+import model.MatrixAccess;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Multiplies matrices block by block across {@link TileWorker} processes.
+ * <p>
+ * The product C = AB is split into square tiles of {@code tileSize}. Each
+ * tile C(i, j) is one task: the coordinator streams the tile pairs
+ * A(i, k), B(k, j) to a worker, which multiplies and accumulates them with
+ * the local kernel and sends C(i, j) back. Finished tiles are passed to a
+ * {@link TileSink} as they arrive, so no single JVM, not even the
+ * coordinator's, needs room for the whole product. A worker holds one task's
+ * tiles at a time.
+ * <p>
+ * Every worker gets one connection, and connections take tasks from a
+ * shared queue, so faster workers do more of them. When a worker dies or
+ * stops answering within the timeout, its connection is dropped and its
+ * current task goes back to the front of the queue for another worker. A
+ * task is given up on after {@code maxAttempts} tries, and the multiply
+ * fails if every worker has been dropped.
+ * <p>
+ * Smaller tiles balance load better and keep worker memory low; larger
+ * tiles send less data per flop, since each task moves
+ * {@code 2 * tileSize * n + tileSize^2} doubles for {@code 2 * tileSize^2 * n}
+ * flops.
+ *
+ * @author Youssef Amin
+ */
+
+public class TileCoordinator {
+
+    private static final MatrixAccess ACCESS = MatrixAccess.obtain();
+
+    /** Tries per task unless configured otherwise. */
+    public static final int DEFAULT_MAX_ATTEMPTS = 3;
+
+    /** Longest wait for a worker to connect or to answer unless configured otherwise. */
+    public static final Duration DEFAULT_TIMEOUT = Duration.ofMinutes(1);
+
+    private final List<InetSocketAddress> workers;
+    private final int tileSize;
+    private final int maxAttempts;
+    private final int timeoutMillis;
+
+    /**
+     * @param workers  addresses of running workers
+     * @param tileSize the edge length of a tile
+     * @throws IllegalArgumentException if there are no workers or the tile size is not positive
+     */
+    public TileCoordinator(List<InetSocketAddress> workers, int tileSize) {
+        this(workers, tileSize, DEFAULT_MAX_ATTEMPTS, DEFAULT_TIMEOUT);
+    }
+
+    /**
+     * @param workers     addresses of running workers
+     * @param tileSize    the edge length of a tile
+     * @param maxAttempts how many times a task may be sent before the multiply fails
+     * @param timeout     longest wait for a worker to connect or to answer, after which it is dropped
+     * @throws IllegalArgumentException if there are no workers or a bound is not positive
+     */
+    public TileCoordinator(List<InetSocketAddress> workers, int tileSize, int maxAttempts, Duration timeout) {
+        if (workers == null || workers.isEmpty())
+            throw new IllegalArgumentException("At least one worker is required.");
+        if (tileSize <= 0)
+            throw new IllegalArgumentException("Tile size must be positive.");
+        if (maxAttempts <= 0)
+            throw new IllegalArgumentException("Attempts must be positive.");
+        if (timeout.isNegative() || timeout.isZero())
+            throw new IllegalArgumentException("Timeout must be positive.");
+
+        this.workers = List.copyOf(workers);
+        this.tileSize = tileSize;
+        this.maxAttempts = maxAttempts;
+        this.timeoutMillis = (int) Math.min(Integer.MAX_VALUE, timeout.toMillis());
+    }
+
+    /**
+     * @return the edge length of a tile
+     */
+    public int getTileSize() {
+        return tileSize;
+    }
+
+    /**
+     * @return the number of workers
+     */
+    public int getWorkerCount() {
+        return workers.size();
+    }
+
+    /**
+     * Computes the product into one matrix.
+     *
+     * @param a the left matrix
+     * @param b the right matrix
+     * @return the product
+     * @throws IllegalArgumentException if the inner dimensions differ
+     * @throws IOException              if the workers cannot finish the product
+     */
+    public Matrix multiply(Matrix a, Matrix b) throws IOException {
+        int n = b.getNumCol();
+        double[] result = new double[Math.multiplyExact(a.getNumRow(), n)];
+        multiply(a, b, (rowOffset, colOffset, tile) -> {
+            double[] entries = ACCESS.raw(tile);
+            int cols = tile.getNumCol();
+            for (int i = 0; i < tile.getNumRow(); i++) {
+                System.arraycopy(entries, i * cols, result, (rowOffset + i) * n + colOffset, cols);
+            }
+        });
+        return ACCESS.wrap(a.getNumRow(), n, result);
+    }
+
+    /**
+     * Computes the product and streams it to a sink tile by tile. Returns
+     * once every tile has been delivered; if it throws, the sink may have
+     * received some of the tiles.
+     *
+     * @param a    the left matrix
+     * @param b    the right matrix
+     * @param sink receives each tile of the product once
+     * @throws IllegalArgumentException if the inner dimensions differ
+     * @throws IOException              if the workers cannot finish the product
+     */
+    public void multiply(Matrix a, Matrix b, TileSink sink) throws IOException {
+        if (a.getNumCol() != b.getNumRow())
+            throw new IllegalArgumentException("Matrix dimensions do not allow multiplication.");
+
+        new Run(a, b, sink).execute();
+    }
+
+    /**
+     * One task: tile C(row, col) of the product.
+     */
+    private static final class Task {
+        private final long id;
+        private final int row;
+        private final int col;
+        private int attempts;
+
+        Task(long id, int row, int col) {
+            this.id = id;
+            this.row = row;
+            this.col = col;
+        }
+    }
+
+    /**
+     * State of one multiply shared by its connection threads.
+     */
+    private final class Run {
+        private final Matrix a;
+        private final Matrix b;
+        private final TileSink sink;
+        private final int rowTiles;
+        private final int colTiles;
+        private final int innerTiles;
+
+        private final LinkedBlockingDeque<Task> queue = new LinkedBlockingDeque<>();
+        private final AtomicInteger remaining;
+        private final AtomicInteger links = new AtomicInteger(workers.size());
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+        private final CountDownLatch finished = new CountDownLatch(1);
+        private final List<Socket> sockets = new ArrayList<>();
+
+        Run(Matrix a, Matrix b, TileSink sink) {
+            this.a = a;
+            this.b = b;
+            this.sink = sink;
+            rowTiles = tiles(a.getNumRow());
+            colTiles = tiles(b.getNumCol());
+            innerTiles = tiles(a.getNumCol());
+
+            long id = 0;
+            for (int i = 0; i < rowTiles; i++) {
+                for (int j = 0; j < colTiles; j++) {
+                    queue.add(new Task(id++, i, j));
+                }
+            }
+            remaining = new AtomicInteger(queue.size());
+        }
+
+        void execute() throws IOException {
+            List<Thread> threads = new ArrayList<>();
+            for (InetSocketAddress worker : workers) {
+                Thread thread = new Thread(() -> link(worker), "tile-link-" + worker);
+                thread.setDaemon(true);
+                thread.start();
+                threads.add(thread);
+            }
+
+            try {
+                finished.await();
+            } catch (InterruptedException e) {
+                fail(e);
+                Thread.currentThread().interrupt();
+            } finally {
+                // Unblocks connections still waiting on a worker
+                synchronized (sockets) {
+                    for (Socket socket : sockets) {
+                        closeQuietly(socket);
+                    }
+                }
+                for (Thread thread : threads) {
+                    joinUninterruptibly(thread);
+                }
+            }
+
+            Throwable cause = failure.get();
+            if (cause instanceof IOException e) throw e;
+            if (cause instanceof RuntimeException e) throw e;
+            if (cause instanceof Error e) throw e;
+            if (cause != null) throw new IOException("Distributed multiply was interrupted.", cause);
+        }
+
+        /**
+         * Serves tasks to one worker until the product is done or the worker is dropped.
+         */
+        private void link(InetSocketAddress worker) {
+            Task task = null;
+            try (Socket socket = new Socket()) {
+                synchronized (sockets) {
+                    if (finished.getCount() == 0) return;
+                    sockets.add(socket);
+                }
+                socket.connect(worker, timeoutMillis);
+                socket.setSoTimeout(timeoutMillis);
+                socket.setTcpNoDelay(true);
+                DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 1 << 16));
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), 1 << 16));
+                TileProtocol.writeHello(out);
+                TileProtocol.readHello(in);
+
+                byte[] buffer = TileProtocol.buffer();
+                while (finished.getCount() > 0) {
+                    task = queue.poll(50, TimeUnit.MILLISECONDS);
+                    if (task == null) continue;
+
+                    task.attempts++;
+                    send(out, task, buffer);
+                    Matrix tile = receive(in, task, worker, buffer);
+                    synchronized (this) {
+                        if (finished.getCount() > 0) {
+                            sink.accept(task.row * tileSize, task.col * tileSize, tile);
+                        }
+                    }
+                    task = null;
+                    if (remaining.decrementAndGet() == 0) {
+                        finished.countDown();
+                    }
+                }
+            } catch (IOException e) {
+                drop(task, worker, e);
+            } catch (InterruptedException e) {
+                fail(e);
+            } catch (RuntimeException | Error e) {
+                // Thrown by the sink; the product cannot be completed
+                fail(e);
+            }
+        }
+
+        private void send(DataOutputStream out, Task task, byte[] buffer) throws IOException {
+            int rows = extent(a.getNumRow(), task.row);
+            int cols = extent(b.getNumCol(), task.col);
+            out.writeLong(task.id);
+            out.writeInt(rows);
+            out.writeInt(cols);
+            out.writeInt(innerTiles);
+
+            double[] scratch = new double[rows * Math.min(tileSize, a.getNumCol())
+                    + Math.min(tileSize, b.getNumRow()) * cols];
+            for (int k = 0; k < innerTiles; k++) {
+                int inner = extent(a.getNumCol(), k);
+                int split = rows * inner;
+                copyTile(a, task.row * tileSize, k * tileSize, rows, inner, scratch, 0);
+                copyTile(b, k * tileSize, task.col * tileSize, inner, cols, scratch, split);
+                out.writeInt(inner);
+                TileProtocol.writeDoubles(out, scratch, 0, split + inner * cols, buffer);
+            }
+            out.flush();
+        }
+
+        private Matrix receive(DataInputStream in, Task task, InetSocketAddress worker, byte[] buffer)
+                throws IOException {
+            long id = in.readLong();
+            int status = in.readInt();
+            if (id != task.id)
+                throw new IOException("Worker " + worker + " answered task " + id + " instead of " + task.id + ".");
+            if (status != TileProtocol.OK) {
+                // The worker could not compute the task, and neither could any other
+                fail(new IOException("Worker " + worker + " failed a task: " + in.readUTF()));
+                throw new IOException("Task failed.");
+            }
+
+            int rows = extent(a.getNumRow(), task.row);
+            int cols = extent(b.getNumCol(), task.col);
+            double[] entries = new double[rows * cols];
+            TileProtocol.readDoubles(in, entries, 0, entries.length, buffer);
+            return ACCESS.wrap(rows, cols, entries);
+        }
+
+        /**
+         * Gives up on a worker and reschedules its unfinished task.
+         */
+        private void drop(Task task, InetSocketAddress worker, IOException cause) {
+            if (finished.getCount() == 0) return;
+
+            if (task != null) {
+                if (task.attempts >= maxAttempts) {
+                    fail(new IOException("Tile (" + task.row + ", " + task.col + ") failed on "
+                            + task.attempts + " attempts; last worker " + worker + ".", cause));
+                    return;
+                }
+                queue.addFirst(task);
+            }
+            if (links.decrementAndGet() == 0) {
+                fail(new IOException("All " + workers.size() + " workers failed; last was " + worker + ".", cause));
+            }
+        }
+
+        private void fail(Throwable cause) {
+            if (failure.compareAndSet(null, cause)) {
+                finished.countDown();
+            }
+        }
+
+        private int tiles(int length) {
+            return (length + tileSize - 1) / tileSize;
+        }
+
+        private int extent(int length, int tile) {
+            return Math.min(tileSize, length - tile * tileSize);
+        }
+    }
+
+    /**
+     * Copies a block of m into dest in row-major order.
+     */
+    private static void copyTile(Matrix m, int row, int col, int rows, int cols, double[] dest, int offset) {
+        if (ACCESS.isDense(m)) {
+            double[] data = ACCESS.raw(m);
+            int stride = m.getNumCol();
+            for (int i = 0; i < rows; i++) {
+                System.arraycopy(data, (row + i) * stride + col, dest, offset + i * cols, cols);
+            }
+        } else {
+            for (int i = 0; i < rows; i++) {
+                for (int j = 0; j < cols; j++) {
+                    dest[offset + i * cols + j] = m.get(row + i, col + j);
+                }
+            }
+        }
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // Already unusable
+        }
+    }
+
+    private static void joinUninterruptibly(Thread thread) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                thread.join();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package distributed;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Wire format between {@link TileCoordinator} and {@link TileWorker}. All
+ * values are big-endian, and tiles are sent as row-major doubles.
+ * <pre>
+ * hello    (both ways, once) int MAGIC, int VERSION
+ * task     (to worker)       long id, int rows, int cols, int pairs, then per pair:
+ *                            int inner, rows x inner doubles of A, inner x cols doubles of B
+ * result   (to coordinator)  long id, int status; OK: rows x cols doubles of C,
+ *                            FAILED: a modified-UTF-8 message
+ * </pre>
+ * A worker answers each task with the sum of its pairs' products. Either
+ * side may close the connection at any time; a task without a result is
+ * sent again elsewhere.
+ *
+ * @author Youssef Amin
+ */
+
+final class TileProtocol {
+
+    static final int MAGIC = 0x4D54584D; // "MTXM"
+    static final int VERSION = 1;
+
+    static final int OK = 0;
+    static final int FAILED = 1;
+
+    /** Doubles converted per chunk, so large tiles need no tile-sized byte buffer. */
+    private static final int CHUNK = 8192;
+
+    private TileProtocol() {
+    }
+
+    static void writeHello(DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.flush();
+    }
+
+    static void readHello(DataInputStream in) throws IOException {
+        int magic = in.readInt();
+        int version = in.readInt();
+        if (magic != MAGIC || version != VERSION) {
+            throw new IOException("Peer does not speak tile protocol version " + VERSION + ".");
+        }
+    }
+
+    static void writeDoubles(DataOutputStream out, double[] values, int offset, int length, byte[] buffer)
+            throws IOException {
+        ByteBuffer bytes = ByteBuffer.wrap(buffer);
+        for (int done = 0; done < length; ) {
+            int n = Math.min(CHUNK, length - done);
+            bytes.clear();
+            bytes.asDoubleBuffer().put(values, offset + done, n);
+            out.write(buffer, 0, n * Double.BYTES);
+            done += n;
+        }
+    }
+
+    static void readDoubles(DataInputStream in, double[] values, int offset, int length, byte[] buffer)
+            throws IOException {
+        ByteBuffer bytes = ByteBuffer.wrap(buffer);
+        for (int done = 0; done < length; ) {
+            int n = Math.min(CHUNK, length - done);
+            in.readFully(buffer, 0, n * Double.BYTES);
+            bytes.clear();
+            bytes.asDoubleBuffer().get(values, offset + done, n);
+            done += n;
+        }
+    }
+
+    /**
+     * @return a scratch buffer large enough for {@link #writeDoubles} and {@link #readDoubles}
+     */
+    static byte[] buffer() {
+        return new byte[CHUNK * Double.BYTES];
+    }
+
+    /**
+     * Reads the id that starts a message, or returns -1 at a clean end of stream.
+     */
+    static long readIdOrEnd(DataInputStream in) throws IOException {
+        try {
+            return in.readLong();
+        } catch (EOFException e) {
+            return -1;
+        }
+    }
+}
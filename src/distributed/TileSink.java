@@ -0,0 +1,25 @@
+package distributed;
+
+import model.Matrix;
+
+/**
+ * Receives the result of a distributed multiply one tile at a time, so the
+ * product never has to be held in one heap. A sink might copy tiles into a
+ * matrix, write them to a file, or reduce them on the fly.
+ * <p>
+ * Tiles arrive in no particular order, each exactly once, and calls are
+ * never concurrent.
+ *
+ * @author Youssef Amin
+ */
+
+@FunctionalInterface
+public interface TileSink {
+
+    /**
+     * @param rowOffset the row of the product where the tile starts
+     * @param colOffset the column of the product where the tile starts
+     * @param tile      the finished tile
+     */
+    void accept(int rowOffset, int colOffset, Matrix tile);
+}
@@ -0,0 +1,237 @@
+package distributed;
+
+import model.MatrixAccess;
+import model.MutableMatrix;
+import operations.MatrixOperations;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+
+/**
+ * Worker side of the distributed multiply: accepts coordinator connections
+ * and answers each task with the sum of the products of its tile pairs,
+ * computed with the local {@link MatrixOperations} kernels. Each connection
+ * is served by its own thread and holds only the current tiles in memory.
+ * <p>
+ * Run it as its own process with
+ * <pre>
+ *     java -cp &lt;classpath&gt; distributed.TileWorker [port] [--bind &lt;address&gt;] [--exit-with-parent]
+ * </pre>
+ * Port 0, the default, picks a free port. Once listening the worker prints
+ * {@code TileWorker listening on port <port>} on standard output. With
+ * {@code --exit-with-parent} it exits when its standard input reaches end
+ * of file, which is how {@link LocalWorkerPool} makes sure no worker
+ * outlives the JVM that started it.
+ * <p>
+ * The tile protocol has no authentication and no encryption: anyone who can
+ * connect can read the tiles sent back, and can make the worker allocate
+ * memory and spend CPU time. A worker therefore listens on the loopback
+ * address unless given another one, such as {@code --bind 0.0.0.0}, and
+ * rejects tasks whose tiles exceed its entry limit, so a single request
+ * cannot exhaust its heap. Bind it to other interfaces only on a network
+ * where every host that can reach the port is trusted.
+ *
+ * @author Youssef Amin
+ */
+
+public class TileWorker implements AutoCloseable {
+
+    private static final MatrixAccess ACCESS = MatrixAccess.obtain();
+
+    /** Line prefix printed on standard output once the worker is listening. */
+    public static final String READY = "TileWorker listening on port ";
+
+    /** Largest tile accepted unless configured otherwise: 4096 x 4096 entries, 128 MB. */
+    public static final int DEFAULT_MAX_TILE_ENTRIES = 1 << 24;
+
+    private final ServerSocket server;
+    private final int maxTileEntries;
+
+    /**
+     * Starts listening on the given loopback port; call {@link #serve()} to accept connections.
+     *
+     * @param port the port to listen on, or 0 for any free port
+     * @throws IOException if the port cannot be bound
+     */
+    public TileWorker(int port) throws IOException {
+        this(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+    }
+
+    /**
+     * @param address the address to listen on
+     * @throws IOException if the address cannot be bound
+     */
+    public TileWorker(InetSocketAddress address) throws IOException {
+        this(address, DEFAULT_MAX_TILE_ENTRIES);
+    }
+
+    /**
+     * @param address        the address to listen on
+     * @param maxTileEntries the most entries a tile of a task may have
+     * @throws IllegalArgumentException if maxTileEntries is not positive
+     * @throws IOException              if the address cannot be bound
+     */
+    public TileWorker(InetSocketAddress address, int maxTileEntries) throws IOException {
+        if (maxTileEntries <= 0)
+            throw new IllegalArgumentException("Tile entry limit must be positive.");
+
+        this.maxTileEntries = maxTileEntries;
+        server = new ServerSocket();
+        server.setReuseAddress(true);
+        server.bind(address);
+    }
+
+    /**
+     * @return the port the worker listens on
+     */
+    public int getPort() {
+        return server.getLocalPort();
+    }
+
+    /**
+     * Accepts connections until the worker is closed, serving each on a daemon thread.
+     */
+    public void serve() {
+        while (!server.isClosed()) {
+            Socket socket;
+            try {
+                socket = server.accept();
+            } catch (IOException e) {
+                return; // closed
+            }
+            Thread thread = new Thread(() -> handle(socket), "tile-worker-" + socket.getPort());
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    /**
+     * Starts {@link #serve()} on a daemon thread, for running a worker inside the current JVM.
+     */
+    public void start() {
+        Thread thread = new Thread(this::serve, "tile-worker-accept-" + getPort());
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stops accepting connections. Connections already open finish their current task.
+     */
+    @Override
+    public void close() throws IOException {
+        server.close();
+    }
+
+    private void handle(Socket socket) {
+        try (socket) {
+            socket.setTcpNoDelay(true);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 1 << 16));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), 1 << 16));
+            TileProtocol.writeHello(out);
+            TileProtocol.readHello(in);
+
+            byte[] buffer = TileProtocol.buffer();
+            long id;
+            while ((id = TileProtocol.readIdOrEnd(in)) >= 0) {
+                MutableMatrix sum;
+                try {
+                    sum = compute(in, buffer);
+                } catch (IllegalArgumentException | OutOfMemoryError e) {
+                    // The rest of the task cannot be read reliably, so report and hang up
+                    out.writeLong(id);
+                    out.writeInt(TileProtocol.FAILED);
+                    out.writeUTF(String.valueOf(e.getMessage()));
+                    out.flush();
+                    return;
+                }
+                out.writeLong(id);
+                out.writeInt(TileProtocol.OK);
+                TileProtocol.writeDoubles(out, ACCESS.writable(sum), 0, sum.getNumRow() * sum.getNumCol(), buffer);
+                out.flush();
+            }
+        } catch (IOException e) {
+            // The coordinator reschedules the task of a dropped connection
+        }
+    }
+
+    /**
+     * Reads the tile pairs of one task and returns the sum of their products.
+     *
+     * @throws IllegalArgumentException if a tile is empty or over the entry limit
+     */
+    private MutableMatrix compute(DataInputStream in, byte[] buffer) throws IOException {
+        int rows = in.readInt();
+        int cols = in.readInt();
+        int pairs = in.readInt();
+        checkTile(rows, cols);
+        if (pairs < 0)
+            throw new IllegalArgumentException("Tile pair count cannot be negative.");
+
+        MutableMatrix sum = new MutableMatrix(rows, cols);
+        MutableMatrix partial = new MutableMatrix(rows, cols);
+        for (int p = 0; p < pairs; p++) {
+            int inner = in.readInt();
+            checkTile(rows, inner);
+            checkTile(inner, cols);
+            MutableMatrix a = new MutableMatrix(rows, inner);
+            MutableMatrix b = new MutableMatrix(inner, cols);
+            TileProtocol.readDoubles(in, ACCESS.writable(a), 0, rows * inner, buffer);
+            TileProtocol.readDoubles(in, ACCESS.writable(b), 0, inner * cols, buffer);
+            MatrixOperations.addInPlace(sum, MatrixOperations.multiply(a, b, partial));
+        }
+        return sum;
+    }
+
+    private void checkTile(int rows, int cols) {
+        if (rows <= 0 || cols <= 0)
+            throw new IllegalArgumentException("Tile dimensions must be positive.");
+        if ((long) rows * cols > maxTileEntries)
+            throw new IllegalArgumentException("Tile of " + rows + " x " + cols + " exceeds the limit of "
+                    + maxTileEntries + " entries.");
+    }
+
+    /**
+     * Runs a worker process until it is killed, or until standard input
+     * closes when started with {@code --exit-with-parent}.
+     *
+     * @param args an optional port, optionally {@code --bind} and an address
+     *             to listen on instead of loopback, and optionally {@code --exit-with-parent}
+     * @throws IOException if the address cannot be bound
+     */
+    public static void main(String[] args) throws IOException {
+        int port = 0;
+        InetAddress host = InetAddress.getLoopbackAddress();
+        boolean exitWithParent = false;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--exit-with-parent")) {
+                exitWithParent = true;
+            } else if (args[i].equals("--bind") && i + 1 < args.length) {
+                host = InetAddress.getByName(args[++i]);
+            } else {
+                port = Integer.parseInt(args[i]);
+            }
+        }
+
+        TileWorker worker = new TileWorker(new InetSocketAddress(host, port));
+        System.out.println(READY + worker.getPort());
+        System.out.flush();
+
+        if (exitWithParent) {
+            worker.start();
+            InputStream stdin = System.in;
+            while (stdin.read() >= 0) {
+                // Ignore input; only end of file matters
+            }
+            System.exit(0);
+        }
+        worker.serve();
+    }
+}
@@ -0,0 +1,74 @@
+package metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free log-linear histogram of non-negative longs, in the style of
+ * HdrHistogram. Values below 64 get a bucket each; above that, every power
+ * of two is split into 32 equal sub-buckets, so a recorded value is known to
+ * within about 3% at any magnitude. Recording is one array increment plus
+ * the running sum, minimum and maximum, with no allocation.
+ *
+ * @author Youssef Amin
+ */
+
+final class ConcurrentHistogram {
+
+    static final int SUB_BUCKET_BITS = 5;
+    static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /** Values are clamped to 2^48 - 1, about 3.3 days in nanoseconds. */
+    static final long MAX_VALUE = (1L << 48) - 1;
+    static final int BUCKETS = indexOf(MAX_VALUE) + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator min = new LongAccumulator(Math::min, Long.MAX_VALUE);
+    private final LongAccumulator max = new LongAccumulator(Math::max, Long.MIN_VALUE);
+
+    void record(long value) {
+        long v = Math.min(Math.max(value, 0), MAX_VALUE);
+        counts.incrementAndGet(indexOf(v));
+        sum.add(v);
+        min.accumulate(v);
+        max.accumulate(v);
+    }
+
+    HistogramSnapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = counts.get(i);
+        }
+        return new HistogramSnapshot(copy, sum.sum(), min.get(), max.get());
+    }
+
+    void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        sum.reset();
+        min.reset();
+        max.reset();
+    }
+
+    /**
+     * Bucket of a value in [0, MAX_VALUE]: the value itself below 64, then
+     * 32 buckets per power of two.
+     */
+    static int indexOf(long value) {
+        int shift = Math.max(0, 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS);
+        return (shift << SUB_BUCKET_BITS) + (int) (value >>> shift);
+    }
+
+    /**
+     * @return the largest value that falls in the bucket
+     */
+    static long highestIn(int index) {
+        if (index < 2 * SUB_BUCKETS) return index;
+        int shift = (index >>> SUB_BUCKET_BITS) - 1;
+        long sub = index - ((long) shift << SUB_BUCKET_BITS);
+        return ((sub + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,114 @@
+package metrics;
+
+/**
+ * Immutable copy of a histogram's buckets at one point in time. Percentiles
+ * are reported as the largest value of the bucket they fall in, capped at
+ * the recorded maximum, so they overstate the true value by at most about 3%.
+ *
+ * @author Youssef Amin
+ */
+
+public final class HistogramSnapshot {
+
+    private final long[] counts;
+    private final long count;
+    private final long sum;
+    private final long min;
+    private final long max;
+
+    HistogramSnapshot(long[] counts, long sum, long min, long max) {
+        long total = 0;
+        for (long c : counts) {
+            total += c;
+        }
+        this.counts = counts;
+        this.count = total;
+        this.sum = sum;
+        this.min = total == 0 ? 0 : min;
+        this.max = total == 0 ? 0 : max;
+    }
+
+    /**
+     * @return the number of recorded values
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return the smallest recorded value, or 0 if none
+     */
+    public long getMin() {
+        return min;
+    }
+
+    /**
+     * @return the largest recorded value, or 0 if none
+     */
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * @return the mean of the recorded values, or 0 if none
+     */
+    public double getMean() {
+        return count == 0 ? 0.0 : (double) sum / count;
+    }
+
+    /**
+     * @return the 50th percentile
+     */
+    public long getMedian() {
+        return getPercentile(50);
+    }
+
+    /**
+     * @return the 90th percentile
+     */
+    public long getP90() {
+        return getPercentile(90);
+    }
+
+    /**
+     * @return the 99th percentile
+     */
+    public long getP99() {
+        return getPercentile(99);
+    }
+
+    /**
+     * @return the 99.9th percentile
+     */
+    public long getP999() {
+        return getPercentile(99.9);
+    }
+
+    /**
+     * @param percentile a percentile between 0 and 100
+     * @return the value at or below which that percentage of the recorded values fall, or 0 if none
+     * @throws IllegalArgumentException if the percentile is outside [0, 100]
+     */
+    public long getPercentile(double percentile) {
+        if (!(percentile >= 0 && percentile <= 100)) {
+            throw new IllegalArgumentException("Percentile must be between 0 and 100.");
+        }
+        if (count == 0) return 0;
+
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(ConcurrentHistogram.highestIn(i), max);
+            }
+        }
+        return max;
+    }
+
+    @Override
+    public String toString() {
+        return "count=" + count + ", mean=" + Math.round(getMean()) + ", p50=" + getMedian()
+                + ", p99=" + getP99() + ", max=" + max;
+    }
+}
@@ -0,0 +1,289 @@
+package metrics;
+
+import model.Matrix;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records what the matrix operations spend their time on: per-operation call
+ * counts, latency and input-size histograms, nominal FLOP counts and bytes
+ * allocated. Results can be pulled with {@link #snapshot()}, read over JMX
+ * through {@link MatrixMetricsMXBean}, pushed to {@link OperationListener}s,
+ * and slow calls are emitted as Flight Recorder events.
+ * <p>
+ * Instrumentation is off by default; start the JVM with
+ * {@code -Dmatrixmaster.metrics=true} or call {@link #setEnabled(boolean)}.
+ * While it is off, {@link #begin(OperationType)} is a single volatile read
+ * that returns null, and {@link #end(Probe, Matrix, long)} a null check.
+ * <p>
+ * Calls are recorded when they complete; a call that throws is not counted.
+ * Allocation is measured on the calling thread only, so allocations made by
+ * pool workers in the parallel operations are not included.
+ *
+ * @author Youssef Amin
+ */
+
+public final class Instrumentation {
+
+    /** Name under which the {@link MatrixMetricsMXBean} is registered. */
+    public static final String OBJECT_NAME = "matrixmaster:type=MatrixMetrics";
+
+    private static volatile boolean enabled = Boolean.getBoolean("matrixmaster.metrics");
+    private static volatile long eventThresholdNanos =
+            Duration.ofMillis(Long.getLong("matrixmaster.metrics.eventThreshold", 10)).toNanos();
+    private static volatile boolean registered;
+
+    private static final Recorder[] RECORDERS = new Recorder[OperationType.values().length];
+    private static final List<OperationListener> LISTENERS = new CopyOnWriteArrayList<>();
+
+    static {
+        for (OperationType type : OperationType.values()) {
+            RECORDERS[type.ordinal()] = new Recorder();
+        }
+        if (enabled) {
+            register();
+        }
+    }
+
+    private Instrumentation() {
+    }
+
+    /**
+     * @return true if operations are being recorded
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Turns recording on or off. Enabling it the first time also registers
+     * the MXBean with the platform MBean server.
+     *
+     * @param on true to record operations
+     */
+    public static void setEnabled(boolean on) {
+        if (on) {
+            register();
+        }
+        enabled = on;
+    }
+
+    /**
+     * @return the minimum duration of an operation emitted as a Flight Recorder event
+     */
+    public static Duration getEventThreshold() {
+        return Duration.ofNanos(eventThresholdNanos);
+    }
+
+    /**
+     * Sets the minimum duration of an operation emitted as a
+     * {@code matrixmaster.MatrixOperation} Flight Recorder event. Defaults to
+     * 10 ms, or the {@code matrixmaster.metrics.eventThreshold} system
+     * property in milliseconds.
+     *
+     * @param threshold the minimum duration
+     * @throws IllegalArgumentException if the threshold is negative
+     */
+    public static void setEventThreshold(Duration threshold) {
+        if (threshold.isNegative()) {
+            throw new IllegalArgumentException("Event threshold cannot be negative.");
+        }
+        eventThresholdNanos = threshold.toNanos();
+    }
+
+    /**
+     * @param listener called after every recorded operation
+     */
+    public static void addListener(OperationListener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("Listener cannot be null.");
+        }
+        LISTENERS.add(listener);
+    }
+
+    /**
+     * @param listener a listener added earlier
+     */
+    public static void removeListener(OperationListener listener) {
+        LISTENERS.remove(listener);
+    }
+
+    /**
+     * Starts timing an operation.
+     *
+     * @param type the operation about to run
+     * @return the probe to pass to {@link #end(Probe, Matrix, long)}, or null when disabled
+     */
+    public static Probe begin(OperationType type) {
+        if (!enabled) return null;
+
+        MatrixOperationEvent event = new MatrixOperationEvent();
+        event.begin();
+        return new Probe(type, System.nanoTime(), allocatedBytes(), event);
+    }
+
+    /**
+     * Records a completed operation. Does nothing if probe is null.
+     *
+     * @param probe the probe returned by {@link #begin(OperationType)}
+     * @param input the first operand, whose shape is recorded
+     * @param flops nominal floating-point operations of the classical algorithm
+     */
+    public static void end(Probe probe, Matrix input, long flops) {
+        if (probe == null) return;
+
+        long nanos = System.nanoTime() - probe.startNanos;
+        long allocated = Allocation.THREADS == null ? -1 : allocatedBytes() - probe.startAllocated;
+        int rows = input.getNumRow();
+        int cols = input.getNumCol();
+        RECORDERS[probe.type.ordinal()].record(nanos, (long) rows * cols, flops, allocated);
+
+        MatrixOperationEvent event = probe.event;
+        event.end();
+        if (nanos >= eventThresholdNanos && event.shouldCommit()) {
+            event.operation = probe.type.name();
+            event.rows = rows;
+            event.columns = cols;
+            event.flops = flops;
+            event.allocated = allocated;
+            event.commit();
+        }
+
+        for (OperationListener listener : LISTENERS) {
+            listener.operationCompleted(probe.type, rows, cols, nanos, flops, allocated);
+        }
+    }
+
+    /**
+     * @return a snapshot of every operation called since the last reset, in declaration order
+     */
+    public static Map<OperationType, OperationSnapshot> snapshot() {
+        Map<OperationType, OperationSnapshot> result = new EnumMap<>(OperationType.class);
+        for (OperationType type : OperationType.values()) {
+            OperationSnapshot s = RECORDERS[type.ordinal()].snapshot(type);
+            if (s.getCalls() > 0) {
+                result.put(type, s);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Clears all counters and histograms.
+     */
+    public static void reset() {
+        for (Recorder recorder : RECORDERS) {
+            recorder.reset();
+        }
+    }
+
+    private static long allocatedBytes() {
+        com.sun.management.ThreadMXBean threads = Allocation.THREADS;
+        return threads == null ? 0 : threads.getCurrentThreadAllocatedBytes();
+    }
+
+    /**
+     * Holds the per-thread allocation counter, so the management classes are
+     * only loaded once instrumentation is first used.
+     */
+    private static final class Allocation {
+        static final com.sun.management.ThreadMXBean THREADS = counter();
+
+        private static com.sun.management.ThreadMXBean counter() {
+            if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads
+                    && threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+                return threads;
+            }
+            return null;
+        }
+    }
+
+    private static synchronized void register() {
+        if (registered) return;
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new MXBean(), new ObjectName(OBJECT_NAME));
+        } catch (InstanceAlreadyExistsException e) {
+            // Another copy of this class, e.g. from a second class loader, owns the name
+        } catch (JMException e) {
+            System.getLogger(Instrumentation.class.getName()).log(System.Logger.Level.WARNING,
+                    "Could not register " + OBJECT_NAME + "; metrics stay available through snapshot().", e);
+        }
+        registered = true;
+    }
+
+    /**
+     * Counters and histograms of one operation type.
+     */
+    private static final class Recorder {
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder flops = new LongAdder();
+        private final LongAdder allocated = new LongAdder();
+        private final ConcurrentHistogram latency = new ConcurrentHistogram();
+        private final ConcurrentHistogram inputSize = new ConcurrentHistogram();
+
+        void record(long nanos, long entries, long flopCount, long allocatedBytes) {
+            calls.increment();
+            flops.add(flopCount);
+            if (allocatedBytes > 0) {
+                allocated.add(allocatedBytes);
+            }
+            latency.record(nanos);
+            inputSize.record(entries);
+        }
+
+        OperationSnapshot snapshot(OperationType type) {
+            return new OperationSnapshot(type, calls.sum(), flops.sum(), allocated.sum(),
+                    latency.snapshot(), inputSize.snapshot());
+        }
+
+        void reset() {
+            calls.reset();
+            flops.reset();
+            allocated.reset();
+            latency.reset();
+            inputSize.reset();
+        }
+    }
+
+    private static final class MXBean implements MatrixMetricsMXBean {
+
+        @Override
+        public boolean isEnabled() {
+            return Instrumentation.isEnabled();
+        }
+
+        @Override
+        public void setEnabled(boolean on) {
+            Instrumentation.setEnabled(on);
+        }
+
+        @Override
+        public long getEventThresholdMillis() {
+            return getEventThreshold().toMillis();
+        }
+
+        @Override
+        public void setEventThresholdMillis(long millis) {
+            setEventThreshold(Duration.ofMillis(millis));
+        }
+
+        @Override
+        public OperationSnapshot[] getOperations() {
+            return snapshot().values().toArray(new OperationSnapshot[0]);
+        }
+
+        @Override
+        public void reset() {
+            Instrumentation.reset();
+        }
+    }
+}
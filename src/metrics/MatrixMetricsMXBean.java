@@ -0,0 +1,29 @@
+package metrics;
+
+/**
+ * JMX view of {@link Instrumentation}, registered as
+ * {@value Instrumentation#OBJECT_NAME} the first time instrumentation is enabled.
+ *
+ * @author Youssef Amin
+ */
+
+public interface MatrixMetricsMXBean {
+
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    /**
+     * @return the minimum duration of operations reported as Flight Recorder events
+     */
+    long getEventThresholdMillis();
+
+    void setEventThresholdMillis(long millis);
+
+    /**
+     * @return one snapshot per operation that has been called since the last reset
+     */
+    OperationSnapshot[] getOperations();
+
+    void reset();
+}
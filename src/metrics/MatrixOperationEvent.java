@@ -0,0 +1,44 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight Recorder event for a matrix operation that took at least
+ * {@link Instrumentation#getEventThreshold()}. JFR's own threshold setting,
+ * {@code matrixmaster.MatrixOperation#threshold}, can raise the bar further
+ * for a recording.
+ *
+ * @author Youssef Amin
+ */
+
+@Name("matrixmaster.MatrixOperation")
+@Label("Matrix Operation")
+@Category("MatrixMaster")
+@Description("A matrix operation slower than the configured threshold")
+@StackTrace(true)
+@Threshold("0 ms")
+final class MatrixOperationEvent extends Event {
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Rows")
+    int rows;
+
+    @Label("Columns")
+    int columns;
+
+    @Label("Floating-Point Operations")
+    long flops;
+
+    @Label("Allocated")
+    @DataAmount
+    long allocated;
+}
@@ -0,0 +1,24 @@
+package metrics;
+
+/**
+ * Receives every operation recorded by {@link Instrumentation} while it is
+ * enabled, for forwarding to an external metrics system. Listeners run on
+ * the thread that performed the operation, after it completes, so they
+ * should be quick and must be thread-safe.
+ *
+ * @author Youssef Amin
+ */
+
+@FunctionalInterface
+public interface OperationListener {
+
+    /**
+     * @param type           the operation
+     * @param rows           rows of the first operand
+     * @param cols           columns of the first operand
+     * @param nanos          wall-clock duration in nanoseconds
+     * @param flops          nominal floating-point operations of the classical algorithm
+     * @param allocatedBytes bytes allocated by the calling thread, or -1 if the JVM cannot measure it
+     */
+    void operationCompleted(OperationType type, int rows, int cols, long nanos, long flops, long allocatedBytes);
+}
@@ -0,0 +1,75 @@
+package metrics;
+
+/**
+ * Totals and distributions for one {@link OperationType} at one point in time.
+ *
+ * @author Youssef Amin
+ */
+
+public final class OperationSnapshot {
+
+    private final OperationType type;
+    private final long calls;
+    private final long flops;
+    private final long allocatedBytes;
+    private final HistogramSnapshot latency;
+    private final HistogramSnapshot inputSize;
+
+    OperationSnapshot(OperationType type, long calls, long flops, long allocatedBytes,
+                      HistogramSnapshot latency, HistogramSnapshot inputSize) {
+        this.type = type;
+        this.calls = calls;
+        this.flops = flops;
+        this.allocatedBytes = allocatedBytes;
+        this.latency = latency;
+        this.inputSize = inputSize;
+    }
+
+    /**
+     * @return the operation
+     */
+    public OperationType getType() {
+        return type;
+    }
+
+    /**
+     * @return completed calls
+     */
+    public long getCalls() {
+        return calls;
+    }
+
+    /**
+     * @return total nominal floating-point operations
+     */
+    public long getFlops() {
+        return flops;
+    }
+
+    /**
+     * @return total bytes allocated by the calling threads, excluding pool workers
+     */
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    /**
+     * @return the distribution of durations in nanoseconds
+     */
+    public HistogramSnapshot getLatency() {
+        return latency;
+    }
+
+    /**
+     * @return the distribution of first-operand sizes in entries
+     */
+    public HistogramSnapshot getInputSize() {
+        return inputSize;
+    }
+
+    @Override
+    public String toString() {
+        return type + ": calls=" + calls + ", flops=" + flops + ", allocated=" + allocatedBytes
+                + ", latency ns [" + latency + "], input entries [" + inputSize + "]";
+    }
+}
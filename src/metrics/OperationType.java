@@ -0,0 +1,26 @@
+package metrics;
+
+/**
+ * The matrix operations that report to {@link Instrumentation}.
+ *
+ * @author Youssef Amin
+ */
+
+public enum OperationType {
+    ADD,
+    SUBTRACT,
+    SCALE,
+    MULTIPLY,
+    TRANSPOSE,
+    INVERSE,
+    DETERMINANT,
+    SOLVE,
+    /** Householder QR factorization, with or without column pivoting. */
+    QR,
+    /** Singular value decomposition, including rank. */
+    SVD,
+    LEAST_SQUARES,
+    RREF,
+    /** Exact rank, null space, determinant and RREF by fraction-free elimination. */
+    EXACT_ELIMINATION
+}
@@ -0,0 +1,23 @@
+package metrics;
+
+/**
+ * One operation in progress, returned by {@link Instrumentation#begin(OperationType)}
+ * and passed back to {@link Instrumentation#end(Probe, model.Matrix, long)}.
+ *
+ * @author Youssef Amin
+ */
+
+public final class Probe {
+
+    final OperationType type;
+    final long startNanos;
+    final long startAllocated;
+    final MatrixOperationEvent event;
+
+    Probe(OperationType type, long startNanos, long startAllocated, MatrixOperationEvent event) {
+        this.type = type;
+        this.startNanos = startNanos;
+        this.startAllocated = startAllocated;
+        this.event = event;
+    }
+}
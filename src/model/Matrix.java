@@ -3,10 +3,18 @@ package model;
 import java.util.Arrays;
 
 /**
- * Wrapper class for a matrix represented as a 2D array of doubles.
+ * Wrapper class for a matrix of doubles.
  * Provides structure and utility for passing and manipulating matrix
  * data throughout the application.
  *
+ * The entries are stored in a single contiguous row-major array, so entry
+ * (i, j) lives at index {@code i * cols + j}. Matrices are immutable: the
+ * public constructor and accessors copy, while the operations package reads
+ * and wraps the backing array without copying through {@link MatrixAccess}.
+ * The one exception is {@link MutableMatrix}, which is written in place.
+ * Subclasses such as {@link SparseMatrix} keep their own storage and
+ * override {@link #get(int, int)} and {@link #copyRow(int, double[], int)}.
+ *
  * This class supports retrieving rows, columns, dimensions, cloning,
  * and string representation for easy testing and debugging.
  *
@@ -14,7 +22,13 @@ import java.util.Arrays;
  */
 public class Matrix {
 
-    private final double[][] data;
+    private final int rows;
+    private final int cols;
+    private final double[] data;
+
+    /** Cached {@link #hashCode()}; the content of an immutable matrix never changes. */
+    private int hash;
+    private boolean hashIsZero;
 
     public Matrix(double[][] data) {
         if (data == null || data.length == 0 || data[0].length == 0)
@@ -26,35 +40,122 @@ public class Matrix {
                 throw new IllegalArgumentException("All rows must have the same number of columns.");
         }
 
-        this.data = new double[data.length][colLength];
-        for (int i = 0; i < data.length; i++) {
-            this.data[i] = Arrays.copyOf(data[i], colLength);
+        if ((long) data.length * colLength > Integer.MAX_VALUE - 8)
+            throw new IllegalArgumentException("Matrix is too large for dense storage.");
+
+        this.rows = data.length;
+        this.cols = colLength;
+        this.data = new double[rows * cols];
+        for (int i = 0; i < rows; i++) {
+            System.arraycopy(data[i], 0, this.data, i * cols, cols);
+        }
+    }
+
+    /**
+     * Wraps a row-major array without copying it. The caller hands over
+     * ownership and must not modify the array afterwards.
+     *
+     * @param rows number of rows
+     * @param cols number of columns
+     * @param data row-major entries, exactly rows * cols long
+     */
+    Matrix(int rows, int cols, double[] data) {
+        if (rows <= 0 || cols <= 0)
+            throw new IllegalArgumentException("Matrix cannot be null or empty.");
+        if (data.length != (long) rows * cols)
+            throw new IllegalArgumentException("Data length does not match the matrix dimensions.");
+
+        this.rows = rows;
+        this.cols = cols;
+        this.data = data;
+    }
+
+    /**
+     * Constructor for subclasses that keep their entries in their own storage.
+     * Such subclasses must override {@link #get(int, int)} and
+     * {@link #copyRow(int, double[], int)}.
+     *
+     * @param rows number of rows
+     * @param cols number of columns
+     */
+    protected Matrix(int rows, int cols) {
+        if (rows <= 0 || cols <= 0)
+            throw new IllegalArgumentException("Matrix cannot be null or empty.");
+
+        this.rows = rows;
+        this.cols = cols;
+        this.data = null;
+    }
+
+    /**
+     * @return the backing row-major array, shared rather than copied, or a
+     * freshly built row-major array for matrices with their own storage
+     */
+    double[] raw() {
+        if (data != null) return data;
+
+        if ((long) rows * cols > Integer.MAX_VALUE - 8)
+            throw new IllegalArgumentException("Matrix is too large for dense storage.");
+        double[] dense = new double[rows * cols];
+        for (int i = 0; i < rows; i++) {
+            copyRow(i, dense, i * cols);
         }
+        return dense;
+    }
+
+    /**
+     * @return true if the entries live in this class's row-major array
+     */
+    boolean isDense() {
+        return data != null;
     }
 
     /**
      * @return a copy of the matrix
      */
     public double[][] getData() {
-        double[][] copy = new double[getNumRow()][getNumCol()];
-        for (int i = 0; i < getNumRow(); i++) {
-            copy[i] = Arrays.copyOf(data[i], getNumCol());
+        double[][] copy = new double[rows][cols];
+        for (int i = 0; i < rows; i++) {
+            copyRow(i, copy[i], 0);
         }
         return copy;
     }
 
+    /**
+     * @param row the row index
+     * @param col the column index
+     * @return the entry at the given position
+     */
+    public double get(int row, int col) {
+        if (row < 0 || row >= rows) throw new IndexOutOfBoundsException("Invalid row index.");
+        if (col < 0 || col >= cols) throw new IndexOutOfBoundsException("Invalid column index.");
+        return data[row * cols + col];
+    }
+
+    /**
+     * Copies a row into an existing array without allocating.
+     *
+     * @param rowIndex the index of the row to copy
+     * @param dest     the array to copy into
+     * @param offset   the position in dest of the row's first entry
+     */
+    public void copyRow(int rowIndex, double[] dest, int offset) {
+        if (rowIndex < 0 || rowIndex >= rows) throw new IndexOutOfBoundsException("Invalid row index.");
+        System.arraycopy(data, rowIndex * cols, dest, offset, cols);
+    }
+
     /**
      * @return Number of rows in the matrix
      */
     public int getNumRow() {
-        return data.length;
+        return rows;
     }
 
     /**
      * @return Number of columns in the matrix
      */
     public int getNumCol() {
-        return data[0].length;
+        return cols;
     }
 
     /**
@@ -62,8 +163,9 @@ public class Matrix {
      * @return the row associated with the given index
      */
     public double[] getRow(int rowIndex) {
-        if (rowIndex < 0 || rowIndex >= getNumRow()) throw new IndexOutOfBoundsException("Invalid row index.");
-        return Arrays.copyOf(data[rowIndex], getNumCol());
+        double[] row = new double[cols];
+        copyRow(rowIndex, row, 0);
+        return row;
     }
 
     /**
@@ -71,10 +173,10 @@ public class Matrix {
      * @return a copy of the column as a 1d array
      */
     public double[] getColumn(int colIndex) {
-        if (colIndex < 0 || colIndex >= getNumCol()) throw new IndexOutOfBoundsException("Invalid column index.");
-        double[] column = new double[getNumRow()];
-        for (int i = 0; i < getNumRow(); i++) {
-            column[i] = data[i][colIndex];
+        if (colIndex < 0 || colIndex >= cols) throw new IndexOutOfBoundsException("Invalid column index.");
+        double[] column = new double[rows];
+        for (int i = 0; i < rows; i++) {
+            column[i] = get(i, colIndex);
         }
         return column;
     }
@@ -84,7 +186,7 @@ public class Matrix {
      * @return a new matrix object with the same content as the original matrix
      */
     public Matrix copy() {
-        return new Matrix(getData());
+        return new Matrix(rows, cols, data != null ? data.clone() : raw());
     }
 
     /**
@@ -92,11 +194,13 @@ public class Matrix {
      * @return true if number of rows equals number of columns
      */
     public boolean isSquare() {
-        return getNumRow() == getNumCol();
+        return rows == cols;
     }
 
     /**
-     * checks if the two matrices are equivalent
+     * checks if the two matrices are equivalent; entries compare as
+     * {@link Double#equals(Object)} does, except that 0.0 and -0.0 are
+     * equal, since sparse storage keeps neither
      * @param o the object this is to be compared too
      * @return true if the same object or same contents
      */
@@ -104,23 +208,110 @@ public class Matrix {
     public boolean equals(Object o) {
         if (this == o) return true;
         if (!(o instanceof Matrix other)) return false;
-        if (getNumRow() != other.getNumRow() || getNumCol() != other.getNumCol()) return false;
+        if (rows != other.rows || cols != other.cols) return false;
+        if (data != null && other.data != null) return sameEntries(data, other.data);
+
+        double[] row = new double[cols];
+        double[] otherRow = new double[cols];
+        for (int i = 0; i < rows; i++) {
+            copyRow(i, row, 0);
+            other.copyRow(i, otherRow, 0);
+            if (!sameEntries(row, otherRow)) return false;
+        }
+        return true;
+    }
 
-        for (int i = 0; i < getNumRow(); i++) {
-            if (!Arrays.equals(data[i], other.data[i])) return false;
+    /**
+     * Compares two arrays of the same length entry by entry. Mismatches are
+     * found on the bits, with NaNs collapsed, and only count if the values
+     * differ, which rules out 0.0 against -0.0.
+     */
+    private static boolean sameEntries(double[] a, double[] b) {
+        int n = a.length;
+        int i = Arrays.mismatch(a, b);
+        while (i >= 0) {
+            if (a[i] != b[i]) return false;
+            int next = Arrays.mismatch(a, i + 1, n, b, i + 1, n);
+            i = next < 0 ? -1 : i + 1 + next;
         }
         return true;
     }
 
     /**
-     * simple toString
+     * Content hash consistent with {@link #equals(Object)} across storage
+     * types, so a dense and a sparse matrix with the same entries hash alike.
+     * It is computed on first use in one pass over the entries and then
+     * cached, as the entries of an immutable matrix never change.
+     *
+     * @return the hash of the dimensions and entries
+     */
+    @Override
+    public int hashCode() {
+        int h = hash;
+        if (h == 0 && !hashIsZero) {
+            h = contentHash();
+            if (h == 0) {
+                hashIsZero = true;
+            } else {
+                hash = h;
+            }
+        }
+        return h;
+    }
+
+    /**
+     * Hashes the entries without caching. Each non-zero entry contributes a
+     * mix of its position and bits, and the contributions are summed, so
+     * storage that skips zeros or visits entries in another order gets the
+     * same result. Negative zeros are skipped too, as they equal zero.
+     */
+    int contentHash() {
+        long sum = 0;
+        if (data != null) {
+            for (int idx = 0; idx < data.length; idx++) {
+                double v = data[idx];
+                if (v != 0.0) sum += mixEntry(idx, Double.doubleToLongBits(v));
+            }
+        } else {
+            double[] row = new double[cols];
+            for (int i = 0; i < rows; i++) {
+                copyRow(i, row, 0);
+                for (int j = 0; j < cols; j++) {
+                    double v = row[j];
+                    if (v != 0.0) sum += mixEntry((long) i * cols + j, Double.doubleToLongBits(v));
+                }
+            }
+        }
+        return 31 * (31 * rows + cols) + (int) (sum ^ (sum >>> 32));
+    }
+
+    /**
+     * Scrambles one entry's row-major position and bits (the MurmurHash3 finalizer).
+     */
+    static long mixEntry(long index, long bits) {
+        long z = bits ^ (index * 0x9E3779B97F4A7C15L);
+        z = (z ^ (z >>> 33)) * 0xFF51AFD7ED558CCDL;
+        z = (z ^ (z >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return z ^ (z >>> 33);
+    }
+
+    /**
+     * simple toString, appending each entry directly; use
+     * {@code utils.MatrixFormatter} to stream large matrices instead
      * @return a string representation of the matrix
      */
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
-        for (double[] row : data) {
-            sb.append(Arrays.toString(row)).append(System.lineSeparator());
+        double[] row = new double[cols];
+        for (int i = 0; i < rows; i++) {
+            copyRow(i, row, 0);
+            sb.append('[');
+            for (int j = 0; j < cols; j++) {
+                if (j > 0) sb.append(", ");
+                sb.append(row[j]);
+            }
+            sb.append(']').append(System.lineSeparator());
         }
         return sb.toString();
     }
@@ -0,0 +1,151 @@
+package model;
+
+import java.util.Set;
+
+/**
+ * Bridge that lets the library's own packages read and build matrices
+ * without the defensive copies made by the public {@link Matrix} API.
+ * <p>
+ * Arrays handed out or taken in here are shared with the matrix, so callers
+ * must treat arrays from {@link #raw(Matrix)} as read-only and must not touch
+ * an array after passing it to {@link #wrap(int, int, double[])}. Writing to
+ * a shared array would change an immutable matrix behind its cached hash.
+ * <p>
+ * This is not part of the public API. The only instance is handed out by
+ * {@link #obtain()}, and only to classes of this library's packages that
+ * were loaded by the same class loader; any other caller gets an
+ * {@link IllegalCallerException}. Each trusted class obtains it once, in a
+ * static field. On the class path this keeps application code away from the
+ * raw arrays. It does not stop code that deliberately places classes in
+ * these packages.
+ *
+ * @author Youssef Amin
+ */
+
+public final class MatrixAccess {
+
+    private static final Set<String> TRUSTED_PACKAGES = Set.of("model", "operations", "utils", "distributed");
+    private static final MatrixAccess INSTANCE = new MatrixAccess();
+    private static final StackWalker WALKER = StackWalker.getInstance(StackWalker.Option.RETAIN_CLASS_REFERENCE);
+
+    private MatrixAccess() {
+    }
+
+    /**
+     * @return the bridge, for a class of one of the library's own packages
+     * @throws IllegalCallerException if the caller is any other class
+     */
+    public static MatrixAccess obtain() {
+        Class<?> caller = WALKER.getCallerClass();
+        if (!TRUSTED_PACKAGES.contains(caller.getPackageName())
+                || caller.getClassLoader() != MatrixAccess.class.getClassLoader())
+            throw new IllegalCallerException("MatrixAccess is internal to MatrixMaster.");
+        return INSTANCE;
+    }
+
+    /**
+     * @param m the matrix to view
+     * @return the row-major backing array of m, not a copy; matrices with
+     * their own storage are expanded into a new row-major array
+     */
+    public double[] raw(Matrix m) {
+        return m.raw();
+    }
+
+    /**
+     * @param m the mutable matrix to write into
+     * @return the row-major backing array of m, which the caller may modify in place
+     */
+    public double[] writable(MutableMatrix m) {
+        return m.raw();
+    }
+
+    /**
+     * @param m the matrix to copy
+     * @return a fresh row-major array that the caller may modify
+     */
+    public double[] copyOf(Matrix m) {
+        return m.isDense() ? m.raw().clone() : m.raw();
+    }
+
+    /**
+     * @param m the matrix to check
+     * @return true if {@link #raw(Matrix)} returns the shared backing array
+     */
+    public boolean isDense(Matrix m) {
+        return m.isDense();
+    }
+
+    /**
+     * Wraps a row-major array as a matrix without copying it.
+     *
+     * @param rows number of rows
+     * @param cols number of columns
+     * @param data row-major entries, exactly rows * cols long; ownership passes to the matrix
+     * @return a matrix backed by data
+     */
+    public Matrix wrap(int rows, int cols, double[] data) {
+        return new Matrix(rows, cols, data);
+    }
+
+    /**
+     * @param m the sparse matrix to view
+     * @return the CSR row pointer array of m, not a copy
+     */
+    public int[] rowPointers(SparseMatrix m) {
+        return m.rowPointers();
+    }
+
+    /**
+     * @param m the sparse matrix to view
+     * @return the CSR column index array of m, not a copy
+     */
+    public int[] columnIndices(SparseMatrix m) {
+        return m.columnIndices();
+    }
+
+    /**
+     * @param m the sparse matrix to view
+     * @return the CSR value array of m, not a copy
+     */
+    public double[] values(SparseMatrix m) {
+        return m.values();
+    }
+
+    /**
+     * Wraps CSR arrays as a sparse matrix without copying them. Columns must be
+     * ascending within each row and no explicit zeros, of either sign, may be
+     * stored.
+     *
+     * @param rows   number of rows
+     * @param cols   number of columns
+     * @param rowPtr row pointers, rows + 1 long
+     * @param colIdx column index of each stored entry
+     * @param values value of each stored entry
+     * @return a sparse matrix backed by the arrays
+     */
+    public SparseMatrix wrapSparse(int rows, int cols, int[] rowPtr, int[] colIdx, double[] values) {
+        return new SparseMatrix(rows, cols, rowPtr, colIdx, values);
+    }
+
+    /**
+     * @param batch the batch to view
+     * @return the packed structure-of-arrays entries of batch, not a copy
+     */
+    public double[] raw(MatrixBatch batch) {
+        return batch.raw();
+    }
+
+    /**
+     * Wraps a packed structure-of-arrays array as a batch without copying it.
+     *
+     * @param count number of matrices
+     * @param rows  number of rows of each matrix
+     * @param cols  number of columns of each matrix
+     * @param data  packed entries, exactly count * rows * cols long; ownership passes to the batch
+     * @return a batch backed by data
+     */
+    public MatrixBatch wrapBatch(int count, int rows, int cols, double[] data) {
+        return new MatrixBatch(count, rows, cols, data);
+    }
+}
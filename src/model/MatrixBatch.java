@@ -0,0 +1,199 @@
+package model;
+
+/**
+ * A batch of same-shaped small matrices packed into one array, for workloads
+ * that apply the same operation to millions of tiny matrices such as 2x2 to
+ * 4x4 transforms.
+ * <p>
+ * The layout is structure-of-arrays: entry (i, j) of every matrix in the
+ * batch is stored contiguously, so entry (i, j) of matrix k lives at index
+ * {@code (i * cols + j) * count + k}. A batched kernel then works through
+ * the batch one entry plane at a time with unit-stride loops, and there is
+ * no per-matrix object, header or bounds check.
+ * <p>
+ * Like {@link MutableMatrix}, a batch is written in place and is meant to be
+ * reused as the destination of the {@code BatchOperations} overloads that
+ * take one.
+ *
+ * @author Youssef Amin
+ */
+
+public class MatrixBatch {
+
+    private final int count;
+    private final int rows;
+    private final int cols;
+    private final double[] data;
+
+    /**
+     * Creates a batch of zero matrices.
+     *
+     * @param count number of matrices
+     * @param rows  number of rows of each matrix
+     * @param cols  number of columns of each matrix
+     * @throws IllegalArgumentException if a dimension is not positive or the batch is too large
+     */
+    public MatrixBatch(int count, int rows, int cols) {
+        this(count, rows, cols, new double[packedSize(count, rows, cols)]);
+    }
+
+    /**
+     * Wraps a packed array without copying it. The caller hands over ownership.
+     */
+    MatrixBatch(int count, int rows, int cols, double[] data) {
+        if (count <= 0 || rows <= 0 || cols <= 0)
+            throw new IllegalArgumentException("Batch cannot be empty.");
+        if (data.length != (long) count * rows * cols)
+            throw new IllegalArgumentException("Data length does not match the batch dimensions.");
+
+        this.count = count;
+        this.rows = rows;
+        this.cols = cols;
+        this.data = data;
+    }
+
+    /**
+     * Packs matrices of the same shape into a new batch.
+     *
+     * @param matrices the matrices, in batch order
+     * @return a batch holding a copy of the matrices
+     * @throws IllegalArgumentException if there are no matrices or their dimensions differ
+     */
+    public static MatrixBatch of(Matrix... matrices) {
+        if (matrices == null || matrices.length == 0)
+            throw new IllegalArgumentException("Batch cannot be empty.");
+
+        MatrixBatch batch = new MatrixBatch(matrices.length, matrices[0].getNumRow(), matrices[0].getNumCol());
+        for (int k = 0; k < matrices.length; k++) {
+            batch.setMatrix(k, matrices[k]);
+        }
+        return batch;
+    }
+
+    private static int packedSize(int count, int rows, int cols) {
+        if (count <= 0 || rows <= 0 || cols <= 0)
+            throw new IllegalArgumentException("Batch cannot be empty.");
+        if ((long) count * rows * cols > Integer.MAX_VALUE - 8)
+            throw new IllegalArgumentException("Batch is too large for one array.");
+        return count * rows * cols;
+    }
+
+    /**
+     * @return the packed structure-of-arrays entries, shared rather than copied
+     */
+    double[] raw() {
+        return data;
+    }
+
+    /**
+     * @return the number of matrices in the batch
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * @return the number of rows of each matrix
+     */
+    public int getNumRow() {
+        return rows;
+    }
+
+    /**
+     * @return the number of columns of each matrix
+     */
+    public int getNumCol() {
+        return cols;
+    }
+
+    /**
+     * @param index the matrix index within the batch
+     * @param row   the row index
+     * @param col   the column index
+     * @return the entry at the given position of the given matrix
+     */
+    public double get(int index, int row, int col) {
+        return data[position(index, row, col)];
+    }
+
+    /**
+     * @param index the matrix index within the batch
+     * @param row   the row index
+     * @param col   the column index
+     * @param value the new entry
+     */
+    public void set(int index, int row, int col, double value) {
+        data[position(index, row, col)] = value;
+    }
+
+    /**
+     * @param index the matrix index within the batch
+     * @return a copy of that matrix
+     */
+    public Matrix getMatrix(int index) {
+        double[] entries = new double[rows * cols];
+        copyMatrix(index, entries, 0);
+        return new Matrix(rows, cols, entries);
+    }
+
+    /**
+     * Copies one matrix of the batch out in row-major order without allocating.
+     *
+     * @param index  the matrix index within the batch
+     * @param dest   the array to copy into
+     * @param offset the position in dest of the matrix's first entry
+     */
+    public void copyMatrix(int index, double[] dest, int offset) {
+        checkIndex(index);
+        int size = rows * cols;
+        for (int e = 0; e < size; e++) {
+            dest[offset + e] = data[e * count + index];
+        }
+    }
+
+    /**
+     * Overwrites one matrix of the batch.
+     *
+     * @param index the matrix index within the batch
+     * @param m     the new matrix, with the batch's dimensions
+     * @throws IllegalArgumentException if the dimensions differ
+     */
+    public void setMatrix(int index, Matrix m) {
+        if (m.getNumRow() != rows || m.getNumCol() != cols)
+            throw new IllegalArgumentException("All matrices in a batch must have the same dimensions.");
+        checkIndex(index);
+        double[] row = new double[cols];
+        for (int i = 0; i < rows; i++) {
+            m.copyRow(i, row, 0);
+            for (int j = 0; j < cols; j++) {
+                data[(i * cols + j) * count + index] = row[j];
+            }
+        }
+    }
+
+    /**
+     * Overwrites one matrix of the batch from row-major entries without allocating.
+     *
+     * @param index  the matrix index within the batch
+     * @param src    the array holding the entries
+     * @param offset the position in src of the matrix's first entry
+     */
+    public void setMatrix(int index, double[] src, int offset) {
+        checkIndex(index);
+        int size = rows * cols;
+        for (int e = 0; e < size; e++) {
+            data[e * count + index] = src[offset + e];
+        }
+    }
+
+    private int position(int index, int row, int col) {
+        checkIndex(index);
+        if (row < 0 || row >= rows) throw new IndexOutOfBoundsException("Invalid row index.");
+        if (col < 0 || col >= cols) throw new IndexOutOfBoundsException("Invalid column index.");
+        return (row * cols + col) * count + index;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= count) throw new IndexOutOfBoundsException("Invalid batch index.");
+    }
+}
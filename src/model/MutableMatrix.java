@@ -0,0 +1,127 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * Dense matrix whose entries can be changed in place.
+ * <p>
+ * Iterative algorithms that produce a new matrix every step can keep one
+ * MutableMatrix per intermediate result and pass it as the destination of
+ * the {@code MatrixOperations} overloads that take one, so the steady state
+ * allocates nothing. A mutable matrix can also be used anywhere a
+ * {@link Matrix} is expected; call {@link #toMatrix()} to take an immutable
+ * snapshot before handing it to code that keeps a reference.
+ *
+ * @author Youssef Amin
+ */
+
+public class MutableMatrix extends Matrix {
+
+    /**
+     * Creates a zero-filled matrix.
+     *
+     * @param rows number of rows
+     * @param cols number of columns
+     * @throws IllegalArgumentException if either dimension is not positive or the matrix is too large
+     */
+    public MutableMatrix(int rows, int cols) {
+        super(rows, cols, new double[denseSize(rows, cols)]);
+    }
+
+    /**
+     * Creates a mutable matrix holding a copy of the given entries.
+     *
+     * @param data the rows of the matrix
+     * @throws IllegalArgumentException if data is empty or ragged
+     */
+    public MutableMatrix(double[][] data) {
+        super(data);
+    }
+
+    private MutableMatrix(int rows, int cols, double[] data) {
+        super(rows, cols, data);
+    }
+
+    /**
+     * @param m the matrix to copy
+     * @return a mutable copy of m
+     */
+    public static MutableMatrix copyOf(Matrix m) {
+        return new MutableMatrix(m.getNumRow(), m.getNumCol(), m.isDense() ? m.raw().clone() : m.raw());
+    }
+
+    private static int denseSize(int rows, int cols) {
+        if (rows <= 0 || cols <= 0)
+            throw new IllegalArgumentException("Matrix cannot be null or empty.");
+        if ((long) rows * cols > Integer.MAX_VALUE - 8)
+            throw new IllegalArgumentException("Matrix is too large for dense storage.");
+        return rows * cols;
+    }
+
+    /**
+     * @param row   the row index
+     * @param col   the column index
+     * @param value the new entry at the given position
+     */
+    public void set(int row, int col, double value) {
+        if (row < 0 || row >= getNumRow()) throw new IndexOutOfBoundsException("Invalid row index.");
+        if (col < 0 || col >= getNumCol()) throw new IndexOutOfBoundsException("Invalid column index.");
+        raw()[row * getNumCol() + col] = value;
+    }
+
+    /**
+     * Sets every entry to the same value.
+     *
+     * @param value the new value of every entry
+     */
+    public void fill(double value) {
+        Arrays.fill(raw(), value);
+    }
+
+    /**
+     * Overwrites this matrix with the entries of another one of the same shape
+     * without allocating.
+     *
+     * @param source the matrix to copy from
+     * @throws IllegalArgumentException if the dimensions differ
+     */
+    public void copyFrom(Matrix source) {
+        int rows = getNumRow();
+        int cols = getNumCol();
+        if (source.getNumRow() != rows || source.getNumCol() != cols)
+            throw new IllegalArgumentException("Matrices must have the same dimensions.");
+        if (source == this) return;
+
+        double[] data = raw();
+        for (int i = 0; i < rows; i++) {
+            source.copyRow(i, data, i * cols);
+        }
+    }
+
+    /**
+     * @return an immutable snapshot of the current entries
+     */
+    public Matrix toMatrix() {
+        return new Matrix(getNumRow(), getNumCol(), raw().clone());
+    }
+
+    /**
+     * Hashes the current entries on every call; unlike an immutable matrix,
+     * the result is not cached, and it changes when the matrix is written.
+     * Take a {@link #toMatrix()} snapshot before using the content as a key.
+     *
+     * @return the hash of the dimensions and current entries
+     */
+    @Override
+    public int hashCode() {
+        return contentHash();
+    }
+
+    /**
+     * @return a mutable copy of this matrix
+     */
+    @Override
+    public MutableMatrix copy() {
+        return new MutableMatrix(getNumRow(), getNumCol(), raw().clone());
+    }
+}
@@ -0,0 +1,358 @@
+package model;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.lang.ref.Cleaner;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Mutable dense matrix whose entries live outside the Java heap, in a
+ * {@link MemorySegment}, so multi-gigabyte matrices add nothing to GC work
+ * or heap sizing.
+ * <p>
+ * Each row starts on a 64-byte boundary: rows are padded to a multiple of
+ * eight doubles, so a row is always a whole number of cache lines and of
+ * AVX-512 vectors. {@link #getRowSegment(int)} exposes a row for Vector API
+ * or native code; the operations in {@code MatrixOperations} read rows
+ * through {@link #copyRow(int, double[], int)} like any other storage, and
+ * the overloads that take an OffHeapMatrix destination write their results
+ * back row by row, so neither operand nor result is ever held on the heap
+ * as a whole.
+ * <p>
+ * There are two lifetimes:
+ * <ul>
+ *     <li>{@link #allocate(int, int)} gives the matrix its own memory, which
+ *     {@link #close()} frees at once. Use it in try-with-resources.</li>
+ *     <li>{@link #allocate(Arena, int, int)} places the matrix in the
+ *     caller's arena, so many matrices can share one scope and are all freed
+ *     when the arena is closed; {@link #close()} then does nothing.</li>
+ * </ul>
+ * Accessing a matrix after its memory is freed throws
+ * {@link IllegalStateException}. Memory that is never closed is never freed;
+ * with leak detection on ({@code -Dmatrixmaster.offheap.leakDetection=true}
+ * or {@link #setLeakDetection(boolean)}), a matrix with its own memory that
+ * becomes unreachable without being closed is freed by a {@link Cleaner},
+ * counted in {@link #getLeakCount()} and logged with the stack trace of its
+ * allocation.
+ * <p>
+ * Different rows may be written concurrently, as the parallel operations
+ * do; anything else needs the same external synchronization as a
+ * {@link MutableMatrix}.
+ *
+ * @author Youssef Amin
+ */
+
+public final class OffHeapMatrix extends Matrix implements AutoCloseable {
+
+    /** Alignment of the segment and of every row, in bytes. */
+    public static final long ALIGNMENT = 64;
+
+    private static final ValueLayout.OfDouble ELEMENT = ValueLayout.JAVA_DOUBLE;
+    private static final long ROW_MULTIPLE = ALIGNMENT / Double.BYTES;
+
+    private static volatile boolean leakDetection = Boolean.getBoolean("matrixmaster.offheap.leakDetection");
+    private static final AtomicLong LIVE_COUNT = new AtomicLong();
+    private static final AtomicLong LIVE_BYTES = new AtomicLong();
+    private static final AtomicLong LEAKS = new AtomicLong();
+
+    private final MemorySegment segment;
+    private final long stride;
+    private final Lifetime lifetime;
+    private Cleaner.Cleanable cleanable;
+
+    private OffHeapMatrix(Arena arena, int rows, int cols, boolean owned) {
+        super(rows, cols);
+        this.stride = (cols + ROW_MULTIPLE - 1) / ROW_MULTIPLE * ROW_MULTIPLE;
+        long bytes = Math.multiplyExact(rows * stride, Double.BYTES);
+        this.segment = arena.allocate(bytes, ALIGNMENT);
+        this.lifetime = owned ? new Lifetime(arena, bytes, leakDetection ? new Throwable("Allocated here") : null) : null;
+    }
+
+    /**
+     * Allocates a zero-filled matrix with its own memory, freed by {@link #close()}.
+     *
+     * @param rows number of rows
+     * @param cols number of columns
+     * @return the new matrix
+     * @throws IllegalArgumentException if either dimension is not positive
+     * @throws OutOfMemoryError         if the memory cannot be allocated
+     */
+    public static OffHeapMatrix allocate(int rows, int cols) {
+        Arena arena = Arena.ofShared();
+        OffHeapMatrix m;
+        try {
+            m = new OffHeapMatrix(arena, rows, cols, true);
+        } catch (RuntimeException | Error e) {
+            arena.close();
+            throw e;
+        }
+        LIVE_COUNT.incrementAndGet();
+        LIVE_BYTES.addAndGet(m.lifetime.bytes);
+        if (m.lifetime.allocationSite != null) {
+            m.cleanable = Leaks.CLEANER.register(m, m.lifetime);
+        }
+        return m;
+    }
+
+    /**
+     * Allocates a zero-filled matrix in the caller's arena. The memory is freed
+     * when the arena is closed, and the matrix may only be used from the
+     * threads the arena allows.
+     *
+     * @param arena the arena that owns the memory
+     * @param rows  number of rows
+     * @param cols  number of columns
+     * @return the new matrix
+     * @throws IllegalArgumentException if either dimension is not positive
+     * @throws IllegalStateException    if the arena is closed
+     */
+    public static OffHeapMatrix allocate(Arena arena, int rows, int cols) {
+        return new OffHeapMatrix(arena, rows, cols, false);
+    }
+
+    /**
+     * @param m the matrix to copy
+     * @return an off-heap copy of m with its own memory
+     */
+    public static OffHeapMatrix copyOf(Matrix m) {
+        OffHeapMatrix copy = allocate(m.getNumRow(), m.getNumCol());
+        copy.copyFrom(m);
+        return copy;
+    }
+
+    /**
+     * @param arena the arena that owns the memory
+     * @param m     the matrix to copy
+     * @return an off-heap copy of m in the given arena
+     */
+    public static OffHeapMatrix copyOf(Arena arena, Matrix m) {
+        OffHeapMatrix copy = allocate(arena, m.getNumRow(), m.getNumCol());
+        copy.copyFrom(m);
+        return copy;
+    }
+
+    @Override
+    public double get(int row, int col) {
+        if (row < 0 || row >= getNumRow()) throw new IndexOutOfBoundsException("Invalid row index.");
+        if (col < 0 || col >= getNumCol()) throw new IndexOutOfBoundsException("Invalid column index.");
+        return segment.getAtIndex(ELEMENT, row * stride + col);
+    }
+
+    /**
+     * @param row   the row index
+     * @param col   the column index
+     * @param value the new entry at the given position
+     */
+    public void set(int row, int col, double value) {
+        if (row < 0 || row >= getNumRow()) throw new IndexOutOfBoundsException("Invalid row index.");
+        if (col < 0 || col >= getNumCol()) throw new IndexOutOfBoundsException("Invalid column index.");
+        segment.setAtIndex(ELEMENT, row * stride + col, value);
+    }
+
+    /**
+     * Copies a row with a single bulk copy.
+     */
+    @Override
+    public void copyRow(int rowIndex, double[] dest, int offset) {
+        if (rowIndex < 0 || rowIndex >= getNumRow()) throw new IndexOutOfBoundsException("Invalid row index.");
+        MemorySegment.copy(segment, ELEMENT, rowIndex * stride * Double.BYTES, dest, offset, getNumCol());
+    }
+
+    /**
+     * Overwrites a row from an array; the counterpart of {@link #copyRow(int, double[], int)}.
+     *
+     * @param rowIndex the index of the row to write
+     * @param src      the array to copy from
+     * @param offset   the position in src of the row's first entry
+     */
+    public void setRow(int rowIndex, double[] src, int offset) {
+        if (rowIndex < 0 || rowIndex >= getNumRow()) throw new IndexOutOfBoundsException("Invalid row index.");
+        MemorySegment.copy(src, offset, segment, ELEMENT, rowIndex * stride * Double.BYTES, getNumCol());
+    }
+
+    /**
+     * Sets every entry to the same value.
+     *
+     * @param value the new value of every entry
+     */
+    public void fill(double value) {
+        if (Double.doubleToRawLongBits(value) == 0L) {
+            segment.fill((byte) 0);
+            return;
+        }
+        int cols = getNumCol();
+        for (int i = 0; i < getNumRow(); i++) {
+            long row = i * stride;
+            for (int j = 0; j < cols; j++) {
+                segment.setAtIndex(ELEMENT, row + j, value);
+            }
+        }
+    }
+
+    /**
+     * Overwrites this matrix with the entries of another one of the same shape.
+     *
+     * @param source the matrix to copy from
+     * @throws IllegalArgumentException if the dimensions differ
+     */
+    public void copyFrom(Matrix source) {
+        int rows = getNumRow();
+        int cols = getNumCol();
+        if (source.getNumRow() != rows || source.getNumCol() != cols)
+            throw new IllegalArgumentException("Matrices must have the same dimensions.");
+        if (source == this) return;
+
+        double[] row = new double[cols];
+        for (int i = 0; i < rows; i++) {
+            source.copyRow(i, row, 0);
+            setRow(i, row, 0);
+        }
+    }
+
+    /**
+     * @return the whole segment, rows {@link #getRowStride()} doubles apart, not a copy
+     */
+    public MemorySegment getSegment() {
+        return segment;
+    }
+
+    /**
+     * @param rowIndex the index of the row
+     * @return the row's entries, starting on a 64-byte boundary, not a copy
+     */
+    public MemorySegment getRowSegment(int rowIndex) {
+        if (rowIndex < 0 || rowIndex >= getNumRow()) throw new IndexOutOfBoundsException("Invalid row index.");
+        return segment.asSlice(rowIndex * stride * Double.BYTES, (long) getNumCol() * Double.BYTES, ALIGNMENT);
+    }
+
+    /**
+     * @return the distance between the starts of consecutive rows, in doubles
+     */
+    public long getRowStride() {
+        return stride;
+    }
+
+    /**
+     * @return true until the memory is freed by {@link #close()} or by closing its arena
+     */
+    public boolean isAlive() {
+        return segment.scope().isAlive();
+    }
+
+    /**
+     * @return an immutable heap snapshot of the current entries
+     */
+    public Matrix toMatrix() {
+        return copy();
+    }
+
+    /**
+     * Hashes the current entries on every call, as for {@link MutableMatrix}.
+     *
+     * @return the hash of the dimensions and current entries
+     */
+    @Override
+    public int hashCode() {
+        return contentHash();
+    }
+
+    /**
+     * Frees the memory if the matrix has its own; does nothing for a matrix
+     * in a caller's arena. Later accesses throw {@link IllegalStateException}.
+     */
+    @Override
+    public void close() {
+        if (lifetime == null) return;
+        lifetime.closed = true;
+        if (cleanable != null) {
+            cleanable.clean();
+        } else {
+            lifetime.run();
+        }
+    }
+
+    /**
+     * @return true if matrices allocated from now on are tracked for leaks
+     */
+    public static boolean isLeakDetection() {
+        return leakDetection;
+    }
+
+    /**
+     * Turns leak detection on or off for matrices allocated from now on.
+     * Tracking costs a stack trace and a {@link Cleaner} registration per
+     * allocation, so it is meant for tests and debugging.
+     *
+     * @param on true to track new allocations
+     */
+    public static void setLeakDetection(boolean on) {
+        leakDetection = on;
+    }
+
+    /**
+     * @return the number of matrices with their own memory that have not been freed
+     */
+    public static long getLiveCount() {
+        return LIVE_COUNT.get();
+    }
+
+    /**
+     * @return the bytes held by matrices with their own memory that have not been freed
+     */
+    public static long getLiveBytes() {
+        return LIVE_BYTES.get();
+    }
+
+    /**
+     * @return the number of tracked matrices found unreachable without being closed
+     */
+    public static long getLeakCount() {
+        return LEAKS.get();
+    }
+
+    /**
+     * Frees a matrix's own memory exactly once, either from {@link #close()}
+     * or, when tracked, from the cleaner after the matrix became unreachable.
+     * It must not refer to the matrix, or the matrix would never become
+     * unreachable.
+     */
+    private static final class Lifetime implements Runnable {
+
+        private final Arena arena;
+        private final long bytes;
+        private final Throwable allocationSite;
+        private final AtomicBoolean freed = new AtomicBoolean();
+        private volatile boolean closed;
+
+        Lifetime(Arena arena, long bytes, Throwable allocationSite) {
+            this.arena = arena;
+            this.bytes = bytes;
+            this.allocationSite = allocationSite;
+        }
+
+        @Override
+        public void run() {
+            if (!freed.compareAndSet(false, true)) return;
+            if (!closed) {
+                LEAKS.incrementAndGet();
+                Leaks.LOGGER.log(System.Logger.Level.WARNING,
+                        "Off-heap matrix of " + bytes + " bytes was not closed before it became unreachable.",
+                        allocationSite);
+            }
+            LIVE_COUNT.decrementAndGet();
+            LIVE_BYTES.addAndGet(-bytes);
+            arena.close();
+        }
+    }
+
+    /**
+     * Created on first tracked allocation, so the cleaner thread only exists when it is needed.
+     */
+    private static final class Leaks {
+
+        static final Cleaner CLEANER = Cleaner.create();
+        static final System.Logger LOGGER = System.getLogger(OffHeapMatrix.class.getName());
+    }
+}
@@ -0,0 +1,119 @@
+package model;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+
+/**
+ * Matrix view over little-endian doubles in a {@link MemorySegment}, such as
+ * a memory-mapped file opened with {@code utils.MatrixFile}. Nothing is copied
+ * onto the heap: entries are read from the segment on demand, so a mapped
+ * multi-gigabyte matrix opens in constant time and its pages are loaded by
+ * the operating system as they are touched.
+ * <p>
+ * The read-only operations in {@code MatrixOperations} (add, subtract,
+ * multiply, matrix-vector products, transpose) stream the view row by row
+ * through {@link #copyRow(int, double[], int)}. Operations that factor or
+ * reduce the matrix need a mutable working copy and still make one.
+ * <p>
+ * The view is valid until {@link #close()} is called, or until the arena that
+ * owns the segment is closed; reading it afterwards throws an
+ * {@link IllegalStateException}.
+ *
+ * @author Youssef Amin
+ */
+
+public class SegmentMatrix extends Matrix implements AutoCloseable {
+
+    /**
+     * Order of the entries in the segment.
+     */
+    public enum Layout {
+        /** Entry (i, j) is element {@code i * cols + j}. */
+        ROW_MAJOR,
+        /** Entry (i, j) is element {@code j * rows + i}. */
+        COLUMN_MAJOR
+    }
+
+    /** Layout of one stored entry: an 8-byte aligned little-endian double. */
+    public static final ValueLayout.OfDouble ELEMENT = ValueLayout.JAVA_DOUBLE.withOrder(ByteOrder.LITTLE_ENDIAN);
+
+    private final MemorySegment segment;
+    private final Layout layout;
+    private final Arena owner;
+
+    /**
+     * Wraps a segment without copying it.
+     *
+     * @param segment the entries, at least rows * cols doubles, 8-byte aligned
+     * @param rows    number of rows
+     * @param cols    number of columns
+     * @param layout  order of the entries in the segment
+     * @param owner   the arena that {@link #close()} closes, or null if the caller
+     *                manages the segment's lifetime
+     * @throws IllegalArgumentException if the segment is too small for the dimensions
+     */
+    public SegmentMatrix(MemorySegment segment, int rows, int cols, Layout layout, Arena owner) {
+        super(rows, cols);
+        if (segment.byteSize() < (long) rows * cols * Double.BYTES)
+            throw new IllegalArgumentException("Segment is too small for the matrix dimensions.");
+
+        this.segment = segment;
+        this.layout = layout;
+        this.owner = owner;
+    }
+
+    /**
+     * @return the segment holding the entries, not a copy
+     */
+    public MemorySegment getSegment() {
+        return segment;
+    }
+
+    /**
+     * @return the order of the entries in the segment
+     */
+    public Layout getLayout() {
+        return layout;
+    }
+
+    @Override
+    public double get(int row, int col) {
+        if (row < 0 || row >= getNumRow()) throw new IndexOutOfBoundsException("Invalid row index.");
+        if (col < 0 || col >= getNumCol()) throw new IndexOutOfBoundsException("Invalid column index.");
+        long index = layout == Layout.ROW_MAJOR
+                ? (long) row * getNumCol() + col
+                : (long) col * getNumRow() + row;
+        return segment.getAtIndex(ELEMENT, index);
+    }
+
+    /**
+     * Copies a row with a single bulk copy for row-major segments, or a
+     * strided read for column-major ones.
+     */
+    @Override
+    public void copyRow(int rowIndex, double[] dest, int offset) {
+        if (rowIndex < 0 || rowIndex >= getNumRow()) throw new IndexOutOfBoundsException("Invalid row index.");
+        int cols = getNumCol();
+        if (layout == Layout.ROW_MAJOR) {
+            MemorySegment.copy(segment, ELEMENT, (long) rowIndex * cols * Double.BYTES, dest, offset, cols);
+            return;
+        }
+        long rows = getNumRow();
+        for (int j = 0; j < cols; j++) {
+            dest[offset + j] = segment.getAtIndex(ELEMENT, j * rows + rowIndex);
+        }
+    }
+
+    /**
+     * Releases the segment if this view owns it. Later reads throw
+     * {@link IllegalStateException}.
+     */
+    @Override
+    public void close() {
+        if (owner != null) {
+            owner.close();
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * Matrix stored in compressed sparse row (CSR) form: only the non-zero
+ * entries are kept, row by row, with their column indices in ascending
+ * order. Row i's entries occupy positions {@code rowPtr[i]} up to
+ * {@code rowPtr[i + 1]} of the column index and value arrays.
+ * <p>
+ * Memory use is proportional to the number of non-zeros rather than
+ * rows x cols, so very large, mostly empty matrices fit in the heap. The
+ * transpose of a CSR matrix is its compressed sparse column (CSC) form, which
+ * {@code SparseOperations.transpose} builds in linear time.
+ * <p>
+ * Like {@link Matrix}, sparse matrices are immutable and compare equal to any
+ * matrix with the same entries, whatever its storage. No zero of either sign
+ * is ever stored, so a -0.0 entry reads back as 0.0.
+ *
+ * @author Youssef Amin
+ */
+
+public class SparseMatrix extends Matrix {
+
+    private final int[] rowPtr;
+    private final int[] colIdx;
+    private final double[] values;
+
+    /**
+     * Wraps CSR arrays without copying or validating them.
+     */
+    SparseMatrix(int rows, int cols, int[] rowPtr, int[] colIdx, double[] values) {
+        super(rows, cols);
+        this.rowPtr = rowPtr;
+        this.colIdx = colIdx;
+        this.values = values;
+    }
+
+    /**
+     * Builds a sparse copy of any matrix, dropping its zero entries. Negative
+     * zeros are dropped as well; {@link #equals(Object)} treats them as zero,
+     * so the copy is still equal to m.
+     *
+     * @param m the matrix to convert
+     * @return the sparse form of m
+     */
+    public static SparseMatrix fromMatrix(Matrix m) {
+        if (m instanceof SparseMatrix sparse) return sparse;
+
+        int rows = m.getNumRow();
+        int cols = m.getNumCol();
+        int[] rowPtr = new int[rows + 1];
+        double[] row = new double[cols];
+        int nnz = 0;
+        for (int i = 0; i < rows; i++) {
+            m.copyRow(i, row, 0);
+            for (double v : row) {
+                if (v != 0.0) nnz++;
+            }
+        }
+
+        int[] colIdx = new int[nnz];
+        double[] values = new double[nnz];
+        int k = 0;
+        for (int i = 0; i < rows; i++) {
+            m.copyRow(i, row, 0);
+            for (int j = 0; j < cols; j++) {
+                if (row[j] != 0.0) {
+                    colIdx[k] = j;
+                    values[k++] = row[j];
+                }
+            }
+            rowPtr[i + 1] = k;
+        }
+        return new SparseMatrix(rows, cols, rowPtr, colIdx, values);
+    }
+
+    /**
+     * Builds a sparse matrix from coordinate (row, column, value) triplets.
+     * Duplicate positions are summed and resulting zeros are dropped.
+     *
+     * @param rows       number of rows
+     * @param cols       number of columns
+     * @param rowIndices row of each entry
+     * @param colIndices column of each entry
+     * @param entries    value of each entry
+     * @return the sparse matrix
+     * @throws IllegalArgumentException if the arrays differ in length
+     * @throws IndexOutOfBoundsException if an index is outside the matrix
+     */
+    public static SparseMatrix fromTriplets(int rows, int cols, int[] rowIndices, int[] colIndices, double[] entries) {
+        if (rowIndices.length != colIndices.length || rowIndices.length != entries.length)
+            throw new IllegalArgumentException("Triplet arrays must have the same length.");
+        if (rows <= 0 || cols <= 0)
+            throw new IllegalArgumentException("Matrix cannot be null or empty.");
+
+        int count = entries.length;
+        int[] rowPtr = new int[rows + 1];
+        for (int t = 0; t < count; t++) {
+            int r = rowIndices[t];
+            int c = colIndices[t];
+            if (r < 0 || r >= rows) throw new IndexOutOfBoundsException("Invalid row index.");
+            if (c < 0 || c >= cols) throw new IndexOutOfBoundsException("Invalid column index.");
+            rowPtr[r + 1]++;
+        }
+        for (int i = 0; i < rows; i++) {
+            rowPtr[i + 1] += rowPtr[i];
+        }
+
+        int[] next = Arrays.copyOf(rowPtr, rows);
+        int[] cols0 = new int[count];
+        double[] vals0 = new double[count];
+        for (int t = 0; t < count; t++) {
+            int p = next[rowIndices[t]]++;
+            cols0[p] = colIndices[t];
+            vals0[p] = entries[t];
+        }
+
+        // Sort each row by column, then merge duplicates and drop zeros.
+        int[] outPtr = new int[rows + 1];
+        int[] outCols = new int[count];
+        double[] outVals = new double[count];
+        int k = 0;
+        for (int i = 0; i < rows; i++) {
+            int start = rowPtr[i];
+            int end = rowPtr[i + 1];
+            sortRow(cols0, vals0, start, end);
+            int p = start;
+            while (p < end) {
+                int c = cols0[p];
+                double sum = 0.0;
+                while (p < end && cols0[p] == c) {
+                    sum += vals0[p++];
+                }
+                if (sum != 0.0) {
+                    outCols[k] = c;
+                    outVals[k++] = sum;
+                }
+            }
+            outPtr[i + 1] = k;
+        }
+        return new SparseMatrix(rows, cols, outPtr, Arrays.copyOf(outCols, k), Arrays.copyOf(outVals, k));
+    }
+
+    /**
+     * Insertion sort of one row's entries by column. Rows are short, so this
+     * beats boxing the entries for a general-purpose sort.
+     */
+    private static void sortRow(int[] cols, double[] vals, int start, int end) {
+        for (int i = start + 1; i < end; i++) {
+            int c = cols[i];
+            double v = vals[i];
+            int j = i - 1;
+            while (j >= start && cols[j] > c) {
+                cols[j + 1] = cols[j];
+                vals[j + 1] = vals[j];
+                j--;
+            }
+            cols[j + 1] = c;
+            vals[j + 1] = v;
+        }
+    }
+
+    /**
+     * @return a dense copy of this matrix
+     */
+    public Matrix toDense() {
+        return new Matrix(getNumRow(), getNumCol(), raw());
+    }
+
+    /**
+     * @return the number of stored non-zero entries
+     */
+    public int getNumNonZeros() {
+        return rowPtr[getNumRow()];
+    }
+
+    /**
+     * @return the fraction of entries that are non-zero
+     */
+    public double getDensity() {
+        return getNumNonZeros() / ((double) getNumRow() * getNumCol());
+    }
+
+    int[] rowPointers() {
+        return rowPtr;
+    }
+
+    int[] columnIndices() {
+        return colIdx;
+    }
+
+    double[] values() {
+        return values;
+    }
+
+    @Override
+    public double get(int row, int col) {
+        if (row < 0 || row >= getNumRow()) throw new IndexOutOfBoundsException("Invalid row index.");
+        if (col < 0 || col >= getNumCol()) throw new IndexOutOfBoundsException("Invalid column index.");
+        int p = Arrays.binarySearch(colIdx, rowPtr[row], rowPtr[row + 1], col);
+        return p >= 0 ? values[p] : 0.0;
+    }
+
+    @Override
+    public void copyRow(int rowIndex, double[] dest, int offset) {
+        if (rowIndex < 0 || rowIndex >= getNumRow()) throw new IndexOutOfBoundsException("Invalid row index.");
+        Arrays.fill(dest, offset, offset + getNumCol(), 0.0);
+        for (int p = rowPtr[rowIndex]; p < rowPtr[rowIndex + 1]; p++) {
+            dest[offset + colIdx[p]] = values[p];
+        }
+    }
+
+    /**
+     * Sparse matrices are immutable, so the copy shares this matrix's arrays.
+     *
+     * @return a sparse matrix with the same content
+     */
+    @Override
+    public Matrix copy() {
+        return new SparseMatrix(getNumRow(), getNumCol(), rowPtr, colIdx, values);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o instanceof SparseMatrix other) {
+            return getNumRow() == other.getNumRow() && getNumCol() == other.getNumCol()
+                    && Arrays.equals(rowPtr, other.rowPtr)
+                    && Arrays.equals(colIdx, other.colIdx)
+                    && Arrays.equals(values, other.values);
+        }
+        return super.equals(o);
+    }
+
+    /**
+     * Hashes only the stored entries, in O(non-zeros), to the same value as
+     * a dense matrix with the same content.
+     */
+    @Override
+    int contentHash() {
+        int rows = getNumRow();
+        int cols = getNumCol();
+        long sum = 0;
+        for (int i = 0; i < rows; i++) {
+            for (int p = rowPtr[i]; p < rowPtr[i + 1]; p++) {
+                double v = values[p];
+                if (v != 0.0) sum += mixEntry((long) i * cols + colIdx[p], Double.doubleToLongBits(v));
+            }
+        }
+        return 31 * (31 * rows + cols) + (int) (sum ^ (sum >>> 32));
+    }
+}
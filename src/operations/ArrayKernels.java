@@ -0,0 +1,69 @@
+package operations;
+
+/**
+ * Inner loops shared by the dense operations: element-wise add and subtract,
+ * scaling, the scaled row update {@code y += alpha * x} used by
+ * multiplication and every elimination routine, and the three-row reflector
+ * update of the eigenvalue iteration.
+ * <p>
+ * {@link #INSTANCE} is picked once at startup. When the JVM was started with
+ * {@code --add-modules jdk.incubator.vector} it is the SIMD implementation
+ * built on {@code DoubleVector}; otherwise, or when the system property
+ * {@code matrixmaster.vector} is {@code false}, it is the plain scalar loop.
+ * Both implementations do the same IEEE operations on every element (no fused
+ * multiply-add, no reassociation), so results are bit-identical either way.
+ *
+ * @author Youssef Amin
+ */
+
+interface ArrayKernels {
+
+    /** The kernels used by this JVM. */
+    ArrayKernels INSTANCE = select();
+
+    /**
+     * r[rOff + i] = a[aOff + i] + b[bOff + i] for i in [0, len).
+     */
+    void add(double[] a, int aOff, double[] b, int bOff, double[] r, int rOff, int len);
+
+    /**
+     * r[rOff + i] = a[aOff + i] - b[bOff + i] for i in [0, len).
+     */
+    void subtract(double[] a, int aOff, double[] b, int bOff, double[] r, int rOff, int len);
+
+    /**
+     * x[off + i] *= alpha for i in [0, len).
+     */
+    void scale(double alpha, double[] x, int off, int len);
+
+    /**
+     * y[yOff + i] += alpha * x[xOff + i] for i in [0, len).
+     */
+    void axpy(double alpha, double[] x, int xOff, double[] y, int yOff, int len);
+
+    /**
+     * For i in [off, off + len): p = c0 * a[i] + c1 * b[i] + c2 * c[i], then
+     * a[i] -= p * d0, b[i] -= p * d1 and c[i] -= p * d2. When c is null the
+     * third row is left out.
+     */
+    void reflect(double c0, double c1, double c2, double d0, double d1, double d2,
+                 double[] a, double[] b, double[] c, int off, int len);
+
+    /**
+     * @return a short name of the implementation, for logs and benchmarks
+     */
+    String name();
+
+    private static ArrayKernels select() {
+        if (!Boolean.parseBoolean(System.getProperty("matrixmaster.vector", "true"))
+                || ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return new ScalarKernels();
+        }
+        try {
+            // Loaded by name so this class still links when the module is absent.
+            return (ArrayKernels) Class.forName("operations.SimdKernels").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return new ScalarKernels();
+        }
+    }
+}
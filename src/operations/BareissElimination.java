@@ -0,0 +1,430 @@
+package operations;
+
+import model.Matrix;
+import model.MatrixAccess;
+import model.Vector;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Exact row reduction by Bareiss' fraction-free elimination, for when the
+ * floating-point {@link MatrixOperations#rref(Matrix)} and its zero tolerance
+ * cannot be trusted, as with ill-conditioned integer matrices.
+ * <p>
+ * Every finite double is a dyadic rational, so each row is first scaled by a
+ * power of two that makes all its entries integers; this changes neither the
+ * row space nor the rank. Elimination then keeps every entry an integer: each
+ * update {@code (p * a[i][j] - a[i][c] * a[r][j]) / prev} divides exactly by
+ * the previous pivot, and every intermediate value is a minor of the scaled
+ * matrix, so entries grow linearly in bit length instead of exponentially.
+ * <p>
+ * Arithmetic runs on {@code long} with overflow checks and switches the whole
+ * matrix to {@link BigInteger} at the first overflow, resuming at the row that
+ * overflowed. The full reduction updates every row at every pivot, giving the
+ * reduced form scaled by a single common denominator; rank and determinant
+ * only need the forward half, which does about a third of the work.
+ * <p>
+ * Decimal inputs such as 0.1 are taken as the exact double value, not as the
+ * decimal fraction they were typed as.
+ *
+ * @author Youssef Amin
+ */
+
+public class BareissElimination {
+
+    private static final MatrixAccess ACCESS = MatrixAccess.obtain();
+
+    private static final MathContext DIVISION_CONTEXT = new MathContext(40);
+
+    private final int rows;
+    private final int cols;
+    private final boolean reduce;
+    private final CancellationToken cancel = CancellationToken.current();
+
+    /** Entries while they fit in a long; null once promoted to big. */
+    private long[] small;
+    private BigInteger[] big;
+
+    /** Row scales: row i of the input times 2^scale[i] is the integer row. */
+    private final int[] scale;
+
+    private final int[] pivotColumns;
+    private int rank;
+    private int sign = 1;
+    private long previousSmall = 1;
+    private BigInteger previousBig = BigInteger.ONE;
+
+    // Where elimination stands, so it can resume after promotion.
+    private int column;
+    private int nextRow = -1;
+
+    /**
+     * Reduces the given matrix exactly to reduced row echelon form. The input
+     * matrix is not modified.
+     *
+     * @param m the matrix to reduce
+     * @throws IllegalArgumentException if an entry is NaN or infinite
+     */
+    public BareissElimination(Matrix m) {
+        this(m, true);
+    }
+
+    private BareissElimination(Matrix m, boolean reduce) {
+        this.rows = m.getNumRow();
+        this.cols = m.getNumCol();
+        this.reduce = reduce;
+        this.scale = new int[rows];
+        this.pivotColumns = new int[Math.min(rows, cols)];
+        load(ACCESS.raw(m));
+        if (small != null && eliminateSmall()) {
+            return;
+        }
+        promote();
+        eliminateBig();
+    }
+
+    /**
+     * Computes the exact rank with forward elimination only.
+     *
+     * @param m the matrix
+     * @return the rank of m over the rationals
+     * @throws IllegalArgumentException if an entry is NaN or infinite
+     */
+    public static int rank(Matrix m) {
+        return new BareissElimination(m, false).rank;
+    }
+
+    /**
+     * Computes the exact determinant with forward elimination only.
+     *
+     * @param m the square matrix
+     * @return the exact determinant of m
+     * @throws IllegalArgumentException if m is not square or has NaN or infinite entries
+     */
+    public static BigDecimal determinant(Matrix m) {
+        if (!m.isSquare()) {
+            throw new IllegalArgumentException("Determinant is only defined for square matrices.");
+        }
+        return new BareissElimination(m, false).determinant();
+    }
+
+    /**
+     * @return the rank of the matrix
+     */
+    public int getRank() {
+        return rank;
+    }
+
+    /**
+     * @return the pivot column of each of the first {@link #getRank()} rows
+     */
+    public int[] getPivotColumns() {
+        return Arrays.copyOf(pivotColumns, rank);
+    }
+
+    /**
+     * The reduced form is {@code numerator(i, j) / denominator}, with every
+     * pivot equal to 1. The fraction is not necessarily in lowest terms.
+     *
+     * @return the common denominator of the reduced form, never zero
+     */
+    public BigInteger getDenominator() {
+        return small != null ? BigInteger.valueOf(previousSmall) : previousBig;
+    }
+
+    /**
+     * @param row the row index
+     * @param col the column index
+     * @return the numerator of the reduced form's entry over {@link #getDenominator()}
+     */
+    public BigInteger getNumerator(int row, int col) {
+        if (row < 0 || row >= rows || col < 0 || col >= cols) {
+            throw new IndexOutOfBoundsException("Invalid matrix indices.");
+        }
+        return entry(row * cols + col);
+    }
+
+    /**
+     * @return the reduced row echelon form, each entry the nearest double to its exact value
+     */
+    public Matrix getRref() {
+        double[] result = new double[rows * cols];
+        BigInteger d = getDenominator();
+        for (int i = 0; i < rank; i++) {
+            for (int j = 0; j < cols; j++) {
+                result[i * cols + j] = toDouble(entry(i * cols + j), d);
+            }
+        }
+        return ACCESS.wrap(rows, cols, result);
+    }
+
+    /**
+     * Returns a basis of the null space, one vector per non-pivot column. Each
+     * vector has integer entries with no common factor and a positive entry
+     * at its free column; entries beyond 2^53 are rounded.
+     *
+     * @return the basis vectors, empty if the columns are independent
+     */
+    public List<Vector> getNullspace() {
+        BigInteger d = getDenominator();
+        List<Vector> basis = new ArrayList<>();
+        boolean[] isPivot = new boolean[cols];
+        for (int i = 0; i < rank; i++) {
+            isPivot[pivotColumns[i]] = true;
+        }
+        for (int free = 0; free < cols; free++) {
+            if (isPivot[free]) continue;
+            BigInteger[] v = new BigInteger[cols];
+            Arrays.fill(v, BigInteger.ZERO);
+            v[free] = d;
+            BigInteger gcd = d.abs();
+            for (int i = 0; i < rank; i++) {
+                v[pivotColumns[i]] = entry(i * cols + free).negate();
+                gcd = gcd.gcd(v[pivotColumns[i]]);
+            }
+            if (d.signum() < 0) {
+                gcd = gcd.negate();
+            }
+            double[] values = new double[cols];
+            for (int j = 0; j < cols; j++) {
+                values[j] = v[j].divide(gcd).doubleValue();
+            }
+            basis.add(new Vector(values));
+        }
+        return basis;
+    }
+
+    /**
+     * @return the exact determinant
+     * @throws IllegalArgumentException if the matrix is not square
+     */
+    public BigDecimal getDeterminant() {
+        if (rows != cols) {
+            throw new IllegalArgumentException("Determinant is only defined for square matrices.");
+        }
+        return determinant();
+    }
+
+    private BigDecimal determinant() {
+        if (rank < rows) {
+            return BigDecimal.ZERO;
+        }
+        BigInteger det = getDenominator();
+        if (sign < 0) {
+            det = det.negate();
+        }
+        long shift = 0;
+        for (int s : scale) {
+            shift += s;
+        }
+        if (shift == 0) {
+            return new BigDecimal(det);
+        }
+        // det / 2^shift = det * 5^shift / 10^shift, exactly
+        return new BigDecimal(det.multiply(BigInteger.valueOf(5).pow(Math.toIntExact(shift))), Math.toIntExact(shift))
+                .stripTrailingZeros();
+    }
+
+    /**
+     * Converts the input to integer rows, as longs when every scaled entry fits.
+     */
+    private void load(double[] data) {
+        long[] mantissas = new long[data.length];
+        int[] exponents = new int[data.length];
+        boolean fits = true;
+        for (int i = 0; i < rows; i++) {
+            int s = 0;
+            for (int j = 0; j < cols; j++) {
+                int idx = i * cols + j;
+                double x = data[idx];
+                if (!Double.isFinite(x)) {
+                    throw new IllegalArgumentException("Exact elimination requires finite entries.");
+                }
+                if (x == 0) continue;
+                long bits = Double.doubleToRawLongBits(x);
+                int biased = (int) (bits >>> 52) & 0x7FF;
+                long significand = bits & 0xFFFFFFFFFFFFFL;
+                if (biased != 0) {
+                    significand |= 1L << 52;
+                } else {
+                    biased = 1;
+                }
+                int tz = Long.numberOfTrailingZeros(significand);
+                mantissas[idx] = x < 0 ? -(significand >>> tz) : significand >>> tz;
+                exponents[idx] = biased - 1075 + tz;
+                s = Math.max(s, -exponents[idx]);
+            }
+            scale[i] = s;
+            for (int j = 0; j < cols; j++) {
+                int idx = i * cols + j;
+                if (mantissas[idx] == 0) continue;
+                int shift = exponents[idx] + s;
+                exponents[idx] = shift;
+                if (64 - Long.numberOfLeadingZeros(Math.abs(mantissas[idx])) + shift > 62) {
+                    fits = false;
+                }
+            }
+        }
+
+        if (fits) {
+            small = new long[data.length];
+            for (int idx = 0; idx < data.length; idx++) {
+                small[idx] = mantissas[idx] << exponents[idx];
+            }
+        } else {
+            big = new BigInteger[data.length];
+            for (int idx = 0; idx < data.length; idx++) {
+                big[idx] = BigInteger.valueOf(mantissas[idx]).shiftLeft(exponents[idx]);
+            }
+        }
+    }
+
+    /**
+     * Eliminates on longs.
+     *
+     * @return true when done, false if an update overflowed; rows before
+     * {@link #nextRow} of the current pivot step are already updated
+     */
+    private boolean eliminateSmall() {
+        long[] a = small;
+        long[] buffer = new long[cols];
+        while (column < cols && rank < rows) {
+            if (nextRow < 0) {
+                cancel.throwIfCancelled();
+                int p = rank;
+                while (p < rows && a[p * cols + column] == 0) p++;
+                if (p == rows) {
+                    column++;
+                    continue;
+                }
+                swapRows(p, rank);
+                nextRow = reduce ? 0 : rank + 1;
+            }
+            int pivotRow = rank * cols;
+            long pivot = a[pivotRow + column];
+            long previous = previousSmall;
+            int from = reduce ? 0 : column;
+            for (; nextRow < rows; nextRow++) {
+                if (nextRow == rank) continue;
+                int row = nextRow * cols;
+                long factor = a[row + column];
+                if (factor == 0 && pivot == previous) continue;
+                try {
+                    for (int j = from; j < cols; j++) {
+                        long x = Math.multiplyExact(pivot, a[row + j]);
+                        long y = Math.multiplyExact(factor, a[pivotRow + j]);
+                        buffer[j] = Math.divideExact(Math.subtractExact(x, y), previous);
+                    }
+                } catch (ArithmeticException e) {
+                    return false;
+                }
+                System.arraycopy(buffer, from, a, row + from, cols - from);
+            }
+            previousSmall = pivot;
+            finishStep();
+        }
+        return true;
+    }
+
+    /**
+     * Eliminates on BigIntegers, resuming where {@link #eliminateSmall()} stopped.
+     */
+    private void eliminateBig() {
+        BigInteger[] a = big;
+        while (column < cols && rank < rows) {
+            if (nextRow < 0) {
+                cancel.throwIfCancelled();
+                int p = rank;
+                while (p < rows && a[p * cols + column].signum() == 0) p++;
+                if (p == rows) {
+                    column++;
+                    continue;
+                }
+                swapRows(p, rank);
+                nextRow = reduce ? 0 : rank + 1;
+            }
+            int pivotRow = rank * cols;
+            BigInteger pivot = a[pivotRow + column];
+            BigInteger previous = previousBig;
+            boolean unitStep = pivot.equals(previous);
+            boolean exact = previous.equals(BigInteger.ONE);
+            int from = reduce ? 0 : column;
+            for (; nextRow < rows; nextRow++) {
+                if (nextRow == rank) continue;
+                int row = nextRow * cols;
+                BigInteger factor = a[row + column];
+                if (factor.signum() == 0 && unitStep) continue;
+                for (int j = from; j < cols; j++) {
+                    BigInteger x = a[row + j];
+                    BigInteger y = a[pivotRow + j];
+                    BigInteger value;
+                    if (y.signum() == 0 || factor.signum() == 0) {
+                        value = x.signum() == 0 ? x : pivot.multiply(x);
+                    } else if (x.signum() == 0) {
+                        value = factor.multiply(y).negate();
+                    } else {
+                        value = pivot.multiply(x).subtract(factor.multiply(y));
+                    }
+                    a[row + j] = value.signum() == 0 || exact ? value : value.divide(previous);
+                }
+            }
+            previousBig = pivot;
+            finishStep();
+        }
+    }
+
+    private void finishStep() {
+        pivotColumns[rank] = column;
+        rank++;
+        column++;
+        nextRow = -1;
+    }
+
+    private void promote() {
+        if (big != null) return;
+        big = new BigInteger[small.length];
+        for (int i = 0; i < small.length; i++) {
+            big[i] = BigInteger.valueOf(small[i]);
+        }
+        previousBig = BigInteger.valueOf(previousSmall);
+        small = null;
+    }
+
+    private void swapRows(int r1, int r2) {
+        if (r1 == r2) return;
+        sign = -sign;
+        int s = scale[r1];
+        scale[r1] = scale[r2];
+        scale[r2] = s;
+        for (int j = 0; j < cols; j++) {
+            int x = r1 * cols + j;
+            int y = r2 * cols + j;
+            if (small != null) {
+                long t = small[x];
+                small[x] = small[y];
+                small[y] = t;
+            } else {
+                BigInteger t = big[x];
+                big[x] = big[y];
+                big[y] = t;
+            }
+        }
+    }
+
+    private BigInteger entry(int idx) {
+        return small != null ? BigInteger.valueOf(small[idx]) : big[idx];
+    }
+
+    private static double toDouble(BigInteger numerator, BigInteger denominator) {
+        if (numerator.signum() == 0) return 0.0;
+        if (numerator.bitLength() <= 53 && denominator.bitLength() <= 53) {
+            return numerator.doubleValue() / denominator.doubleValue();
+        }
+        return new BigDecimal(numerator).divide(new BigDecimal(denominator), DIVISION_CONTEXT).doubleValue();
+    }
+}
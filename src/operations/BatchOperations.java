@@ -0,0 +1,517 @@
+package operations;
+
+import model.Matrix;
+import model.MatrixAccess;
+import model.MatrixBatch;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Element-wise and algebraic operations applied to every matrix of a
+ * {@link MatrixBatch} at once.
+ * <p>
+ * Square matrices of size 2, 3 and 4 use unrolled closed-form kernels:
+ * products are written out term by term, determinants are cofactor
+ * expansions and inverses are the adjugate divided by the determinant. Each
+ * kernel loops over the batch with all entries of one matrix held in local
+ * variables, reading and writing the structure-of-arrays planes at unit
+ * stride. Other shapes fall back to general loops over the same layout.
+ * <p>
+ * The closed-form inverse does not pivot, so it loses accuracy on
+ * ill-conditioned matrices sooner than {@link MatrixOperations#inverse(Matrix)};
+ * it is meant for well-conditioned transforms. A matrix whose determinant is
+ * not finite, or is within rounding error of zero relative to the product of
+ * its rows' largest entries, is inverted by {@link GaussJordanInverse}
+ * instead, which decides whether it is singular. Batches with enough work are
+ * split across the common {@link ForkJoinPool}; each matrix is computed by
+ * one task, so results do not depend on the split.
+ *
+ * @author Youssef Amin
+ */
+
+public class BatchOperations {
+
+    private static final MatrixAccess ACCESS = MatrixAccess.obtain();
+
+    private static final double EPSILON = Math.ulp(1.0);
+
+    private BatchOperations() {
+    }
+
+    /**
+     * Adds two batches matrix by matrix.
+     *
+     * @param a the first batch
+     * @param b the second batch
+     * @return a new batch holding a[k] + b[k] for every k
+     * @throws IllegalArgumentException if the batches differ in count or shape
+     */
+    public static MatrixBatch add(MatrixBatch a, MatrixBatch b) {
+        return add(a, b, new MatrixBatch(a.getCount(), a.getNumRow(), a.getNumCol()));
+    }
+
+    /**
+     * Adds two batches into a destination without allocating. The destination
+     * may be one of the operands.
+     *
+     * @param a    the first batch
+     * @param b    the second batch
+     * @param dest the batch that receives the sums, with the same count and shape
+     * @return dest
+     * @throws IllegalArgumentException if the batches differ in count or shape
+     */
+    public static MatrixBatch add(MatrixBatch a, MatrixBatch b, MatrixBatch dest) {
+        validate(a, b);
+        validate(a, dest);
+        double[] x = ACCESS.raw(a);
+        double[] y = ACCESS.raw(b);
+        double[] z = ACCESS.raw(dest);
+        int n = a.getCount();
+        int planes = a.getNumRow() * a.getNumCol();
+        RowBlocks.run(ForkJoinPool.commonPool(), ParallelMatrixOperations.DEFAULT_THRESHOLD, n, (long) n * planes,
+                (from, to) -> {
+                    ArrayKernels kernels = ArrayKernels.INSTANCE;
+                    for (int e = 0; e < planes; e++) {
+                        int off = e * n + from;
+                        kernels.add(x, off, y, off, z, off, to - from);
+                    }
+                });
+        return dest;
+    }
+
+    /**
+     * Multiplies two batches matrix by matrix.
+     *
+     * @param a the left batch
+     * @param b the right batch, with as many rows as a has columns
+     * @return a new batch holding a[k] * b[k] for every k
+     * @throws IllegalArgumentException if the counts differ or the shapes do not allow multiplication
+     */
+    public static MatrixBatch multiply(MatrixBatch a, MatrixBatch b) {
+        return multiply(a, b, new MatrixBatch(a.getCount(), a.getNumRow(), b.getNumCol()));
+    }
+
+    /**
+     * Multiplies two batches into a destination without allocating. The
+     * destination's previous contents are overwritten.
+     *
+     * @param a    the left batch
+     * @param b    the right batch, with as many rows as a has columns
+     * @param dest the batch that receives the products
+     * @return dest
+     * @throws IllegalArgumentException if the dimensions do not match or dest is a or b
+     */
+    public static MatrixBatch multiply(MatrixBatch a, MatrixBatch b, MatrixBatch dest) {
+        int n = a.getCount();
+        int rows = a.getNumRow();
+        int inner = a.getNumCol();
+        int cols = b.getNumCol();
+        if (b.getCount() != n || b.getNumRow() != inner) {
+            throw new IllegalArgumentException("Batch dimensions do not allow multiplication.");
+        }
+        if (dest.getCount() != n || dest.getNumRow() != rows || dest.getNumCol() != cols) {
+            throw new IllegalArgumentException("Destination must have the dimensions of the product.");
+        }
+        if (dest == a || dest == b) {
+            throw new IllegalArgumentException("Destination cannot be an operand of the product.");
+        }
+
+        double[] x = ACCESS.raw(a);
+        double[] y = ACCESS.raw(b);
+        double[] z = ACCESS.raw(dest);
+        int size = rows == inner && inner == cols ? rows : 0;
+        RowBlocks.run(ForkJoinPool.commonPool(), ParallelMatrixOperations.DEFAULT_THRESHOLD, n,
+                2L * n * rows * inner * cols, (from, to) -> {
+                    switch (size) {
+                        case 2 -> multiply2(x, y, z, n, from, to);
+                        case 3 -> multiply3(x, y, z, n, from, to);
+                        case 4 -> multiply4(x, y, z, n, from, to);
+                        default -> multiplyGeneral(x, y, z, n, rows, inner, cols, from, to);
+                    }
+                });
+        return dest;
+    }
+
+    /**
+     * Computes the determinant of every matrix in a square batch.
+     *
+     * @param a the batch
+     * @return the determinants, indexed like the batch
+     * @throws IllegalArgumentException if the matrices are not square
+     */
+    public static double[] determinant(MatrixBatch a) {
+        return determinant(a, new double[a.getCount()]);
+    }
+
+    /**
+     * Computes the determinant of every matrix in a square batch without allocating.
+     *
+     * @param a    the batch
+     * @param dest the array that receives the determinants, at least as long as the batch
+     * @return dest
+     * @throws IllegalArgumentException if the matrices are not square or dest is too short
+     */
+    public static double[] determinant(MatrixBatch a, double[] dest) {
+        int size = requireSquare(a);
+        int n = a.getCount();
+        if (dest.length < n) {
+            throw new IllegalArgumentException("Destination is shorter than the batch.");
+        }
+
+        double[] x = ACCESS.raw(a);
+        RowBlocks.run(ForkJoinPool.commonPool(), ParallelMatrixOperations.DEFAULT_THRESHOLD, n,
+                (long) n * size * size * size, (from, to) -> {
+                    switch (size) {
+                        case 1 -> System.arraycopy(x, from, dest, from, to - from);
+                        case 2 -> determinant2(x, dest, n, from, to);
+                        case 3 -> determinant3(x, dest, n, from, to);
+                        case 4 -> determinant4(x, dest, n, from, to);
+                        default -> determinantGeneral(a, dest, from, to);
+                    }
+                });
+        return dest;
+    }
+
+    /**
+     * Inverts every matrix in a square batch.
+     *
+     * @param a the batch
+     * @return a new batch holding the inverses
+     * @throws IllegalArgumentException if the matrices are not square or one is singular
+     */
+    public static MatrixBatch inverse(MatrixBatch a) {
+        return inverse(a, new MatrixBatch(a.getCount(), a.getNumRow(), a.getNumCol()));
+    }
+
+    /**
+     * Inverts every matrix in a square batch into a destination without
+     * allocating. The destination may be a itself.
+     *
+     * @param a    the batch
+     * @param dest the batch that receives the inverses, with the same count and shape
+     * @return dest
+     * @throws IllegalArgumentException if the matrices are not square or one is singular;
+     *                                  dest is then partly overwritten
+     */
+    public static MatrixBatch inverse(MatrixBatch a, MatrixBatch dest) {
+        int size = requireSquare(a);
+        validate(a, dest);
+        int n = a.getCount();
+
+        double[] x = ACCESS.raw(a);
+        double[] z = ACCESS.raw(dest);
+        RowBlocks.run(ForkJoinPool.commonPool(), ParallelMatrixOperations.DEFAULT_THRESHOLD, n,
+                2L * n * size * size * size, (from, to) -> {
+                    switch (size) {
+                        case 2 -> inverse2(x, z, n, from, to);
+                        case 3 -> inverse3(x, z, n, from, to);
+                        case 4 -> inverse4(x, z, n, from, to);
+                        default -> inverseGeneral(a, dest, from, to);
+                    }
+                });
+        return dest;
+    }
+
+    private static void validate(MatrixBatch a, MatrixBatch b) {
+        if (a.getCount() != b.getCount() || a.getNumRow() != b.getNumRow() || a.getNumCol() != b.getNumCol()) {
+            throw new IllegalArgumentException("Batches must have the same count and dimensions.");
+        }
+    }
+
+    private static int requireSquare(MatrixBatch a) {
+        if (a.getNumRow() != a.getNumCol()) {
+            throw new IllegalArgumentException("Batch matrices must be square.");
+        }
+        return a.getNumRow();
+    }
+
+    private static IllegalArgumentException singular(int k) {
+        return new IllegalArgumentException("Matrix " + k + " of the batch is singular and cannot be inverted.");
+    }
+
+    private static void multiply2(double[] a, double[] b, double[] c, int n, int from, int to) {
+        for (int k = from; k < to; k++) {
+            double a00 = a[k], a01 = a[k + n];
+            double a10 = a[k + 2 * n], a11 = a[k + 3 * n];
+            double b00 = b[k], b01 = b[k + n];
+            double b10 = b[k + 2 * n], b11 = b[k + 3 * n];
+            c[k] = a00 * b00 + a01 * b10;
+            c[k + n] = a00 * b01 + a01 * b11;
+            c[k + 2 * n] = a10 * b00 + a11 * b10;
+            c[k + 3 * n] = a10 * b01 + a11 * b11;
+        }
+    }
+
+    private static void multiply3(double[] a, double[] b, double[] c, int n, int from, int to) {
+        for (int k = from; k < to; k++) {
+            double a00 = a[k], a01 = a[k + n], a02 = a[k + 2 * n];
+            double a10 = a[k + 3 * n], a11 = a[k + 4 * n], a12 = a[k + 5 * n];
+            double a20 = a[k + 6 * n], a21 = a[k + 7 * n], a22 = a[k + 8 * n];
+            double b00 = b[k], b01 = b[k + n], b02 = b[k + 2 * n];
+            double b10 = b[k + 3 * n], b11 = b[k + 4 * n], b12 = b[k + 5 * n];
+            double b20 = b[k + 6 * n], b21 = b[k + 7 * n], b22 = b[k + 8 * n];
+            c[k] = a00 * b00 + a01 * b10 + a02 * b20;
+            c[k + n] = a00 * b01 + a01 * b11 + a02 * b21;
+            c[k + 2 * n] = a00 * b02 + a01 * b12 + a02 * b22;
+            c[k + 3 * n] = a10 * b00 + a11 * b10 + a12 * b20;
+            c[k + 4 * n] = a10 * b01 + a11 * b11 + a12 * b21;
+            c[k + 5 * n] = a10 * b02 + a11 * b12 + a12 * b22;
+            c[k + 6 * n] = a20 * b00 + a21 * b10 + a22 * b20;
+            c[k + 7 * n] = a20 * b01 + a21 * b11 + a22 * b21;
+            c[k + 8 * n] = a20 * b02 + a21 * b12 + a22 * b22;
+        }
+    }
+
+    private static void multiply4(double[] a, double[] b, double[] c, int n, int from, int to) {
+        for (int k = from; k < to; k++) {
+            double a00 = a[k], a01 = a[k + n], a02 = a[k + 2 * n], a03 = a[k + 3 * n];
+            double a10 = a[k + 4 * n], a11 = a[k + 5 * n], a12 = a[k + 6 * n], a13 = a[k + 7 * n];
+            double a20 = a[k + 8 * n], a21 = a[k + 9 * n], a22 = a[k + 10 * n], a23 = a[k + 11 * n];
+            double a30 = a[k + 12 * n], a31 = a[k + 13 * n], a32 = a[k + 14 * n], a33 = a[k + 15 * n];
+            double b00 = b[k], b01 = b[k + n], b02 = b[k + 2 * n], b03 = b[k + 3 * n];
+            double b10 = b[k + 4 * n], b11 = b[k + 5 * n], b12 = b[k + 6 * n], b13 = b[k + 7 * n];
+            double b20 = b[k + 8 * n], b21 = b[k + 9 * n], b22 = b[k + 10 * n], b23 = b[k + 11 * n];
+            double b30 = b[k + 12 * n], b31 = b[k + 13 * n], b32 = b[k + 14 * n], b33 = b[k + 15 * n];
+            c[k] = a00 * b00 + a01 * b10 + a02 * b20 + a03 * b30;
+            c[k + n] = a00 * b01 + a01 * b11 + a02 * b21 + a03 * b31;
+            c[k + 2 * n] = a00 * b02 + a01 * b12 + a02 * b22 + a03 * b32;
+            c[k + 3 * n] = a00 * b03 + a01 * b13 + a02 * b23 + a03 * b33;
+            c[k + 4 * n] = a10 * b00 + a11 * b10 + a12 * b20 + a13 * b30;
+            c[k + 5 * n] = a10 * b01 + a11 * b11 + a12 * b21 + a13 * b31;
+            c[k + 6 * n] = a10 * b02 + a11 * b12 + a12 * b22 + a13 * b32;
+            c[k + 7 * n] = a10 * b03 + a11 * b13 + a12 * b23 + a13 * b33;
+            c[k + 8 * n] = a20 * b00 + a21 * b10 + a22 * b20 + a23 * b30;
+            c[k + 9 * n] = a20 * b01 + a21 * b11 + a22 * b21 + a23 * b31;
+            c[k + 10 * n] = a20 * b02 + a21 * b12 + a22 * b22 + a23 * b32;
+            c[k + 11 * n] = a20 * b03 + a21 * b13 + a22 * b23 + a23 * b33;
+            c[k + 12 * n] = a30 * b00 + a31 * b10 + a32 * b20 + a33 * b30;
+            c[k + 13 * n] = a30 * b01 + a31 * b11 + a32 * b21 + a33 * b31;
+            c[k + 14 * n] = a30 * b02 + a31 * b12 + a32 * b22 + a33 * b32;
+            c[k + 15 * n] = a30 * b03 + a31 * b13 + a32 * b23 + a33 * b33;
+        }
+    }
+
+    /**
+     * Any shape: one entry plane of the product at a time, accumulated over the inner index.
+     */
+    private static void multiplyGeneral(double[] a, double[] b, double[] c, int n, int rows, int inner, int cols,
+                                        int from, int to) {
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < cols; j++) {
+                int ce = (i * cols + j) * n;
+                for (int k = from; k < to; k++) {
+                    c[ce + k] = 0.0;
+                }
+                for (int p = 0; p < inner; p++) {
+                    int ae = (i * inner + p) * n;
+                    int be = (p * cols + j) * n;
+                    for (int k = from; k < to; k++) {
+                        c[ce + k] += a[ae + k] * b[be + k];
+                    }
+                }
+            }
+        }
+    }
+
+    private static void determinant2(double[] a, double[] det, int n, int from, int to) {
+        for (int k = from; k < to; k++) {
+            det[k] = a[k] * a[k + 3 * n] - a[k + n] * a[k + 2 * n];
+        }
+    }
+
+    private static void determinant3(double[] a, double[] det, int n, int from, int to) {
+        for (int k = from; k < to; k++) {
+            double a00 = a[k], a01 = a[k + n], a02 = a[k + 2 * n];
+            double a10 = a[k + 3 * n], a11 = a[k + 4 * n], a12 = a[k + 5 * n];
+            double a20 = a[k + 6 * n], a21 = a[k + 7 * n], a22 = a[k + 8 * n];
+            det[k] = a00 * (a11 * a22 - a12 * a21)
+                    - a01 * (a10 * a22 - a12 * a20)
+                    + a02 * (a10 * a21 - a11 * a20);
+        }
+    }
+
+    /**
+     * Laplace expansion along the top two rows: six 2x2 minors of rows 0-1
+     * against their complementary minors in rows 2-3.
+     */
+    private static void determinant4(double[] a, double[] det, int n, int from, int to) {
+        for (int k = from; k < to; k++) {
+            double a00 = a[k], a01 = a[k + n], a02 = a[k + 2 * n], a03 = a[k + 3 * n];
+            double a10 = a[k + 4 * n], a11 = a[k + 5 * n], a12 = a[k + 6 * n], a13 = a[k + 7 * n];
+            double a20 = a[k + 8 * n], a21 = a[k + 9 * n], a22 = a[k + 10 * n], a23 = a[k + 11 * n];
+            double a30 = a[k + 12 * n], a31 = a[k + 13 * n], a32 = a[k + 14 * n], a33 = a[k + 15 * n];
+            double s0 = a00 * a11 - a10 * a01;
+            double s1 = a00 * a12 - a10 * a02;
+            double s2 = a00 * a13 - a10 * a03;
+            double s3 = a01 * a12 - a11 * a02;
+            double s4 = a01 * a13 - a11 * a03;
+            double s5 = a02 * a13 - a12 * a03;
+            double c0 = a20 * a31 - a30 * a21;
+            double c1 = a20 * a32 - a30 * a22;
+            double c2 = a20 * a33 - a30 * a23;
+            double c3 = a21 * a32 - a31 * a22;
+            double c4 = a21 * a33 - a31 * a23;
+            double c5 = a22 * a33 - a32 * a23;
+            det[k] = s0 * c5 - s1 * c4 + s2 * c3 + s3 * c2 - s4 * c1 + s5 * c0;
+        }
+    }
+
+    private static void determinantGeneral(MatrixBatch a, double[] det, int from, int to) {
+        int size = a.getNumRow();
+        for (int k = from; k < to; k++) {
+            double[] entries = new double[size * size];
+            a.copyMatrix(k, entries, 0);
+            det[k] = LUDecomposition.determinant(ACCESS.wrap(size, size, entries));
+        }
+    }
+
+    private static void inverse2(double[] a, double[] z, int n, int from, int to) {
+        for (int k = from; k < to; k++) {
+            double a00 = a[k], a01 = a[k + n];
+            double a10 = a[k + 2 * n], a11 = a[k + 3 * n];
+            double det = a00 * a11 - a01 * a10;
+            double scale = rowMax(a00, a01) * rowMax(a10, a11);
+            if (!isSafeDivisor(det, scale, 2)) {
+                inverseOne(a, z, n, 2, k);
+                continue;
+            }
+            double inv = 1.0 / det;
+            z[k] = a11 * inv;
+            z[k + n] = -a01 * inv;
+            z[k + 2 * n] = -a10 * inv;
+            z[k + 3 * n] = a00 * inv;
+        }
+    }
+
+    private static void inverse3(double[] a, double[] z, int n, int from, int to) {
+        for (int k = from; k < to; k++) {
+            double a00 = a[k], a01 = a[k + n], a02 = a[k + 2 * n];
+            double a10 = a[k + 3 * n], a11 = a[k + 4 * n], a12 = a[k + 5 * n];
+            double a20 = a[k + 6 * n], a21 = a[k + 7 * n], a22 = a[k + 8 * n];
+            double c00 = a11 * a22 - a12 * a21;
+            double c10 = a12 * a20 - a10 * a22;
+            double c20 = a10 * a21 - a11 * a20;
+            double det = a00 * c00 + a01 * c10 + a02 * c20;
+            double scale = rowMax(a00, a01, a02) * rowMax(a10, a11, a12) * rowMax(a20, a21, a22);
+            if (!isSafeDivisor(det, scale, 3)) {
+                inverseOne(a, z, n, 3, k);
+                continue;
+            }
+            double inv = 1.0 / det;
+            z[k] = c00 * inv;
+            z[k + n] = (a02 * a21 - a01 * a22) * inv;
+            z[k + 2 * n] = (a01 * a12 - a02 * a11) * inv;
+            z[k + 3 * n] = c10 * inv;
+            z[k + 4 * n] = (a00 * a22 - a02 * a20) * inv;
+            z[k + 5 * n] = (a02 * a10 - a00 * a12) * inv;
+            z[k + 6 * n] = c20 * inv;
+            z[k + 7 * n] = (a01 * a20 - a00 * a21) * inv;
+            z[k + 8 * n] = (a00 * a11 - a01 * a10) * inv;
+        }
+    }
+
+    /**
+     * Adjugate from the same twelve 2x2 minors as {@link #determinant4}.
+     */
+    private static void inverse4(double[] a, double[] z, int n, int from, int to) {
+        for (int k = from; k < to; k++) {
+            double a00 = a[k], a01 = a[k + n], a02 = a[k + 2 * n], a03 = a[k + 3 * n];
+            double a10 = a[k + 4 * n], a11 = a[k + 5 * n], a12 = a[k + 6 * n], a13 = a[k + 7 * n];
+            double a20 = a[k + 8 * n], a21 = a[k + 9 * n], a22 = a[k + 10 * n], a23 = a[k + 11 * n];
+            double a30 = a[k + 12 * n], a31 = a[k + 13 * n], a32 = a[k + 14 * n], a33 = a[k + 15 * n];
+            double s0 = a00 * a11 - a10 * a01;
+            double s1 = a00 * a12 - a10 * a02;
+            double s2 = a00 * a13 - a10 * a03;
+            double s3 = a01 * a12 - a11 * a02;
+            double s4 = a01 * a13 - a11 * a03;
+            double s5 = a02 * a13 - a12 * a03;
+            double c0 = a20 * a31 - a30 * a21;
+            double c1 = a20 * a32 - a30 * a22;
+            double c2 = a20 * a33 - a30 * a23;
+            double c3 = a21 * a32 - a31 * a22;
+            double c4 = a21 * a33 - a31 * a23;
+            double c5 = a22 * a33 - a32 * a23;
+            double det = s0 * c5 - s1 * c4 + s2 * c3 + s3 * c2 - s4 * c1 + s5 * c0;
+            double scale = rowMax(a00, a01, a02, a03) * rowMax(a10, a11, a12, a13)
+                    * rowMax(a20, a21, a22, a23) * rowMax(a30, a31, a32, a33);
+            if (!isSafeDivisor(det, scale, 4)) {
+                inverseOne(a, z, n, 4, k);
+                continue;
+            }
+            double inv = 1.0 / det;
+            z[k] = (a11 * c5 - a12 * c4 + a13 * c3) * inv;
+            z[k + n] = (-a01 * c5 + a02 * c4 - a03 * c3) * inv;
+            z[k + 2 * n] = (a31 * s5 - a32 * s4 + a33 * s3) * inv;
+            z[k + 3 * n] = (-a21 * s5 + a22 * s4 - a23 * s3) * inv;
+            z[k + 4 * n] = (-a10 * c5 + a12 * c2 - a13 * c1) * inv;
+            z[k + 5 * n] = (a00 * c5 - a02 * c2 + a03 * c1) * inv;
+            z[k + 6 * n] = (-a30 * s5 + a32 * s2 - a33 * s1) * inv;
+            z[k + 7 * n] = (a20 * s5 - a22 * s2 + a23 * s1) * inv;
+            z[k + 8 * n] = (a10 * c4 - a11 * c2 + a13 * c0) * inv;
+            z[k + 9 * n] = (-a00 * c4 + a01 * c2 - a03 * c0) * inv;
+            z[k + 10 * n] = (a30 * s4 - a31 * s2 + a33 * s0) * inv;
+            z[k + 11 * n] = (-a20 * s4 + a21 * s2 - a23 * s0) * inv;
+            z[k + 12 * n] = (-a10 * c3 + a11 * c1 - a12 * c0) * inv;
+            z[k + 13 * n] = (a00 * c3 - a01 * c1 + a02 * c0) * inv;
+            z[k + 14 * n] = (-a30 * s3 + a31 * s1 - a32 * s0) * inv;
+            z[k + 15 * n] = (a20 * s3 - a21 * s1 + a22 * s0) * inv;
+        }
+    }
+
+    /**
+     * Tells whether a closed-form determinant can be divided by: it must be
+     * finite and larger than the rounding error of a cofactor expansion,
+     * which grows with the product of the rows' largest entries. NaN fails.
+     */
+    private static boolean isSafeDivisor(double det, double scale, int size) {
+        return Math.abs(det) > size * EPSILON * scale && Double.isFinite(det);
+    }
+
+    private static double rowMax(double a, double b) {
+        return Math.max(Math.abs(a), Math.abs(b));
+    }
+
+    private static double rowMax(double a, double b, double c) {
+        return Math.max(rowMax(a, b), Math.abs(c));
+    }
+
+    private static double rowMax(double a, double b, double c, double d) {
+        return Math.max(rowMax(a, b), rowMax(c, d));
+    }
+
+    /**
+     * Inverts matrix k of the planes with {@link GaussJordanInverse}, for a
+     * determinant the closed form cannot safely divide by.
+     */
+    private static void inverseOne(double[] a, double[] z, int n, int size, int k) {
+        int entries = size * size;
+        double[] m = new double[entries];
+        for (int e = 0; e < entries; e++) {
+            m[e] = a[k + e * n];
+        }
+        double[] inverse;
+        try {
+            inverse = ACCESS.raw(new GaussJordanInverse(ACCESS.wrap(size, size, m)).getInverse());
+        } catch (IllegalArgumentException e) {
+            throw singular(k);
+        }
+        for (int e = 0; e < entries; e++) {
+            z[k + e * n] = inverse[e];
+        }
+    }
+
+    private static void inverseGeneral(MatrixBatch a, MatrixBatch dest, int from, int to) {
+        int size = a.getNumRow();
+        for (int k = from; k < to; k++) {
+            double[] entries = new double[size * size];
+            a.copyMatrix(k, entries, 0);
+            Matrix inverse;
+            try {
+                inverse = new GaussJordanInverse(ACCESS.wrap(size, size, entries)).getInverse();
+            } catch (IllegalArgumentException e) {
+                throw singular(k);
+            }
+            dest.setMatrix(k, ACCESS.raw(inverse), 0);
+        }
+    }
+}
@@ -0,0 +1,324 @@
+package operations;
+
+import model.Matrix;
+import model.MatrixAccess;
+import model.SparseMatrix;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Opt-in, bounded cache in front of the expensive {@link MatrixOperations}
+ * that are commonly repeated on the same input: inverse, determinant and
+ * RREF. Results are keyed by the content of the input matrix, so two
+ * separately built matrices with equal entries share one entry; the key's
+ * {@link Matrix#hashCode()} is computed once per immutable matrix and a hit
+ * costs one {@link Matrix#equals(Object)} comparison.
+ * <p>
+ * The cache is bounded both by entry count and by weight, the number of
+ * doubles held by an entry's key and result. When either bound is exceeded
+ * the least recently used entries are evicted. An entry heavier than the
+ * whole weight budget is computed but not stored.
+ * <p>
+ * Instances are thread-safe. Lookups take a short lock around the LRU
+ * order; computations run outside it, and concurrent misses on the same key
+ * wait for a single computation instead of repeating it. Failures, such as
+ * inverting a singular matrix, are rethrown and never cached.
+ * <p>
+ * A {@link model.MutableMatrix} or a matrix backed by external storage is
+ * snapshotted onto the heap before it is stored as a key, so later writes or
+ * closing the storage cannot corrupt the cache.
+ *
+ * @author Youssef Amin
+ */
+
+public class CachedMatrixOperations {
+
+    private static final MatrixAccess ACCESS = MatrixAccess.obtain();
+
+    private enum Operation {
+        INVERSE, DETERMINANT, RREF
+    }
+
+    private final int maxEntries;
+    private final long maxWeight;
+
+    /** Access-ordered, so iteration starts at the least recently used entry. */
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ConcurrentHashMap<Key, CompletableFuture<Object>> loading = new ConcurrentHashMap<>();
+    private long weight;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param maxEntries the most results kept at once
+     * @param maxWeight  the most doubles held across all keys and results
+     * @throws IllegalArgumentException if either bound is not positive
+     */
+    public CachedMatrixOperations(int maxEntries, long maxWeight) {
+        if (maxEntries <= 0 || maxWeight <= 0) {
+            throw new IllegalArgumentException("Cache bounds must be positive.");
+        }
+        this.maxEntries = maxEntries;
+        this.maxWeight = maxWeight;
+    }
+
+    /**
+     * @param m the square matrix to invert
+     * @return the inverse, shared with other callers of the same input
+     * @throws IllegalArgumentException if the matrix is not square or is singular
+     * @see MatrixOperations#inverse(Matrix)
+     */
+    public Matrix inverse(Matrix m) {
+        return (Matrix) lookup(Operation.INVERSE, m, MatrixOperations::inverse);
+    }
+
+    /**
+     * @param m the square matrix
+     * @return the determinant
+     * @throws IllegalArgumentException if the matrix is not square
+     * @see MatrixOperations#determinant(Matrix)
+     */
+    public double determinant(Matrix m) {
+        return (Double) lookup(Operation.DETERMINANT, m, MatrixOperations::determinant);
+    }
+
+    /**
+     * @param m the matrix to reduce
+     * @return the RREF, shared with other callers of the same input
+     * @see MatrixOperations#rref(Matrix)
+     */
+    public Matrix rref(Matrix m) {
+        return (Matrix) lookup(Operation.RREF, m, MatrixOperations::rref);
+    }
+
+    /**
+     * Removes every entry. Statistics are kept.
+     */
+    public void clear() {
+        lock.lock();
+        try {
+            entries.clear();
+            weight = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return a snapshot of the counters and current occupancy
+     */
+    public Stats getStats() {
+        lock.lock();
+        try {
+            return new Stats(hits.sum(), misses.sum(), evictions.sum(), entries.size(), weight);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Object lookup(Operation operation, Matrix m, Function<Matrix, Object> compute) {
+        Key key = new Key(operation, snapshot(m));
+        Object cached = get(key);
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> running = loading.putIfAbsent(key, mine);
+        if (running != null) {
+            hits.increment();
+            return await(running);
+        }
+
+        try {
+            // Another thread may have stored the result between the lookup and the claim
+            Object result = get(key);
+            if (result != null) {
+                hits.increment();
+            } else {
+                misses.increment();
+                result = compute.apply(key.matrix);
+                put(key, result);
+            }
+            mine.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(key, mine);
+        }
+    }
+
+    private Object get(Key key) {
+        lock.lock();
+        try {
+            Entry entry = entries.get(key);
+            return entry != null ? entry.value : null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void put(Key key, Object value) {
+        long w = weigh(key.matrix) + (value instanceof Matrix result ? weigh(result) : 1);
+        if (w > maxWeight) return;
+
+        lock.lock();
+        try {
+            Entry previous = entries.put(key, new Entry(value, w));
+            if (previous != null) {
+                weight -= previous.weight;
+            }
+            weight += w;
+            Iterator<Entry> eldest = entries.values().iterator();
+            while ((weight > maxWeight || entries.size() > maxEntries) && eldest.hasNext()) {
+                weight -= eldest.next().weight;
+                eldest.remove();
+                evictions.increment();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static Object await(CompletableFuture<Object> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            if (e.getCause() instanceof Error cause) throw cause;
+            throw e;
+        }
+    }
+
+    /**
+     * @return m itself if it is immutable and on the heap, otherwise an immutable heap copy
+     */
+    private static Matrix snapshot(Matrix m) {
+        if (m instanceof SparseMatrix) return m;
+        if (ACCESS.isDense(m) && m.getClass() == Matrix.class) return m;
+        return ACCESS.wrap(m.getNumRow(), m.getNumCol(), ACCESS.copyOf(m));
+    }
+
+    private static long weigh(Matrix m) {
+        return m instanceof SparseMatrix sparse
+                ? sparse.getNumNonZeros() * 2L + m.getNumRow() + 1
+                : (long) m.getNumRow() * m.getNumCol();
+    }
+
+    /**
+     * Cache key: the operation and the content of its input.
+     */
+    private static final class Key {
+        private final Operation operation;
+        private final Matrix matrix;
+        private final int hash;
+
+        Key(Operation operation, Matrix matrix) {
+            this.operation = operation;
+            this.matrix = matrix;
+            this.hash = 31 * operation.hashCode() + matrix.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key other && operation == other.operation
+                    && hash == other.hash && matrix.equals(other.matrix);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static final class Entry {
+        private final Object value;
+        private final long weight;
+
+        Entry(Object value, long weight) {
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * Point-in-time cache statistics.
+     */
+    public static final class Stats {
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+        private final int entries;
+        private final long weight;
+
+        Stats(long hits, long misses, long evictions, int entries, long weight) {
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.entries = entries;
+            this.weight = weight;
+        }
+
+        /**
+         * @return lookups answered from the cache, including those that waited for another caller's computation
+         */
+        public long getHits() {
+            return hits;
+        }
+
+        /**
+         * @return lookups that ran the operation
+         */
+        public long getMisses() {
+            return misses;
+        }
+
+        /**
+         * @return entries removed to stay within the bounds
+         */
+        public long getEvictions() {
+            return evictions;
+        }
+
+        /**
+         * @return the number of results currently stored
+         */
+        public int getEntries() {
+            return entries;
+        }
+
+        /**
+         * @return the doubles currently held by keys and results
+         */
+        public long getWeight() {
+            return weight;
+        }
+
+        /**
+         * @return hits as a fraction of all lookups, or 0 before the first lookup
+         */
+        public double getHitRate() {
+            long total = hits + misses;
+            return total == 0 ? 0.0 : (double) hits / total;
+        }
+
+        @Override
+        public String toString() {
+            return "hits=" + hits + ", misses=" + misses + ", evictions=" + evictions
+                    + ", entries=" + entries + ", weight=" + weight;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package operations;
+
+import java.util.concurrent.CancellationException;
+import java.util.function.Supplier;
+
+/**
+ * A flag that stops a running factorization between pivots.
+ * <p>
+ * {@link #call(Supplier)} makes the token current on the calling thread for
+ * the duration of the call. The elimination kernels (inverse, LU, Cholesky,
+ * RREF, exact elimination, QR and the Jacobi SVD) look the current token up
+ * once and check it before every pivot or sweep, so a cancelled job stops
+ * within one O(n^2) step instead of running to the end; they throw
+ * {@link CancellationException} and leave their inputs unchanged.
+ * Multiplication and the other single-pass kernels are not interrupted.
+ * <p>
+ * Code that runs outside a token is never cancelled. Tokens may be
+ * cancelled from any thread.
+ *
+ * @author Youssef Amin
+ */
+
+public final class CancellationToken {
+
+    private static final ThreadLocal<CancellationToken> CURRENT = new ThreadLocal<>();
+
+    /** Returned by {@link #current()} outside a token; never cancelled, since it is not visible outside the package. */
+    private static final CancellationToken NONE = new CancellationToken();
+
+    private volatile boolean cancelled;
+
+    /**
+     * Requests cancellation. Work running under this token stops at its next
+     * check; calling this again has no effect.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * @return true if {@link #cancel()} has been called
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * @throws CancellationException if this token has been cancelled
+     */
+    public void throwIfCancelled() {
+        if (cancelled)
+            throw new CancellationException("Operation was cancelled.");
+    }
+
+    /**
+     * Runs work with this token current on the calling thread, restoring the
+     * previous token afterwards, so calls nest.
+     *
+     * @param work the work to run
+     * @return the work's result
+     * @throws CancellationException if the token is cancelled before or during the work
+     */
+    public <R> R call(Supplier<R> work) {
+        throwIfCancelled();
+        CancellationToken previous = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            return work.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    /**
+     * Checks the calling thread's current token, for long-running code of
+     * its own that runs inside {@link #call(Supplier)}.
+     *
+     * @throws CancellationException if the current token has been cancelled
+     */
+    public static void checkpoint() {
+        current().throwIfCancelled();
+    }
+
+    /**
+     * @return the calling thread's current token, or a token that is never cancelled
+     */
+    static CancellationToken current() {
+        CancellationToken token = CURRENT.get();
+        return token == null ? NONE : token;
+    }
+}
@@ -0,0 +1,114 @@
+package operations;
+
+import model.Matrix;
+import model.MatrixAccess;
+
+/**
+ * Result of an eigenvalue computation by {@link EigenSolver}.
+ * <p>
+ * Eigenvalues are returned as separate real and imaginary parts. Complex
+ * eigenvalues of a real matrix come in conjugate pairs that sit next to each
+ * other, with the positive imaginary part first. When eigenvectors were
+ * requested, column k of {@link #getEigenvectors()} is the eigenvector for
+ * eigenvalue k; for a complex pair (k, k + 1) columns k and k + 1 hold the
+ * real and imaginary parts of the first eigenvector of the pair, so that
+ * A * V = V * D with D from {@link #getD()}.
+ * <p>
+ * Symmetric matrices always have real eigenvalues, returned in ascending
+ * order with orthonormal eigenvectors.
+ *
+ * @author Youssef Amin
+ */
+
+public class EigenDecomposition {
+
+    private static final MatrixAccess ACCESS = MatrixAccess.obtain();
+
+    private final double[] real;
+    private final double[] imag;
+    private final Matrix vectors;
+    private final boolean symmetric;
+
+    EigenDecomposition(double[] real, double[] imag, Matrix vectors, boolean symmetric) {
+        this.real = real;
+        this.imag = imag;
+        this.vectors = vectors;
+        this.symmetric = symmetric;
+    }
+
+    /**
+     * @return the number of eigenvalues, equal to the matrix size
+     */
+    public int getSize() {
+        return real.length;
+    }
+
+    /**
+     * @return a copy of the real parts of the eigenvalues
+     */
+    public double[] getRealEigenvalues() {
+        return real.clone();
+    }
+
+    /**
+     * @return a copy of the imaginary parts of the eigenvalues
+     */
+    public double[] getImagEigenvalues() {
+        return imag.clone();
+    }
+
+    /**
+     * @return true if every eigenvalue has a zero imaginary part
+     */
+    public boolean isReal() {
+        for (double v : imag) {
+            if (v != 0.0) return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return true if the input matrix was symmetric and the symmetric solver was used
+     */
+    public boolean isSymmetric() {
+        return symmetric;
+    }
+
+    /**
+     * @return true if eigenvectors were computed
+     */
+    public boolean hasEigenvectors() {
+        return vectors != null;
+    }
+
+    /**
+     * @return the eigenvector matrix V, one eigenvector per column
+     * @throws IllegalStateException if eigenvectors were not requested
+     */
+    public Matrix getEigenvectors() {
+        if (vectors == null) {
+            throw new IllegalStateException("Eigenvectors were not computed.");
+        }
+        return vectors;
+    }
+
+    /**
+     * Builds the block diagonal eigenvalue matrix. Real eigenvalues sit on the
+     * diagonal; each complex pair a +/- bi becomes the 2x2 block [[a, b], [-b, a]].
+     *
+     * @return the eigenvalue matrix D
+     */
+    public Matrix getD() {
+        int n = real.length;
+        double[] d = new double[n * n];
+        for (int i = 0; i < n; i++) {
+            d[i * n + i] = real[i];
+            if (imag[i] > 0) {
+                d[i * n + i + 1] = imag[i];
+            } else if (imag[i] < 0) {
+                d[i * n + i - 1] = imag[i];
+            }
+        }
+        return ACCESS.wrap(n, n, d);
+    }
+}
@@ -1,14 +1,888 @@
 package operations;
+
+import model.Matrix;
+import model.MatrixAccess;
+
+import java.util.Arrays;
+
 /**
  * Provides methods to compute eigenvalues and eigenvectors.
  * Intended for use with square matrices in linear algebra operations
  * such as diagonalization or characteristic equation analysis.
- *
- * Implementation pending for future versions.
+ * <p>
+ * Symmetric matrices are reduced to tridiagonal form with Householder
+ * reflections and then diagonalized with the implicit QL algorithm.
+ * General matrices are reduced to upper Hessenberg form and then to real
+ * Schur form with the Francis double-shift QR algorithm. Both paths are
+ * O(n^3) and follow the EISPACK routines tred2/tql2 and orthes/hqr2.
+ * Skipping the eigenvectors avoids accumulating the transformations, which
+ * is several times faster.
  *
  * @author Youssef Amin
  */
 
 public class EigenSolver {
-    // TODO: Compute eigenvalues and eigenvectors
+
+    private static final MatrixAccess ACCESS = MatrixAccess.obtain();
+
+    private static final double EPS = Math.ulp(1.0);
+
+    /** Iterations allowed per eigenvalue before the QR/QL sweep gives up. */
+    private static final int MAX_ITERATIONS = 100;
+
+    /**
+     * Computes the eigenvalues and eigenvectors of a square matrix.
+     *
+     * @param m the square matrix
+     * @return the eigenvalues and eigenvectors
+     * @throws IllegalArgumentException if the matrix is not square
+     * @throws IllegalStateException    if the iteration does not converge
+     */
+    public static EigenDecomposition decompose(Matrix m) {
+        return decompose(m, true);
+    }
+
+    /**
+     * Computes the eigenvalues of a square matrix and, optionally, its eigenvectors.
+     *
+     * @param m              the square matrix
+     * @param computeVectors whether to compute eigenvectors as well
+     * @return the eigenvalues, and eigenvectors if requested
+     * @throws IllegalArgumentException if the matrix is not square
+     * @throws IllegalStateException    if the iteration does not converge
+     */
+    public static EigenDecomposition decompose(Matrix m, boolean computeVectors) {
+        if (!m.isSquare()) {
+            throw new IllegalArgumentException("Eigenvalues are only defined for square matrices.");
+        }
+
+        int n = m.getNumRow();
+        double[] data = ACCESS.raw(m);
+        double[][] a = new double[n][n];
+        for (int i = 0; i < n; i++) {
+            System.arraycopy(data, i * n, a[i], 0, n);
+        }
+
+        if (isSymmetric(data, n)) {
+            return symmetric(a, n, computeVectors);
+        }
+        return general(a, n, computeVectors);
+    }
+
+    /**
+     * Computes only the eigenvalues of a square matrix.
+     *
+     * @param m the square matrix
+     * @return the eigenvalues, without eigenvectors
+     * @throws IllegalArgumentException if the matrix is not square
+     * @throws IllegalStateException    if the iteration does not converge
+     */
+    public static EigenDecomposition eigenvalues(Matrix m) {
+        return decompose(m, false);
+    }
+
+    private static boolean isSymmetric(double[] data, int n) {
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                if (data[i * n + j] != data[j * n + i]) return false;
+            }
+        }
+        return true;
+    }
+
+    // ---------------------------------------------------------------------
+    // Symmetric path: Householder tridiagonalization + implicit QL.
+    //
+    // The textbook routines keep the eigenvectors in the columns of V and
+    // sweep down those columns in the O(n^3) loops. Here w holds V transposed,
+    // so the same loops run along contiguous rows.
+    // ---------------------------------------------------------------------
+
+    private static EigenDecomposition symmetric(double[][] w, int n, boolean computeVectors) {
+        double[] d = new double[n];
+        double[] e = new double[n];
+
+        tridiagonalize(w, d, e, n, computeVectors);
+        diagonalize(w, d, e, n, computeVectors);
+
+        Matrix vectors = null;
+        if (computeVectors) {
+            double[] v = new double[n * n];
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j < n; j++) {
+                    v[j * n + i] = w[i][j];
+                }
+            }
+            vectors = ACCESS.wrap(n, n, v);
+        }
+        return new EigenDecomposition(d, new double[n], vectors, true);
+    }
+
+    /**
+     * Householder reduction to symmetric tridiagonal form (tred2). On return d
+     * holds the diagonal, e the sub-diagonal in e[1..n-1], and w the
+     * transposed accumulated transformation if vectors are wanted.
+     */
+    private static void tridiagonalize(double[][] w, double[] d, double[] e, int n, boolean computeVectors) {
+        for (int j = 0; j < n; j++) {
+            d[j] = w[j][n - 1];
+        }
+
+        for (int i = n - 1; i > 0; i--) {
+            double scale = 0.0;
+            double h = 0.0;
+            for (int k = 0; k < i; k++) {
+                scale += Math.abs(d[k]);
+            }
+
+            if (scale == 0.0) {
+                e[i] = d[i - 1];
+                for (int j = 0; j < i; j++) {
+                    d[j] = w[j][i - 1];
+                    w[j][i] = 0.0;
+                    w[i][j] = 0.0;
+                }
+            } else {
+                for (int k = 0; k < i; k++) {
+                    d[k] /= scale;
+                    h += d[k] * d[k];
+                }
+                double f = d[i - 1];
+                double g = Math.sqrt(h);
+                if (f > 0) g = -g;
+                e[i] = scale * g;
+                h -= f * g;
+                d[i - 1] = f - g;
+                for (int j = 0; j < i; j++) {
+                    e[j] = 0.0;
+                }
+
+                for (int j = 0; j < i; j++) {
+                    f = d[j];
+                    double[] wj = w[j];
+                    w[i][j] = f;
+                    g = e[j] + wj[j] * f;
+                    for (int k = j + 1; k <= i - 1; k++) {
+                        g += wj[k] * d[k];
+                        e[k] += wj[k] * f;
+                    }
+                    e[j] = g;
+                }
+
+                f = 0.0;
+                for (int j = 0; j < i; j++) {
+                    e[j] /= h;
+                    f += e[j] * d[j];
+                }
+                double hh = f / (h + h);
+                for (int j = 0; j < i; j++) {
+                    e[j] -= hh * d[j];
+                }
+                for (int j = 0; j < i; j++) {
+                    f = d[j];
+                    g = e[j];
+                    double[] wj = w[j];
+                    for (int k = j; k <= i - 1; k++) {
+                        wj[k] -= (f * e[k] + g * d[k]);
+                    }
+                    d[j] = wj[i - 1];
+                    wj[i] = 0.0;
+                }
+            }
+            d[i] = h;
+        }
+
+        if (!computeVectors) {
+            for (int j = 0; j < n; j++) {
+                d[j] = w[j][j];
+            }
+            e[0] = 0.0;
+            return;
+        }
+
+        // Accumulate the transformations.
+        for (int i = 0; i < n - 1; i++) {
+            w[i][n - 1] = w[i][i];
+            w[i][i] = 1.0;
+            double h = d[i + 1];
+            double[] wNext = w[i + 1];
+            if (h != 0.0) {
+                for (int k = 0; k <= i; k++) {
+                    d[k] = wNext[k] / h;
+                }
+                for (int j = 0; j <= i; j++) {
+                    double[] wj = w[j];
+                    double g = 0.0;
+                    for (int k = 0; k <= i; k++) {
+                        g += wNext[k] * wj[k];
+                    }
+                    for (int k = 0; k <= i; k++) {
+                        wj[k] -= g * d[k];
+                    }
+                }
+            }
+            for (int k = 0; k <= i; k++) {
+                wNext[k] = 0.0;
+            }
+        }
+        for (int j = 0; j < n; j++) {
+            d[j] = w[j][n - 1];
+            w[j][n - 1] = 0.0;
+        }
+        w[n - 1][n - 1] = 1.0;
+        e[0] = 0.0;
+    }
+
+    /**
+     * Implicit QL iteration on the tridiagonal matrix (tql2). On return d holds
+     * the eigenvalues in ascending order and the rows of w the eigenvectors.
+     */
+    private static void diagonalize(double[][] w, double[] d, double[] e, int n, boolean computeVectors) {
+        for (int i = 1; i < n; i++) {
+            e[i - 1] = e[i];
+        }
+        e[n - 1] = 0.0;
+
+        double f = 0.0;
+        double tst1 = 0.0;
+        for (int l = 0; l < n; l++) {
+            tst1 = Math.max(tst1, Math.abs(d[l]) + Math.abs(e[l]));
+            int m = l;
+            while (m < n) {
+                if (Math.abs(e[m]) <= EPS * tst1) break;
+                m++;
+            }
+
+            if (m > l) {
+                int iter = 0;
+                do {
+                    if (++iter > MAX_ITERATIONS) {
+                        throw new IllegalStateException("Eigenvalue iteration did not converge.");
+                    }
+
+                    double g = d[l];
+                    double p = (d[l + 1] - g) / (2.0 * e[l]);
+                    double r = Math.hypot(p, 1.0);
+                    if (p < 0) r = -r;
+                    d[l] = e[l] / (p + r);
+                    d[l + 1] = e[l] * (p + r);
+                    double dl1 = d[l + 1];
+                    double h = g - d[l];
+                    for (int i = l + 2; i < n; i++) {
+                        d[i] -= h;
+                    }
+                    f += h;
+
+                    p = d[m];
+                    double c = 1.0;
+                    double c2 = c;
+                    double c3 = c;
+                    double el1 = e[l + 1];
+                    double s = 0.0;
+                    double s2 = 0.0;
+                    for (int i = m - 1; i >= l; i--) {
+                        c3 = c2;
+                        c2 = c;
+                        s2 = s;
+                        g = c * e[i];
+                        h = c * p;
+                        r = Math.hypot(p, e[i]);
+                        e[i + 1] = s * r;
+                        s = e[i] / r;
+                        c = p / r;
+                        p = c * d[i] - s * g;
+                        d[i + 1] = h + s * (c * g + s * d[i]);
+
+                        if (computeVectors) {
+                            double[] wi = w[i];
+                            double[] wi1 = w[i + 1];
+                            for (int k = 0; k < n; k++) {
+                                h = wi1[k];
+                                wi1[k] = s * wi[k] + c * h;
+                                wi[k] = c * wi[k] - s * h;
+                            }
+                        }
+                    }
+                    p = -s * s2 * c3 * el1 * e[l] / dl1;
+                    e[l] = s * p;
+                    d[l] = c * p;
+                } while (Math.abs(e[l]) > EPS * tst1);
+            }
+            d[l] += f;
+            e[l] = 0.0;
+        }
+
+        for (int i = 0; i < n - 1; i++) {
+            int k = i;
+            double p = d[i];
+            for (int j = i + 1; j < n; j++) {
+                if (d[j] < p) {
+                    k = j;
+                    p = d[j];
+                }
+            }
+            if (k != i) {
+                d[k] = d[i];
+                d[i] = p;
+                if (computeVectors) {
+                    double[] t = w[i];
+                    w[i] = w[k];
+                    w[k] = t;
+                }
+            }
+        }
+    }
+
+    // ---------------------------------------------------------------------
+    // General path: Householder reduction to Hessenberg form + shifted QR.
+    // ---------------------------------------------------------------------
+
+    private static EigenDecomposition general(double[][] h, int n, boolean computeVectors) {
+        double[][] vt = computeVectors ? new double[n][n] : null;
+        double[] d = new double[n];
+        double[] e = new double[n];
+
+        hessenberg(h, vt, n);
+        new SchurIteration(h, vt, d, e, n).run();
+
+        Matrix vectors = null;
+        if (computeVectors) {
+            double[] flat = new double[n * n];
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j < n; j++) {
+                    flat[j * n + i] = vt[i][j];
+                }
+            }
+            vectors = ACCESS.wrap(n, n, flat);
+        }
+        return new EigenDecomposition(d, e, vectors, false);
+    }
+
+    /**
+     * Reduces h to upper Hessenberg form with Householder similarity
+     * transformations (orthes), accumulating them transposed into vt when it
+     * is not null.
+     */
+    private static void hessenberg(double[][] h, double[][] vt, int n) {
+        int high = n - 1;
+        double[] ort = new double[n];
+        double[] work = new double[n];
+
+        for (int m = 1; m <= high - 1; m++) {
+            double scale = 0.0;
+            for (int i = m; i <= high; i++) {
+                scale += Math.abs(h[i][m - 1]);
+            }
+            if (scale == 0.0) continue;
+
+            double hh = 0.0;
+            for (int i = high; i >= m; i--) {
+                ort[i] = h[i][m - 1] / scale;
+                hh += ort[i] * ort[i];
+            }
+            double g = Math.sqrt(hh);
+            if (ort[m] > 0) g = -g;
+            hh -= ort[m] * g;
+            ort[m] -= g;
+
+            // h = (I - u u' / hh) * h * (I - u u' / hh). The left product
+            // needs u' * h, accumulated row by row; after that each row takes
+            // its left and right update in one visit.
+            Arrays.fill(work, m, n, 0.0);
+            for (int i = m; i <= high; i++) {
+                ArrayKernels.INSTANCE.axpy(ort[i], h[i], m, work, m, n - m);
+            }
+            for (int i = 0; i <= high; i++) {
+                double[] hi = h[i];
+                if (i >= m) {
+                    ArrayKernels.INSTANCE.axpy(-(ort[i] / hh), work, m, hi, m, n - m);
+                }
+                double f = 0.0;
+                for (int j = high; j >= m; j--) {
+                    f += ort[j] * hi[j];
+                }
+                f /= hh;
+                ArrayKernels.INSTANCE.axpy(-f, ort, m, hi, m, high - m + 1);
+            }
+            ort[m] *= scale;
+            h[m][m - 1] = scale * g;
+        }
+
+        if (vt == null) return;
+
+        for (int i = 0; i < n; i++) {
+            vt[i][i] = 1.0;
+        }
+        for (int m = high - 1; m >= 1; m--) {
+            if (h[m][m - 1] == 0.0) continue;
+
+            for (int i = m + 1; i <= high; i++) {
+                ort[i] = h[i][m - 1];
+            }
+            // Double division avoids possible underflow.
+            double denom = ort[m];
+            double sub = h[m][m - 1];
+            for (int j = m; j <= high; j++) {
+                double[] vj = vt[j];
+                double g = 0.0;
+                for (int i = m; i <= high; i++) {
+                    g += ort[i] * vj[i];
+                }
+                g = (g / denom) / sub;
+                ArrayKernels.INSTANCE.axpy(g, ort, m, vj, m, high - m + 1);
+            }
+        }
+    }
+
+    /**
+     * Francis double-shift QR iteration from Hessenberg to real Schur form
+     * (hqr2), followed by back substitution for the eigenvectors when vt is
+     * not null. Without vectors only the active window is updated, as in hqr.
+     * As on the symmetric path, vt holds the transformations transposed, so
+     * updating two or three of their columns runs along rows.
+     */
+    private static final class SchurIteration {
+        /** Rows brought up to date together after a sweep; they stay in cache while every step is applied. */
+        private static final int SWEEP_ROWS = 32;
+
+        private final double[][] h;
+        private final double[][] vt;
+        private final double[] d;
+        private final double[] e;
+        private final int nn;
+        /** x, y, z, q and r of each reflector of the current sweep, five entries per step. */
+        private final double[] sweep;
+        private double cdivr;
+        private double cdivi;
+
+        SchurIteration(double[][] h, double[][] vt, double[] d, double[] e, int n) {
+            this.h = h;
+            this.vt = vt;
+            this.d = d;
+            this.e = e;
+            this.nn = n;
+            this.sweep = new double[5 * n];
+        }
+
+        void run() {
+            boolean vectors = vt != null;
+            int n = nn - 1;
+            int low = 0;
+            int high = nn - 1;
+            double exshift = 0.0;
+            double p = 0, q = 0, r = 0, s = 0, z = 0, w, x, y;
+
+            double norm = 0.0;
+            for (int i = 0; i < nn; i++) {
+                for (int j = Math.max(i - 1, 0); j < nn; j++) {
+                    norm += Math.abs(h[i][j]);
+                }
+            }
+
+            int iter = 0;
+            while (n >= low) {
+                // Look for a single small sub-diagonal element.
+                int l = n;
+                while (l > low) {
+                    s = Math.abs(h[l - 1][l - 1]) + Math.abs(h[l][l]);
+                    if (s == 0.0) s = norm;
+                    if (Math.abs(h[l][l - 1]) < EPS * s) break;
+                    l--;
+                }
+
+                if (l == n) {
+                    // One root found.
+                    h[n][n] += exshift;
+                    d[n] = h[n][n];
+                    e[n] = 0.0;
+                    n--;
+                    iter = 0;
+                } else if (l == n - 1) {
+                    // Two roots found.
+                    w = h[n][n - 1] * h[n - 1][n];
+                    p = (h[n - 1][n - 1] - h[n][n]) / 2.0;
+                    q = p * p + w;
+                    z = Math.sqrt(Math.abs(q));
+                    h[n][n] += exshift;
+                    h[n - 1][n - 1] += exshift;
+                    x = h[n][n];
+
+                    if (q >= 0) {
+                        // Real pair.
+                        z = (p >= 0) ? p + z : p - z;
+                        d[n - 1] = x + z;
+                        d[n] = d[n - 1];
+                        if (z != 0.0) d[n] = x - w / z;
+                        e[n - 1] = 0.0;
+                        e[n] = 0.0;
+
+                        if (vectors) {
+                            x = h[n][n - 1];
+                            s = Math.abs(x) + Math.abs(z);
+                            p = x / s;
+                            q = z / s;
+                            r = Math.sqrt(p * p + q * q);
+                            p /= r;
+                            q /= r;
+
+                            for (int j = n - 1; j < nn; j++) {
+                                z = h[n - 1][j];
+                                h[n - 1][j] = q * z + p * h[n][j];
+                                h[n][j] = q * h[n][j] - p * z;
+                            }
+                            for (int i = 0; i <= n; i++) {
+                                z = h[i][n - 1];
+                                h[i][n - 1] = q * z + p * h[i][n];
+                                h[i][n] = q * h[i][n] - p * z;
+                            }
+                            double[] v0 = vt[n - 1];
+                            double[] v1 = vt[n];
+                            for (int i = low; i <= high; i++) {
+                                z = v0[i];
+                                v0[i] = q * z + p * v1[i];
+                                v1[i] = q * v1[i] - p * z;
+                            }
+                        }
+                    } else {
+                        // Complex pair.
+                        d[n - 1] = x + p;
+                        d[n] = x + p;
+                        e[n - 1] = z;
+                        e[n] = -z;
+                    }
+                    n -= 2;
+                    iter = 0;
+                } else {
+                    // No convergence yet: form the shift.
+                    x = h[n][n];
+                    y = 0.0;
+                    w = 0.0;
+                    if (l < n) {
+                        y = h[n - 1][n - 1];
+                        w = h[n][n - 1] * h[n - 1][n];
+                    }
+
+                    // Wilkinson's original ad hoc shift.
+                    if (iter == 10) {
+                        exshift += x;
+                        for (int i = low; i <= n; i++) {
+                            h[i][i] -= x;
+                        }
+                        s = Math.abs(h[n][n - 1]) + Math.abs(h[n - 1][n - 2]);
+                        x = y = 0.75 * s;
+                        w = -0.4375 * s * s;
+                    }
+
+                    // MATLAB's ad hoc shift.
+                    if (iter == 30) {
+                        s = (y - x) / 2.0;
+                        s = s * s + w;
+                        if (s > 0) {
+                            s = Math.sqrt(s);
+                            if (y < x) s = -s;
+                            s = x - w / ((y - x) / 2.0 + s);
+                            for (int i = low; i <= n; i++) {
+                                h[i][i] -= s;
+                            }
+                            exshift += s;
+                            x = y = w = 0.964;
+                        }
+                    }
+
+                    if (++iter > MAX_ITERATIONS) {
+                        throw new IllegalStateException("Eigenvalue iteration did not converge.");
+                    }
+
+                    // Look for two consecutive small sub-diagonal elements.
+                    int m = n - 2;
+                    while (m >= l) {
+                        z = h[m][m];
+                        r = x - z;
+                        s = y - z;
+                        p = (r * s - w) / h[m + 1][m] + h[m][m + 1];
+                        q = h[m + 1][m + 1] - z - r - s;
+                        r = h[m + 2][m + 1];
+                        s = Math.abs(p) + Math.abs(q) + Math.abs(r);
+                        p /= s;
+                        q /= s;
+                        r /= s;
+                        if (m == l) break;
+                        if (Math.abs(h[m][m - 1]) * (Math.abs(q) + Math.abs(r))
+                                < EPS * (Math.abs(p) * (Math.abs(h[m - 1][m - 1]) + Math.abs(z)
+                                + Math.abs(h[m + 1][m + 1])))) {
+                            break;
+                        }
+                        m--;
+                    }
+
+                    for (int i = m + 2; i <= n; i++) {
+                        h[i][i - 2] = 0.0;
+                        if (i > m + 2) h[i][i - 3] = 0.0;
+                    }
+
+                    // Double QR step on rows l..n and columns m..n.
+                    int rowEnd = vectors ? nn - 1 : n;
+                    int colStart = vectors ? 0 : l;
+                    Arrays.fill(sweep, 5 * m, 5 * n, 0.0);
+                    for (int k = m; k <= n - 1; k++) {
+                        boolean notLast = (k != n - 1);
+                        if (k != m) {
+                            p = h[k][k - 1];
+                            q = h[k + 1][k - 1];
+                            r = notLast ? h[k + 2][k - 1] : 0.0;
+                            x = Math.abs(p) + Math.abs(q) + Math.abs(r);
+                            if (x == 0.0) continue;
+                            p /= x;
+                            q /= x;
+                            r /= x;
+                        }
+
+                        s = Math.sqrt(p * p + q * q + r * r);
+                        if (p < 0) s = -s;
+                        if (s == 0) continue;
+
+                        if (k != m) {
+                            h[k][k - 1] = -s * x;
+                        } else if (l != m) {
+                            h[k][k - 1] = -h[k][k - 1];
+                        }
+                        p += s;
+                        x = p / s;
+                        y = q / s;
+                        z = r / s;
+                        q /= p;
+                        r /= p;
+
+                        // Row modification.
+                        ArrayKernels.INSTANCE.reflect(1.0, q, r, x, y, z,
+                                h[k], h[k + 1], notLast ? h[k + 2] : null, k, rowEnd - k + 1);
+
+                        // Column modification, for the rows the sweep still reads.
+                        int o = 5 * k;
+                        sweep[o] = x;
+                        sweep[o + 1] = y;
+                        sweep[o + 2] = z;
+                        sweep[o + 3] = q;
+                        sweep[o + 4] = r;
+                        int iEnd = Math.min(n, k + 3);
+                        for (int i = Math.max(colStart, k); i <= iEnd; i++) {
+                            double[] hi = h[i];
+                            p = x * hi[k] + y * hi[k + 1];
+                            if (notLast) {
+                                p += z * hi[k + 2];
+                                hi[k + 2] -= p * r;
+                            }
+                            hi[k] -= p;
+                            hi[k + 1] -= p * q;
+                        }
+
+                        if (vectors) {
+                            ArrayKernels.INSTANCE.reflect(x, y, z, 1.0, q, r,
+                                    vt[k], vt[k + 1], notLast ? vt[k + 2] : null, low, high - low + 1);
+                        }
+                    }
+                    applySweepAbove(colStart, m, n);
+                }
+            }
+
+            if (vectors && norm != 0.0) {
+                backSubstitute(norm);
+            }
+        }
+
+        /**
+         * Applies the column modifications that the sweep over steps m..n-1
+         * skipped: those of step k to the rows above k. No step reads a row
+         * above its own index, so the updates can wait until the sweep is
+         * over and then run one row at a time, along the row, instead of
+         * down three columns per step.
+         */
+        private void applySweepAbove(int colStart, int m, int n) {
+            for (int from = colStart; from < n - 1; from += SWEEP_ROWS) {
+                int to = Math.min(from + SWEEP_ROWS, n - 1);
+                for (int k = Math.max(m, from + 1); k <= n - 1; k++) {
+                    int o = 5 * k;
+                    double x = sweep[o];
+                    double y = sweep[o + 1];
+                    double z = sweep[o + 2];
+                    double q = sweep[o + 3];
+                    double r = sweep[o + 4];
+                    boolean notLast = k != n - 1;
+                    int end = Math.min(to, k);
+                    for (int i = from; i < end; i++) {
+                        double[] hi = h[i];
+                        double p = x * hi[k] + y * hi[k + 1];
+                        if (notLast) {
+                            p += z * hi[k + 2];
+                            hi[k + 2] -= p * r;
+                        }
+                        hi[k] -= p;
+                        hi[k + 1] -= p * q;
+                    }
+                }
+            }
+        }
+
+        /**
+         * Solves the quasi-triangular Schur form for its eigenvectors and maps
+         * them back through the accumulated transformations. The column being
+         * solved is kept in scratch arrays so the inner products run along rows.
+         */
+        private void backSubstitute(double norm) {
+            double[] colRe = new double[nn];
+            double[] colIm = new double[nn];
+            double p, q, r = 0, s = 0, z = 0, t, w, x, y;
+
+            for (int n = nn - 1; n >= 0; n--) {
+                p = d[n];
+                q = e[n];
+
+                if (q == 0) {
+                    // Real vector.
+                    int l = n;
+                    colRe[n] = 1.0;
+                    for (int i = n - 1; i >= 0; i--) {
+                        double[] hi = h[i];
+                        w = hi[i] - p;
+                        r = 0.0;
+                        for (int j = l; j <= n; j++) {
+                            r += hi[j] * colRe[j];
+                        }
+                        if (e[i] < 0.0) {
+                            z = w;
+                            s = r;
+                        } else {
+                            l = i;
+                            if (e[i] == 0.0) {
+                                colRe[i] = (w != 0.0) ? -r / w : -r / (EPS * norm);
+                            } else {
+                                // Solve real equations.
+                                x = hi[i + 1];
+                                y = h[i + 1][i];
+                                q = (d[i] - p) * (d[i] - p) + e[i] * e[i];
+                                t = (x * s - z * r) / q;
+                                colRe[i] = t;
+                                colRe[i + 1] = (Math.abs(x) > Math.abs(z)) ? (-r - w * t) / x : (-s - y * t) / z;
+                            }
+
+                            // Overflow control.
+                            t = Math.abs(colRe[i]);
+                            if ((EPS * t) * t > 1) {
+                                for (int j = i; j <= n; j++) {
+                                    colRe[j] /= t;
+                                }
+                            }
+                        }
+                    }
+                    for (int j = 0; j <= n; j++) {
+                        h[j][n] = colRe[j];
+                    }
+                } else if (q < 0) {
+                    // Complex vector, stored in columns n - 1 (real) and n (imaginary).
+                    int l = n - 1;
+                    if (Math.abs(h[n][n - 1]) > Math.abs(h[n - 1][n])) {
+                        colRe[n - 1] = q / h[n][n - 1];
+                        colIm[n - 1] = -(h[n][n] - p) / h[n][n - 1];
+                    } else {
+                        cdiv(0.0, -h[n - 1][n], h[n - 1][n - 1] - p, q);
+                        colRe[n - 1] = cdivr;
+                        colIm[n - 1] = cdivi;
+                    }
+                    colRe[n] = 0.0;
+                    colIm[n] = 1.0;
+
+                    for (int i = n - 2; i >= 0; i--) {
+                        double[] hi = h[i];
+                        double ra = 0.0;
+                        double sa = 0.0;
+                        for (int j = l; j <= n; j++) {
+                            ra += hi[j] * colRe[j];
+                            sa += hi[j] * colIm[j];
+                        }
+                        w = hi[i] - p;
+
+                        if (e[i] < 0.0) {
+                            z = w;
+                            r = ra;
+                            s = sa;
+                        } else {
+                            l = i;
+                            if (e[i] == 0) {
+                                cdiv(-ra, -sa, w, q);
+                                colRe[i] = cdivr;
+                                colIm[i] = cdivi;
+                            } else {
+                                // Solve complex equations.
+                                x = hi[i + 1];
+                                y = h[i + 1][i];
+                                double vr = (d[i] - p) * (d[i] - p) + e[i] * e[i] - q * q;
+                                double vi = (d[i] - p) * 2.0 * q;
+                                if (vr == 0.0 && vi == 0.0) {
+                                    vr = EPS * norm * (Math.abs(w) + Math.abs(q) + Math.abs(x) + Math.abs(y) + Math.abs(z));
+                                }
+                                cdiv(x * r - z * ra + q * sa, x * s - z * sa - q * ra, vr, vi);
+                                colRe[i] = cdivr;
+                                colIm[i] = cdivi;
+                                if (Math.abs(x) > (Math.abs(z) + Math.abs(q))) {
+                                    colRe[i + 1] = (-ra - w * colRe[i] + q * colIm[i]) / x;
+                                    colIm[i + 1] = (-sa - w * colIm[i] - q * colRe[i]) / x;
+                                } else {
+                                    cdiv(-r - y * colRe[i], -s - y * colIm[i], z, q);
+                                    colRe[i + 1] = cdivr;
+                                    colIm[i + 1] = cdivi;
+                                }
+                            }
+
+                            // Overflow control.
+                            t = Math.max(Math.abs(colRe[i]), Math.abs(colIm[i]));
+                            if ((EPS * t) * t > 1) {
+                                for (int j = i; j <= n; j++) {
+                                    colRe[j] /= t;
+                                    colIm[j] /= t;
+                                }
+                            }
+                        }
+                    }
+                    for (int j = 0; j <= n; j++) {
+                        h[j][n - 1] = colRe[j];
+                        h[j][n] = colIm[j];
+                    }
+                }
+            }
+
+            // Back transformation: V = V * h, using the upper triangle of h.
+            // Column j of the product only needs columns 0..j of V, so the
+            // rows of vt are replaced from the last one down.
+            double[] row = new double[nn];
+            for (int j = nn - 1; j >= 0; j--) {
+                Arrays.fill(row, 0.0);
+                for (int k = 0; k <= j; k++) {
+                    double hkj = h[k][j];
+                    if (hkj != 0.0) {
+                        ArrayKernels.INSTANCE.axpy(hkj, vt[k], 0, row, 0, nn);
+                    }
+                }
+                System.arraycopy(row, 0, vt[j], 0, nn);
+            }
+        }
+
+        /**
+         * Complex scalar division (xr + i xi) / (yr + i yi), into cdivr and cdivi.
+         */
+        private void cdiv(double xr, double xi, double yr, double yi) {
+            double r;
+            double den;
+            if (Math.abs(yr) > Math.abs(yi)) {
+                r = yi / yr;
+                den = yr + r * yi;
+                cdivr = (xr + r * xi) / den;
+                cdivi = (xi - r * xr) / den;
+            } else {
+                r = yr / yi;
+                den = yi + r * yr;
+                cdivr = (r * xr + xi) / den;
+                cdivi = (r * xi - xr) / den;
+            }
+        }
+    }
 }
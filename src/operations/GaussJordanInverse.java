@@ -0,0 +1,284 @@
+package operations;
+
+import model.Matrix;
+import model.MatrixAccess;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Inverts a square matrix with pivoted Gauss-Jordan elimination.
+ * <p>
+ * The elimination runs in place on a single n x n copy of the input: each
+ * pivot column is replaced by the matching column of the inverse as it is
+ * eliminated, and the row interchanges are undone as column swaps at the end.
+ * Partial pivoting picks the largest entry in the pivot column; full pivoting
+ * searches the whole remaining submatrix, which costs an extra O(n^2) scan per
+ * step but is more robust on badly scaled inputs.
+ * <p>
+ * The result also carries the 1-norm condition number of the input, which is
+ * cheap to compute once the inverse is known.
+ *
+ * @author Youssef Amin
+ */
+
+public class GaussJordanInverse {
+
+    private static final MatrixAccess ACCESS = MatrixAccess.obtain();
+
+    /**
+     * How pivots are chosen during elimination.
+     */
+    public enum Pivoting {
+        /** Largest magnitude entry in the current column. */
+        PARTIAL,
+        /** Largest magnitude entry in the remaining submatrix. */
+        FULL
+    }
+
+    private static final double EPSILON = Math.ulp(1.0);
+
+    private final int n;
+    private final double[] inv;
+    private final Pivoting pivoting;
+    private final Matrix inverse;
+    private final double conditionNumber;
+
+    /**
+     * Inverts the matrix using partial pivoting.
+     *
+     * @param m the square matrix to invert
+     * @throws IllegalArgumentException if the matrix is not square or is singular
+     */
+    public GaussJordanInverse(Matrix m) {
+        this(m, Pivoting.PARTIAL);
+    }
+
+    /**
+     * Inverts the matrix using the given pivoting strategy.
+     *
+     * @param m        the square matrix to invert
+     * @param pivoting the pivoting strategy
+     * @throws IllegalArgumentException if the matrix is not square or is singular
+     */
+    public GaussJordanInverse(Matrix m, Pivoting pivoting) {
+        this(m, pivoting, null, 0);
+    }
+
+    /**
+     * Inverts the matrix, optionally splitting each pivot's row updates across a pool.
+     *
+     * @param pool      the pool for the row updates, or null for the calling thread
+     * @param threshold the minimum per-pivot update count for going parallel
+     */
+    GaussJordanInverse(Matrix m, Pivoting pivoting, ForkJoinPool pool, long threshold) {
+        if (!m.isSquare()) {
+            throw new IllegalArgumentException("Matrix must be square to compute inverse.");
+        }
+
+        this.n = m.getNumRow();
+        this.pivoting = pivoting;
+        double[] a = ACCESS.raw(m);
+        this.inv = a.clone();
+
+        eliminate(columnScales(a), pool, threshold);
+        this.conditionNumber = norm1(a) * norm1(inv);
+        this.inverse = ACCESS.wrap(n, n, inv);
+    }
+
+    /**
+     * Runs the in-place elimination. Row k of the buffer always holds the k-th
+     * pivot row, so the recorded (row, column) pairs describe the column swaps
+     * needed to turn the buffer into the inverse.
+     * <p>
+     * A pivot counts as zero when it is below n ulps of the largest entry of
+     * its own column in the input, so scaling a column does not change
+     * whether the matrix is accepted; how badly scaled or nearly singular an
+     * accepted matrix is shows in {@link #getConditionNumber()}.
+     *
+     * @param scales the largest absolute entry of each input column
+     */
+    private void eliminate(double[] scales, ForkJoinPool pool, long threshold) {
+        int[] pivotRows = new int[n];
+        int[] pivotCols = new int[n];
+        boolean[] usedCols = new boolean[n];
+        CancellationToken cancel = CancellationToken.current();
+
+        for (int step = 0; step < n; step++) {
+            cancel.throwIfCancelled();
+            int pivotRow;
+            int pivotCol;
+            if (pivoting == Pivoting.FULL) {
+                long rc = findFullPivot(usedCols);
+                pivotRow = (int) (rc >>> 32);
+                pivotCol = (int) rc;
+            } else {
+                pivotCol = step;
+                pivotRow = findPartialPivot(step);
+            }
+            if (pivotRow < 0) {
+                throw new IllegalArgumentException("Matrix is singular and cannot be inverted.");
+            }
+            usedCols[pivotCol] = true;
+
+            if (pivotRow != pivotCol) {
+                swapRows(pivotRow, pivotCol);
+            }
+            pivotRows[step] = pivotRow;
+            pivotCols[step] = pivotCol;
+
+            int p = pivotCol;
+            int pRow = p * n;
+            double pivotVal = inv[pRow + p];
+            if (!(Math.abs(pivotVal) > n * EPSILON * scales[p]) || !Double.isFinite(pivotVal)) {
+                throw new IllegalArgumentException("Matrix is singular and cannot be inverted.");
+            }
+
+            double reciprocal = 1.0 / pivotVal;
+            inv[pRow + p] = 1.0;
+            ArrayKernels.INSTANCE.scale(reciprocal, inv, pRow, n);
+
+            RowBlocks.run(pool, threshold, n, (long) n * n, (from, to) -> {
+                for (int i = from; i < to; i++) {
+                    if (i == p) continue;
+                    int row = i * n;
+                    double factor = inv[row + p];
+                    if (factor == 0.0) continue;
+                    inv[row + p] = 0.0;
+                    ArrayKernels.INSTANCE.axpy(-factor, inv, pRow, inv, row, n);
+                }
+            });
+        }
+
+        for (int step = n - 1; step >= 0; step--) {
+            if (pivotRows[step] != pivotCols[step]) {
+                swapColumns(pivotRows[step], pivotCols[step]);
+            }
+        }
+    }
+
+    /**
+     * Partial pivoting: the largest entry in column k at or below the diagonal.
+     */
+    private int findPartialPivot(int k) {
+        int best = k;
+        double max = Math.abs(inv[k * n + k]);
+        for (int i = k + 1; i < n; i++) {
+            double v = Math.abs(inv[i * n + k]);
+            if (v > max) {
+                max = v;
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Full pivoting: the largest entry among the rows and columns that have
+     * not been pivoted on yet. A column that has been used is also the index
+     * of a row that has been used, so one flag array covers both.
+     *
+     * @return the row in the upper 32 bits and the column in the lower 32 bits
+     */
+    private long findFullPivot(boolean[] usedCols) {
+        int bestRow = -1;
+        int bestCol = -1;
+        double max = -1.0;
+        for (int i = 0; i < n; i++) {
+            if (usedCols[i]) continue;
+            int row = i * n;
+            for (int j = 0; j < n; j++) {
+                if (usedCols[j]) continue;
+                double v = Math.abs(inv[row + j]);
+                if (v > max) {
+                    max = v;
+                    bestRow = i;
+                    bestCol = j;
+                }
+            }
+        }
+        return ((long) bestRow << 32) | (bestCol & 0xffffffffL);
+    }
+
+    private void swapRows(int r1, int r2) {
+        int a = r1 * n;
+        int b = r2 * n;
+        for (int j = 0; j < n; j++) {
+            double t = inv[a + j];
+            inv[a + j] = inv[b + j];
+            inv[b + j] = t;
+        }
+    }
+
+    private void swapColumns(int c1, int c2) {
+        for (int i = 0; i < n; i++) {
+            int row = i * n;
+            double t = inv[row + c1];
+            inv[row + c1] = inv[row + c2];
+            inv[row + c2] = t;
+        }
+    }
+
+    /**
+     * @return the largest absolute entry of each column of an n x n row-major array
+     */
+    private double[] columnScales(double[] a) {
+        double[] scales = new double[n];
+        for (int i = 0; i < n; i++) {
+            int row = i * n;
+            for (int j = 0; j < n; j++) {
+                scales[j] = Math.max(scales[j], Math.abs(a[row + j]));
+            }
+        }
+        return scales;
+    }
+
+    /**
+     * @return the largest absolute entry of a row-major array
+     */
+    private static double maxAbs(double[] a) {
+        double max = 0.0;
+        for (double v : a) {
+            max = Math.max(max, Math.abs(v));
+        }
+        return max;
+    }
+
+    /**
+     * @return the maximum absolute column sum of an n x n row-major array
+     */
+    private double norm1(double[] a) {
+        double[] colSums = new double[n];
+        for (int i = 0; i < n; i++) {
+            int row = i * n;
+            for (int j = 0; j < n; j++) {
+                colSums[j] += Math.abs(a[row + j]);
+            }
+        }
+        return maxAbs(colSums);
+    }
+
+    /**
+     * @return the inverse matrix
+     */
+    public Matrix getInverse() {
+        return inverse;
+    }
+
+    /**
+     * Returns the 1-norm condition number ||A||_1 * ||A^-1||_1. Values near 1
+     * mean the inverse is well determined; roughly log10 of the condition
+     * number decimal digits of accuracy are lost.
+     *
+     * @return the condition number of the input matrix
+     */
+    public double getConditionNumber() {
+        return conditionNumber;
+    }
+
+    /**
+     * @return the pivoting strategy used
+     */
+    public Pivoting getPivoting() {
+        return pivoting;
+    }
+}
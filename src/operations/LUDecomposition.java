@@ -0,0 +1,308 @@
+package operations;
+
+import model.Matrix;
+import model.MatrixAccess;
+import model.Vector;
+
+/**
+ * LU factorization of a square matrix with partial (row) pivoting, so that
+ * P * A = L * U where L is unit lower triangular and U is upper triangular.
+ * <p>
+ * The factorization is computed once in O(n^3) and can then be reused for
+ * the determinant and for solving any number of linear systems against the
+ * same coefficient matrix. L and U are packed into a single row-major
+ * buffer; the unit diagonal of L is implied.
+ *
+ * @author Youssef Amin
+ */
+
+public class LUDecomposition implements LinearSolver {
+
+    private static final MatrixAccess ACCESS = MatrixAccess.obtain();
+
+    private final int n;
+    private final double[] lu;
+    private final int[] pivot;
+    private final int pivotSign;
+    private final boolean singular;
+
+    /**
+     * Factors the given square matrix. The input matrix is not modified.
+     *
+     * @param m the square matrix to factor
+     * @throws IllegalArgumentException if the matrix is not square
+     */
+    public LUDecomposition(Matrix m) {
+        if (!m.isSquare()) {
+            throw new IllegalArgumentException("LU decomposition requires a square matrix.");
+        }
+
+        n = m.getNumRow();
+        lu = ACCESS.copyOf(m);
+
+        pivot = new int[n];
+        for (int i = 0; i < n; i++) {
+            pivot[i] = i;
+        }
+
+        int sign = 1;
+        boolean zeroPivot = false;
+        CancellationToken cancel = CancellationToken.current();
+        for (int k = 0; k < n; k++) {
+            cancel.throwIfCancelled();
+            int p = findPivotRow(k);
+            if (p != k) {
+                swapRows(p, k);
+                int t = pivot[p];
+                pivot[p] = pivot[k];
+                pivot[k] = t;
+                sign = -sign;
+            }
+
+            double pivotVal = lu[k * n + k];
+            if (pivotVal == 0.0) {
+                zeroPivot = true;
+                continue;
+            }
+
+            eliminateBelow(k, pivotVal);
+        }
+
+        pivotSign = sign;
+        singular = zeroPivot;
+    }
+
+    /**
+     * Finds the row at or below k with the largest magnitude entry in column k.
+     */
+    private int findPivotRow(int k) {
+        int p = k;
+        double max = Math.abs(lu[k * n + k]);
+        for (int i = k + 1; i < n; i++) {
+            double v = Math.abs(lu[i * n + k]);
+            if (v > max) {
+                max = v;
+                p = i;
+            }
+        }
+        return p;
+    }
+
+    /**
+     * Swaps two rows of the packed LU buffer.
+     */
+    private void swapRows(int r1, int r2) {
+        int a = r1 * n;
+        int b = r2 * n;
+        for (int j = 0; j < n; j++) {
+            double t = lu[a + j];
+            lu[a + j] = lu[b + j];
+            lu[b + j] = t;
+        }
+    }
+
+    /**
+     * Stores the multipliers for column k and applies the rank-1 update to the
+     * trailing submatrix. The inner loop walks rows contiguously.
+     */
+    private void eliminateBelow(int k, double pivotVal) {
+        int kRow = k * n;
+        for (int i = k + 1; i < n; i++) {
+            int iRow = i * n;
+            double factor = lu[iRow + k] / pivotVal;
+            lu[iRow + k] = factor;
+            if (factor == 0.0) continue;
+            ArrayKernels.INSTANCE.axpy(-factor, lu, kRow + k + 1, lu, iRow + k + 1, n - k - 1);
+        }
+    }
+
+    /**
+     * @return the size of the factored matrix
+     */
+    @Override
+    public int getSize() {
+        return n;
+    }
+
+    /**
+     * @return true if U has an exactly zero pivot, meaning the matrix is singular
+     */
+    public boolean isSingular() {
+        return singular;
+    }
+
+    /**
+     * @return the determinant of the factored matrix, the signed product of U's diagonal
+     */
+    public double getDeterminant() {
+        if (singular) return 0.0;
+        double det = pivotSign;
+        for (int i = 0; i < n; i++) {
+            det *= lu[i * n + i];
+        }
+        return det;
+    }
+
+    /**
+     * The pivot vector maps rows of L * U back to rows of the original matrix:
+     * row i of P * A is row {@code pivot[i]} of A.
+     *
+     * @return a copy of the pivot vector
+     */
+    public int[] getPivot() {
+        return pivot.clone();
+    }
+
+    /**
+     * @return the unit lower triangular factor L
+     */
+    public Matrix getL() {
+        double[] l = new double[n * n];
+        for (int i = 0; i < n; i++) {
+            System.arraycopy(lu, i * n, l, i * n, i);
+            l[i * n + i] = 1.0;
+        }
+        return ACCESS.wrap(n, n, l);
+    }
+
+    /**
+     * @return the upper triangular factor U
+     */
+    public Matrix getU() {
+        double[] u = new double[n * n];
+        for (int i = 0; i < n; i++) {
+            System.arraycopy(lu, i * n + i, u, i * n + i, n - i);
+        }
+        return ACCESS.wrap(n, n, u);
+    }
+
+    /**
+     * Solves A * X = B using forward and back substitution on the stored factors.
+     * Every column of B is treated as a separate right-hand side.
+     *
+     * @param b the right-hand side matrix, with as many rows as A
+     * @return the solution matrix X
+     * @throws IllegalArgumentException if the row counts differ or A is singular
+     */
+    @Override
+    public Matrix solve(Matrix b) {
+        if (b.getNumRow() != n) {
+            throw new IllegalArgumentException("Right-hand side must have the same number of rows as the matrix.");
+        }
+        if (singular) {
+            throw new IllegalArgumentException("Matrix is singular and the system cannot be solved.");
+        }
+
+        int cols = b.getNumCol();
+        double[] rhs = ACCESS.raw(b);
+        double[] x = new double[n * cols];
+        for (int i = 0; i < n; i++) {
+            System.arraycopy(rhs, pivot[i] * cols, x, i * cols, cols);
+        }
+
+        substitute(x, cols);
+        return ACCESS.wrap(n, cols, x);
+    }
+
+    /**
+     * Solves A * x = b using forward and back substitution on the stored factors.
+     *
+     * @param b the right-hand side vector, of length n
+     * @return the solution vector x
+     * @throws IllegalArgumentException if the length differs or A is singular
+     */
+    @Override
+    public Vector solve(Vector b) {
+        if (b.getSize() != n) {
+            throw new IllegalArgumentException("Right-hand side must have the same length as the matrix size.");
+        }
+        if (singular) {
+            throw new IllegalArgumentException("Matrix is singular and the system cannot be solved.");
+        }
+
+        double[] rhs = b.getData();
+        double[] x = new double[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = rhs[pivot[i]];
+        }
+
+        substitute(x, 1);
+        return new Vector(x);
+    }
+
+    /**
+     * Runs forward substitution with L and back substitution with U over a
+     * row-major block of right-hand sides that has already been permuted.
+     *
+     * @param x    the permuted right-hand sides, overwritten with the solution
+     * @param cols the number of right-hand sides
+     */
+    private void substitute(double[] x, int cols) {
+        for (int k = 0; k < n; k++) {
+            int kRow = k * cols;
+            for (int i = k + 1; i < n; i++) {
+                double factor = lu[i * n + k];
+                if (factor == 0.0) continue;
+                int iRow = i * cols;
+                for (int j = 0; j < cols; j++) {
+                    x[iRow + j] -= factor * x[kRow + j];
+                }
+            }
+        }
+
+        for (int k = n - 1; k >= 0; k--) {
+            int kRow = k * cols;
+            double diag = lu[k * n + k];
+            for (int j = 0; j < cols; j++) {
+                x[kRow + j] /= diag;
+            }
+            for (int i = 0; i < k; i++) {
+                double factor = lu[i * n + k];
+                if (factor == 0.0) continue;
+                int iRow = i * cols;
+                for (int j = 0; j < cols; j++) {
+                    x[iRow + j] -= factor * x[kRow + j];
+                }
+            }
+        }
+    }
+
+    /**
+     * Computes the determinant of a square matrix. Sizes 1 to 3 use closed-form
+     * expansions (the 3x3 case is the diagonal rule described in
+     * docs/diagonalDeterminant.md); anything larger is factored.
+     *
+     * @param m the square matrix
+     * @return the determinant
+     * @throws IllegalArgumentException if the matrix is not square
+     */
+    public static double determinant(Matrix m) {
+        if (!m.isSquare()) {
+            throw new IllegalArgumentException("Determinant is only defined for square matrices.");
+        }
+
+        int n = m.getNumRow();
+        if (n > 3) {
+            return new LUDecomposition(m).getDeterminant();
+        }
+
+        double[] a = ACCESS.raw(m);
+        if (n == 1) return a[0];
+        if (n == 2) return a[0] * a[3] - a[1] * a[2];
+        return diagonalRule3x3(a);
+    }
+
+    /**
+     * Sums the three "right" diagonals and subtracts the three "left" diagonals
+     * of a 3x3 matrix (rule of Sarrus).
+     */
+    private static double diagonalRule3x3(double[] a) {
+        double rightSide = a[0] * a[4] * a[8]
+                + a[1] * a[5] * a[6]
+                + a[2] * a[3] * a[7];
+        double leftSide = a[2] * a[4] * a[6]
+                + a[0] * a[5] * a[7]
+                + a[1] * a[3] * a[8];
+        return rightSide - leftSide;
+    }
+}
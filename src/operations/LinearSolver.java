@@ -0,0 +1,39 @@
+package operations;
+
+import model.Matrix;
+import model.Vector;
+
+/**
+ * A factorization of a square coefficient matrix A that can solve A * X = B
+ * for any number of right-hand sides. Factor once, then call solve as often
+ * as needed; each solve only costs forward and back substitution.
+ *
+ * @author Youssef Amin
+ * @see MatrixOperations#factor(Matrix)
+ */
+
+public interface LinearSolver {
+
+    /**
+     * @return the size n of the n x n coefficient matrix
+     */
+    int getSize();
+
+    /**
+     * Solves A * X = B, treating every column of B as a right-hand side.
+     *
+     * @param b the right-hand sides, with n rows
+     * @return the solution X
+     * @throws IllegalArgumentException if B has the wrong number of rows or A is singular
+     */
+    Matrix solve(Matrix b);
+
+    /**
+     * Solves A * x = b for a single right-hand side.
+     *
+     * @param b the right-hand side, of length n
+     * @return the solution x
+     * @throws IllegalArgumentException if b has the wrong length or A is singular
+     */
+    Vector solve(Vector b);
+}
@@ -0,0 +1,645 @@
+package operations;
+
+import model.Matrix;
+import model.MatrixAccess;
+import model.MutableMatrix;
+import model.SparseMatrix;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A lazily evaluated matrix expression. Calls such as
+ * {@code MatrixExpr.of(a).multiply(b).add(MatrixExpr.of(c).subtract(d))}
+ * only record a graph of operations; nothing is computed or allocated until
+ * {@link #evaluate()} runs, and then only what the result needs.
+ * <p>
+ * Evaluation applies three rewrites:
+ * <ul>
+ *     <li>Chains of add, subtract and scale are fused into one pass over the
+ *     output. Rows are processed in blocks of about {@value #CHUNK_SIZE}
+ *     entries, so intermediate values live in small cache-resident buffers
+ *     instead of full matrices. Every entry goes through the same operations
+ *     in the same order as the eager {@link MatrixOperations} calls, so fused
+ *     results are bit-identical to them.</li>
+ *     <li>Chains of products are flattened and evaluated in the
+ *     parenthesization with the fewest scalar multiplications, found by the
+ *     classic O(k^3) dynamic program over the factor dimensions. Scale
+ *     factors inside a chain are pulled out and applied once at the end.
+ *     Reassociating changes rounding, so products can differ from the
+ *     left-to-right eager result in the last bits.</li>
+ *     <li>A sub-expression object used more than once is evaluated once per
+ *     {@link #evaluate()} call. An element-wise one whose uses all lie in the
+ *     same fused pass is computed once per block into a block buffer; any
+ *     other is materialized once and read as an input. A transpose of a
+ *     transpose cancels.</li>
+ * </ul>
+ * Operands are referenced, not copied, so they must not change between
+ * building and evaluating an expression. Dimensions are checked when the
+ * expression is built. Element-wise results are always dense.
+ * <p>
+ * Expressions are immutable and can be evaluated any number of times.
+ *
+ * @author Youssef Amin
+ */
+
+public abstract class MatrixExpr {
+
+    private static final MatrixAccess ACCESS = MatrixAccess.obtain();
+
+    /** Entries per block of the fused element-wise pass. */
+    static final int CHUNK_SIZE = 1024;
+
+    private final int rows;
+    private final int cols;
+
+    private MatrixExpr(int rows, int cols) {
+        this.rows = rows;
+        this.cols = cols;
+    }
+
+    /**
+     * Starts an expression from a matrix. The matrix is referenced, not copied.
+     *
+     * @param m the matrix
+     * @return an expression whose value is m
+     * @throws IllegalArgumentException if m is null
+     */
+    public static MatrixExpr of(Matrix m) {
+        if (m == null) {
+            throw new IllegalArgumentException("Matrix cannot be null.");
+        }
+        return new Leaf(m);
+    }
+
+    /**
+     * @return the number of rows of the result
+     */
+    public int getNumRow() {
+        return rows;
+    }
+
+    /**
+     * @return the number of columns of the result
+     */
+    public int getNumCol() {
+        return cols;
+    }
+
+    /**
+     * @param other the expression to add
+     * @return this + other
+     * @throws IllegalArgumentException if the dimensions differ
+     */
+    public MatrixExpr add(MatrixExpr other) {
+        requireSameShape(other);
+        return new Sum(this, other, false);
+    }
+
+    /**
+     * @param other the matrix to add
+     * @return this + other
+     * @throws IllegalArgumentException if the dimensions differ
+     */
+    public MatrixExpr add(Matrix other) {
+        return add(of(other));
+    }
+
+    /**
+     * @param other the expression to subtract
+     * @return this - other
+     * @throws IllegalArgumentException if the dimensions differ
+     */
+    public MatrixExpr subtract(MatrixExpr other) {
+        requireSameShape(other);
+        return new Sum(this, other, true);
+    }
+
+    /**
+     * @param other the matrix to subtract
+     * @return this - other
+     * @throws IllegalArgumentException if the dimensions differ
+     */
+    public MatrixExpr subtract(Matrix other) {
+        return subtract(of(other));
+    }
+
+    /**
+     * @param scalar the factor
+     * @return this * scalar
+     */
+    public MatrixExpr scale(double scalar) {
+        return new Scale(this, scalar);
+    }
+
+    /**
+     * @return -this
+     */
+    public MatrixExpr negate() {
+        return scale(-1.0);
+    }
+
+    /**
+     * @param other the right factor
+     * @return the matrix product this * other
+     * @throws IllegalArgumentException if this has a different column count than other's row count
+     */
+    public MatrixExpr multiply(MatrixExpr other) {
+        if (other == null) {
+            throw new IllegalArgumentException("Expression cannot be null.");
+        }
+        if (cols != other.rows) {
+            throw new IllegalArgumentException("Matrix dimensions do not allow multiplication.");
+        }
+        return new Product(this, other);
+    }
+
+    /**
+     * @param other the right factor
+     * @return the matrix product this * other
+     * @throws IllegalArgumentException if this has a different column count than other's row count
+     */
+    public MatrixExpr multiply(Matrix other) {
+        return multiply(of(other));
+    }
+
+    /**
+     * @return the transpose of this
+     */
+    public MatrixExpr transpose() {
+        return this instanceof Transpose t ? t.child : new Transpose(this);
+    }
+
+    /**
+     * Computes the value of the expression.
+     *
+     * @return a new matrix holding the result
+     */
+    public Matrix evaluate() {
+        if (this instanceof Leaf leaf) {
+            return leaf.matrix.copy();
+        }
+        return new Evaluation(this).materialize(this);
+    }
+
+    /**
+     * Computes the value of the expression into a destination. Element-wise
+     * expressions are written straight into it without allocating full-size
+     * temporaries. The destination may also appear as an operand.
+     *
+     * @param dest the matrix that receives the result, with the same dimensions
+     * @return dest
+     * @throws IllegalArgumentException if dest has different dimensions
+     */
+    public MutableMatrix evaluate(MutableMatrix dest) {
+        if (dest == null || dest.getNumRow() != rows || dest.getNumCol() != cols) {
+            throw new IllegalArgumentException("Destination must have the dimensions of the expression.");
+        }
+        Evaluation evaluation = new Evaluation(this);
+        if (isElementwise()) {
+            evaluation.fuse(this, ACCESS.writable(dest));
+        } else {
+            dest.copyFrom(this instanceof Leaf leaf ? leaf.matrix : evaluation.materialize(this));
+        }
+        return dest;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        appendTo(sb);
+        return sb.toString();
+    }
+
+    abstract MatrixExpr[] operands();
+
+    abstract void appendTo(StringBuilder sb);
+
+    boolean isElementwise() {
+        return false;
+    }
+
+    private void requireSameShape(MatrixExpr other) {
+        if (other == null) {
+            throw new IllegalArgumentException("Expression cannot be null.");
+        }
+        if (rows != other.rows || cols != other.cols) {
+            throw new IllegalArgumentException("Matrices must have the same dimensions.");
+        }
+    }
+
+    /**
+     * A matrix operand.
+     */
+    private static final class Leaf extends MatrixExpr {
+        private final Matrix matrix;
+
+        Leaf(Matrix matrix) {
+            super(matrix.getNumRow(), matrix.getNumCol());
+            this.matrix = matrix;
+        }
+
+        @Override
+        MatrixExpr[] operands() {
+            return new MatrixExpr[0];
+        }
+
+        @Override
+        void appendTo(StringBuilder sb) {
+            sb.append('[').append(getNumRow()).append('x').append(getNumCol()).append(']');
+        }
+    }
+
+    /**
+     * Element-wise left + right or left - right.
+     */
+    private static final class Sum extends MatrixExpr {
+        private final MatrixExpr left;
+        private final MatrixExpr right;
+        private final boolean subtract;
+
+        Sum(MatrixExpr left, MatrixExpr right, boolean subtract) {
+            super(left.getNumRow(), left.getNumCol());
+            this.left = left;
+            this.right = right;
+            this.subtract = subtract;
+        }
+
+        @Override
+        MatrixExpr[] operands() {
+            return new MatrixExpr[]{left, right};
+        }
+
+        @Override
+        boolean isElementwise() {
+            return true;
+        }
+
+        @Override
+        void appendTo(StringBuilder sb) {
+            sb.append('(');
+            left.appendTo(sb);
+            sb.append(subtract ? " - " : " + ");
+            right.appendTo(sb);
+            sb.append(')');
+        }
+    }
+
+    /**
+     * Element-wise child * scalar.
+     */
+    private static final class Scale extends MatrixExpr {
+        private final MatrixExpr child;
+        private final double scalar;
+
+        Scale(MatrixExpr child, double scalar) {
+            super(child.getNumRow(), child.getNumCol());
+            this.child = child;
+            this.scalar = scalar;
+        }
+
+        @Override
+        MatrixExpr[] operands() {
+            return new MatrixExpr[]{child};
+        }
+
+        @Override
+        boolean isElementwise() {
+            return true;
+        }
+
+        @Override
+        void appendTo(StringBuilder sb) {
+            sb.append(scalar).append(" * ");
+            child.appendTo(sb);
+        }
+    }
+
+    /**
+     * Matrix product left * right.
+     */
+    private static final class Product extends MatrixExpr {
+        private final MatrixExpr left;
+        private final MatrixExpr right;
+
+        Product(MatrixExpr left, MatrixExpr right) {
+            super(left.getNumRow(), right.getNumCol());
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        MatrixExpr[] operands() {
+            return new MatrixExpr[]{left, right};
+        }
+
+        @Override
+        void appendTo(StringBuilder sb) {
+            sb.append('(');
+            left.appendTo(sb);
+            sb.append(" * ");
+            right.appendTo(sb);
+            sb.append(')');
+        }
+    }
+
+    /**
+     * Transpose of child.
+     */
+    private static final class Transpose extends MatrixExpr {
+        private final MatrixExpr child;
+
+        Transpose(MatrixExpr child) {
+            super(child.getNumCol(), child.getNumRow());
+            this.child = child;
+        }
+
+        @Override
+        MatrixExpr[] operands() {
+            return new MatrixExpr[]{child};
+        }
+
+        @Override
+        void appendTo(StringBuilder sb) {
+            child.appendTo(sb);
+            sb.append("^T");
+        }
+    }
+
+    /**
+     * State of one {@link #evaluate()} call: how often each node is used, and
+     * the nodes already computed.
+     */
+    private static final class Evaluation {
+        private final Map<MatrixExpr, Integer> uses = new IdentityHashMap<>();
+        private final Map<MatrixExpr, Matrix> computed = new IdentityHashMap<>();
+
+        Evaluation(MatrixExpr root) {
+            countUses(root);
+        }
+
+        private void countUses(MatrixExpr node) {
+            for (MatrixExpr operand : node.operands()) {
+                if (uses.merge(operand, 1, Integer::sum) == 1) {
+                    countUses(operand);
+                }
+            }
+        }
+
+        /**
+         * @return the value of node, computing it once
+         */
+        Matrix materialize(MatrixExpr node) {
+            if (node instanceof Leaf leaf) {
+                return leaf.matrix;
+            }
+            Matrix value = computed.get(node);
+            if (value != null) {
+                return value;
+            }
+            if (node instanceof Transpose t) {
+                value = MatrixOperations.transpose(materialize(t.child));
+            } else if (node instanceof Product p) {
+                value = chain(p);
+            } else {
+                double[] result = new double[node.getNumRow() * node.getNumCol()];
+                fuse(node, result);
+                value = ACCESS.wrap(node.getNumRow(), node.getNumCol(), result);
+            }
+            computed.put(node, value);
+            return value;
+        }
+
+        /**
+         * Writes an element-wise expression into out in one blocked pass.
+         */
+        void fuse(MatrixExpr root, double[] out) {
+            new FusedPass(root, out).run();
+        }
+
+        /**
+         * Multiplies out a flattened product chain in its cheapest order.
+         */
+        private Matrix chain(Product root) {
+            List<MatrixExpr> factorNodes = new ArrayList<>();
+            double coefficient = flatten(root.left, factorNodes) * flatten(root.right, factorNodes);
+
+            int n = factorNodes.size();
+            Matrix[] factors = new Matrix[n];
+            long[] dims = new long[n + 1];
+            for (int i = 0; i < n; i++) {
+                factors[i] = materialize(factorNodes.get(i));
+                dims[i] = factors[i].getNumRow();
+            }
+            dims[n] = factors[n - 1].getNumCol();
+
+            long[][] cost = new long[n][n];
+            int[][] split = new int[n][n];
+            for (int length = 2; length <= n; length++) {
+                for (int i = 0; i + length <= n; i++) {
+                    int j = i + length - 1;
+                    cost[i][j] = Long.MAX_VALUE;
+                    for (int k = i; k < j; k++) {
+                        long c = cost[i][k] + cost[k + 1][j] + dims[i] * dims[k + 1] * dims[j + 1];
+                        if (c < cost[i][j]) {
+                            cost[i][j] = c;
+                            split[i][j] = k;
+                        }
+                    }
+                }
+            }
+
+            Matrix result = multiply(factors, split, 0, n - 1);
+            if (coefficient != 1.0) {
+                if (result instanceof SparseMatrix sm) {
+                    // Scaling may zero entries, which sparse storage must not keep
+                    return SparseOperations.scale(sm, coefficient);
+                }
+                double[] values = ACCESS.raw(result);
+                ArrayKernels.INSTANCE.scale(coefficient, values, 0, values.length);
+            }
+            return result;
+        }
+
+        /**
+         * Appends the factors of node to the chain and returns the scalar
+         * pulled out of it. Shared or already computed nodes stay whole.
+         */
+        private double flatten(MatrixExpr node, List<MatrixExpr> factors) {
+            if (uses.getOrDefault(node, 0) == 1 && !computed.containsKey(node)) {
+                if (node instanceof Product p) {
+                    return flatten(p.left, factors) * flatten(p.right, factors);
+                }
+                if (node instanceof Scale s && !s.child.isElementwise()) {
+                    return s.scalar * flatten(s.child, factors);
+                }
+            }
+            factors.add(node);
+            return 1.0;
+        }
+
+        private static Matrix multiply(Matrix[] factors, int[][] split, int i, int j) {
+            if (i == j) {
+                return factors[i];
+            }
+            int k = split[i][j];
+            return MatrixOperations.multiply(multiply(factors, split, i, k), multiply(factors, split, k + 1, j));
+        }
+
+        /**
+         * An element-wise expression compiled to a short list of kernel calls
+         * over operand arrays. Dense inputs and the output are indexed like the
+         * full matrix; block buffers hold intermediate values and copies of
+         * non-dense inputs for the current block and are indexed from 0.
+         */
+        private final class FusedPass {
+            private static final int ADD = 0;
+            private static final int SUBTRACT = 1;
+            private static final int SCALE = 2;
+
+            private final MatrixExpr root;
+            private final int rows;
+            private final int cols;
+            private final int blockRows;
+            private final List<double[]> arrays = new ArrayList<>();
+            private final List<Boolean> local = new ArrayList<>();
+            private final List<Matrix> loads = new ArrayList<>();
+            private final List<Integer> loadTargets = new ArrayList<>();
+            private final List<int[]> instructions = new ArrayList<>();
+            private final List<Double> scalars = new ArrayList<>();
+            private final Map<MatrixExpr, Integer> passUses = new IdentityHashMap<>();
+            private final Map<MatrixExpr, Integer> compiled = new IdentityHashMap<>();
+
+            FusedPass(MatrixExpr root, double[] out) {
+                this.root = root;
+                this.rows = root.getNumRow();
+                this.cols = root.getNumCol();
+                this.blockRows = Math.max(1, CHUNK_SIZE / cols);
+                countPassUses(root);
+                compile(root, addOperand(out, false));
+            }
+
+            void run() {
+                double[][] operands = arrays.toArray(new double[0][]);
+                boolean[] isLocal = new boolean[operands.length];
+                for (int i = 0; i < isLocal.length; i++) {
+                    isLocal[i] = local.get(i);
+                }
+                int[][] program = instructions.toArray(new int[0][]);
+                double[] factors = new double[program.length];
+                for (int i = 0; i < factors.length; i++) {
+                    factors[i] = scalars.get(i);
+                }
+
+                ArrayKernels kernels = ArrayKernels.INSTANCE;
+                for (int r0 = 0; r0 < rows; r0 += blockRows) {
+                    int r1 = Math.min(r0 + blockRows, rows);
+                    int base = r0 * cols;
+                    int length = (r1 - r0) * cols;
+                    for (int l = 0; l < loads.size(); l++) {
+                        Matrix m = loads.get(l);
+                        double[] buffer = operands[loadTargets.get(l)];
+                        for (int r = r0; r < r1; r++) {
+                            m.copyRow(r, buffer, (r - r0) * cols);
+                        }
+                    }
+                    for (int p = 0; p < program.length; p++) {
+                        int[] in = program[p];
+                        double[] x = operands[in[1]];
+                        double[] d = operands[in[3]];
+                        int offX = isLocal[in[1]] ? 0 : base;
+                        int offD = isLocal[in[3]] ? 0 : base;
+                        if (in[0] == SCALE) {
+                            if (x != d || offX != offD) {
+                                System.arraycopy(x, offX, d, offD, length);
+                            }
+                            kernels.scale(factors[p], d, offD, length);
+                        } else {
+                            double[] y = operands[in[2]];
+                            int offY = isLocal[in[2]] ? 0 : base;
+                            if (in[0] == ADD) {
+                                kernels.add(x, offX, y, offY, d, offD, length);
+                            } else {
+                                kernels.subtract(x, offX, y, offY, d, offD, length);
+                            }
+                        }
+                    }
+                }
+            }
+
+            /**
+             * Emits the instructions computing node and returns its operand.
+             * Operands that are not element-wise, already computed, or also
+             * used outside this pass are evaluated first and read as inputs.
+             * A shared node computed by this pass is emitted once and its
+             * block buffer reused.
+             *
+             * @param target the operand to write to, or -1 for a new block buffer
+             */
+            private int compile(MatrixExpr node, int target) {
+                if (node != root && (!inPass(node) || passUses.get(node) < uses.get(node))) {
+                    Matrix m = materialize(node);
+                    if (ACCESS.isDense(m)) {
+                        return addOperand(ACCESS.raw(m), false);
+                    }
+                    int buffer = addBuffer();
+                    loads.add(m);
+                    loadTargets.add(buffer);
+                    return buffer;
+                }
+                Integer done = compiled.get(node);
+                if (done != null) {
+                    return done;
+                }
+                int d;
+                if (node instanceof Sum s) {
+                    int x = compile(s.left, -1);
+                    int y = compile(s.right, -1);
+                    d = target >= 0 ? target : addBuffer();
+                    emit(s.subtract ? SUBTRACT : ADD, x, y, d, 0.0);
+                } else {
+                    Scale s = (Scale) node;
+                    int x = compile(s.child, -1);
+                    d = target >= 0 ? target : addBuffer();
+                    emit(SCALE, x, -1, d, s.scalar);
+                }
+                compiled.put(node, d);
+                return d;
+            }
+
+            /**
+             * Counts the uses of each node by nodes this pass computes, the
+             * same way {@link Evaluation#countUses(MatrixExpr)} counts them
+             * in the whole expression.
+             */
+            private void countPassUses(MatrixExpr node) {
+                for (MatrixExpr operand : node.operands()) {
+                    if (passUses.merge(operand, 1, Integer::sum) == 1 && inPass(operand)) {
+                        countPassUses(operand);
+                    }
+                }
+            }
+
+            private boolean inPass(MatrixExpr node) {
+                return node.isElementwise() && !computed.containsKey(node);
+            }
+
+            private int addBuffer() {
+                return addOperand(new double[blockRows * cols], true);
+            }
+
+            private int addOperand(double[] array, boolean isLocal) {
+                arrays.add(array);
+                local.add(isLocal);
+                return arrays.size() - 1;
+            }
+
+            private void emit(int op, int x, int y, int d, double scalar) {
+                instructions.add(new int[]{op, x, y, d});
+                scalars.add(scalar);
+            }
+        }
+    }
+}
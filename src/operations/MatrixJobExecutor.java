@@ -0,0 +1,377 @@
+package operations;
+
+import model.Matrix;
+
+import java.util.PriorityQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * Runs matrix jobs for many concurrent callers and hands back
+ * {@link CompletableFuture}s, so a service does not need thread pools of its own.
+ * <p>
+ * A job has up to two stages. The optional load stage, such as parsing a
+ * request body or reading a matrix file, runs on its own virtual thread, so
+ * thousands of jobs can wait on I/O at once. The compute stage runs on a
+ * bounded {@link ForkJoinPool} with one worker per core by default. Jobs are
+ * started in order of arrival time plus estimated work, with one
+ * multiply-add counted as a nanosecond, capped at an hour. Small jobs
+ * therefore overtake large ones that are still queued, but a large job is
+ * never overtaken by jobs that arrive after its turn has come. With more
+ * than one worker, jobs above {@link #LARGE_JOB_WORK} may occupy all but one
+ * of them, so a burst of large jobs cannot hold up small ones.
+ * <p>
+ * Admission control caps the number of jobs accepted but not yet finished;
+ * further submissions throw {@link RejectedExecutionException}. Cancelling a
+ * returned future drops a queued job, interrupts its load stage, or stops
+ * its kernel at the next pivot through a {@link CancellationToken}. A
+ * cancelled job keeps counting against the cap until its load stage or
+ * kernel has actually returned, since until then it still holds a thread.
+ *
+ * @author Youssef Amin
+ */
+
+public class MatrixJobExecutor implements AutoCloseable {
+
+    /** Default cap on jobs accepted but not yet finished. */
+    public static final int DEFAULT_MAX_PENDING = 10_000;
+
+    /** Estimated multiply-adds above which a job counts as large, roughly 10 ms of work. */
+    public static final long LARGE_JOB_WORK = 1L << 24;
+
+    private static final long MAX_DELAY = TimeUnit.HOURS.toNanos(1);
+
+    private final ForkJoinPool pool;
+    private final ExecutorService io = Executors.newVirtualThreadPerTaskExecutor();
+    private final int parallelism;
+    private final int maxLarge;
+    private final int maxPending;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition idle = lock.newCondition();
+    private final PriorityQueue<Job> small = new PriorityQueue<>();
+    private final PriorityQueue<Job> large = new PriorityQueue<>();
+    private int pending;
+    private int running;
+    private int runningLarge;
+    private long sequence;
+    private boolean closed;
+
+    /**
+     * Creates an executor with one compute worker per available core.
+     */
+    public MatrixJobExecutor() {
+        this(Runtime.getRuntime().availableProcessors(), DEFAULT_MAX_PENDING);
+    }
+
+    /**
+     * @param parallelism the number of compute workers
+     * @param maxPending  the most jobs accepted but not yet finished
+     * @throws IllegalArgumentException if either count is not positive
+     */
+    public MatrixJobExecutor(int parallelism, int maxPending) {
+        if (parallelism <= 0 || maxPending <= 0)
+            throw new IllegalArgumentException("Parallelism and pending job limit must be positive.");
+
+        this.parallelism = parallelism;
+        this.maxLarge = Math.max(1, parallelism - 1);
+        this.maxPending = maxPending;
+        this.pool = new ForkJoinPool(parallelism);
+    }
+
+    /**
+     * Queues a compute job.
+     *
+     * @param work   the estimated multiply-adds, used to order the queue
+     * @param kernel the computation, run on a compute worker
+     * @return a future for the kernel's result
+     * @throws IllegalArgumentException   if work is negative or kernel is null
+     * @throws RejectedExecutionException if the executor is closed or at its pending limit
+     */
+    public <R> CompletableFuture<R> submit(long work, Supplier<R> kernel) {
+        if (work < 0 || kernel == null)
+            throw new IllegalArgumentException("Work cannot be negative and kernel cannot be null.");
+
+        JobFuture<R> future = admit();
+        enqueue(future, work, kernel);
+        return future;
+    }
+
+    /**
+     * Loads an input on a virtual thread, then queues a compute job on it
+     * sized from the loaded input.
+     *
+     * @param load   reads or parses the input; may block
+     * @param work   the estimated multiply-adds for an input
+     * @param kernel the computation, run on a compute worker
+     * @return a future for the kernel's result, or for the load stage's exception
+     * @throws IllegalArgumentException   if an argument is null
+     * @throws RejectedExecutionException if the executor is closed or at its pending limit
+     */
+    public <T, R> CompletableFuture<R> submit(Callable<? extends T> load, ToLongFunction<? super T> work,
+                                              Function<? super T, ? extends R> kernel) {
+        if (load == null || work == null || kernel == null)
+            throw new IllegalArgumentException("Load, work and kernel cannot be null.");
+
+        JobFuture<R> future = admit();
+        io.execute(() -> {
+            boolean queued = false;
+            // Published before checking isDone, so a cancel either sees the
+            // loader to interrupt or happened before the check
+            future.loader = Thread.currentThread();
+            try {
+                if (future.isDone()) return;
+                T input = load.call();
+                if (!future.isDone()) {
+                    enqueue(future, Math.max(0, work.applyAsLong(input)), () -> kernel.apply(input));
+                    queued = true;
+                }
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            } finally {
+                future.loader = null;
+                if (!queued) release();
+            }
+        });
+        return future;
+    }
+
+    /**
+     * @see MatrixOperations#multiply(Matrix, Matrix)
+     */
+    public CompletableFuture<Matrix> multiply(Matrix a, Matrix b) {
+        long work = (long) a.getNumRow() * a.getNumCol() * b.getNumCol();
+        return submit(work, () -> MatrixOperations.multiply(a, b));
+    }
+
+    /**
+     * @see MatrixOperations#inverse(Matrix)
+     */
+    public CompletableFuture<Matrix> inverse(Matrix m) {
+        long n = m.getNumRow();
+        return submit(n * n * n, () -> MatrixOperations.inverse(m));
+    }
+
+    /**
+     * @see MatrixOperations#determinant(Matrix)
+     */
+    public CompletableFuture<Double> determinant(Matrix m) {
+        long n = m.getNumRow();
+        return submit(n * n * n / 3, () -> MatrixOperations.determinant(m));
+    }
+
+    /**
+     * @see MatrixOperations#solve(Matrix, Matrix)
+     */
+    public CompletableFuture<Matrix> solve(Matrix a, Matrix b) {
+        long n = a.getNumRow();
+        return submit(n * n * n / 3 + n * n * b.getNumCol(), () -> MatrixOperations.solve(a, b));
+    }
+
+    private <R> JobFuture<R> admit() {
+        lock.lock();
+        try {
+            if (closed)
+                throw new RejectedExecutionException("Executor is closed.");
+            if (pending >= maxPending)
+                throw new RejectedExecutionException("Too many pending jobs: " + pending + ".");
+            pending++;
+        } finally {
+            lock.unlock();
+        }
+        return new JobFuture<>();
+    }
+
+    private <R> void enqueue(JobFuture<R> future, long work, Supplier<? extends R> kernel) {
+        lock.lock();
+        try {
+            Job job = new Job(work > LARGE_JOB_WORK, System.nanoTime() + Math.min(work, MAX_DELAY), sequence++,
+                    () -> future.run(kernel));
+            future.job = job;
+            (job.large ? large : small).add(job);
+            dispatch();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Starts queued jobs while workers are free. Called with the lock held.
+     */
+    private void dispatch() {
+        while (running < parallelism) {
+            Job next = small.peek();
+            Job big = runningLarge < maxLarge ? large.peek() : null;
+            if (big != null && (next == null || big.compareTo(next) < 0)) {
+                next = big;
+            }
+            if (next == null) return;
+
+            (next.large ? large : small).poll();
+            running++;
+            if (next.large) runningLarge++;
+            Job job = next;
+            pool.execute(() -> run(job));
+        }
+    }
+
+    private void run(Job job) {
+        try {
+            job.body.run();
+        } finally {
+            lock.lock();
+            try {
+                running--;
+                pending--;
+                if (job.large) runningLarge--;
+                dispatch();
+                idle.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Ends a job that will not reach {@link #run(Job)}.
+     */
+    private void release() {
+        lock.lock();
+        try {
+            pending--;
+            idle.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return true if the job was still queued, so it will never run
+     */
+    private boolean remove(Job job) {
+        lock.lock();
+        try {
+            return small.remove(job) || large.remove(job);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of compute workers
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * @return the number of jobs accepted but not yet finished, loading, queued or running,
+     * including cancelled jobs whose load stage or kernel has not returned yet
+     */
+    public int getPendingCount() {
+        lock.lock();
+        try {
+            return pending;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of jobs waiting for a compute worker
+     */
+    public int getQueuedCount() {
+        lock.lock();
+        try {
+            return small.size() + large.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stops accepting jobs, waits for every accepted job to finish, then
+     * shuts the workers down.
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            while (pending > 0 || running > 0) {
+                idle.awaitUninterruptibly();
+            }
+        } finally {
+            lock.unlock();
+        }
+        io.close();
+        pool.shutdown();
+    }
+
+    /**
+     * A queued compute stage. Earlier virtual deadlines run first; ties go
+     * to the earlier submission.
+     */
+    private static final class Job implements Comparable<Job> {
+
+        final boolean large;
+        final long deadline;
+        final long sequence;
+        final Runnable body;
+
+        Job(boolean large, long deadline, long sequence, Runnable body) {
+            this.large = large;
+            this.deadline = deadline;
+            this.sequence = sequence;
+            this.body = body;
+        }
+
+        @Override
+        public int compareTo(Job other) {
+            int c = Long.compare(deadline - other.deadline, 0);
+            return c != 0 ? c : Long.compare(sequence, other.sequence);
+        }
+    }
+
+    /**
+     * A future that cancels its job, wherever the job is, when it is cancelled.
+     */
+    private final class JobFuture<R> extends CompletableFuture<R> {
+
+        private final CancellationToken token = new CancellationToken();
+        volatile Thread loader;
+        volatile Job job;
+
+        void run(Supplier<? extends R> kernel) {
+            if (isDone()) return;
+            try {
+                complete(token.call(kernel));
+            } catch (Throwable e) {
+                completeExceptionally(e);
+            }
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = super.cancel(mayInterruptIfRunning);
+            if (cancelled) {
+                token.cancel();
+                Thread thread = loader;
+                if (thread != null) thread.interrupt();
+                Job queued = job;
+                if (queued != null && remove(queued)) release();
+            }
+            return cancelled;
+        }
+    }
+}
@@ -1,14 +1,32 @@
 package operations;
 
+import metrics.Instrumentation;
+import metrics.OperationType;
+import metrics.Probe;
 import model.Matrix;
+import model.MatrixAccess;
+import model.MutableMatrix;
+import model.OffHeapMatrix;
+import model.SparseMatrix;
+import model.Vector;
 
+import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Provides static methods for core matrix operations used throughout the app.
  * Includes functionality for addition, subtraction, multiplication, inversion,
- * determinant calculation, and row reduction to RREF.
+ * determinant calculation, linear system solving, and row reduction to RREF.
+ * <p>
+ * Every operation returns a new matrix. Add, subtract, multiply and scale also
+ * have overloads that write into a caller-supplied {@link MutableMatrix}, plus
+ * in-place variants, so iterative algorithms can reuse their buffers and run
+ * without allocating. The same operations can write into an
+ * {@link OffHeapMatrix}, row by row, for results too large for the heap.
  * <p>
  * This class serves as the computational engine for matrix-based tasks.
  *
@@ -17,8 +35,23 @@ import java.util.Iterator;
 
 public class MatrixOperations {
 
+    private static final MatrixAccess ACCESS = MatrixAccess.obtain();
+
     /**
-     * Adds two matrices element-wise.
+     * Names the inner-loop implementation picked at startup: {@code "scalar"},
+     * or {@code "simd-<bits>"} when the JVM runs with
+     * {@code --add-modules jdk.incubator.vector}. Setting the system property
+     * {@code matrixmaster.vector=false} forces the scalar loops.
+     *
+     * @return the name of the active kernel backend
+     */
+    public static String getKernelBackend() {
+        return ArrayKernels.INSTANCE.name();
+    }
+
+    /**
+     * Adds two matrices element-wise. If either operand is a {@link SparseMatrix}
+     * the sparse kernels are used; the sum of two sparse matrices is sparse.
      *
      * @param a the first matrix
      * @param b the second matrix
@@ -26,21 +59,137 @@ public class MatrixOperations {
      * @throws IllegalArgumentException if matrices have different dimensions
      */
     public static Matrix add(Matrix a, Matrix b) {
+        return add(a, b, null, 0);
+    }
+
+    /**
+     * Element-wise addition over row blocks, optionally split across a pool.
+     *
+     * @param pool      the pool to run on, or null for the calling thread
+     * @param threshold the minimum element count for going parallel
+     */
+    static Matrix add(Matrix a, Matrix b, ForkJoinPool pool, long threshold) {
+        Probe probe = Instrumentation.begin(OperationType.ADD);
+        Matrix result = sum(a, b, pool, threshold);
+        Instrumentation.end(probe, a, (long) a.getNumRow() * a.getNumCol());
+        return result;
+    }
+
+    private static Matrix sum(Matrix a, Matrix b, ForkJoinPool pool, long threshold) {
+        if (a instanceof SparseMatrix sa) {
+            return b instanceof SparseMatrix sb ? SparseOperations.add(sa, sb) : SparseOperations.add(sa, b);
+        }
+        if (b instanceof SparseMatrix sb) {
+            return SparseOperations.add(sb, a);
+        }
         validate(a, b);
-        double[][] result = new double[a.getNumRow()][a.getNumCol()];
-        double[][] dataA = a.getData();
-        double[][] dataB = b.getData();
+        int rows = a.getNumRow();
+        int cols = a.getNumCol();
+        if (!ACCESS.isDense(a) || !ACCESS.isDense(b)) {
+            double[] result = allocate(rows, cols);
+            streamElementwise(a, b, result, false, pool, threshold);
+            return ACCESS.wrap(rows, cols, result);
+        }
+        double[] dataA = ACCESS.raw(a);
+        double[] dataB = ACCESS.raw(b);
+        double[] result = new double[dataA.length];
 
-        for (int i = 0; i < a.getNumRow(); i++) {
-            for (int j = 0; j < a.getNumCol(); j++) {
-                result[i][j] = dataA[i][j] + dataB[i][j];
-            }
+        RowBlocks.run(pool, threshold, rows, (long) rows * cols, (from, to) ->
+                addRange(dataA, dataB, result, from * cols, to * cols));
+        return ACCESS.wrap(rows, cols, result);
+    }
+
+    /**
+     * Adds two matrices element-wise into a destination without allocating.
+     * The destination may be one of the operands.
+     *
+     * @param a    the first matrix
+     * @param b    the second matrix
+     * @param dest the matrix that receives a + b, with the same dimensions
+     * @return dest
+     * @throws IllegalArgumentException if the dimensions differ
+     */
+    public static MutableMatrix add(Matrix a, Matrix b, MutableMatrix dest) {
+        return add(a, b, dest, null, 0);
+    }
+
+    static MutableMatrix add(Matrix a, Matrix b, MutableMatrix dest, ForkJoinPool pool, long threshold) {
+        Probe probe = Instrumentation.begin(OperationType.ADD);
+        sumInto(a, b, dest, pool, threshold);
+        Instrumentation.end(probe, a, (long) a.getNumRow() * a.getNumCol());
+        return dest;
+    }
+
+    private static MutableMatrix sumInto(Matrix a, Matrix b, MutableMatrix dest, ForkJoinPool pool, long threshold) {
+        validate(a, b);
+        validate(a, dest);
+        if (a instanceof SparseMatrix || b instanceof SparseMatrix) {
+            combineSparse(a, b, 1.0, dest);
+            return dest;
+        }
+        if (!ACCESS.isDense(a) || !ACCESS.isDense(b)) {
+            streamElementwise(a, b, ACCESS.writable(dest), false, pool, threshold);
+            return dest;
         }
-        return new Matrix(result);
+        int rows = a.getNumRow();
+        int cols = a.getNumCol();
+        double[] dataA = ACCESS.raw(a);
+        double[] dataB = ACCESS.raw(b);
+        double[] result = ACCESS.writable(dest);
+
+        long work = (long) rows * cols;
+        if (RowBlocks.isParallel(pool, threshold, rows, work)) {
+            RowBlocks.run(pool, threshold, rows, work, (from, to) ->
+                    addRange(dataA, dataB, result, from * cols, to * cols));
+        } else {
+            addRange(dataA, dataB, result, 0, result.length);
+        }
+        return dest;
+    }
+
+    /**
+     * Adds two matrices element-wise into an off-heap destination, one row at
+     * a time. The destination may be one of the operands.
+     *
+     * @param a    the first matrix
+     * @param b    the second matrix
+     * @param dest the matrix that receives a + b, with the same dimensions
+     * @return dest
+     * @throws IllegalArgumentException if the dimensions differ
+     */
+    public static OffHeapMatrix add(Matrix a, Matrix b, OffHeapMatrix dest) {
+        return add(a, b, dest, null, 0);
+    }
+
+    static OffHeapMatrix add(Matrix a, Matrix b, OffHeapMatrix dest, ForkJoinPool pool, long threshold) {
+        validate(a, b);
+        validate(a, dest);
+        Probe probe = Instrumentation.begin(OperationType.ADD);
+        streamElementwise(a, b, dest, false, pool, threshold);
+        Instrumentation.end(probe, a, (long) a.getNumRow() * a.getNumCol());
+        return dest;
+    }
+
+    /**
+     * Adds b to a in place.
+     *
+     * @param a the matrix to update
+     * @param b the matrix to add
+     * @return a
+     * @throws IllegalArgumentException if the dimensions differ
+     */
+    public static MutableMatrix addInPlace(MutableMatrix a, Matrix b) {
+        return add(a, b, a);
+    }
+
+    private static void addRange(double[] a, double[] b, double[] result, int from, int to) {
+        ArrayKernels.INSTANCE.add(a, from, b, from, result, from, to - from);
     }
 
     /**
-     * Subtracts matrix b from matrix a element-wise.
+     * Subtracts matrix b from matrix a element-wise. If either operand is a
+     * {@link SparseMatrix} the sparse kernels are used; the difference of two
+     * sparse matrices is sparse.
      *
      * @param a the first matrix
      * @param b the second matrix to subtract from a
@@ -48,21 +197,283 @@ public class MatrixOperations {
      * @throws IllegalArgumentException if matrices have different dimensions
      */
     public static Matrix subtract(Matrix a, Matrix b) {
+        return subtract(a, b, null, 0);
+    }
+
+    /**
+     * Element-wise subtraction over row blocks, optionally split across a pool.
+     *
+     * @param pool      the pool to run on, or null for the calling thread
+     * @param threshold the minimum element count for going parallel
+     */
+    static Matrix subtract(Matrix a, Matrix b, ForkJoinPool pool, long threshold) {
+        Probe probe = Instrumentation.begin(OperationType.SUBTRACT);
+        Matrix result = difference(a, b, pool, threshold);
+        Instrumentation.end(probe, a, (long) a.getNumRow() * a.getNumCol());
+        return result;
+    }
+
+    private static Matrix difference(Matrix a, Matrix b, ForkJoinPool pool, long threshold) {
+        if (a instanceof SparseMatrix sa) {
+            return b instanceof SparseMatrix sb ? SparseOperations.subtract(sa, sb) : SparseOperations.subtract(sa, b);
+        }
+        if (b instanceof SparseMatrix sb) {
+            return SparseOperations.subtract(a, sb);
+        }
+        validate(a, b);
+        int rows = a.getNumRow();
+        int cols = a.getNumCol();
+        if (!ACCESS.isDense(a) || !ACCESS.isDense(b)) {
+            double[] result = allocate(rows, cols);
+            streamElementwise(a, b, result, true, pool, threshold);
+            return ACCESS.wrap(rows, cols, result);
+        }
+        double[] dataA = ACCESS.raw(a);
+        double[] dataB = ACCESS.raw(b);
+        double[] result = new double[dataA.length];
+
+        RowBlocks.run(pool, threshold, rows, (long) rows * cols, (from, to) ->
+                subtractRange(dataA, dataB, result, from * cols, to * cols));
+        return ACCESS.wrap(rows, cols, result);
+    }
+
+    /**
+     * Subtracts matrix b from matrix a element-wise into a destination without
+     * allocating. The destination may be one of the operands.
+     *
+     * @param a    the first matrix
+     * @param b    the second matrix to subtract from a
+     * @param dest the matrix that receives a - b, with the same dimensions
+     * @return dest
+     * @throws IllegalArgumentException if the dimensions differ
+     */
+    public static MutableMatrix subtract(Matrix a, Matrix b, MutableMatrix dest) {
+        return subtract(a, b, dest, null, 0);
+    }
+
+    static MutableMatrix subtract(Matrix a, Matrix b, MutableMatrix dest, ForkJoinPool pool, long threshold) {
+        Probe probe = Instrumentation.begin(OperationType.SUBTRACT);
+        differenceInto(a, b, dest, pool, threshold);
+        Instrumentation.end(probe, a, (long) a.getNumRow() * a.getNumCol());
+        return dest;
+    }
+
+    private static MutableMatrix differenceInto(Matrix a, Matrix b, MutableMatrix dest, ForkJoinPool pool,
+                                                long threshold) {
         validate(a, b);
-        double[][] result = new double[a.getNumRow()][a.getNumCol()];
-        double[][] dataA = a.getData();
-        double[][] dataB = b.getData();
+        validate(a, dest);
+        if (a instanceof SparseMatrix || b instanceof SparseMatrix) {
+            combineSparse(a, b, -1.0, dest);
+            return dest;
+        }
+        if (!ACCESS.isDense(a) || !ACCESS.isDense(b)) {
+            streamElementwise(a, b, ACCESS.writable(dest), true, pool, threshold);
+            return dest;
+        }
+        int rows = a.getNumRow();
+        int cols = a.getNumCol();
+        double[] dataA = ACCESS.raw(a);
+        double[] dataB = ACCESS.raw(b);
+        double[] result = ACCESS.writable(dest);
 
-        for (int i = 0; i < a.getNumRow(); i++) {
-            for (int j = 0; j < a.getNumCol(); j++) {
-                result[i][j] = dataA[i][j] - dataB[i][j];
+        long work = (long) rows * cols;
+        if (RowBlocks.isParallel(pool, threshold, rows, work)) {
+            RowBlocks.run(pool, threshold, rows, work, (from, to) ->
+                    subtractRange(dataA, dataB, result, from * cols, to * cols));
+        } else {
+            subtractRange(dataA, dataB, result, 0, result.length);
+        }
+        return dest;
+    }
+
+    /**
+     * Subtracts matrix b from matrix a element-wise into an off-heap
+     * destination, one row at a time. The destination may be one of the operands.
+     *
+     * @param a    the first matrix
+     * @param b    the matrix to subtract from a
+     * @param dest the matrix that receives a - b, with the same dimensions
+     * @return dest
+     * @throws IllegalArgumentException if the dimensions differ
+     */
+    public static OffHeapMatrix subtract(Matrix a, Matrix b, OffHeapMatrix dest) {
+        return subtract(a, b, dest, null, 0);
+    }
+
+    static OffHeapMatrix subtract(Matrix a, Matrix b, OffHeapMatrix dest, ForkJoinPool pool, long threshold) {
+        validate(a, b);
+        validate(a, dest);
+        Probe probe = Instrumentation.begin(OperationType.SUBTRACT);
+        streamElementwise(a, b, dest, true, pool, threshold);
+        Instrumentation.end(probe, a, (long) a.getNumRow() * a.getNumCol());
+        return dest;
+    }
+
+    /**
+     * Subtracts b from a in place.
+     *
+     * @param a the matrix to update
+     * @param b the matrix to subtract
+     * @return a
+     * @throws IllegalArgumentException if the dimensions differ
+     */
+    public static MutableMatrix subtractInPlace(MutableMatrix a, Matrix b) {
+        return subtract(a, b, a);
+    }
+
+    private static void subtractRange(double[] a, double[] b, double[] result, int from, int to) {
+        ArrayKernels.INSTANCE.subtract(a, from, b, from, result, from, to - from);
+    }
+
+    /**
+     * Element-wise a + b or a - b for operands that are not both dense, such
+     * as memory-mapped views. Rows are read one at a time, so the operands are
+     * never copied onto the heap as a whole.
+     */
+    private static void streamElementwise(Matrix a, Matrix b, double[] result, boolean subtract,
+                                          ForkJoinPool pool, long threshold) {
+        int rows = a.getNumRow();
+        int cols = a.getNumCol();
+        RowBlocks.run(pool, threshold, rows, (long) rows * cols, (from, to) -> {
+            ArrayKernels kernels = ArrayKernels.INSTANCE;
+            RowReader readerA = new RowReader(a);
+            RowReader readerB = new RowReader(b);
+            for (int i = from; i < to; i++) {
+                double[] rowA = readerA.row(i);
+                double[] rowB = readerB.row(i);
+                if (subtract) {
+                    kernels.subtract(rowA, readerA.offset(i), rowB, readerB.offset(i), result, i * cols, cols);
+                } else {
+                    kernels.add(rowA, readerA.offset(i), rowB, readerB.offset(i), result, i * cols, cols);
+                }
+            }
+        });
+    }
+
+    /**
+     * Element-wise a + b or a - b into off-heap storage. Each row is computed
+     * into a heap buffer and then written back, so dest may be an operand.
+     */
+    private static void streamElementwise(Matrix a, Matrix b, OffHeapMatrix dest, boolean subtract,
+                                          ForkJoinPool pool, long threshold) {
+        int rows = a.getNumRow();
+        int cols = a.getNumCol();
+        RowBlocks.run(pool, threshold, rows, (long) rows * cols, (from, to) -> {
+            ArrayKernels kernels = ArrayKernels.INSTANCE;
+            RowReader readerA = new RowReader(a);
+            RowReader readerB = new RowReader(b);
+            double[] result = new double[cols];
+            for (int i = from; i < to; i++) {
+                double[] rowA = readerA.row(i);
+                double[] rowB = readerB.row(i);
+                if (subtract) {
+                    kernels.subtract(rowA, readerA.offset(i), rowB, readerB.offset(i), result, 0, cols);
+                } else {
+                    kernels.add(rowA, readerA.offset(i), rowB, readerB.offset(i), result, 0, cols);
+                }
+                dest.setRow(i, result, 0);
+            }
+        });
+    }
+
+    /**
+     * @return a zeroed row-major result array
+     * @throws IllegalArgumentException if the result does not fit in one array
+     */
+    private static double[] allocate(int rows, int cols) {
+        if ((long) rows * cols > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Matrix is too large for dense storage.");
+        }
+        return new double[rows * cols];
+    }
+
+    /**
+     * Writes a + sign * b into dest when at least one operand is sparse, by
+     * copying the dense operand (or zeroing) and scattering the sparse ones.
+     * Works when dest is one of the operands.
+     */
+    private static void combineSparse(Matrix a, Matrix b, double sign, MutableMatrix dest) {
+        double[] result = ACCESS.writable(dest);
+        if (a instanceof SparseMatrix sa) {
+            if (b instanceof SparseMatrix sb) {
+                Arrays.fill(result, 0.0);
+                SparseOperations.scatter(sb, sign, result);
+            } else {
+                dest.copyFrom(b);
+                if (sign < 0) {
+                    for (int i = 0; i < result.length; i++) {
+                        result[i] = -result[i];
+                    }
+                }
             }
+            SparseOperations.scatter(sa, 1.0, result);
+        } else {
+            dest.copyFrom(a);
+            SparseOperations.scatter((SparseMatrix) b, sign, result);
         }
-        return new Matrix(result);
+    }
+
+    /**
+     * Multiplies every entry of a matrix by a scalar into a destination without
+     * allocating. The destination may be m itself.
+     *
+     * @param m      the matrix to scale
+     * @param scalar the factor
+     * @param dest   the matrix that receives scalar * m, with the same dimensions
+     * @return dest
+     * @throws IllegalArgumentException if the dimensions differ
+     */
+    public static MutableMatrix scale(Matrix m, double scalar, MutableMatrix dest) {
+        validate(m, dest);
+        Probe probe = Instrumentation.begin(OperationType.SCALE);
+        if (m != dest) {
+            dest.copyFrom(m);
+        }
+        double[] result = ACCESS.writable(dest);
+        ArrayKernels.INSTANCE.scale(scalar, result, 0, result.length);
+        Instrumentation.end(probe, m, result.length);
+        return dest;
+    }
+
+    /**
+     * Multiplies every entry of a matrix by a scalar into an off-heap
+     * destination, one row at a time. The destination may be m itself.
+     *
+     * @param m      the matrix to scale
+     * @param scalar the factor
+     * @param dest   the matrix that receives scalar * m, with the same dimensions
+     * @return dest
+     * @throws IllegalArgumentException if the dimensions differ
+     */
+    public static OffHeapMatrix scale(Matrix m, double scalar, OffHeapMatrix dest) {
+        validate(m, dest);
+        Probe probe = Instrumentation.begin(OperationType.SCALE);
+        int cols = m.getNumCol();
+        double[] row = new double[cols];
+        for (int i = 0; i < m.getNumRow(); i++) {
+            m.copyRow(i, row, 0);
+            ArrayKernels.INSTANCE.scale(scalar, row, 0, cols);
+            dest.setRow(i, row, 0);
+        }
+        Instrumentation.end(probe, m, (long) m.getNumRow() * cols);
+        return dest;
+    }
+
+    /**
+     * Multiplies every entry of a matrix by a scalar in place.
+     *
+     * @param m      the matrix to update
+     * @param scalar the factor
+     * @return m
+     */
+    public static MutableMatrix scaleInPlace(MutableMatrix m, double scalar) {
+        return scale(m, scalar, m);
     }
 
     /**
      * Multiplies two matrices using standard matrix multiplication rules.
+     * Large dense products run through a cache-blocked kernel; sparse operands
+     * use the sparse kernels, and the product of two sparse matrices is sparse.
      *
      * @param a the left matrix
      * @param b the right matrix
@@ -70,227 +481,761 @@ public class MatrixOperations {
      * @throws IllegalArgumentException if a's column count does not match b's row count
      */
     public static Matrix multiply(Matrix a, Matrix b) {
+        return multiply(a, b, null, 0);
+    }
+
+    /**
+     * Matrix product over blocks of output rows, optionally split across a pool.
+     *
+     * @param pool      the pool to run on, or null for the calling thread
+     * @param threshold the minimum multiply-add count for going parallel
+     */
+    static Matrix multiply(Matrix a, Matrix b, ForkJoinPool pool, long threshold) {
+        Probe probe = Instrumentation.begin(OperationType.MULTIPLY);
+        Matrix result = product(a, b, pool, threshold);
+        Instrumentation.end(probe, a, productFlops(a, b));
+        return result;
+    }
+
+    private static Matrix product(Matrix a, Matrix b, ForkJoinPool pool, long threshold) {
+        if (a instanceof SparseMatrix sa) {
+            return b instanceof SparseMatrix sb ? SparseOperations.multiply(sa, sb) : SparseOperations.multiply(sa, b);
+        }
+        if (b instanceof SparseMatrix sb) {
+            return SparseOperations.multiply(a, sb);
+        }
         if (a.getNumCol() != b.getNumRow()) {
             throw new IllegalArgumentException("Matrix dimensions do not allow multiplication.");
         }
 
-        double[][] result = new double[a.getNumRow()][b.getNumCol()];
-        double[][] dataA = a.getData();
-        double[][] dataB = b.getData();
+        int rows = a.getNumRow();
+        int inner = a.getNumCol();
+        int cols = b.getNumCol();
+        if (!ACCESS.isDense(a) || !ACCESS.isDense(b)) {
+            double[] result = allocate(rows, cols);
+            RowBlocks.run(pool, threshold, rows, (long) rows * inner * cols, (from, to) ->
+                    MultiplyKernel.streamed(a, b, result, from, to));
+            return ACCESS.wrap(rows, cols, result);
+        }
+        double[] dataA = ACCESS.raw(a);
+        double[] dataB = ACCESS.raw(b);
+        double[] result = new double[rows * cols];
 
-        for (int i = 0; i < a.getNumRow(); i++) {
-            for (int j = 0; j < b.getNumCol(); j++) {
-                for (int k = 0; k < a.getNumCol(); k++) {
-                    result[i][j] += dataA[i][k] * dataB[k][j];
-                }
-            }
+        RowBlocks.run(pool, threshold, rows, (long) rows * inner * cols, (from, to) ->
+                MultiplyKernel.multiply(dataA, dataB, result, from, to, inner, cols));
+        return ACCESS.wrap(rows, cols, result);
+    }
+
+    /**
+     * Multiplies two matrices with the given algorithm. {@link MultiplicationStrategy#STRASSEN}
+     * recurses on dense operands down to {@link #getStrassenCutoff()}; see
+     * {@link MultiplicationStrategy} for its error bound against the classical product.
+     *
+     * @param a        the left matrix
+     * @param b        the right matrix
+     * @param strategy the multiplication algorithm
+     * @return a new matrix that is the product of a and b
+     * @throws IllegalArgumentException if a's column count does not match b's row count
+     */
+    public static Matrix multiply(Matrix a, Matrix b, MultiplicationStrategy strategy) {
+        return multiply(a, b, strategy, null, 0);
+    }
+
+    /**
+     * Matrix product with the given algorithm; Strassen runs its seven
+     * sub-products as pool tasks when the work reaches the threshold.
+     */
+    static Matrix multiply(Matrix a, Matrix b, MultiplicationStrategy strategy, ForkJoinPool pool, long threshold) {
+        if (strategy == null) {
+            throw new IllegalArgumentException("Multiplication strategy cannot be null.");
+        }
+        if (strategy == MultiplicationStrategy.CLASSICAL || !ACCESS.isDense(a) || !ACCESS.isDense(b)) {
+            return multiply(a, b, pool, threshold);
+        }
+        if (a.getNumCol() != b.getNumRow()) {
+            throw new IllegalArgumentException("Matrix dimensions do not allow multiplication.");
         }
-        return new Matrix(result);
+
+        Probe probe = Instrumentation.begin(OperationType.MULTIPLY);
+        int rows = a.getNumRow();
+        int inner = a.getNumCol();
+        int cols = b.getNumCol();
+        double[] result = new double[rows * cols];
+        boolean parallel = RowBlocks.isParallel(pool, threshold, rows, (long) rows * inner * cols);
+        StrassenKernel.multiply(ACCESS.raw(a), ACCESS.raw(b), result, rows, inner, cols,
+                parallel ? pool : null);
+        Instrumentation.end(probe, a, productFlops(a, b));
+        return ACCESS.wrap(rows, cols, result);
     }
 
     /**
-     * Computes the inverse of a square matrix using Gauss-Jordan elimination.
-     * The input matrix is not modified; a new Matrix object is returned.
+     * Multiplies two matrices into a destination without allocating. The
+     * destination's previous contents are overwritten.
      *
-     * @param m the square matrix to invert
-     * @return the inverse matrix
-     * @throws IllegalArgumentException if the matrix is not square or not invertible
+     * @param a    the left matrix
+     * @param b    the right matrix
+     * @param dest the matrix that receives a * b, with a's row count and b's column count
+     * @return dest
+     * @throws IllegalArgumentException if the dimensions do not match or dest is a or b
      */
-    public static Matrix inverse(Matrix m) {
-        if (!m.isSquare()) {
-            throw new IllegalArgumentException("Matrix must be square to compute inverse.");
+    public static MutableMatrix multiply(Matrix a, Matrix b, MutableMatrix dest) {
+        return multiply(a, b, dest, null, 0);
+    }
+
+    static MutableMatrix multiply(Matrix a, Matrix b, MutableMatrix dest, ForkJoinPool pool, long threshold) {
+        if (a.getNumCol() != b.getNumRow()) {
+            throw new IllegalArgumentException("Matrix dimensions do not allow multiplication.");
+        }
+        if (dest.getNumRow() != a.getNumRow() || dest.getNumCol() != b.getNumCol()) {
+            throw new IllegalArgumentException("Destination must have the dimensions of the product.");
+        }
+        if (dest == a || dest == b) {
+            throw new IllegalArgumentException("Destination cannot be an operand of the product.");
         }
 
-        int n = m.getNumRow();
-        double[][] augmented = buildAugmentedMatrix(m);
-        GaussJordanElimination(augmented);
-        double[][] inverse = extractInverse(augmented);
+        Probe probe = Instrumentation.begin(OperationType.MULTIPLY);
+        productInto(a, b, ACCESS.writable(dest), pool, threshold);
+        Instrumentation.end(probe, a, productFlops(a, b));
+        return dest;
+    }
 
-        return new Matrix(inverse);
+    private static void productInto(Matrix a, Matrix b, double[] result, ForkJoinPool pool, long threshold) {
+        int rows = a.getNumRow();
+        int inner = a.getNumCol();
+        int cols = b.getNumCol();
+        Arrays.fill(result, 0.0);
+        if (a instanceof SparseMatrix sa) {
+            SparseOperations.multiplyInto(sa, b, result);
+        } else if (b instanceof SparseMatrix sb) {
+            SparseOperations.multiplyBySparseInto(a, sb, result);
+        } else if (!ACCESS.isDense(a) || !ACCESS.isDense(b)) {
+            RowBlocks.run(pool, threshold, rows, (long) rows * inner * cols, (from, to) ->
+                    MultiplyKernel.streamed(a, b, result, from, to));
+        } else {
+            double[] dataA = ACCESS.raw(a);
+            double[] dataB = ACCESS.raw(b);
+            long work = (long) rows * inner * cols;
+            if (RowBlocks.isParallel(pool, threshold, rows, work)) {
+                RowBlocks.run(pool, threshold, rows, work, (from, to) ->
+                        MultiplyKernel.multiply(dataA, dataB, result, from, to, inner, cols));
+            } else {
+                MultiplyKernel.multiply(dataA, dataB, result, 0, rows, inner, cols);
+            }
+        }
     }
 
     /**
-     * Builds an augmented matrix [A | I] from the input square matrix A,
-     * where I is the identity matrix of the same size.
+     * Multiplies two matrices into an off-heap destination. Output rows are
+     * computed a panel at a time into a heap buffer and written back, so no
+     * full-size array is allocated; results match the heap product exactly.
      *
-     * @param m the input square matrix
-     * @return a new 2D array representing the augmented matrix [A | I]
+     * @param a    the left matrix
+     * @param b    the right matrix
+     * @param dest the matrix that receives a * b, with a's row count and b's column count
+     * @return dest
+     * @throws IllegalArgumentException if the dimensions do not match or dest is a or b
      */
-    private static double[][] buildAugmentedMatrix(Matrix m) {
-        int n = m.getNumRow();
-        double[][] A = m.getData();
-        double[][] augmented = new double[n][2 * n];
+    public static OffHeapMatrix multiply(Matrix a, Matrix b, OffHeapMatrix dest) {
+        return multiply(a, b, dest, null, 0);
+    }
 
-        for (int i = 0; i < n; i++) {
-            System.arraycopy(A[i], 0, augmented[i], 0, n);
-            augmented[i][i + n] = 1.0;
+    static OffHeapMatrix multiply(Matrix a, Matrix b, OffHeapMatrix dest, ForkJoinPool pool, long threshold) {
+        if (a.getNumCol() != b.getNumRow()) {
+            throw new IllegalArgumentException("Matrix dimensions do not allow multiplication.");
+        }
+        if (dest.getNumRow() != a.getNumRow() || dest.getNumCol() != b.getNumCol()) {
+            throw new IllegalArgumentException("Destination must have the dimensions of the product.");
+        }
+        if (dest == a || dest == b) {
+            throw new IllegalArgumentException("Destination cannot be an operand of the product.");
         }
 
-        return augmented;
+        Probe probe = Instrumentation.begin(OperationType.MULTIPLY);
+        int rows = a.getNumRow();
+        int inner = a.getNumCol();
+        int cols = b.getNumCol();
+        double[] dataB = ACCESS.isDense(b) ? ACCESS.raw(b) : null;
+        RowBlocks.run(pool, threshold, rows, (long) rows * inner * cols, (from, to) -> {
+            int panel = Math.min(MultiplyKernel.getBlockSize(), to - from);
+            double[] panelA = new double[panel * inner];
+            double[] panelC = new double[panel * cols];
+            RowReader readerA = new RowReader(a);
+            for (int first = from; first < to; first += panel) {
+                int count = Math.min(panel, to - first);
+                Arrays.fill(panelC, 0.0);
+                if (dataB != null) {
+                    for (int i = 0; i < count; i++) {
+                        System.arraycopy(readerA.row(first + i), readerA.offset(first + i), panelA, i * inner, inner);
+                    }
+                    MultiplyKernel.multiply(panelA, dataB, panelC, 0, count, inner, cols);
+                } else {
+                    MultiplyKernel.streamed(a, b, panelC, first, first, first + count);
+                }
+                for (int i = 0; i < count; i++) {
+                    dest.setRow(first + i, panelC, i * cols);
+                }
+            }
+        });
+        Instrumentation.end(probe, a, productFlops(a, b));
+        return dest;
+    }
+
+    private static long productFlops(Matrix a, Matrix b) {
+        return 2L * a.getNumRow() * a.getNumCol() * b.getNumCol();
     }
 
     /**
-     * Performs Gauss-Jordan elimination on the given augmented matrix.
-     * Converts the left half of the matrix to the identity matrix.
+     * Multiplies a matrix by a column vector.
      *
-     * @param augmented the augmented matrix [A | I], modified in-place
-     * @throws IllegalArgumentException if the matrix is singular (non-invertible)
+     * @param a the matrix
+     * @param x the vector, with one entry per column of a
+     * @return the product a * x
+     * @throws IllegalArgumentException if the vector length does not match a's column count
      */
-    private static void GaussJordanElimination(double[][] augmented) {
-        int n = augmented.length;
+    public static Vector multiply(Matrix a, Vector x) {
+        Probe probe = Instrumentation.begin(OperationType.MULTIPLY);
+        Vector y = product(a, x);
+        Instrumentation.end(probe, a, 2L * a.getNumRow() * a.getNumCol());
+        return y;
+    }
 
-        for (int pivot = 0; pivot < n; pivot++) {
-            double pivotVal = augmented[pivot][pivot];
-            if (Math.abs(pivotVal) < 1e-10) {
-                throw new IllegalArgumentException("Matrix is singular and cannot be inverted.");
-            }
+    private static Vector product(Matrix a, Vector x) {
+        if (a instanceof SparseMatrix sa) {
+            return SparseOperations.multiply(sa, x);
+        }
+        if (a.getNumCol() != x.getSize()) {
+            throw new IllegalArgumentException("Vector length must match the number of matrix columns.");
+        }
 
-            for (int j = 0; j < 2 * n; j++) {
-                augmented[pivot][j] /= pivotVal;
+        int rows = a.getNumRow();
+        int cols = a.getNumCol();
+        RowReader reader = new RowReader(a);
+        double[] xs = x.getData();
+        double[] y = new double[rows];
+        for (int i = 0; i < rows; i++) {
+            double[] data = reader.row(i);
+            int row = reader.offset(i);
+            double sum = 0.0;
+            for (int j = 0; j < cols; j++) {
+                sum += data[row + j] * xs[j];
             }
+            y[i] = sum;
+        }
+        return new Vector(y);
+    }
+
+    /**
+     * Transposes a matrix. Sparse matrices stay sparse.
+     *
+     * @param m the matrix to transpose
+     * @return a new matrix whose rows are the columns of m
+     */
+    public static Matrix transpose(Matrix m) {
+        Probe probe = Instrumentation.begin(OperationType.TRANSPOSE);
+        Matrix result = transposed(m);
+        Instrumentation.end(probe, m, 0);
+        return result;
+    }
+
+    private static Matrix transposed(Matrix m) {
+        if (m instanceof SparseMatrix sm) {
+            return SparseOperations.transpose(sm);
+        }
 
-            for (int i = 0; i < n; i++) {
-                if (i != pivot) {
-                    double factor = augmented[i][pivot];
-                    for (int j = 0; j < 2 * n; j++) {
-                        augmented[i][j] -= factor * augmented[pivot][j];
+        int rows = m.getNumRow();
+        int cols = m.getNumCol();
+        if (!ACCESS.isDense(m)) {
+            double[] result = allocate(rows, cols);
+            RowReader reader = new RowReader(m);
+            for (int i = 0; i < rows; i++) {
+                double[] row = reader.row(i);
+                int offset = reader.offset(i);
+                for (int j = 0; j < cols; j++) {
+                    result[j * rows + i] = row[offset + j];
+                }
+            }
+            return ACCESS.wrap(cols, rows, result);
+        }
+        double[] data = ACCESS.raw(m);
+        double[] result = new double[rows * cols];
+        int block = 32;
+        for (int ii = 0; ii < rows; ii += block) {
+            int iEnd = Math.min(ii + block, rows);
+            for (int jj = 0; jj < cols; jj += block) {
+                int jEnd = Math.min(jj + block, cols);
+                for (int i = ii; i < iEnd; i++) {
+                    for (int j = jj; j < jEnd; j++) {
+                        result[j * rows + i] = data[i * cols + j];
                     }
                 }
             }
         }
+        return ACCESS.wrap(cols, rows, result);
     }
 
     /**
-     * Extracts the inverse matrix from the right half of an augmented matrix [I | A^-1].
+     * @return the tile edge length used by the blocked multiplication kernel
+     */
+    public static int getMultiplyBlockSize() {
+        return MultiplyKernel.getBlockSize();
+    }
+
+    /**
+     * Sets the tile edge length used by the blocked multiplication kernel.
+     * The default can also be set with the {@code matrixmaster.multiply.blockSize}
+     * system property.
      *
-     * @param augmented the augmented matrix after Gauss-Jordan elimination
-     * @return a new 2D array representing the inverse matrix
+     * @param blockSize the new tile size, must be positive
+     * @throws IllegalArgumentException if blockSize is less than 1
      */
-    private static double[][] extractInverse(double[][] augmented) {
-        int n = augmented.length;
-        double[][] inverse = new double[n][n];
+    public static void setMultiplyBlockSize(int blockSize) {
+        MultiplyKernel.setBlockSize(blockSize);
+    }
 
-        for (int i = 0; i < n; i++) {
-            for (int j = 0; j < n; j++) {
-                inverse[i][j] = augmented[i][j + n];
-            }
-        }
+    /**
+     * @return the dimension at or below which Strassen multiplication switches
+     * to the classical kernel
+     */
+    public static int getStrassenCutoff() {
+        return StrassenKernel.getCutoff();
+    }
 
-        return inverse;
+    /**
+     * Sets the dimension at or below which Strassen multiplication switches to
+     * the classical kernel. Lower cutoffs save more multiplications but add
+     * memory traffic and loosen the error bound. The default can also be set
+     * with the {@code matrixmaster.multiply.strassenCutoff} system property.
+     *
+     * @param cutoff the new cutoff, must be positive
+     * @throws IllegalArgumentException if cutoff is less than 1
+     */
+    public static void setStrassenCutoff(int cutoff) {
+        StrassenKernel.setCutoff(cutoff);
     }
 
+    /**
+     * Computes the inverse of a square matrix using Gauss-Jordan elimination
+     * with partial pivoting. The input matrix is not modified; a new Matrix
+     * object is returned.
+     *
+     * @param m the square matrix to invert
+     * @return the inverse matrix
+     * @throws IllegalArgumentException if the matrix is not square or not invertible
+     * @see GaussJordanInverse
+     */
+    public static Matrix inverse(Matrix m) {
+        return inverse(m, null, 0);
+    }
 
     /**
-     * Computes the determinant of a square matrix using recursive cofactor expansion.
+     * Computes the inverse of a square matrix using Gauss-Jordan elimination
+     * with the given pivoting strategy.
+     *
+     * @param m        the square matrix to invert
+     * @param pivoting partial or full pivoting
+     * @return the inverse matrix
+     * @throws IllegalArgumentException if the matrix is not square or not invertible
+     */
+    public static Matrix inverse(Matrix m, GaussJordanInverse.Pivoting pivoting) {
+        Probe probe = Instrumentation.begin(OperationType.INVERSE);
+        Matrix result = new GaussJordanInverse(m, pivoting).getInverse();
+        Instrumentation.end(probe, m, inverseFlops(m));
+        return result;
+    }
+
+    /**
+     * Gauss-Jordan inverse whose per-pivot row updates are optionally split across a pool.
+     *
+     * @param pool      the pool to run on, or null for the calling thread
+     * @param threshold the minimum per-pivot update count for going parallel
+     */
+    static Matrix inverse(Matrix m, ForkJoinPool pool, long threshold) {
+        Probe probe = Instrumentation.begin(OperationType.INVERSE);
+        Matrix result = new GaussJordanInverse(m, GaussJordanInverse.Pivoting.PARTIAL, pool, threshold).getInverse();
+        Instrumentation.end(probe, m, inverseFlops(m));
+        return result;
+    }
+
+    private static long inverseFlops(Matrix m) {
+        long n = m.getNumRow();
+        return 2 * n * n * n;
+    }
+
+    /**
+     * @return the multiply-adds of an LU factorization, 2n^3 / 3
+     */
+    private static long factorFlops(Matrix m) {
+        long n = m.getNumRow();
+        return 2 * n * n * n / 3;
+    }
+
+
+    /**
+     * Computes the determinant of a square matrix. Small matrices use closed-form
+     * expansions; larger ones are reduced with a partial-pivoting LU factorization
+     * in O(n^3) time.
      *
      * @param m the matrix whose determinant is to be calculated
      * @return the determinant of the matrix
      * @throws IllegalArgumentException if the matrix is not square
+     * @see LUDecomposition
      */
     public static double determinant(Matrix m) {
-        if (!m.isSquare()) {
-            throw new IllegalArgumentException("Determinant is only defined for square matrices.");
+        Probe probe = Instrumentation.begin(OperationType.DETERMINANT);
+        double det = LUDecomposition.determinant(m);
+        Instrumentation.end(probe, m, factorFlops(m));
+        return det;
+    }
+
+
+    /**
+     * Factors a square coefficient matrix for repeated solves. Symmetric
+     * matrices with a positive diagonal are tried with Cholesky first; anything
+     * that is not symmetric positive definite falls back to pivoted LU.
+     *
+     * @param a the square coefficient matrix
+     * @return a factorization that can solve against a
+     * @throws IllegalArgumentException if the matrix is not square
+     */
+    public static LinearSolver factor(Matrix a) {
+        if (!a.isSquare()) {
+            throw new IllegalArgumentException("Coefficient matrix must be square.");
         }
 
-        return getDet(m.getData(), m.getNumRow());
+        if (isSymmetricWithPositiveDiagonal(a)) {
+            CholeskyDecomposition cholesky = new CholeskyDecomposition(a);
+            if (cholesky.isSymmetricPositiveDefinite()) return cholesky;
+        }
+        return new LUDecomposition(a);
     }
 
     /**
-     * Recursively computes the determinant of a matrix using cofactor expansion.
+     * Solves A * X = B without forming the inverse of A. Every column of B is a
+     * separate right-hand side, so many systems are solved with one factorization.
      *
-     * @param mat the matrix as a 2D double array
-     * @param n   the size (number of rows or columns) of the matrix
-     * @return the determinant value
+     * @param a the square coefficient matrix
+     * @param b the right-hand sides, with as many rows as a
+     * @return the solution X
+     * @throws IllegalArgumentException if the dimensions do not match or a is singular
      */
-    private static double getDet(double[][] mat, int n) {
-        if (n == 1) return mat[0][0];
-        if (n == 2) return mat[0][0] * mat[1][1] - mat[0][1] * mat[1][0];
+    public static Matrix solve(Matrix a, Matrix b) {
+        Probe probe = Instrumentation.begin(OperationType.SOLVE);
+        Matrix x = factor(a).solve(b);
+        long n = a.getNumRow();
+        Instrumentation.end(probe, a, factorFlops(a) + 2 * n * n * b.getNumCol());
+        return x;
+    }
 
-        double res = 0.0;
-        for (int col = 0; col < n; col++) {
-            double[][] sub = new double[n - 1][n - 1];
-            for (int i = 1; i < n; i++) {
-                int subcol = 0;
-                for (int j = 0; j < n; j++) {
-                    if (j == col) continue;
-                    sub[i - 1][subcol++] = mat[i][j];
-                }
-            }
-            double sign = (col % 2 == 0) ? 1 : -1;
-            res += sign * mat[0][col] * getDet(sub, n - 1);
+    /**
+     * Solves A * x = b without forming the inverse of A.
+     *
+     * @param a the square coefficient matrix
+     * @param b the right-hand side vector
+     * @return the solution x
+     * @throws IllegalArgumentException if the dimensions do not match or a is singular
+     */
+    public static Vector solve(Matrix a, Vector b) {
+        Probe probe = Instrumentation.begin(OperationType.SOLVE);
+        Vector x = factor(a).solve(b);
+        long n = a.getNumRow();
+        Instrumentation.end(probe, a, factorFlops(a) + 2 * n * n);
+        return x;
+    }
+
+    /**
+     * Factors a matrix as A = Q R with blocked Householder reflections.
+     *
+     * @param a the matrix to factor
+     * @return the factorization
+     * @see QRDecomposition
+     */
+    public static QRDecomposition qr(Matrix a) {
+        return qr(a, QRDecomposition.Pivoting.NONE);
+    }
+
+    /**
+     * Factors a matrix as A P = Q R. Column pivoting reveals the numerical rank.
+     *
+     * @param a        the matrix to factor
+     * @param pivoting no pivoting, or column pivoting
+     * @return the factorization
+     */
+    public static QRDecomposition qr(Matrix a, QRDecomposition.Pivoting pivoting) {
+        Probe probe = Instrumentation.begin(OperationType.QR);
+        QRDecomposition qr = new QRDecomposition(a, pivoting);
+        Instrumentation.end(probe, a, qrFlops(a.getNumRow(), a.getNumCol()));
+        return qr;
+    }
+
+    /**
+     * Computes the thin singular value decomposition A = U S V^T.
+     *
+     * @param a the matrix to decompose
+     * @return the decomposition
+     * @throws IllegalStateException if the iteration does not converge
+     * @see SingularValueDecomposition
+     */
+    public static SingularValueDecomposition svd(Matrix a) {
+        Probe probe = Instrumentation.begin(OperationType.SVD);
+        SingularValueDecomposition svd = new SingularValueDecomposition(a);
+        Instrumentation.end(probe, a, svdFlops(a));
+        return svd;
+    }
+
+    /**
+     * Computes the numerical rank from the singular values: the number above
+     * max(m, n) * eps * the largest one. Unlike {@link #rref(Matrix)}, the
+     * tolerance scales with the matrix, and unlike {@link #rankExact(Matrix)}
+     * it treats values that differ only by rounding as equal.
+     *
+     * @param m the matrix
+     * @return the numerical rank
+     * @throws IllegalStateException if the iteration does not converge
+     */
+    public static int rank(Matrix m) {
+        Probe probe = Instrumentation.begin(OperationType.SVD);
+        double[] sigma = SingularValueDecomposition.singularValues(m);
+        int rank = SingularValueDecomposition.rank(sigma,
+                Math.max(m.getNumRow(), m.getNumCol()) * Math.ulp(1.0) * sigma[0]);
+        Instrumentation.end(probe, m, singularValueFlops(m));
+        return rank;
+    }
+
+    /**
+     * Solves min ||A X - B|| in the least-squares sense without forming the
+     * normal equations, every column of B being a separate right-hand side.
+     * <p>
+     * A is factored with a column-pivoted {@link QRDecomposition}, so a
+     * rank-deficient A gets the basic solution instead of an error. A tall
+     * A, with at least four times as many rows as columns, is streamed
+     * through a {@link TallSkinnyQR} instead, and only its small triangular
+     * factor is solved with pivoting.
+     *
+     * @param a the coefficient matrix
+     * @param b the right-hand sides, with as many rows as a
+     * @return the n x b.cols least-squares solution
+     * @throws IllegalArgumentException if the row counts differ
+     */
+    public static Matrix leastSquares(Matrix a, Matrix b) {
+        if (a.getNumRow() != b.getNumRow()) {
+            throw new IllegalArgumentException("Right-hand side must have the same number of rows as the matrix.");
         }
 
-        return res;
+        Probe probe = Instrumentation.begin(OperationType.LEAST_SQUARES);
+        Matrix x;
+        if (a.getNumRow() < 4L * a.getNumCol()) {
+            x = new QRDecomposition(a, QRDecomposition.Pivoting.COLUMN).solve(b);
+        } else {
+            TallSkinnyQR tsqr = new TallSkinnyQR(a.getNumCol(), b.getNumCol());
+            tsqr.add(a, b);
+            x = tsqr.solve();
+        }
+        Instrumentation.end(probe, a, qrFlops(a.getNumRow(), a.getNumCol() + b.getNumCol()));
+        return x;
+    }
+
+    /**
+     * Solves min ||A x - b|| in the least-squares sense.
+     *
+     * @param a the coefficient matrix
+     * @param b the right-hand side, with one entry per row of a
+     * @return the least-squares solution
+     * @throws IllegalArgumentException if the lengths differ
+     * @see #leastSquares(Matrix, Matrix)
+     */
+    public static Vector leastSquares(Matrix a, Vector b) {
+        if (a.getNumRow() != b.getSize()) {
+            throw new IllegalArgumentException("Right-hand side must have the same length as the number of rows.");
+        }
+        Matrix x = leastSquares(a, ACCESS.wrap(b.getSize(), 1, b.getData().clone()));
+        return new Vector(ACCESS.copyOf(x));
+    }
+
+    /**
+     * @return the flops of a Householder QR of an m x n matrix, 2mn^2 - 2n^3 / 3 for m >= n
+     */
+    private static long qrFlops(long m, long n) {
+        long k = Math.min(m, n);
+        return 2 * k * k * Math.max(m, n) - 2 * k * k * k / 3;
+    }
+
+    /**
+     * @return a nominal count for the pivoted QR plus about six Jacobi sweeps over the k x k factor
+     */
+    private static long svdFlops(Matrix a) {
+        long k = Math.min(a.getNumRow(), a.getNumCol());
+        return qrFlops(Math.max(a.getNumRow(), a.getNumCol()), k) + 6 * 4 * k * k * k;
+    }
+
+    /**
+     * @return a nominal count for the pivoted QR plus the bidiagonalization of the
+     * k x k factor, 8k^3 / 3; the values-only QR steps are O(k^2) and not counted
+     */
+    private static long singularValueFlops(Matrix a) {
+        long k = Math.min(a.getNumRow(), a.getNumCol());
+        return qrFlops(Math.max(a.getNumRow(), a.getNumCol()), k) + 8 * k * k * k / 3;
+    }
+
+    /**
+     * Cheap pre-check before attempting a Cholesky factorization.
+     */
+    private static boolean isSymmetricWithPositiveDiagonal(Matrix m) {
+        int n = m.getNumRow();
+        double[] data = ACCESS.raw(m);
+        for (int i = 0; i < n; i++) {
+            if (!(data[i * n + i] > 0.0)) return false;
+            for (int j = i + 1; j < n; j++) {
+                if (data[i * n + j] != data[j * n + i]) return false;
+            }
+        }
+        return true;
     }
 
 
     /**
      * Computes the Reduced Row Echelon Form (RREF) of a matrix using Gauss-Jordan elimination.
+     * Entries below 1e-10 in magnitude are treated as zero when choosing pivots, so
+     * ill-conditioned matrices can come out with the wrong rank; {@link #rrefExact(Matrix)}
+     * has no tolerance.
      *
      * @param m the matrix to reduce
      * @return a new matrix in RREF
      */
     public static Matrix rref(Matrix m) {
-        double[][] data = m.copy().getData();
-        int rows = data.length;
-        int cols = data[0].length;
+        Probe probe = Instrumentation.begin(OperationType.RREF);
+        Matrix result = reduce(m);
+        long rows = m.getNumRow();
+        long cols = m.getNumCol();
+        Instrumentation.end(probe, m, 2 * rows * cols * Math.min(rows, cols));
+        return result;
+    }
+
+    private static Matrix reduce(Matrix m) {
+        int rows = m.getNumRow();
+        int cols = m.getNumCol();
+        double[] data = ACCESS.copyOf(m);
         int lead = 0;
+        CancellationToken cancel = CancellationToken.current();
 
         for (int r = 0; r < rows; r++) {
             if (lead >= cols) break;
+            cancel.throwIfCancelled();
 
             int i = r;
-            while (Math.abs(data[i][lead]) < 1e-10) {
+            while (Math.abs(data[i * cols + lead]) < 1e-10) {
                 i++;
                 if (i == rows) {
                     i = r;
                     lead++;
-                    if (lead == cols) return new Matrix(data);
+                    if (lead == cols) return ACCESS.wrap(rows, cols, data);
                 }
             }
 
-            swapRows(data, r, i);
-            normalizeRow(data, r, lead);
-            eliminateOtherRows(data, r, lead);
+            swapRows(data, cols, r, i);
+            normalizeRow(data, cols, r, lead);
+            eliminateOtherRows(data, rows, cols, r, lead);
 
             lead++;
         }
 
-        return new Matrix(data);
+        return ACCESS.wrap(rows, cols, data);
     }
 
     /**
-     * Swaps two rows in a matrix.
+     * Computes the Reduced Row Echelon Form exactly, with fraction-free Bareiss
+     * elimination over the integers. Zero tests are exact, so the pivots and the
+     * rank are always right; each entry is then rounded to the nearest double.
+     *
+     * @param m the matrix to reduce
+     * @return a new matrix in RREF
+     * @throws IllegalArgumentException if an entry is NaN or infinite
+     * @see BareissElimination
      */
-    private static void swapRows(double[][] data, int row1, int row2) {
-        double[] temp = data[row1];
-        data[row1] = data[row2];
-        data[row2] = temp;
+    public static Matrix rrefExact(Matrix m) {
+        Probe probe = Instrumentation.begin(OperationType.EXACT_ELIMINATION);
+        Matrix result = new BareissElimination(m).getRref();
+        Instrumentation.end(probe, m, 0);
+        return result;
+    }
+
+    /**
+     * Computes the rank exactly, with no tolerance.
+     *
+     * @param m the matrix
+     * @return the rank of m
+     * @throws IllegalArgumentException if an entry is NaN or infinite
+     */
+    public static int rankExact(Matrix m) {
+        Probe probe = Instrumentation.begin(OperationType.EXACT_ELIMINATION);
+        int rank = BareissElimination.rank(m);
+        Instrumentation.end(probe, m, 0);
+        return rank;
+    }
+
+    /**
+     * Computes an exact basis of the null space of m, the solutions of m * x = 0.
+     *
+     * @param m the matrix
+     * @return one primitive integer vector per free column, empty if m has full column rank
+     * @throws IllegalArgumentException if an entry is NaN or infinite
+     */
+    public static List<Vector> nullspace(Matrix m) {
+        Probe probe = Instrumentation.begin(OperationType.EXACT_ELIMINATION);
+        List<Vector> basis = new BareissElimination(m).getNullspace();
+        Instrumentation.end(probe, m, 0);
+        return basis;
+    }
+
+    /**
+     * Computes the determinant exactly. Every double is a dyadic rational, so
+     * the result is a terminating decimal.
+     *
+     * @param m the square matrix
+     * @return the exact determinant
+     * @throws IllegalArgumentException if the matrix is not square or has NaN or infinite entries
+     */
+    public static BigDecimal determinantExact(Matrix m) {
+        Probe probe = Instrumentation.begin(OperationType.EXACT_ELIMINATION);
+        BigDecimal det = BareissElimination.determinant(m);
+        Instrumentation.end(probe, m, 0);
+        return det;
+    }
+
+    /**
+     * Swaps two rows in a row-major matrix.
+     */
+    private static void swapRows(double[] data, int cols, int row1, int row2) {
+        if (row1 == row2) return;
+        int a = row1 * cols;
+        int b = row2 * cols;
+        for (int j = 0; j < cols; j++) {
+            double temp = data[a + j];
+            data[a + j] = data[b + j];
+            data[b + j] = temp;
+        }
     }
 
     /**
      * Normalizes a row so that the pivot column has value 1.
      */
-    private static void normalizeRow(double[][] data, int row, int pivotCol) {
-        double pivot = data[row][pivotCol];
-        int cols = data[0].length;
+    private static void normalizeRow(double[] data, int cols, int row, int pivotCol) {
+        int start = row * cols;
+        double pivot = data[start + pivotCol];
         for (int j = 0; j < cols; j++) {
-            data[row][j] /= pivot;
+            data[start + j] /= pivot;
         }
     }
 
     /**
      * Eliminates the pivot column values in all rows except the pivot row.
      */
-    private static void eliminateOtherRows(double[][] data, int pivotRow, int pivotCol) {
-        int rows = data.length;
-        int cols = data[0].length;
+    private static void eliminateOtherRows(double[] data, int rows, int cols, int pivotRow, int pivotCol) {
+        int pivotStart = pivotRow * cols;
         for (int i = 0; i < rows; i++) {
             if (i != pivotRow) {
-                double factor = data[i][pivotCol];
-                for (int j = 0; j < cols; j++) {
-                    data[i][j] -= factor * data[pivotRow][j];
-                }
+                int start = i * cols;
+                double factor = data[start + pivotCol];
+                ArrayKernels.INSTANCE.axpy(-factor, data, pivotStart, data, start, cols);
             }
         }
     }
@@ -0,0 +1,39 @@
+package operations;
+
+/**
+ * Algorithm used for dense matrix products, chosen per call with
+ * {@link MatrixOperations#multiply(model.Matrix, model.Matrix, MultiplicationStrategy)}.
+ * <p>
+ * <b>Accuracy.</b> Write u = 2^-53 for the unit roundoff and
+ * ||X|| = max |x_ij| for the largest entry. For square n x n operands the
+ * classical product satisfies the componentwise bound
+ * |C - C'| &lt;= n u |A| |B|, so ||C - C'|| &lt;= n^2 u ||A|| ||B||.
+ * Strassen-type methods only satisfy a normwise bound. For the Winograd
+ * variant recursing from n down to leaves of size n0 (Higham, <i>Accuracy
+ * and Stability of Numerical Algorithms</i>, 2nd ed., Theorem 23.4):
+ * <pre>
+ *     ||C - C'|| &lt;= [ (n/n0)^log2(18) (n0^2 + 6 n0) - 6n ] u ||A|| ||B|| + O(u^2)
+ * </pre>
+ * Each level of recursion multiplies the leading term by 18 instead of the
+ * 4 of the classical method, and small entries of C can lose all relative
+ * accuracy when A or B have entries of very different magnitudes. For
+ * n = 2048 with the default cutoff of 256 the bound is roughly 90 times the
+ * classical one; on matrices with entries of similar size the observed error
+ * is far below both.
+ *
+ * @author Youssef Amin
+ */
+
+public enum MultiplicationStrategy {
+
+    /** The blocked O(n^3) kernel; the default, and bit-reproducible. */
+    CLASSICAL,
+
+    /**
+     * Strassen-Winograd recursion with seven half-size products per level,
+     * about O(n^2.81). Worth it for dense products whose smallest dimension
+     * is well above the cutoff; sparse and non-heap operands fall back to
+     * {@link #CLASSICAL}.
+     */
+    STRASSEN
+}
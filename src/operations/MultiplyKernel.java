@@ -0,0 +1,183 @@
+package operations;
+
+import model.Matrix;
+
+import java.util.Arrays;
+
+/**
+ * Dense matrix multiplication kernels used by {@link MatrixOperations#multiply}.
+ * <p>
+ * Small products use the textbook i-j-k loop. Larger products are tiled so a
+ * block of B stays in cache while it is reused, and the innermost loop runs
+ * i-k-j so both B and C are walked along contiguous rows as an
+ * {@link ArrayKernels#axpy} update, which is SIMD when the Vector API is
+ * available. Within every output cell the k terms are still summed in
+ * ascending order, so both paths produce identical results.
+ *
+ * @author Youssef Amin
+ */
+
+final class MultiplyKernel {
+
+    /** Default edge length of the square tiles, chosen so three tiles fit in L2. */
+    static final int DEFAULT_BLOCK_SIZE = 64;
+
+    /** Products with fewer multiply-adds than this use the naive loop. */
+    static final long NAIVE_THRESHOLD = 64L * 64 * 64;
+
+    private static volatile int blockSize =
+            Integer.getInteger("matrixmaster.multiply.blockSize", DEFAULT_BLOCK_SIZE);
+
+    private MultiplyKernel() {
+    }
+
+    static int getBlockSize() {
+        return blockSize;
+    }
+
+    static void setBlockSize(int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Block size must be positive.");
+        }
+        blockSize = size;
+    }
+
+    /**
+     * Computes rows [rowFrom, rowTo) of C = A * B, picking the naive or blocked
+     * loop by problem size. Disjoint row ranges may run concurrently.
+     *
+     * @param a       the left operand, row-major rows x inner
+     * @param b       the right operand, row-major inner x cols
+     * @param c       the zeroed row-major output, rows x cols
+     * @param rowFrom first row of A and C to compute
+     * @param rowTo   one past the last row to compute
+     * @param inner   columns of A and rows of B
+     * @param cols    columns of B and C
+     */
+    static void multiply(double[] a, double[] b, double[] c, int rowFrom, int rowTo, int inner, int cols) {
+        long work = (long) (rowTo - rowFrom) * inner * cols;
+        if (work < NAIVE_THRESHOLD) {
+            naive(a, b, c, rowFrom, rowTo, inner, cols);
+        } else {
+            blocked(a, b, c, rowFrom, rowTo, inner, cols, blockSize);
+        }
+    }
+
+    /**
+     * Computes rows [rowFrom, rowTo) of C = A * B for operands that are not
+     * both dense, such as memory-mapped views. A is copied one panel of rows
+     * at a time and each row of B is read once per panel, so neither operand
+     * is brought onto the heap as a whole. Terms are accumulated in ascending
+     * k order, so results match the dense kernels exactly.
+     *
+     * @param a       the left operand
+     * @param b       the right operand
+     * @param c       the zeroed row-major output, a's rows x b's columns
+     * @param rowFrom first row of A and C to compute
+     * @param rowTo   one past the last row to compute
+     */
+    static void streamed(Matrix a, Matrix b, double[] c, int rowFrom, int rowTo) {
+        streamed(a, b, c, 0, rowFrom, rowTo);
+    }
+
+    /**
+     * Like {@link #streamed(Matrix, Matrix, double[], int, int)}, but c holds
+     * only the rows from cFirst on, so a block of output rows can be computed
+     * into a small buffer.
+     */
+    static void streamed(Matrix a, Matrix b, double[] c, int cFirst, int rowFrom, int rowTo) {
+        int inner = a.getNumCol();
+        int cols = b.getNumCol();
+        int panel = Math.min(blockSize, rowTo - rowFrom);
+        ArrayKernels kernels = ArrayKernels.INSTANCE;
+        RowReader readerA = new RowReader(a);
+        RowReader readerB = new RowReader(b);
+        double[] panelA = new double[panel * inner];
+
+        for (int ii = rowFrom; ii < rowTo; ii += panel) {
+            int iEnd = Math.min(ii + panel, rowTo);
+            for (int i = ii; i < iEnd; i++) {
+                System.arraycopy(readerA.row(i), readerA.offset(i), panelA, (i - ii) * inner, inner);
+            }
+            for (int k = 0; k < inner; k++) {
+                double[] rowB = readerB.row(k);
+                int offsetB = readerB.offset(k);
+                for (int i = ii; i < iEnd; i++) {
+                    kernels.axpy(panelA[(i - ii) * inner + k], rowB, offsetB, c, (i - cFirst) * cols, cols);
+                }
+            }
+        }
+    }
+
+    /**
+     * Straightforward i-j-k triple loop.
+     */
+    static void naive(double[] a, double[] b, double[] c, int rowFrom, int rowTo, int inner, int cols) {
+        for (int i = rowFrom; i < rowTo; i++) {
+            int aRow = i * inner;
+            for (int j = 0; j < cols; j++) {
+                double sum = 0.0;
+                for (int k = 0; k < inner; k++) {
+                    sum += a[aRow + k] * b[k * cols + j];
+                }
+                c[i * cols + j] = sum;
+            }
+        }
+    }
+
+    /**
+     * Overwrites an m x n block of C with the product of an m x k block of A
+     * and a k x n block of B, using the tiled loop. Each block starts at its
+     * offset and steps rows by its leading dimension, so the operands can be
+     * quadrants of larger arrays.
+     */
+    static void strided(double[] a, int offA, int lda, double[] b, int offB, int ldb,
+                        double[] c, int offC, int ldc, int m, int k, int n) {
+        ArrayKernels kernels = ArrayKernels.INSTANCE;
+        int block = blockSize;
+        for (int i = 0; i < m; i++) {
+            Arrays.fill(c, offC + i * ldc, offC + i * ldc + n, 0.0);
+        }
+        for (int ii = 0; ii < m; ii += block) {
+            int iEnd = Math.min(ii + block, m);
+            for (int kk = 0; kk < k; kk += block) {
+                int kEnd = Math.min(kk + block, k);
+                for (int jj = 0; jj < n; jj += block) {
+                    int jEnd = Math.min(jj + block, n);
+                    for (int i = ii; i < iEnd; i++) {
+                        int aRow = offA + i * lda;
+                        int cRow = offC + i * ldc;
+                        for (int p = kk; p < kEnd; p++) {
+                            kernels.axpy(a[aRow + p], b, offB + p * ldb + jj, c, cRow + jj, jEnd - jj);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Tiled i-k-j loop. The k tiles are visited in ascending order outside the
+     * j tiles so every output cell accumulates its terms in the same order as
+     * the naive loop.
+     */
+    static void blocked(double[] a, double[] b, double[] c, int rowFrom, int rowTo, int inner, int cols, int block) {
+        ArrayKernels kernels = ArrayKernels.INSTANCE;
+        for (int ii = rowFrom; ii < rowTo; ii += block) {
+            int iEnd = Math.min(ii + block, rowTo);
+            for (int kk = 0; kk < inner; kk += block) {
+                int kEnd = Math.min(kk + block, inner);
+                for (int jj = 0; jj < cols; jj += block) {
+                    int jEnd = Math.min(jj + block, cols);
+                    for (int i = ii; i < iEnd; i++) {
+                        int aRow = i * inner;
+                        int cRow = i * cols;
+                        for (int k = kk; k < kEnd; k++) {
+                            kernels.axpy(a[aRow + k], b, k * cols + jj, c, cRow + jj, jEnd - jj);
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
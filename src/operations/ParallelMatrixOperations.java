@@ -0,0 +1,173 @@
+package operations;
+
+import model.Matrix;
+import model.MutableMatrix;
+import model.OffHeapMatrix;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Multi-threaded versions of the row-parallel operations in {@link MatrixOperations}.
+ * Work is split into blocks of rows and run on a {@link ForkJoinPool}; inputs
+ * whose estimated work is below the threshold run sequentially on the
+ * calling thread.
+ * <p>
+ * Each output row is computed by exactly one task using the same kernel and
+ * summation order as the sequential path, so results are bit-identical to
+ * {@link MatrixOperations} for add, subtract and multiply.
+ *
+ * @author Youssef Amin
+ */
+
+public class ParallelMatrixOperations {
+
+    /** Default minimum number of scalar operations before work is split across threads. */
+    public static final long DEFAULT_THRESHOLD = 1L << 16;
+
+    private final ForkJoinPool pool;
+    private final long threshold;
+
+    /**
+     * Creates an instance that runs on the common pool with the default threshold.
+     */
+    public ParallelMatrixOperations() {
+        this(ForkJoinPool.commonPool(), DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * @param pool      the pool that runs the row blocks
+     * @param threshold the minimum number of scalar operations (elements for add and
+     *                  subtract, multiply-adds for multiply, row updates per pivot for
+     *                  inverse) before work is split across threads
+     * @throws IllegalArgumentException if pool is null or threshold is negative
+     */
+    public ParallelMatrixOperations(ForkJoinPool pool, long threshold) {
+        if (pool == null) {
+            throw new IllegalArgumentException("Pool cannot be null.");
+        }
+        if (threshold < 0) {
+            throw new IllegalArgumentException("Threshold cannot be negative.");
+        }
+        this.pool = pool;
+        this.threshold = threshold;
+    }
+
+    /**
+     * @return the pool the row blocks run on
+     */
+    public ForkJoinPool getPool() {
+        return pool;
+    }
+
+    /**
+     * @return the minimum estimated work before going parallel
+     */
+    public long getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * Adds two matrices element-wise.
+     *
+     * @see MatrixOperations#add(Matrix, Matrix)
+     */
+    public Matrix add(Matrix a, Matrix b) {
+        return MatrixOperations.add(a, b, pool, threshold);
+    }
+
+    /**
+     * Adds two matrices element-wise into a destination without allocating.
+     *
+     * @see MatrixOperations#add(Matrix, Matrix, MutableMatrix)
+     */
+    public MutableMatrix add(Matrix a, Matrix b, MutableMatrix dest) {
+        return MatrixOperations.add(a, b, dest, pool, threshold);
+    }
+
+    /**
+     * Adds two matrices element-wise into off-heap storage. The destination
+     * must not be in a confined arena, as pool threads write to it.
+     *
+     * @see MatrixOperations#add(Matrix, Matrix, OffHeapMatrix)
+     */
+    public OffHeapMatrix add(Matrix a, Matrix b, OffHeapMatrix dest) {
+        return MatrixOperations.add(a, b, dest, pool, threshold);
+    }
+
+    /**
+     * Subtracts matrix b from matrix a element-wise.
+     *
+     * @see MatrixOperations#subtract(Matrix, Matrix)
+     */
+    public Matrix subtract(Matrix a, Matrix b) {
+        return MatrixOperations.subtract(a, b, pool, threshold);
+    }
+
+    /**
+     * Subtracts matrix b from matrix a element-wise into a destination without allocating.
+     *
+     * @see MatrixOperations#subtract(Matrix, Matrix, MutableMatrix)
+     */
+    public MutableMatrix subtract(Matrix a, Matrix b, MutableMatrix dest) {
+        return MatrixOperations.subtract(a, b, dest, pool, threshold);
+    }
+
+    /**
+     * Subtracts matrix b from matrix a element-wise into off-heap storage. The
+     * destination must not be in a confined arena, as pool threads write to it.
+     *
+     * @see MatrixOperations#subtract(Matrix, Matrix, OffHeapMatrix)
+     */
+    public OffHeapMatrix subtract(Matrix a, Matrix b, OffHeapMatrix dest) {
+        return MatrixOperations.subtract(a, b, dest, pool, threshold);
+    }
+
+    /**
+     * Multiplies two matrices, splitting the output rows across the pool.
+     *
+     * @see MatrixOperations#multiply(Matrix, Matrix)
+     */
+    public Matrix multiply(Matrix a, Matrix b) {
+        return MatrixOperations.multiply(a, b, pool, threshold);
+    }
+
+    /**
+     * Multiplies two matrices with the given algorithm. With
+     * {@link MultiplicationStrategy#STRASSEN} the seven sub-products of each
+     * level run as tasks on the pool instead of splitting rows; the result is
+     * the same as the sequential Strassen product.
+     *
+     * @see MatrixOperations#multiply(Matrix, Matrix, MultiplicationStrategy)
+     */
+    public Matrix multiply(Matrix a, Matrix b, MultiplicationStrategy strategy) {
+        return MatrixOperations.multiply(a, b, strategy, pool, threshold);
+    }
+
+    /**
+     * Multiplies two matrices into a destination without allocating.
+     *
+     * @see MatrixOperations#multiply(Matrix, Matrix, MutableMatrix)
+     */
+    public MutableMatrix multiply(Matrix a, Matrix b, MutableMatrix dest) {
+        return MatrixOperations.multiply(a, b, dest, pool, threshold);
+    }
+
+    /**
+     * Multiplies two matrices into off-heap storage. The destination must not
+     * be in a confined arena, as pool threads write to it.
+     *
+     * @see MatrixOperations#multiply(Matrix, Matrix, OffHeapMatrix)
+     */
+    public OffHeapMatrix multiply(Matrix a, Matrix b, OffHeapMatrix dest) {
+        return MatrixOperations.multiply(a, b, dest, pool, threshold);
+    }
+
+    /**
+     * Inverts a square matrix, splitting each pivot's row eliminations across the pool.
+     *
+     * @see MatrixOperations#inverse(Matrix)
+     */
+    public Matrix inverse(Matrix m) {
+        return MatrixOperations.inverse(m, pool, threshold);
+    }
+}
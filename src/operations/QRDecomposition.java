@@ -0,0 +1,493 @@
+package operations;
+
+import model.Matrix;
+import model.MatrixAccess;
+import model.Vector;
+
+/**
+ * Householder QR factorization of an m x n matrix, A P = Q R, where Q has
+ * orthonormal columns, R is upper triangular and P is a column permutation.
+ * <p>
+ * Without pivoting P is the identity and the factorization is blocked: each
+ * panel of {@value #BLOCK} reflectors is gathered into a compact WY block
+ * I - V T V<sup>T</sup> and applied to the trailing columns at once, so the
+ * panel is read from cache instead of memory for every column. With column
+ * pivoting the column of largest remaining norm is moved forward at each
+ * step, which makes the diagonal of R non-increasing in magnitude and
+ * reveals the numerical rank; the norms are downdated as in LAPACK's
+ * {@code xGEQP3} and recomputed when cancellation makes them unreliable.
+ * <p>
+ * The factors are stored column by column in one buffer: R on and above the
+ * diagonal and the Householder vectors, whose leading 1 is implied, below
+ * it. Q is never formed unless {@link #getQ()} is called; {@link #solve}
+ * applies the reflectors to the right-hand side directly.
+ *
+ * @author Youssef Amin
+ */
+
+public class QRDecomposition {
+
+    private static final MatrixAccess ACCESS = MatrixAccess.obtain();
+
+    /**
+     * How columns are ordered during the factorization.
+     */
+    public enum Pivoting {
+        /** Columns in their original order; blocked and fastest. */
+        NONE,
+        /** Largest remaining column first; reveals the numerical rank. */
+        COLUMN
+    }
+
+    /** Reflectors per compact WY block. */
+    static final int BLOCK = 32;
+
+    private static final double EPSILON = Math.ulp(1.0);
+
+    private final int m;
+    private final int n;
+    private final int k;
+    private final double[] qr;
+    private final double[] tau;
+    private final int[] permutation;
+    private final Pivoting pivoting;
+    private final int rank;
+
+    /**
+     * Factors the matrix without pivoting.
+     *
+     * @param a the matrix to factor
+     */
+    public QRDecomposition(Matrix a) {
+        this(a, Pivoting.NONE);
+    }
+
+    /**
+     * Factors the matrix with the given pivoting strategy. The input matrix is not modified.
+     *
+     * @param a        the matrix to factor
+     * @param pivoting the pivoting strategy
+     */
+    public QRDecomposition(Matrix a, Pivoting pivoting) {
+        this.m = a.getNumRow();
+        this.n = a.getNumCol();
+        this.k = Math.min(m, n);
+        this.pivoting = pivoting;
+        this.qr = columnMajor(a);
+        this.tau = new double[k];
+        this.permutation = new int[n];
+        for (int j = 0; j < n; j++) {
+            permutation[j] = j;
+        }
+
+        if (pivoting == Pivoting.COLUMN) {
+            factorPivoted();
+        } else {
+            factorBlocked();
+        }
+        this.rank = countRank();
+    }
+
+    private static double[] columnMajor(Matrix a) {
+        int rows = a.getNumRow();
+        int cols = a.getNumCol();
+        double[] src = ACCESS.raw(a);
+        double[] dest = new double[rows * cols];
+        for (int i = 0; i < rows; i++) {
+            int row = i * cols;
+            for (int j = 0; j < cols; j++) {
+                dest[j * rows + i] = src[row + j];
+            }
+        }
+        return dest;
+    }
+
+    /**
+     * Panels of {@link #BLOCK} columns are factored one reflector at a time,
+     * then applied to the rest of the matrix as one block reflector.
+     */
+    private void factorBlocked() {
+        double[] t = new double[BLOCK * BLOCK];
+        double[] w = new double[BLOCK];
+        CancellationToken cancel = CancellationToken.current();
+        for (int j0 = 0; j0 < k; j0 += BLOCK) {
+            cancel.throwIfCancelled();
+            int jb = Math.min(BLOCK, k - j0);
+            for (int j = j0; j < j0 + jb; j++) {
+                tau[j] = reflector(qr, j * m + j, m - j);
+                for (int c = j + 1; c < j0 + jb; c++) {
+                    apply(qr, j * m + j, tau[j], qr, c * m + j, m - j);
+                }
+            }
+            if (j0 + jb < n) {
+                formT(j0, jb, t);
+                for (int c = j0 + jb; c < n; c++) {
+                    applyBlock(j0, jb, t, w, c * m);
+                }
+            }
+        }
+    }
+
+    /**
+     * Forms the upper triangular T of the compact WY representation
+     * H(j0) ... H(j0 + jb - 1) = I - V T V<sup>T</sup>, as LAPACK's {@code xLARFT}.
+     */
+    private void formT(int j0, int jb, double[] t) {
+        for (int i = 0; i < jb; i++) {
+            int vi = (j0 + i) * m;
+            int top = j0 + i;
+            // t[0:i, i] = -tau_i * T[0:i, 0:i] * V[:, 0:i]^T v_i
+            for (int l = 0; l < i; l++) {
+                int vl = (j0 + l) * m;
+                double s = qr[vl + top] + dot(qr, vl + top + 1, qr, vi + top + 1, m - top - 1);
+                t[l * BLOCK + i] = -tau[j0 + i] * s;
+            }
+            for (int l = 0; l < i; l++) {
+                double s = 0.0;
+                for (int p = l; p < i; p++) {
+                    s += t[l * BLOCK + p] * t[p * BLOCK + i];
+                }
+                t[l * BLOCK + i] = s;
+            }
+            t[i * BLOCK + i] = tau[j0 + i];
+        }
+    }
+
+    /**
+     * Applies (I - V T V<sup>T</sup>)<sup>T</sup> to the column starting at offset c.
+     */
+    private void applyBlock(int j0, int jb, double[] t, double[] w, int c) {
+        for (int l = 0; l < jb; l++) {
+            int vl = (j0 + l) * m;
+            int top = j0 + l;
+            w[l] = qr[c + top] + dot(qr, vl + top + 1, qr, c + top + 1, m - top - 1);
+        }
+        // w = T^T w, working from the bottom so each entry is read before it is overwritten
+        for (int l = jb - 1; l >= 0; l--) {
+            double s = 0.0;
+            for (int p = 0; p <= l; p++) {
+                s += t[p * BLOCK + l] * w[p];
+            }
+            w[l] = s;
+        }
+        for (int l = 0; l < jb; l++) {
+            int vl = (j0 + l) * m;
+            int top = j0 + l;
+            double s = w[l];
+            if (s == 0.0) continue;
+            qr[c + top] -= s;
+            ArrayKernels.INSTANCE.axpy(-s, qr, vl + top + 1, qr, c + top + 1, m - top - 1);
+        }
+    }
+
+    /**
+     * Column pivoting with norm downdating, one reflector at a time.
+     */
+    private void factorPivoted() {
+        double[] norms = new double[n];
+        double[] reference = new double[n];
+        for (int j = 0; j < n; j++) {
+            norms[j] = norm(qr, j * m, m);
+            reference[j] = norms[j];
+        }
+        double limit = Math.sqrt(EPSILON);
+        CancellationToken cancel = CancellationToken.current();
+
+        for (int j = 0; j < k; j++) {
+            cancel.throwIfCancelled();
+            int p = j;
+            for (int c = j + 1; c < n; c++) {
+                if (norms[c] > norms[p]) p = c;
+            }
+            if (p != j) {
+                swapColumns(j, p);
+                double t = norms[p];
+                norms[p] = norms[j];
+                norms[j] = t;
+                t = reference[p];
+                reference[p] = reference[j];
+                reference[j] = t;
+                int i = permutation[p];
+                permutation[p] = permutation[j];
+                permutation[j] = i;
+            }
+
+            tau[j] = reflector(qr, j * m + j, m - j);
+            for (int c = j + 1; c < n; c++) {
+                apply(qr, j * m + j, tau[j], qr, c * m + j, m - j);
+                if (norms[c] == 0.0) continue;
+
+                double ratio = Math.abs(qr[c * m + j]) / norms[c];
+                double remaining = Math.max(0.0, 1.0 - ratio * ratio);
+                double drift = remaining * (norms[c] / reference[c]) * (norms[c] / reference[c]);
+                if (drift <= limit) {
+                    norms[c] = norm(qr, c * m + j + 1, m - j - 1);
+                    reference[c] = norms[c];
+                } else {
+                    norms[c] *= Math.sqrt(remaining);
+                }
+            }
+        }
+    }
+
+    private void swapColumns(int c1, int c2) {
+        int a = c1 * m;
+        int b = c2 * m;
+        for (int i = 0; i < m; i++) {
+            double t = qr[a + i];
+            qr[a + i] = qr[b + i];
+            qr[b + i] = t;
+        }
+    }
+
+    /**
+     * Turns x = a[off .. off + len) into a Householder vector in place, as
+     * LAPACK's {@code xLARFG}: afterwards a[off] holds beta and the rest
+     * holds v below its implied leading 1, so that
+     * (I - tau v v<sup>T</sup>) x = beta e<sub>1</sub>.
+     *
+     * @return tau, or 0 if x is already a multiple of e<sub>1</sub>
+     */
+    static double reflector(double[] a, int off, int len) {
+        double tail = norm(a, off + 1, len - 1);
+        if (tail == 0.0) return 0.0;
+
+        double alpha = a[off];
+        double beta = -Math.copySign(Math.hypot(alpha, tail), alpha);
+        double scale = 1.0 / (alpha - beta);
+        for (int i = off + 1; i < off + len; i++) {
+            a[i] *= scale;
+        }
+        a[off] = beta;
+        return (beta - alpha) / beta;
+    }
+
+    /**
+     * Applies I - tau v v<sup>T</sup>, with v's leading 1 implied at vOff, to c[cOff .. cOff + len).
+     */
+    static void apply(double[] v, int vOff, double tau, double[] c, int cOff, int len) {
+        if (tau == 0.0) return;
+        double s = tau * (c[cOff] + dot(v, vOff + 1, c, cOff + 1, len - 1));
+        if (s == 0.0) return;
+        c[cOff] -= s;
+        ArrayKernels.INSTANCE.axpy(-s, v, vOff + 1, c, cOff + 1, len - 1);
+    }
+
+    /**
+     * @return the Euclidean norm of a[off .. off + len), without overflow or underflow
+     */
+    static double norm(double[] a, int off, int len) {
+        double sum = dot(a, off, a, off, len);
+        if (sum > Double.MIN_NORMAL && sum < Double.POSITIVE_INFINITY) {
+            return Math.sqrt(sum);
+        }
+
+        double max = 0.0;
+        for (int i = off; i < off + len; i++) {
+            max = Math.max(max, Math.abs(a[i]));
+        }
+        if (max == 0.0 || Double.isInfinite(max)) return max;
+        sum = 0.0;
+        for (int i = off; i < off + len; i++) {
+            double x = a[i] / max;
+            sum += x * x;
+        }
+        return max * Math.sqrt(sum);
+    }
+
+    /**
+     * @return the dot product of x[xOff .. xOff + len) and y[yOff .. yOff + len)
+     */
+    static double dot(double[] x, int xOff, double[] y, int yOff, int len) {
+        // Four independent sums, so the loop is not bound by the latency of one add chain
+        double s0 = 0.0, s1 = 0.0, s2 = 0.0, s3 = 0.0;
+        int i = 0;
+        for (; i + 3 < len; i += 4) {
+            s0 += x[xOff + i] * y[yOff + i];
+            s1 += x[xOff + i + 1] * y[yOff + i + 1];
+            s2 += x[xOff + i + 2] * y[yOff + i + 2];
+            s3 += x[xOff + i + 3] * y[yOff + i + 3];
+        }
+        for (; i < len; i++) {
+            s0 += x[xOff + i] * y[yOff + i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    private int countRank() {
+        double max = 0.0;
+        for (int j = 0; j < k; j++) {
+            max = Math.max(max, Math.abs(qr[j * m + j]));
+        }
+        double tolerance = Math.max(m, n) * EPSILON * max;
+        int r = 0;
+        for (int j = 0; j < k; j++) {
+            if (Math.abs(qr[j * m + j]) > tolerance) r++;
+            else if (pivoting == Pivoting.COLUMN) break;
+        }
+        return r;
+    }
+
+    /**
+     * @return the number of rows of the factored matrix
+     */
+    public int getNumRow() {
+        return m;
+    }
+
+    /**
+     * @return the number of columns of the factored matrix
+     */
+    public int getNumCol() {
+        return n;
+    }
+
+    /**
+     * @return the pivoting strategy used
+     */
+    public Pivoting getPivoting() {
+        return pivoting;
+    }
+
+    /**
+     * Returns the numerical rank: the number of diagonal entries of R larger
+     * than max(m, n) * eps * |R<sub>00</sub>|. Only column pivoting makes
+     * this reliable; without it a rank-deficient matrix can still show a
+     * full diagonal.
+     *
+     * @return the numerical rank of the factored matrix
+     */
+    public int getRank() {
+        return rank;
+    }
+
+    /**
+     * The permutation maps columns of A P back to columns of A: column j of
+     * A P is column {@code permutation[j]} of A.
+     *
+     * @return a copy of the permutation
+     */
+    public int[] getPermutation() {
+        return permutation.clone();
+    }
+
+    /**
+     * @return the min(m, n) x n upper triangular factor R
+     */
+    public Matrix getR() {
+        double[] r = new double[k * n];
+        for (int i = 0; i < k; i++) {
+            for (int j = i; j < n; j++) {
+                r[i * n + j] = qr[j * m + i];
+            }
+        }
+        return ACCESS.wrap(k, n, r);
+    }
+
+    /**
+     * Forms the m x min(m, n) factor Q with orthonormal columns, by applying
+     * the reflectors to the leading columns of the identity in O(mn<sup>2</sup>).
+     *
+     * @return the orthonormal factor Q
+     */
+    public Matrix getQ() {
+        double[] q = new double[k * m]; // column-major m x k
+        for (int j = 0; j < k; j++) {
+            q[j * m + j] = 1.0;
+        }
+        for (int j = k - 1; j >= 0; j--) {
+            for (int c = j; c < k; c++) {
+                apply(qr, j * m + j, tau[j], q, c * m + j, m - j);
+            }
+        }
+
+        double[] rowMajor = new double[m * k];
+        for (int j = 0; j < k; j++) {
+            for (int i = 0; i < m; i++) {
+                rowMajor[i * k + j] = q[j * m + i];
+            }
+        }
+        return ACCESS.wrap(m, k, rowMajor);
+    }
+
+    /**
+     * Solves min ||A X - B|| in the least-squares sense, every column of B
+     * being a separate right-hand side. With column pivoting a
+     * rank-deficient A gets the basic solution, which is zero in the columns
+     * left out of the leading {@link #getRank()} pivots; for the
+     * minimum-norm solution use {@link SingularValueDecomposition#solve(Matrix)}.
+     *
+     * @param b the right-hand sides, with m rows
+     * @return the n x b.cols solution X
+     * @throws IllegalArgumentException if B has the wrong number of rows, or
+     *                                  A is rank deficient and was factored without pivoting
+     */
+    public Matrix solve(Matrix b) {
+        if (b.getNumRow() != m) {
+            throw new IllegalArgumentException("Right-hand side must have the same number of rows as the matrix.");
+        }
+        checkRank();
+
+        int cols = b.getNumCol();
+        double[] rhs = ACCESS.raw(b);
+        double[] x = new double[n * cols];
+        double[] y = new double[m];
+        for (int c = 0; c < cols; c++) {
+            for (int i = 0; i < m; i++) {
+                y[i] = rhs[i * cols + c];
+            }
+            solveColumn(y);
+            for (int j = 0; j < rank; j++) {
+                x[permutation[j] * cols + c] = y[j];
+            }
+        }
+        return ACCESS.wrap(n, cols, x);
+    }
+
+    /**
+     * Solves min ||A x - b|| for a single right-hand side.
+     *
+     * @param b the right-hand side, of length m
+     * @return the solution x, of length n
+     * @throws IllegalArgumentException if b has the wrong length, or
+     *                                  A is rank deficient and was factored without pivoting
+     * @see #solve(Matrix)
+     */
+    public Vector solve(Vector b) {
+        if (b.getSize() != m) {
+            throw new IllegalArgumentException("Right-hand side must have the same length as the number of rows.");
+        }
+        checkRank();
+
+        double[] y = b.getData().clone();
+        solveColumn(y);
+        double[] x = new double[n];
+        for (int j = 0; j < rank; j++) {
+            x[permutation[j]] = y[j];
+        }
+        return new Vector(x);
+    }
+
+    private void checkRank() {
+        if (pivoting == Pivoting.NONE && rank < k) {
+            throw new IllegalArgumentException("Matrix is rank deficient; factor it with column pivoting.");
+        }
+    }
+
+    /**
+     * Overwrites y with Q<sup>T</sup> y, then its leading rank entries with
+     * the solution of the leading triangular system of R.
+     */
+    private void solveColumn(double[] y) {
+        for (int j = 0; j < k; j++) {
+            apply(qr, j * m + j, tau[j], y, j, m - j);
+        }
+        for (int i = rank - 1; i >= 0; i--) {
+            double s = y[i];
+            for (int j = i + 1; j < rank; j++) {
+                s -= qr[j * m + i] * y[j];
+            }
+            y[i] = s / qr[i * m + i];
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package operations;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Runs a loop body over contiguous blocks of rows, either inline on the
+ * calling thread or split recursively across a {@link ForkJoinPool}.
+ * <p>
+ * Every kernel in this package writes each output row from exactly one
+ * block, so the result does not depend on how the rows were split.
+ *
+ * @author Youssef Amin
+ */
+
+final class RowBlocks {
+
+    /**
+     * Loop body over the half-open row range [from, to).
+     */
+    interface Body {
+        void apply(int from, int to);
+    }
+
+    private RowBlocks() {
+    }
+
+    /**
+     * Runs body over all rows. The work is split across the pool only when a
+     * pool is given and the estimated work reaches the threshold.
+     *
+     * @param pool      the pool to run on, or null to always stay on the calling thread
+     * @param threshold the minimum estimated work for going parallel
+     * @param rows      the number of rows to cover
+     * @param work      an estimate of the scalar operations the whole loop performs
+     * @param body      the loop body
+     */
+    static void run(ForkJoinPool pool, long threshold, int rows, long work, Body body) {
+        if (!isParallel(pool, threshold, rows, work)) {
+            body.apply(0, rows);
+            return;
+        }
+
+        int grain = Math.max(1, rows / (pool.getParallelism() * 4));
+        pool.invoke(new RowTask(body, 0, rows, grain));
+    }
+
+    /**
+     * Tells whether {@link #run} would split the work. Allocation-free callers
+     * check this first so the sequential path does not create a loop body.
+     *
+     * @return true if the work would be split across the pool
+     */
+    static boolean isParallel(ForkJoinPool pool, long threshold, int rows, long work) {
+        return pool != null && rows >= 2 && work >= threshold && pool.getParallelism() >= 2;
+    }
+
+    /**
+     * Splits the row range in half until it is no larger than the grain.
+     */
+    private static final class RowTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final transient Body body;
+        private final int from;
+        private final int to;
+        private final int grain;
+
+        RowTask(Body body, int from, int to, int grain) {
+            this.body = body;
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= grain) {
+                body.apply(from, to);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new RowTask(body, from, mid, grain), new RowTask(body, mid, to, grain));
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package operations;
+
+import model.Matrix;
+import model.MatrixAccess;
+
+/**
+ * Reads the rows of a matrix whatever its storage. Dense matrices hand out
+ * their backing array directly; any other storage, such as a memory-mapped
+ * {@code SegmentMatrix}, is copied one row at a time into a reused buffer,
+ * so the whole matrix is never brought onto the heap.
+ * <p>
+ * Typical use: {@code double[] row = reader.row(i); int off = reader.offset(i);}
+ * and then read {@code cols} entries of {@code row} starting at {@code off}.
+ * The returned array is only valid until the next call. Readers are cheap
+ * and not thread-safe, so each row block creates its own.
+ *
+ * @author Youssef Amin
+ */
+
+final class RowReader {
+
+    private static final MatrixAccess ACCESS = MatrixAccess.obtain();
+
+    private final Matrix m;
+    private final int cols;
+    private final double[] data;
+    private final double[] buffer;
+
+    RowReader(Matrix m) {
+        this.m = m;
+        this.cols = m.getNumCol();
+        if (ACCESS.isDense(m)) {
+            this.data = ACCESS.raw(m);
+            this.buffer = null;
+        } else {
+            this.data = null;
+            this.buffer = new double[cols];
+        }
+    }
+
+    /**
+     * @param i the row index
+     * @return an array holding row i starting at {@link #offset(int)}
+     */
+    double[] row(int i) {
+        if (data != null) return data;
+        m.copyRow(i, buffer, 0);
+        return buffer;
+    }
+
+    /**
+     * @param i the row index
+     * @return the position of row i's first entry in the array from {@link #row(int)}
+     */
+    int offset(int i) {
+        return data != null ? i * cols : 0;
+    }
+}
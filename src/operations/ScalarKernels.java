@@ -0,0 +1,64 @@
+package operations;
+
+/**
+ * Plain loop implementation of {@link ArrayKernels}, used when the Vector API
+ * is not available. C2 may still auto-vectorize these loops.
+ *
+ * @author Youssef Amin
+ */
+
+final class ScalarKernels implements ArrayKernels {
+
+    @Override
+    public void add(double[] a, int aOff, double[] b, int bOff, double[] r, int rOff, int len) {
+        for (int i = 0; i < len; i++) {
+            r[rOff + i] = a[aOff + i] + b[bOff + i];
+        }
+    }
+
+    @Override
+    public void subtract(double[] a, int aOff, double[] b, int bOff, double[] r, int rOff, int len) {
+        for (int i = 0; i < len; i++) {
+            r[rOff + i] = a[aOff + i] - b[bOff + i];
+        }
+    }
+
+    @Override
+    public void scale(double alpha, double[] x, int off, int len) {
+        for (int i = 0; i < len; i++) {
+            x[off + i] *= alpha;
+        }
+    }
+
+    @Override
+    public void axpy(double alpha, double[] x, int xOff, double[] y, int yOff, int len) {
+        for (int i = 0; i < len; i++) {
+            y[yOff + i] += alpha * x[xOff + i];
+        }
+    }
+
+    @Override
+    public void reflect(double c0, double c1, double c2, double d0, double d1, double d2,
+                        double[] a, double[] b, double[] c, int off, int len) {
+        int end = off + len;
+        if (c == null) {
+            for (int i = off; i < end; i++) {
+                double p = c0 * a[i] + c1 * b[i];
+                a[i] -= p * d0;
+                b[i] -= p * d1;
+            }
+            return;
+        }
+        for (int i = off; i < end; i++) {
+            double p = c0 * a[i] + c1 * b[i] + c2 * c[i];
+            a[i] -= p * d0;
+            b[i] -= p * d1;
+            c[i] -= p * d2;
+        }
+    }
+
+    @Override
+    public String name() {
+        return "scalar";
+    }
+}
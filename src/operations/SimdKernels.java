@@ -0,0 +1,120 @@
+package operations;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link ArrayKernels} on the incubating Vector API, using the widest species
+ * the CPU supports (4 doubles on AVX2, 8 on AVX-512). Each loop runs full
+ * vectors up to the species bound and finishes the tail with scalar code.
+ * <p>
+ * Only instantiated reflectively by {@link ArrayKernels} after checking that
+ * {@code jdk.incubator.vector} is in the boot layer.
+ *
+ * @author Youssef Amin
+ */
+
+final class SimdKernels implements ArrayKernels {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    @Override
+    public void add(double[] a, int aOff, double[] b, int bOff, double[] r, int rOff, int len) {
+        int i = 0;
+        int bound = SPECIES.loopBound(len);
+        for (; i < bound; i += SPECIES.length()) {
+            DoubleVector va = DoubleVector.fromArray(SPECIES, a, aOff + i);
+            DoubleVector vb = DoubleVector.fromArray(SPECIES, b, bOff + i);
+            va.add(vb).intoArray(r, rOff + i);
+        }
+        for (; i < len; i++) {
+            r[rOff + i] = a[aOff + i] + b[bOff + i];
+        }
+    }
+
+    @Override
+    public void subtract(double[] a, int aOff, double[] b, int bOff, double[] r, int rOff, int len) {
+        int i = 0;
+        int bound = SPECIES.loopBound(len);
+        for (; i < bound; i += SPECIES.length()) {
+            DoubleVector va = DoubleVector.fromArray(SPECIES, a, aOff + i);
+            DoubleVector vb = DoubleVector.fromArray(SPECIES, b, bOff + i);
+            va.sub(vb).intoArray(r, rOff + i);
+        }
+        for (; i < len; i++) {
+            r[rOff + i] = a[aOff + i] - b[bOff + i];
+        }
+    }
+
+    @Override
+    public void scale(double alpha, double[] x, int off, int len) {
+        int i = 0;
+        int bound = SPECIES.loopBound(len);
+        for (; i < bound; i += SPECIES.length()) {
+            DoubleVector.fromArray(SPECIES, x, off + i).mul(alpha).intoArray(x, off + i);
+        }
+        for (; i < len; i++) {
+            x[off + i] *= alpha;
+        }
+    }
+
+    @Override
+    public void axpy(double alpha, double[] x, int xOff, double[] y, int yOff, int len) {
+        int i = 0;
+        int bound = SPECIES.loopBound(len);
+        DoubleVector va = DoubleVector.broadcast(SPECIES, alpha);
+        for (; i < bound; i += SPECIES.length()) {
+            DoubleVector vx = DoubleVector.fromArray(SPECIES, x, xOff + i);
+            DoubleVector vy = DoubleVector.fromArray(SPECIES, y, yOff + i);
+            // mul then add rather than fma, to round exactly like the scalar loop.
+            vy.add(vx.mul(va)).intoArray(y, yOff + i);
+        }
+        for (; i < len; i++) {
+            y[yOff + i] += alpha * x[xOff + i];
+        }
+    }
+
+    @Override
+    public void reflect(double c0, double c1, double c2, double d0, double d1, double d2,
+                        double[] a, double[] b, double[] c, int off, int len) {
+        int i = 0;
+        int bound = SPECIES.loopBound(len);
+        if (c == null) {
+            for (; i < bound; i += SPECIES.length()) {
+                DoubleVector va = DoubleVector.fromArray(SPECIES, a, off + i);
+                DoubleVector vb = DoubleVector.fromArray(SPECIES, b, off + i);
+                DoubleVector p = va.mul(c0).add(vb.mul(c1));
+                va.sub(p.mul(d0)).intoArray(a, off + i);
+                vb.sub(p.mul(d1)).intoArray(b, off + i);
+            }
+            for (; i < len; i++) {
+                int k = off + i;
+                double p = c0 * a[k] + c1 * b[k];
+                a[k] -= p * d0;
+                b[k] -= p * d1;
+            }
+            return;
+        }
+        for (; i < bound; i += SPECIES.length()) {
+            DoubleVector va = DoubleVector.fromArray(SPECIES, a, off + i);
+            DoubleVector vb = DoubleVector.fromArray(SPECIES, b, off + i);
+            DoubleVector vc = DoubleVector.fromArray(SPECIES, c, off + i);
+            DoubleVector p = va.mul(c0).add(vb.mul(c1)).add(vc.mul(c2));
+            va.sub(p.mul(d0)).intoArray(a, off + i);
+            vb.sub(p.mul(d1)).intoArray(b, off + i);
+            vc.sub(p.mul(d2)).intoArray(c, off + i);
+        }
+        for (; i < len; i++) {
+            int k = off + i;
+            double p = c0 * a[k] + c1 * b[k] + c2 * c[k];
+            a[k] -= p * d0;
+            b[k] -= p * d1;
+            c[k] -= p * d2;
+        }
+    }
+
+    @Override
+    public String name() {
+        return "simd-" + SPECIES.vectorBitSize();
+    }
+}
@@ -0,0 +1,498 @@
+package operations;
+
+import model.Matrix;
+import model.MatrixAccess;
+import model.Vector;
+
+import java.util.Arrays;
+
+/**
+ * Thin singular value decomposition A = U &Sigma; V<sup>T</sup> of an m x n
+ * matrix, by one-sided Jacobi rotations.
+ * <p>
+ * The matrix is first reduced with a column-pivoted {@link QRDecomposition},
+ * A P = Q R, and the Jacobi sweeps then run on the small square R: pairs of
+ * its columns are rotated until every pair is orthogonal to working
+ * precision, and the column norms are the singular values. The pivoted QR
+ * both shrinks the problem for tall matrices and orders the columns so that
+ * few sweeps are needed. Jacobi computes small singular values to high
+ * relative accuracy, which is what makes {@link #getRank()} trustworthy. A
+ * wide matrix is handled through its transpose.
+ * <p>
+ * With k = min(m, n), U is m x k and V is n x k, both with orthonormal
+ * columns except that a column of U belonging to a zero singular value is
+ * zero. Singular values are returned in non-increasing order.
+ *
+ * @author Youssef Amin
+ */
+
+public class SingularValueDecomposition {
+
+    private static final MatrixAccess ACCESS = MatrixAccess.obtain();
+
+    private static final double EPSILON = Math.ulp(1.0);
+    private static final int MAX_SWEEPS = 60;
+
+    private final int m;
+    private final int n;
+    private final double[] singularValues;
+    private final Matrix u;
+    private final Matrix v;
+
+    /**
+     * Computes the singular values and vectors. The input matrix is not modified.
+     *
+     * @param a the matrix to decompose
+     * @throws IllegalStateException if the Jacobi sweeps do not converge
+     */
+    public SingularValueDecomposition(Matrix a) {
+        this(a, true);
+    }
+
+    private SingularValueDecomposition(Matrix a, boolean vectors) {
+        this.m = a.getNumRow();
+        this.n = a.getNumCol();
+
+        boolean wide = m < n;
+        Matrix tall = wide ? MatrixOperations.transpose(a) : a;
+        int k = tall.getNumCol();
+
+        QRDecomposition qr = new QRDecomposition(tall, QRDecomposition.Pivoting.COLUMN);
+        double[] w = columnMajorR(qr, k);
+        double[] rotations = vectors ? identity(k) : null;
+        jacobi(w, rotations, k);
+
+        // Singular values are the column norms; sort them, largest first
+        double[] sigma = new double[k];
+        Integer[] order = new Integer[k];
+        for (int j = 0; j < k; j++) {
+            sigma[j] = QRDecomposition.norm(w, j * k, k);
+            order[j] = j;
+        }
+        Arrays.sort(order, (x, y) -> Double.compare(sigma[y], sigma[x]));
+        this.singularValues = new double[k];
+        for (int j = 0; j < k; j++) {
+            singularValues[j] = sigma[order[j]];
+        }
+
+        if (!vectors) {
+            this.u = null;
+            this.v = null;
+            return;
+        }
+
+        // R J = W = U_r S, so A P = (Q U_r) S J^T and A = (Q U_r) S (P J)^T
+        double[] ur = new double[k * k];
+        double[] vt = new double[k * k];
+        int[] permutation = qr.getPermutation();
+        for (int jj = 0; jj < k; jj++) {
+            int j = order[jj];
+            double s = sigma[j];
+            for (int i = 0; i < k; i++) {
+                ur[i * k + jj] = s == 0.0 ? 0.0 : w[j * k + i] / s;
+                vt[permutation[i] * k + jj] = rotations[j * k + i];
+            }
+        }
+        Matrix left = MatrixOperations.multiply(qr.getQ(), ACCESS.wrap(k, k, ur));
+        Matrix right = ACCESS.wrap(k, k, vt);
+        this.u = wide ? right : left;
+        this.v = wide ? left : right;
+    }
+
+    /**
+     * Computes only the singular values, about ten times faster than the
+     * full decomposition. After the same pivoted QR, R is reduced to
+     * bidiagonal form with Householder reflections and the bidiagonal is
+     * diagonalized with implicitly shifted QR steps (Golub-Kahan), which is
+     * accurate to max(m, n) * eps * &sigma;<sub>max</sub>, enough to
+     * decide the rank.
+     *
+     * @param a the matrix
+     * @return the min(m, n) singular values, largest first
+     * @throws IllegalStateException if the iteration does not converge
+     */
+    public static double[] singularValues(Matrix a) {
+        Matrix tall = a.getNumRow() < a.getNumCol() ? MatrixOperations.transpose(a) : a;
+        int k = tall.getNumCol();
+        QRDecomposition qr = new QRDecomposition(tall, QRDecomposition.Pivoting.COLUMN);
+        double[] w = columnMajorR(qr, k);
+        double[] d = new double[k];
+        double[] e = new double[k];
+        bidiagonalize(w, k, d, e);
+        diagonalize(d, e, k);
+        return d;
+    }
+
+    /**
+     * Reduces the k x k column-major w to upper bidiagonal form, with
+     * reflections alternately from the left (on columns) and from the right
+     * (on rows), and stores the diagonal in d and the superdiagonal in e.
+     * The right reflections are applied column by column, so every inner
+     * loop runs over contiguous memory.
+     */
+    private static void bidiagonalize(double[] w, int k, double[] d, double[] e) {
+        double[] v = new double[k];
+        double[] y = new double[k];
+        CancellationToken cancel = CancellationToken.current();
+        for (int j = 0; j < k; j++) {
+            cancel.throwIfCancelled();
+            double tau = QRDecomposition.reflector(w, j * k + j, k - j);
+            d[j] = w[j * k + j];
+            for (int c = j + 1; c < k; c++) {
+                QRDecomposition.apply(w, j * k + j, tau, w, c * k + j, k - j);
+            }
+            if (j >= k - 1) continue;
+
+            // Row j right of the diagonal, reduced to its first entry
+            int len = k - j - 1;
+            for (int c = 0; c < len; c++) {
+                v[c] = w[(j + 1 + c) * k + j];
+            }
+            tau = QRDecomposition.reflector(v, 0, len);
+            e[j] = v[0];
+            if (tau == 0.0) continue;
+
+            // Rows below j: W := W - tau (W v) v^T, with v[0] = 1
+            v[0] = 1.0;
+            int rows = k - j - 1;
+            Arrays.fill(y, 0, rows, 0.0);
+            for (int c = 0; c < len; c++) {
+                ArrayKernels.INSTANCE.axpy(v[c], w, (j + 1 + c) * k + j + 1, y, 0, rows);
+            }
+            for (int c = 0; c < len; c++) {
+                ArrayKernels.INSTANCE.axpy(-tau * v[c], y, 0, w, (j + 1 + c) * k + j + 1, rows);
+            }
+        }
+    }
+
+    /**
+     * Drives the superdiagonal e of an upper bidiagonal matrix to zero with
+     * Golub-Kahan QR steps, splitting off converged values as they appear,
+     * and leaves the singular values in d, largest first.
+     */
+    private static void diagonalize(double[] d, double[] e, int k) {
+        double tiny = Math.scalb(1.0, -966);
+        int p = k;
+        int iterations = 0;
+        while (p > 0) {
+            if (iterations > MAX_SWEEPS * k) {
+                throw new IllegalStateException("Singular value iteration did not converge.");
+            }
+
+            // Find the largest l such that e[l - 1] is negligible, so d[l .. p) is unreduced
+            int l;
+            for (l = p - 1; l > 0; l--) {
+                if (Math.abs(e[l - 1]) <= tiny + EPSILON * (Math.abs(d[l - 1]) + Math.abs(d[l]))) {
+                    e[l - 1] = 0.0;
+                    break;
+                }
+            }
+            if (l == p - 1) {
+                // d[p - 1] has converged
+                d[p - 1] = Math.abs(d[p - 1]);
+                p--;
+                iterations = 0;
+                continue;
+            }
+
+            // A negligible diagonal entry lets its row or column be rotated away
+            int zero = -1;
+            for (int j = p - 1; j >= l; j--) {
+                double around = (j < p - 1 ? Math.abs(e[j]) : 0.0) + (j > l ? Math.abs(e[j - 1]) : 0.0);
+                if (Math.abs(d[j]) <= tiny + EPSILON * around) {
+                    d[j] = 0.0;
+                    zero = j;
+                    break;
+                }
+            }
+            if (zero == p - 1) {
+                chaseColumn(d, e, l, p);
+            } else if (zero >= 0) {
+                chaseRow(d, e, zero, p);
+            } else {
+                shiftedStep(d, e, l, p);
+                iterations++;
+            }
+        }
+        Arrays.sort(d);
+        for (int i = 0, j = k - 1; i < j; i++, j--) {
+            double t = d[i];
+            d[i] = d[j];
+            d[j] = t;
+        }
+    }
+
+    /**
+     * d[p - 1] is zero: rotate e[p - 2] up the last column until it vanishes.
+     */
+    private static void chaseColumn(double[] d, double[] e, int l, int p) {
+        double f = e[p - 2];
+        e[p - 2] = 0.0;
+        for (int j = p - 2; j >= l; j--) {
+            double t = Math.hypot(d[j], f);
+            double cs = d[j] / t;
+            double sn = f / t;
+            d[j] = t;
+            if (j > l) {
+                f = -sn * e[j - 1];
+                e[j - 1] = cs * e[j - 1];
+            }
+        }
+    }
+
+    /**
+     * d[z] is zero: rotate e[z] along row z until it vanishes, splitting the matrix.
+     */
+    private static void chaseRow(double[] d, double[] e, int z, int p) {
+        double f = e[z];
+        e[z] = 0.0;
+        for (int j = z + 1; j < p; j++) {
+            double t = Math.hypot(d[j], f);
+            double cs = d[j] / t;
+            double sn = f / t;
+            d[j] = t;
+            if (j < p - 1) {
+                f = -sn * e[j];
+                e[j] = cs * e[j];
+            }
+        }
+    }
+
+    /**
+     * One implicit QR step on d[l .. p), shifted by the eigenvalue of the
+     * trailing 2 x 2 of B<sup>T</sup>B closer to its last entry.
+     */
+    private static void shiftedStep(double[] d, double[] e, int l, int p) {
+        double scale = Math.max(Math.max(Math.max(Math.abs(d[p - 1]), Math.abs(d[p - 2])),
+                Math.max(Math.abs(e[p - 2]), Math.abs(d[l]))), Math.abs(e[l]));
+        double sp = d[p - 1] / scale;
+        double spm1 = d[p - 2] / scale;
+        double epm1 = e[p - 2] / scale;
+        double sl = d[l] / scale;
+        double el = e[l] / scale;
+        double b = ((spm1 + sp) * (spm1 - sp) + epm1 * epm1) / 2.0;
+        double c = (sp * epm1) * (sp * epm1);
+        double shift = 0.0;
+        if (b != 0.0 || c != 0.0) {
+            shift = Math.copySign(Math.sqrt(b * b + c), b);
+            shift = c / (b + shift);
+        }
+
+        double f = (sl + sp) * (sl - sp) + shift;
+        double g = sl * el;
+        for (int j = l; j < p - 1; j++) {
+            double t = Math.hypot(f, g);
+            double cs = f / t;
+            double sn = g / t;
+            if (j > l) {
+                e[j - 1] = t;
+            }
+            f = cs * d[j] + sn * e[j];
+            e[j] = cs * e[j] - sn * d[j];
+            g = sn * d[j + 1];
+            d[j + 1] = cs * d[j + 1];
+
+            t = Math.hypot(f, g);
+            cs = f / t;
+            sn = g / t;
+            d[j] = t;
+            f = cs * e[j] + sn * d[j + 1];
+            d[j + 1] = -sn * e[j] + cs * d[j + 1];
+            g = sn * e[j + 1];
+            e[j + 1] = cs * e[j + 1];
+        }
+        e[p - 2] = f;
+    }
+
+    /**
+     * @return the k x k upper triangle of R in column-major order
+     */
+    private static double[] columnMajorR(QRDecomposition qr, int k) {
+        double[] r = ACCESS.raw(qr.getR());
+        double[] w = new double[k * k];
+        for (int i = 0; i < k; i++) {
+            for (int j = i; j < k; j++) {
+                w[j * k + i] = r[i * k + j];
+            }
+        }
+        return w;
+    }
+
+    private static double[] identity(int k) {
+        double[] id = new double[k * k];
+        for (int j = 0; j < k; j++) {
+            id[j * k + j] = 1.0;
+        }
+        return id;
+    }
+
+    /**
+     * Rotates pairs of columns of the k x k column-major w until they are
+     * mutually orthogonal, applying the same rotations to the columns of v.
+     */
+    private static void jacobi(double[] w, double[] v, int k) {
+        double[] norms = new double[k];
+        CancellationToken cancel = CancellationToken.current();
+        for (int sweep = 0; sweep < MAX_SWEEPS; sweep++) {
+            cancel.throwIfCancelled();
+            for (int j = 0; j < k; j++) {
+                double s = QRDecomposition.norm(w, j * k, k);
+                norms[j] = s * s;
+            }
+
+            boolean rotated = false;
+            for (int p = 0; p < k - 1; p++) {
+                for (int q = p + 1; q < k; q++) {
+                    double alpha = norms[p];
+                    double beta = norms[q];
+                    if (alpha == 0.0 || beta == 0.0) continue;
+
+                    int cp = p * k;
+                    int cq = q * k;
+                    double gamma = QRDecomposition.dot(w, cp, w, cq, k);
+                    if (!(Math.abs(gamma) > k * EPSILON * Math.sqrt(alpha * beta))) continue;
+
+                    rotated = true;
+                    double zeta = (beta - alpha) / (2.0 * gamma);
+                    double t = Math.copySign(1.0, zeta) / (Math.abs(zeta) + Math.hypot(1.0, zeta));
+                    double c = 1.0 / Math.hypot(1.0, t);
+                    double s = c * t;
+                    rotate(w, cp, cq, k, c, s);
+                    if (v != null) {
+                        rotate(v, cp, cq, k, c, s);
+                    }
+                    norms[p] = alpha - t * gamma;
+                    norms[q] = beta + t * gamma;
+                }
+            }
+            if (!rotated) return;
+        }
+        throw new IllegalStateException("Singular value iteration did not converge.");
+    }
+
+    private static void rotate(double[] a, int cp, int cq, int len, double c, double s) {
+        for (int i = 0; i < len; i++) {
+            double x = a[cp + i];
+            double y = a[cq + i];
+            a[cp + i] = c * x - s * y;
+            a[cq + i] = s * x + c * y;
+        }
+    }
+
+    /**
+     * @return a copy of the min(m, n) singular values, largest first
+     */
+    public double[] getSingularValues() {
+        return singularValues.clone();
+    }
+
+    /**
+     * @return the m x min(m, n) left singular vectors
+     */
+    public Matrix getU() {
+        return u;
+    }
+
+    /**
+     * @return the n x min(m, n) right singular vectors
+     */
+    public Matrix getV() {
+        return v;
+    }
+
+    /**
+     * @return the diagonal matrix of singular values
+     */
+    public Matrix getS() {
+        int k = singularValues.length;
+        double[] s = new double[k * k];
+        for (int j = 0; j < k; j++) {
+            s[j * k + j] = singularValues[j];
+        }
+        return ACCESS.wrap(k, k, s);
+    }
+
+    /**
+     * @return the spectral norm, the largest singular value
+     */
+    public double getNorm2() {
+        return singularValues[0];
+    }
+
+    /**
+     * @return the 2-norm condition number, infinite if the matrix is rank deficient
+     */
+    public double getConditionNumber() {
+        double smallest = singularValues[singularValues.length - 1];
+        return smallest == 0.0 ? Double.POSITIVE_INFINITY : singularValues[0] / smallest;
+    }
+
+    /**
+     * @return the number of singular values above the default tolerance max(m, n) * eps * &sigma;<sub>max</sub>
+     */
+    public int getRank() {
+        return getRank(defaultTolerance());
+    }
+
+    /**
+     * @param tolerance singular values at or below it count as zero
+     * @return the number of singular values above the tolerance
+     */
+    public int getRank(double tolerance) {
+        return rank(singularValues, tolerance);
+    }
+
+    static int rank(double[] singularValues, double tolerance) {
+        int r = 0;
+        while (r < singularValues.length && singularValues[r] > tolerance) {
+            r++;
+        }
+        return r;
+    }
+
+    private double defaultTolerance() {
+        return Math.max(m, n) * EPSILON * singularValues[0];
+    }
+
+    /**
+     * Solves min ||A X - B|| with the pseudo-inverse, which gives the
+     * minimum-norm solution when A is rank deficient. Singular values at or
+     * below the default rank tolerance are treated as zero.
+     *
+     * @param b the right-hand sides, with m rows
+     * @return the n x b.cols solution X
+     * @throws IllegalArgumentException if B has the wrong number of rows
+     */
+    public Matrix solve(Matrix b) {
+        if (b.getNumRow() != m) {
+            throw new IllegalArgumentException("Right-hand side must have the same number of rows as the matrix.");
+        }
+
+        // X = V S^+ U^T B
+        Matrix projected = MatrixOperations.multiply(MatrixOperations.transpose(u), b);
+        double[] y = ACCESS.copyOf(projected);
+        int cols = b.getNumCol();
+        int r = getRank();
+        for (int j = 0; j < singularValues.length; j++) {
+            double scale = j < r ? 1.0 / singularValues[j] : 0.0;
+            ArrayKernels.INSTANCE.scale(scale, y, j * cols, cols);
+        }
+        return MatrixOperations.multiply(v, ACCESS.wrap(singularValues.length, cols, y));
+    }
+
+    /**
+     * Solves min ||A x - b|| with the pseudo-inverse.
+     *
+     * @param b the right-hand side, of length m
+     * @return the minimum-norm solution x, of length n
+     * @throws IllegalArgumentException if b has the wrong length
+     * @see #solve(Matrix)
+     */
+    public Vector solve(Vector b) {
+        if (b.getSize() != m) {
+            throw new IllegalArgumentException("Right-hand side must have the same length as the number of rows.");
+        }
+        Matrix x = solve(ACCESS.wrap(m, 1, b.getData().clone()));
+        return new Vector(ACCESS.copyOf(x));
+    }
+}
@@ -0,0 +1,434 @@
+package operations;
+
+import model.Matrix;
+import model.MatrixAccess;
+import model.SparseMatrix;
+import model.Vector;
+
+import java.util.Arrays;
+
+/**
+ * Provides static methods for operations on {@link SparseMatrix} operands.
+ * Work is proportional to the number of stored non-zeros rather than the
+ * full matrix size. {@link MatrixOperations} dispatches here automatically
+ * when one of its operands is sparse.
+ *
+ * @author Youssef Amin
+ */
+
+public class SparseOperations {
+
+    private static final MatrixAccess ACCESS = MatrixAccess.obtain();
+
+    /**
+     * Adds two sparse matrices by merging their rows.
+     *
+     * @param a the first matrix
+     * @param b the second matrix
+     * @return the sparse sum a + b
+     * @throws IllegalArgumentException if matrices have different dimensions
+     */
+    public static SparseMatrix add(SparseMatrix a, SparseMatrix b) {
+        return merge(a, b, 1.0);
+    }
+
+    /**
+     * Subtracts sparse matrix b from sparse matrix a by merging their rows.
+     *
+     * @param a the first matrix
+     * @param b the matrix to subtract from a
+     * @return the sparse difference a - b
+     * @throws IllegalArgumentException if matrices have different dimensions
+     */
+    public static SparseMatrix subtract(SparseMatrix a, SparseMatrix b) {
+        return merge(a, b, -1.0);
+    }
+
+    /**
+     * Computes a + sign * b one row at a time with a two-pointer merge over
+     * the sorted column indices. Entries that cancel to zero are dropped.
+     */
+    private static SparseMatrix merge(SparseMatrix a, SparseMatrix b, double sign) {
+        validate(a, b);
+        int rows = a.getNumRow();
+        int[] aPtr = ACCESS.rowPointers(a);
+        int[] aCol = ACCESS.columnIndices(a);
+        double[] aVal = ACCESS.values(a);
+        int[] bPtr = ACCESS.rowPointers(b);
+        int[] bCol = ACCESS.columnIndices(b);
+        double[] bVal = ACCESS.values(b);
+
+        int capacity = aPtr[rows] + bPtr[rows];
+        int[] rowPtr = new int[rows + 1];
+        int[] colIdx = new int[capacity];
+        double[] values = new double[capacity];
+        int k = 0;
+
+        for (int i = 0; i < rows; i++) {
+            int p = aPtr[i];
+            int q = bPtr[i];
+            int pEnd = aPtr[i + 1];
+            int qEnd = bPtr[i + 1];
+            while (p < pEnd || q < qEnd) {
+                int c;
+                double v;
+                if (q >= qEnd || (p < pEnd && aCol[p] < bCol[q])) {
+                    c = aCol[p];
+                    v = aVal[p++];
+                } else if (p >= pEnd || bCol[q] < aCol[p]) {
+                    c = bCol[q];
+                    v = sign * bVal[q++];
+                } else {
+                    c = aCol[p];
+                    v = aVal[p++] + sign * bVal[q++];
+                }
+                if (v != 0.0) {
+                    colIdx[k] = c;
+                    values[k++] = v;
+                }
+            }
+            rowPtr[i + 1] = k;
+        }
+
+        return ACCESS.wrapSparse(rows, a.getNumCol(), rowPtr,
+                Arrays.copyOf(colIdx, k), Arrays.copyOf(values, k));
+    }
+
+    /**
+     * Adds a sparse matrix to a dense one.
+     *
+     * @param a the sparse matrix
+     * @param b the dense matrix
+     * @return the dense sum a + b
+     * @throws IllegalArgumentException if matrices have different dimensions
+     */
+    public static Matrix add(SparseMatrix a, Matrix b) {
+        validate(a, b);
+        double[] result = ACCESS.copyOf(b);
+        scatter(a, 1.0, result);
+        return ACCESS.wrap(b.getNumRow(), b.getNumCol(), result);
+    }
+
+    /**
+     * Subtracts a dense matrix from a sparse one.
+     *
+     * @param a the sparse matrix
+     * @param b the dense matrix to subtract from a
+     * @return the dense difference a - b
+     * @throws IllegalArgumentException if matrices have different dimensions
+     */
+    public static Matrix subtract(SparseMatrix a, Matrix b) {
+        validate(a, b);
+        double[] result = ACCESS.copyOf(b);
+        for (int i = 0; i < result.length; i++) {
+            result[i] = -result[i];
+        }
+        scatter(a, 1.0, result);
+        return ACCESS.wrap(b.getNumRow(), b.getNumCol(), result);
+    }
+
+    /**
+     * Subtracts a sparse matrix from a dense one.
+     *
+     * @param a the dense matrix
+     * @param b the sparse matrix to subtract from a
+     * @return the dense difference a - b
+     * @throws IllegalArgumentException if matrices have different dimensions
+     */
+    public static Matrix subtract(Matrix a, SparseMatrix b) {
+        validate(a, b);
+        double[] result = ACCESS.copyOf(a);
+        scatter(b, -1.0, result);
+        return ACCESS.wrap(a.getNumRow(), a.getNumCol(), result);
+    }
+
+    /**
+     * Adds sign * s into a dense row-major array of the same shape.
+     */
+    static void scatter(SparseMatrix s, double sign, double[] dense) {
+        int cols = s.getNumCol();
+        int[] ptr = ACCESS.rowPointers(s);
+        int[] col = ACCESS.columnIndices(s);
+        double[] val = ACCESS.values(s);
+        for (int i = 0; i < s.getNumRow(); i++) {
+            int row = i * cols;
+            for (int p = ptr[i]; p < ptr[i + 1]; p++) {
+                dense[row + col[p]] += sign * val[p];
+            }
+        }
+    }
+
+    /**
+     * Multiplies every stored entry by a scalar. Entries that become zero,
+     * because the scalar is zero or the product underflows, are dropped.
+     *
+     * @param a      the matrix
+     * @param scalar the factor
+     * @return the sparse product scalar * a
+     */
+    static SparseMatrix scale(SparseMatrix a, double scalar) {
+        int rows = a.getNumRow();
+        int[] aPtr = ACCESS.rowPointers(a);
+        int[] aCol = ACCESS.columnIndices(a);
+        double[] aVal = ACCESS.values(a);
+
+        int[] rowPtr = new int[rows + 1];
+        int[] colIdx = new int[aPtr[rows]];
+        double[] values = new double[aPtr[rows]];
+        int k = 0;
+        for (int i = 0; i < rows; i++) {
+            for (int p = aPtr[i]; p < aPtr[i + 1]; p++) {
+                double v = scalar * aVal[p];
+                if (v != 0.0) {
+                    colIdx[k] = aCol[p];
+                    values[k++] = v;
+                }
+            }
+            rowPtr[i + 1] = k;
+        }
+
+        return ACCESS.wrapSparse(rows, a.getNumCol(), rowPtr,
+                Arrays.copyOf(colIdx, k), Arrays.copyOf(values, k));
+    }
+
+    /**
+     * Multiplies two sparse matrices with Gustavson's row-by-row algorithm,
+     * using a dense accumulator and a marker array so each output row costs
+     * time proportional to the work it needs.
+     *
+     * @param a the left matrix
+     * @param b the right matrix
+     * @return the sparse product a * b
+     * @throws IllegalArgumentException if a's column count does not match b's row count
+     */
+    public static SparseMatrix multiply(SparseMatrix a, SparseMatrix b) {
+        validateProduct(a, b);
+        int rows = a.getNumRow();
+        int cols = b.getNumCol();
+        int[] aPtr = ACCESS.rowPointers(a);
+        int[] aCol = ACCESS.columnIndices(a);
+        double[] aVal = ACCESS.values(a);
+        int[] bPtr = ACCESS.rowPointers(b);
+        int[] bCol = ACCESS.columnIndices(b);
+        double[] bVal = ACCESS.values(b);
+
+        double[] accumulator = new double[cols];
+        int[] marker = new int[cols];
+        Arrays.fill(marker, -1);
+        int[] rowCols = new int[cols];
+
+        int[] rowPtr = new int[rows + 1];
+        int[] colIdx = new int[Math.max(16, aPtr[rows] + bPtr[b.getNumRow()])];
+        double[] values = new double[colIdx.length];
+        int k = 0;
+
+        for (int i = 0; i < rows; i++) {
+            int count = 0;
+            for (int p = aPtr[i]; p < aPtr[i + 1]; p++) {
+                int kk = aCol[p];
+                double av = aVal[p];
+                for (int q = bPtr[kk]; q < bPtr[kk + 1]; q++) {
+                    int c = bCol[q];
+                    if (marker[c] != i) {
+                        marker[c] = i;
+                        rowCols[count++] = c;
+                        accumulator[c] = av * bVal[q];
+                    } else {
+                        accumulator[c] += av * bVal[q];
+                    }
+                }
+            }
+
+            Arrays.sort(rowCols, 0, count);
+            if (k + count > colIdx.length) {
+                int grown = Math.max(k + count, colIdx.length + (colIdx.length >> 1));
+                colIdx = Arrays.copyOf(colIdx, grown);
+                values = Arrays.copyOf(values, grown);
+            }
+            for (int t = 0; t < count; t++) {
+                int c = rowCols[t];
+                double v = accumulator[c];
+                if (v != 0.0) {
+                    colIdx[k] = c;
+                    values[k++] = v;
+                }
+            }
+            rowPtr[i + 1] = k;
+        }
+
+        return ACCESS.wrapSparse(rows, cols, rowPtr,
+                Arrays.copyOf(colIdx, k), Arrays.copyOf(values, k));
+    }
+
+    /**
+     * Multiplies a sparse matrix by a dense one. Each stored entry a(i, k)
+     * adds a scaled copy of row k of b into row i of the result.
+     *
+     * @param a the sparse left matrix
+     * @param b the dense right matrix
+     * @return the dense product a * b
+     * @throws IllegalArgumentException if a's column count does not match b's row count
+     */
+    public static Matrix multiply(SparseMatrix a, Matrix b) {
+        validateProduct(a, b);
+        double[] result = new double[a.getNumRow() * b.getNumCol()];
+        multiplyInto(a, b, result);
+        return ACCESS.wrap(a.getNumRow(), b.getNumCol(), result);
+    }
+
+    /**
+     * Accumulates the product of a sparse matrix and any matrix into a zeroed
+     * dense row-major array. Sparse right operands are scattered row by row.
+     */
+    static void multiplyInto(SparseMatrix a, Matrix b, double[] result) {
+        int rows = a.getNumRow();
+        int cols = b.getNumCol();
+        int[] ptr = ACCESS.rowPointers(a);
+        int[] col = ACCESS.columnIndices(a);
+        double[] val = ACCESS.values(a);
+
+        if (b instanceof SparseMatrix sb) {
+            int[] bPtr = ACCESS.rowPointers(sb);
+            int[] bCol = ACCESS.columnIndices(sb);
+            double[] bVal = ACCESS.values(sb);
+            for (int i = 0; i < rows; i++) {
+                int cRow = i * cols;
+                for (int p = ptr[i]; p < ptr[i + 1]; p++) {
+                    double av = val[p];
+                    int k = col[p];
+                    for (int q = bPtr[k]; q < bPtr[k + 1]; q++) {
+                        result[cRow + bCol[q]] += av * bVal[q];
+                    }
+                }
+            }
+            return;
+        }
+
+        double[] dataB = ACCESS.raw(b);
+        for (int i = 0; i < rows; i++) {
+            int cRow = i * cols;
+            for (int p = ptr[i]; p < ptr[i + 1]; p++) {
+                ArrayKernels.INSTANCE.axpy(val[p], dataB, col[p] * cols, result, cRow, cols);
+            }
+        }
+    }
+
+    /**
+     * Multiplies a dense matrix by a sparse one. Each entry a(i, k) adds a
+     * scaled copy of the stored entries of row k of b into row i of the result.
+     *
+     * @param a the dense left matrix
+     * @param b the sparse right matrix
+     * @return the dense product a * b
+     * @throws IllegalArgumentException if a's column count does not match b's row count
+     */
+    public static Matrix multiply(Matrix a, SparseMatrix b) {
+        validateProduct(a, b);
+        double[] result = new double[a.getNumRow() * b.getNumCol()];
+        multiplyBySparseInto(a, b, result);
+        return ACCESS.wrap(a.getNumRow(), b.getNumCol(), result);
+    }
+
+    /**
+     * Accumulates the product of a dense matrix and a sparse one into a zeroed
+     * dense row-major array.
+     */
+    static void multiplyBySparseInto(Matrix a, SparseMatrix b, double[] result) {
+        int rows = a.getNumRow();
+        int inner = a.getNumCol();
+        int cols = b.getNumCol();
+        int[] ptr = ACCESS.rowPointers(b);
+        int[] col = ACCESS.columnIndices(b);
+        double[] val = ACCESS.values(b);
+        double[] dataA = ACCESS.raw(a);
+
+        for (int i = 0; i < rows; i++) {
+            int aRow = i * inner;
+            int cRow = i * cols;
+            for (int k = 0; k < inner; k++) {
+                double av = dataA[aRow + k];
+                if (av == 0.0) continue;
+                for (int q = ptr[k]; q < ptr[k + 1]; q++) {
+                    result[cRow + col[q]] += av * val[q];
+                }
+            }
+        }
+    }
+
+    /**
+     * Sparse matrix-vector product.
+     *
+     * @param a the sparse matrix
+     * @param x the vector, with one entry per column of a
+     * @return the product a * x
+     * @throws IllegalArgumentException if the vector length does not match a's column count
+     */
+    public static Vector multiply(SparseMatrix a, Vector x) {
+        if (a.getNumCol() != x.getSize()) {
+            throw new IllegalArgumentException("Vector length must match the number of matrix columns.");
+        }
+
+        int[] ptr = ACCESS.rowPointers(a);
+        int[] col = ACCESS.columnIndices(a);
+        double[] val = ACCESS.values(a);
+        double[] xs = x.getData();
+        double[] y = new double[a.getNumRow()];
+
+        for (int i = 0; i < y.length; i++) {
+            double sum = 0.0;
+            for (int p = ptr[i]; p < ptr[i + 1]; p++) {
+                sum += val[p] * xs[col[p]];
+            }
+            y[i] = sum;
+        }
+        return new Vector(y);
+    }
+
+    /**
+     * Transposes a sparse matrix with a counting sort over column indices.
+     * The result is the CSC form of a, read as CSR.
+     *
+     * @param a the matrix to transpose
+     * @return the sparse transpose of a
+     */
+    public static SparseMatrix transpose(SparseMatrix a) {
+        int rows = a.getNumRow();
+        int cols = a.getNumCol();
+        int[] ptr = ACCESS.rowPointers(a);
+        int[] col = ACCESS.columnIndices(a);
+        double[] val = ACCESS.values(a);
+        int nnz = ptr[rows];
+
+        int[] tPtr = new int[cols + 1];
+        for (int p = 0; p < nnz; p++) {
+            tPtr[col[p] + 1]++;
+        }
+        for (int j = 0; j < cols; j++) {
+            tPtr[j + 1] += tPtr[j];
+        }
+
+        int[] next = Arrays.copyOf(tPtr, cols);
+        int[] tCol = new int[nnz];
+        double[] tVal = new double[nnz];
+        for (int i = 0; i < rows; i++) {
+            for (int p = ptr[i]; p < ptr[i + 1]; p++) {
+                int dest = next[col[p]]++;
+                tCol[dest] = i;
+                tVal[dest] = val[p];
+            }
+        }
+        return ACCESS.wrapSparse(cols, rows, tPtr, tCol, tVal);
+    }
+
+    private static void validate(Matrix a, Matrix b) {
+        if (a.getNumRow() != b.getNumRow() || a.getNumCol() != b.getNumCol()) {
+            throw new IllegalArgumentException("Matrices must have the same dimensions.");
+        }
+    }
+
+    private static void validateProduct(Matrix a, Matrix b) {
+        if (a.getNumCol() != b.getNumRow()) {
+            throw new IllegalArgumentException("Matrix dimensions do not allow multiplication.");
+        }
+    }
+}
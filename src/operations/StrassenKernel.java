@@ -0,0 +1,222 @@
+package operations;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Strassen-Winograd multiplication used by {@link MatrixOperations#multiply}
+ * with {@link MultiplicationStrategy#STRASSEN}.
+ * <p>
+ * Each level splits A, B and C into quadrants and forms the product from
+ * seven half-size products and fifteen additions instead of eight products.
+ * Odd dimensions are peeled: the even leading part recurses, and the spare
+ * row, column or inner index is folded in with classical updates, so no
+ * padding is allocated. Below the cutoff the blocked classical kernel takes
+ * over. Quadrants are addressed in place through offsets and leading
+ * dimensions; each level allocates eleven quadrant-sized temporaries, about
+ * 3.7 n^2 doubles in total down the recursion for square n.
+ * <p>
+ * The seven products of a level are independent, so they can run as
+ * {@link ForkJoinPool} tasks.
+ *
+ * @author Youssef Amin
+ */
+
+final class StrassenKernel {
+
+    /** Default dimension at or below which the classical kernel is used. */
+    static final int DEFAULT_CUTOFF = 256;
+
+    private static volatile int cutoff =
+            Integer.getInteger("matrixmaster.multiply.strassenCutoff", DEFAULT_CUTOFF);
+
+    private StrassenKernel() {
+    }
+
+    static int getCutoff() {
+        return cutoff;
+    }
+
+    static void setCutoff(int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Strassen cutoff must be positive.");
+        }
+        cutoff = size;
+    }
+
+    /**
+     * Overwrites the row-major m x n array c with the product of the m x k
+     * array a and the k x n array b.
+     *
+     * @param pool the pool to run the sub-products on, or null for the calling thread
+     */
+    static void multiply(double[] a, double[] b, double[] c, int m, int k, int n, ForkJoinPool pool) {
+        Product product = new Product(a, 0, k, b, 0, n, c, 0, n, m, k, n, cutoff, pool != null);
+        if (pool != null) {
+            pool.invoke(product);
+        } else {
+            product.compute();
+        }
+    }
+
+    /**
+     * One product C = A * B on blocks of larger arrays.
+     */
+    private static final class Product extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final double[] a;
+        private final int offA;
+        private final int lda;
+        private final double[] b;
+        private final int offB;
+        private final int ldb;
+        private final double[] c;
+        private final int offC;
+        private final int ldc;
+        private final int m;
+        private final int k;
+        private final int n;
+        private final int cutoff;
+        private final boolean parallel;
+
+        Product(double[] a, int offA, int lda, double[] b, int offB, int ldb, double[] c, int offC, int ldc,
+                int m, int k, int n, int cutoff, boolean parallel) {
+            this.a = a;
+            this.offA = offA;
+            this.lda = lda;
+            this.b = b;
+            this.offB = offB;
+            this.ldb = ldb;
+            this.c = c;
+            this.offC = offC;
+            this.ldc = ldc;
+            this.m = m;
+            this.k = k;
+            this.n = n;
+            this.cutoff = cutoff;
+            this.parallel = parallel;
+        }
+
+        @Override
+        protected void compute() {
+            if (Math.min(m, Math.min(k, n)) <= cutoff) {
+                MultiplyKernel.strided(a, offA, lda, b, offB, ldb, c, offC, ldc, m, k, n);
+                return;
+            }
+
+            int m2 = m / 2;
+            int k2 = k / 2;
+            int n2 = n / 2;
+            int a11 = offA;
+            int a12 = offA + k2;
+            int a21 = offA + m2 * lda;
+            int a22 = a21 + k2;
+            int b11 = offB;
+            int b12 = offB + n2;
+            int b21 = offB + k2 * ldb;
+            int b22 = b21 + n2;
+            int c11 = offC;
+            int c12 = offC + n2;
+            int c21 = offC + m2 * ldc;
+            int c22 = c21 + n2;
+
+            double[] s1 = new double[m2 * k2];
+            double[] s2 = new double[m2 * k2];
+            double[] s3 = new double[m2 * k2];
+            double[] s4 = new double[m2 * k2];
+            add(a, a21, lda, a, a22, lda, s1, 0, k2, m2, k2);
+            subtract(s1, 0, k2, a, a11, lda, s2, 0, k2, m2, k2);
+            subtract(a, a11, lda, a, a21, lda, s3, 0, k2, m2, k2);
+            subtract(a, a12, lda, s2, 0, k2, s4, 0, k2, m2, k2);
+
+            double[] t1 = new double[k2 * n2];
+            double[] t2 = new double[k2 * n2];
+            double[] t3 = new double[k2 * n2];
+            double[] t4 = new double[k2 * n2];
+            subtract(b, b12, ldb, b, b11, ldb, t1, 0, n2, k2, n2);
+            subtract(b, b22, ldb, t1, 0, n2, t2, 0, n2, k2, n2);
+            subtract(b, b22, ldb, b, b12, ldb, t3, 0, n2, k2, n2);
+            subtract(t2, 0, n2, b, b21, ldb, t4, 0, n2, k2, n2);
+
+            // P2..P5 go straight into the quadrants of C that end up holding them
+            double[] p1 = new double[m2 * n2];
+            double[] p6 = new double[m2 * n2];
+            double[] p7 = new double[m2 * n2];
+            Product[] products = {
+                    sub(a, a11, lda, b, b11, ldb, p1, 0, n2, m2, k2, n2),
+                    sub(a, a12, lda, b, b21, ldb, c, c11, ldc, m2, k2, n2),
+                    sub(s4, 0, k2, b, b22, ldb, c, c12, ldc, m2, k2, n2),
+                    sub(a, a22, lda, t4, 0, n2, c, c21, ldc, m2, k2, n2),
+                    sub(s1, 0, k2, t1, 0, n2, c, c22, ldc, m2, k2, n2),
+                    sub(s2, 0, k2, t2, 0, n2, p6, 0, n2, m2, k2, n2),
+                    sub(s3, 0, k2, t3, 0, n2, p7, 0, n2, m2, k2, n2)
+            };
+            if (parallel) {
+                invokeAll(products);
+            } else {
+                for (Product product : products) {
+                    product.compute();
+                }
+            }
+
+            add(p1, 0, n2, c, c11, ldc, c, c11, ldc, m2, n2);      // C11 = P1 + P2
+            add(p1, 0, n2, p6, 0, n2, p6, 0, n2, m2, n2);          // U2 = P1 + P6
+            add(p6, 0, n2, p7, 0, n2, p7, 0, n2, m2, n2);          // U3 = U2 + P7
+            add(c, c12, ldc, p6, 0, n2, c, c12, ldc, m2, n2);      // C12 = P3 + U2 ...
+            add(c, c12, ldc, c, c22, ldc, c, c12, ldc, m2, n2);    //       ... + P5
+            subtract(p7, 0, n2, c, c21, ldc, c, c21, ldc, m2, n2); // C21 = U3 - P4
+            add(c, c22, ldc, p7, 0, n2, c, c22, ldc, m2, n2);      // C22 = P5 + U3
+
+            peel(m2 * 2, k2 * 2, n2 * 2);
+        }
+
+        /**
+         * Adds the contribution of the odd trailing row, column and inner index
+         * once the even-sized leading block of C holds its partial product.
+         */
+        private void peel(int mEven, int kEven, int nEven) {
+            ArrayKernels kernels = ArrayKernels.INSTANCE;
+            if (kEven < k) {
+                int bRow = offB + kEven * ldb;
+                for (int i = 0; i < mEven; i++) {
+                    kernels.axpy(a[offA + i * lda + kEven], b, bRow, c, offC + i * ldc, nEven);
+                }
+            }
+            if (nEven < n) {
+                for (int i = 0; i < m; i++) {
+                    double sum = 0.0;
+                    int aRow = offA + i * lda;
+                    for (int p = 0; p < k; p++) {
+                        sum += a[aRow + p] * b[offB + p * ldb + nEven];
+                    }
+                    c[offC + i * ldc + nEven] = sum;
+                }
+            }
+            if (mEven < m) {
+                MultiplyKernel.strided(a, offA + mEven * lda, lda, b, offB, ldb, c, offC + mEven * ldc, ldc, 1, k, nEven);
+            }
+        }
+
+        private Product sub(double[] x, int offX, int ldx, double[] y, int offY, int ldy,
+                            double[] z, int offZ, int ldz, int rows, int inner, int cols) {
+            return new Product(x, offX, ldx, y, offY, ldy, z, offZ, ldz, rows, inner, cols, cutoff, parallel);
+        }
+    }
+
+    private static void add(double[] x, int offX, int ldx, double[] y, int offY, int ldy,
+                            double[] z, int offZ, int ldz, int rows, int cols) {
+        ArrayKernels kernels = ArrayKernels.INSTANCE;
+        for (int i = 0; i < rows; i++) {
+            kernels.add(x, offX + i * ldx, y, offY + i * ldy, z, offZ + i * ldz, cols);
+        }
+    }
+
+    private static void subtract(double[] x, int offX, int ldx, double[] y, int offY, int ldy,
+                                 double[] z, int offZ, int ldz, int rows, int cols) {
+        ArrayKernels kernels = ArrayKernels.INSTANCE;
+        for (int i = 0; i < rows; i++) {
+            kernels.subtract(x, offX + i * ldx, y, offY + i * ldy, z, offZ + i * ldz, cols);
+        }
+    }
+}
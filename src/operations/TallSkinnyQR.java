@@ -0,0 +1,242 @@
+package operations;
+
+import model.Matrix;
+import model.MatrixAccess;
+
+/**
+ * Streaming QR of a tall, skinny matrix for least squares: rows arrive in
+ * blocks of any size and only the n x n triangular factor R, together with
+ * Q<sup>T</sup>B for the right-hand sides, is kept. Memory is O(n^2)
+ * however many rows are added, so a 1e6 x 50 system never has to be held
+ * in one array, and Q is never formed.
+ * <p>
+ * Incoming rows are buffered and, once a few times n of them have
+ * collected, folded into R with Householder reflectors that exploit R being
+ * triangular, which costs about 2n<sup>2</sup> flops per row. Partial
+ * factorizations of different row ranges, e.g. built on different threads
+ * or machines, combine with {@link #merge(TallSkinnyQR)}, which is the
+ * reduction step of TSQR.
+ * <p>
+ * {@link #solve()} finishes with a column-pivoted QR of the small R, so a
+ * rank-deficient system gets the basic least-squares solution instead of
+ * failing. Instances are not thread-safe.
+ *
+ * @author Youssef Amin
+ */
+
+public class TallSkinnyQR {
+
+    private static final MatrixAccess ACCESS = MatrixAccess.obtain();
+
+    private final int n;
+    private final int rhs;
+    private final int width;
+    private final int capacity;
+    /** Column-major, capacity rows: R and Q^T B in the first n rows, buffered rows below. */
+    private final double[] work;
+    private final double[] residualSquares;
+    private final double[] row;
+    private int buffered;
+    private long rows;
+
+    /**
+     * @param cols the number of columns of A
+     * @throws IllegalArgumentException if cols is not positive
+     */
+    public TallSkinnyQR(int cols) {
+        this(cols, 0);
+    }
+
+    /**
+     * @param cols    the number of columns of A
+     * @param rhsCols the number of right-hand sides, or 0 to compute R only
+     * @throws IllegalArgumentException if cols is not positive or rhsCols is negative
+     */
+    public TallSkinnyQR(int cols, int rhsCols) {
+        if (cols <= 0 || rhsCols < 0)
+            throw new IllegalArgumentException("Column counts must be positive.");
+
+        this.n = cols;
+        this.rhs = rhsCols;
+        this.width = cols + rhsCols;
+        this.capacity = cols + Math.max(8 * cols, 256);
+        this.work = new double[Math.multiplyExact(capacity, width)];
+        this.residualSquares = new double[rhsCols];
+        this.row = new double[Math.max(cols, rhsCols)];
+    }
+
+    /**
+     * Adds rows of A when there are no right-hand sides.
+     *
+     * @param a rows of A, with n columns
+     * @throws IllegalArgumentException if the column count is wrong or right-hand sides are expected
+     */
+    public void add(Matrix a) {
+        if (rhs != 0)
+            throw new IllegalArgumentException("Rows of the right-hand side are required.");
+        add(a, null);
+    }
+
+    /**
+     * Adds rows of A together with the matching rows of B.
+     *
+     * @param a rows of A, with n columns
+     * @param b the same rows of B, with one column per right-hand side
+     * @throws IllegalArgumentException if the dimensions do not match
+     */
+    public void add(Matrix a, Matrix b) {
+        if (a.getNumCol() != n)
+            throw new IllegalArgumentException("Rows must have " + n + " columns.");
+        if (rhs != 0 && (b == null || b.getNumCol() != rhs || b.getNumRow() != a.getNumRow()))
+            throw new IllegalArgumentException("Right-hand side must have " + rhs + " columns and one row per row of A.");
+
+        for (int i = 0; i < a.getNumRow(); i++) {
+            a.copyRow(i, row, 0);
+            int r = n + buffered;
+            for (int j = 0; j < n; j++) {
+                work[j * capacity + r] = row[j];
+            }
+            if (rhs != 0) {
+                b.copyRow(i, row, 0);
+                for (int j = 0; j < rhs; j++) {
+                    work[(n + j) * capacity + r] = row[j];
+                }
+            }
+            if (++buffered == capacity - n) {
+                flush();
+            }
+        }
+        rows += a.getNumRow();
+    }
+
+    /**
+     * Folds another factorization of the same shape into this one, as if
+     * its rows had been added here. The other instance is left unchanged.
+     *
+     * @param other a factorization of different rows of the same system
+     * @throws IllegalArgumentException if the column counts differ
+     */
+    public void merge(TallSkinnyQR other) {
+        if (other.n != n || other.rhs != rhs)
+            throw new IllegalArgumentException("Only factorizations with the same columns can be merged.");
+
+        flush();
+        other.flush();
+        // The other R is n rows, which always fit in an empty buffer
+        for (int c = 0; c < width; c++) {
+            System.arraycopy(other.work, c * other.capacity, work, c * capacity + n, n);
+        }
+        buffered = n;
+        flush();
+        for (int j = 0; j < rhs; j++) {
+            residualSquares[j] += other.residualSquares[j];
+        }
+        rows += other.rows;
+    }
+
+    /**
+     * Folds the buffered rows into R. Reflector j combines row j of R with
+     * column j of the buffered rows; the rows of R in between are already
+     * zero in that column, so they are skipped.
+     */
+    private void flush() {
+        if (buffered == 0) return;
+
+        int len = buffered;
+        for (int j = 0; j < n; j++) {
+            int cj = j * capacity;
+            double tail = QRDecomposition.norm(work, cj + n, len);
+            if (tail == 0.0) continue;
+
+            double alpha = work[cj + j];
+            double beta = -Math.copySign(Math.hypot(alpha, tail), alpha);
+            double tau = (beta - alpha) / beta;
+            double scale = 1.0 / (alpha - beta);
+            for (int i = cj + n; i < cj + n + len; i++) {
+                work[i] *= scale;
+            }
+            work[cj + j] = beta;
+
+            for (int c = j + 1; c < width; c++) {
+                int cc = c * capacity;
+                double s = tau * (work[cc + j] + QRDecomposition.dot(work, cj + n, work, cc + n, len));
+                if (s == 0.0) continue;
+                work[cc + j] -= s;
+                ArrayKernels.INSTANCE.axpy(-s, work, cj + n, work, cc + n, len);
+            }
+        }
+
+        // What is left of B below R is orthogonal to the range of A: the residual
+        for (int j = 0; j < rhs; j++) {
+            int cc = (n + j) * capacity + n;
+            residualSquares[j] += QRDecomposition.dot(work, cc, work, cc, len);
+        }
+        buffered = 0;
+    }
+
+    /**
+     * @return the number of rows added so far, including merged ones
+     */
+    public long getRowCount() {
+        return rows;
+    }
+
+    /**
+     * @return the n x n upper triangular factor R of the rows added so far
+     */
+    public Matrix getR() {
+        flush();
+        return block(0, n);
+    }
+
+    /**
+     * Solves the least-squares problem min ||A X - B|| over every row added.
+     *
+     * @return the n x rhsCols solution
+     * @throws IllegalStateException if there are no right-hand sides
+     */
+    public Matrix solve() {
+        return smallSystem().solve(block(n, rhs));
+    }
+
+    /**
+     * @return the residual norm ||A x - b|| of each right-hand side at the least-squares solution
+     * @throws IllegalStateException if there are no right-hand sides
+     */
+    public double[] getResidualNorms() {
+        QRDecomposition qr = smallSystem();
+        Matrix c = block(n, rhs);
+        Matrix x = qr.solve(c);
+        double[] fit = ACCESS.raw(MatrixOperations.subtract(MatrixOperations.multiply(block(0, n), x), c));
+        double[] norms = new double[rhs];
+        for (int j = 0; j < rhs; j++) {
+            double sum = residualSquares[j];
+            for (int i = 0; i < n; i++) {
+                sum += fit[i * rhs + j] * fit[i * rhs + j];
+            }
+            norms[j] = Math.sqrt(sum);
+        }
+        return norms;
+    }
+
+    private QRDecomposition smallSystem() {
+        if (rhs == 0)
+            throw new IllegalStateException("No right-hand side was given.");
+        flush();
+        return new QRDecomposition(block(0, n), QRDecomposition.Pivoting.COLUMN);
+    }
+
+    /**
+     * @return rows 0 to n - 1 of the given columns of the work buffer, row-major
+     */
+    private Matrix block(int firstCol, int cols) {
+        double[] out = new double[n * cols];
+        for (int j = 0; j < cols; j++) {
+            int cc = (firstCol + j) * capacity;
+            for (int i = 0; i < n; i++) {
+                out[i * cols + j] = work[cc + i];
+            }
+        }
+        return ACCESS.wrap(n, cols, out);
+    }
+}
@@ -0,0 +1,571 @@
+package operations;
+
+import model.Matrix;
+import model.MatrixAccess;
+import model.Vector;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * The inverse of a square matrix that is kept current as the matrix changes,
+ * in O(n^2) per change instead of the O(n^3) of inverting again.
+ * <p>
+ * Rank-1 changes A + uv<sup>T</sup>, which include replacing one row or
+ * column, use the Sherman-Morrison formula, and rank-k changes
+ * A + UV<sup>T</sup> use Sherman-Morrison-Woodbury in O(n^2 k). Growing the
+ * matrix by a row and column, or removing one, updates the inverse through
+ * its Schur complement in O(n^2).
+ * <p>
+ * Every update adds rounding error, and an update that nearly makes the
+ * matrix singular can add a lot of it. Two monitors decide when to
+ * refactorize from the current matrix instead:
+ * <ul>
+ *     <li>An update whose Sherman-Morrison denominator loses most of its
+ *     digits to cancellation is applied by refactorizing right away.</li>
+ *     <li>Every {@code checkInterval} updates, the residual
+ *     ||A(A<sup>-1</sup>x) - x||<sub>&infin;</sub> is measured for a random
+ *     sign vector x at the cost of two matrix-vector products. If it exceeds
+ *     the tolerance, or 100 times the residual of a fresh factorization for
+ *     matrices too ill-conditioned to reach the tolerance, the inverse is
+ *     recomputed with {@link GaussJordanInverse}.</li>
+ * </ul>
+ * An update that would make the matrix singular is rejected and leaves the
+ * state unchanged. Instances are not thread-safe; the row updates of a
+ * large matrix can be split across a pool.
+ *
+ * @author Youssef Amin
+ */
+
+public class UpdatableInverse {
+
+    private static final MatrixAccess ACCESS = MatrixAccess.obtain();
+
+    /** Residual above which the inverse is recomputed unless configured otherwise. */
+    public static final double DEFAULT_TOLERANCE = 1e-8;
+
+    /** Updates between residual checks unless configured otherwise. */
+    public static final int DEFAULT_CHECK_INTERVAL = 16;
+
+    private static final double EPSILON = Math.ulp(1.0);
+
+    /** Fraction of the denominator's magnitude that must survive cancellation for an update to be applied in place. */
+    private static final double CANCELLATION_LIMIT = Math.sqrt(EPSILON);
+
+    private final double tolerance;
+    private final int checkInterval;
+    private final ForkJoinPool pool;
+    private final SplittableRandom random = new SplittableRandom(0x5EED);
+
+    private int n;
+    private double[] a;
+    private double[] inv;
+
+    private long updates;
+    private int sinceCheck;
+    private int refactorizations;
+    private double residual;
+    private double baseline;
+
+    /**
+     * Inverts the matrix with the default tolerance and check interval.
+     *
+     * @param m the square matrix to invert
+     * @throws IllegalArgumentException if the matrix is not square or is singular
+     */
+    public UpdatableInverse(Matrix m) {
+        this(m, DEFAULT_TOLERANCE, DEFAULT_CHECK_INTERVAL, null);
+    }
+
+    /**
+     * @param m             the square matrix to invert
+     * @param tolerance     the residual above which the inverse is recomputed
+     * @param checkInterval the number of updates between residual checks
+     * @param pool          the pool for the row updates, or null for the calling thread
+     * @throws IllegalArgumentException if the matrix is not square or is singular, or a setting is not positive
+     */
+    public UpdatableInverse(Matrix m, double tolerance, int checkInterval, ForkJoinPool pool) {
+        if (!m.isSquare())
+            throw new IllegalArgumentException("Matrix must be square to compute inverse.");
+        if (!(tolerance > 0) || checkInterval <= 0)
+            throw new IllegalArgumentException("Tolerance and check interval must be positive.");
+
+        this.tolerance = tolerance;
+        this.checkInterval = checkInterval;
+        this.pool = pool;
+        if (!tryRefactorize(m.getNumRow(), ACCESS.copyOf(m)))
+            throw new IllegalArgumentException("Matrix is singular and cannot be inverted.");
+    }
+
+    /**
+     * @return the current order of the matrix
+     */
+    public int getSize() {
+        return n;
+    }
+
+    /**
+     * @return a copy of the current matrix
+     */
+    public Matrix getMatrix() {
+        return ACCESS.wrap(n, n, a.clone());
+    }
+
+    /**
+     * @return a copy of the current inverse
+     */
+    public Matrix getInverse() {
+        return ACCESS.wrap(n, n, inv.clone());
+    }
+
+    /**
+     * Solves A x = b with the maintained inverse in O(n^2).
+     *
+     * @param b the right-hand side
+     * @return the solution x
+     * @throws IllegalArgumentException if b does not have n entries
+     */
+    public Vector solve(Vector b) {
+        return new Vector(multiply(inv, checkLength(b)));
+    }
+
+    /**
+     * Applies A := A + u v<sup>T</sup>.
+     *
+     * @param u the column factor
+     * @param v the row factor
+     * @throws IllegalArgumentException if a factor does not have n entries or the update makes the matrix singular
+     */
+    public void rankOneUpdate(Vector u, Vector v) {
+        double[] uu = checkLength(u);
+        double[] vv = checkLength(v);
+        double[] w = multiply(inv, uu);
+        double[] z = multiplyLeft(vv, inv);
+        applyRankOne(uu, vv, w, z, 1.0 + dot(vv, w), 1.0 + sumAbsProducts(vv, w));
+    }
+
+    /**
+     * Replaces one row of the matrix.
+     *
+     * @param row    the row index
+     * @param values the new row
+     * @throws IllegalArgumentException if values does not have n entries or the matrix would become singular
+     */
+    public void replaceRow(int row, Vector values) {
+        checkIndex(row);
+        double[] v = checkLength(values).clone();
+        for (int j = 0; j < n; j++) {
+            v[j] -= a[row * n + j];
+        }
+        double[] u = new double[n];
+        u[row] = 1.0;
+        double[] w = column(inv, row);
+        applyRankOne(u, v, w, multiplyLeft(v, inv), 1.0 + dot(v, w), 1.0 + sumAbsProducts(v, w));
+    }
+
+    /**
+     * Replaces one column of the matrix.
+     *
+     * @param col    the column index
+     * @param values the new column
+     * @throws IllegalArgumentException if values does not have n entries or the matrix would become singular
+     */
+    public void replaceColumn(int col, Vector values) {
+        checkIndex(col);
+        double[] u = checkLength(values).clone();
+        for (int i = 0; i < n; i++) {
+            u[i] -= a[i * n + col];
+        }
+        double[] v = new double[n];
+        v[col] = 1.0;
+        double[] w = multiply(inv, u);
+        double[] z = new double[n];
+        System.arraycopy(inv, col * n, z, 0, n);
+        applyRankOne(u, v, w, z, 1.0 + w[col], 1.0 + Math.abs(w[col]));
+    }
+
+    /**
+     * Applies A := A + U V<sup>T</sup> with the Woodbury identity, in O(n^2 k).
+     *
+     * @param u the n x k column factors
+     * @param v the n x k row factors
+     * @throws IllegalArgumentException if the factors are not n x k or the update makes the matrix singular
+     */
+    public void rankUpdate(Matrix u, Matrix v) {
+        if (u.getNumRow() != n || v.getNumRow() != n || u.getNumCol() != v.getNumCol())
+            throw new IllegalArgumentException("Update factors must both be n x k.");
+
+        int k = u.getNumCol();
+        Matrix inverse = ACCESS.wrap(n, n, inv);
+        Matrix vt = MatrixOperations.transpose(v);
+        double[] w = ACCESS.raw(MatrixOperations.multiply(inverse, u));   // n x k
+        double[] z = ACCESS.raw(MatrixOperations.multiply(vt, inverse));  // k x n
+        double[] capacitance = ACCESS.raw(MatrixOperations.multiply(vt, ACCESS.wrap(n, k, w)));
+        for (int i = 0; i < k; i++) {
+            capacitance[i * k + i] += 1.0;
+        }
+
+        GaussJordanInverse small;
+        try {
+            small = new GaussJordanInverse(ACCESS.wrap(k, k, capacitance));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Update makes the matrix singular.");
+        }
+
+        double[] nextA = a.clone();
+        addProduct(1.0, ACCESS.raw(u), k, ACCESS.raw(vt), nextA);
+        if (small.getConditionNumber() * CANCELLATION_LIMIT > 1.0) {
+            refactorize(n, nextA);
+            updated();
+            return;
+        }
+
+        double[] t = ACCESS.raw(MatrixOperations.multiply(small.getInverse(), ACCESS.wrap(k, n, z)));
+        addProduct(-1.0, w, k, t, inv);
+        a = nextA;
+        updated();
+    }
+
+    /**
+     * Grows the matrix to (n + 1) x (n + 1) by bordering it with a new last
+     * column and row.
+     *
+     * @param column the first n entries of the new column
+     * @param row    the first n entries of the new row
+     * @param corner the new diagonal entry
+     * @throws IllegalArgumentException if a vector does not have n entries or the matrix would become singular
+     */
+    public void append(Vector column, Vector row, double corner) {
+        double[] c = checkLength(column);
+        double[] r = checkLength(row);
+        double[] w = multiply(inv, c);
+        double[] z = multiplyLeft(r, inv);
+        double s = corner - dot(r, w);
+        double scale = Math.abs(corner) + sumAbsProducts(r, w);
+        if (!(Math.abs(s) > n * EPSILON * scale))
+            throw new IllegalArgumentException("Update makes the matrix singular.");
+
+        int m = n + 1;
+        double[] nextA = new double[m * m];
+        for (int i = 0; i < n; i++) {
+            System.arraycopy(a, i * n, nextA, i * m, n);
+            nextA[i * m + n] = c[i];
+        }
+        System.arraycopy(r, 0, nextA, n * m, n);
+        nextA[n * m + n] = corner;
+
+        if (Math.abs(s) < CANCELLATION_LIMIT * scale) {
+            refactorize(m, nextA);
+            updated();
+            return;
+        }
+
+        double[] nextInv = new double[m * m];
+        int size = n;
+        RowBlocks.run(pool, ParallelMatrixOperations.DEFAULT_THRESHOLD, size, (long) size * size, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                System.arraycopy(inv, i * size, nextInv, i * m, size);
+                ArrayKernels.INSTANCE.axpy(w[i] / s, z, 0, nextInv, i * m, size);
+                nextInv[i * m + size] = -w[i] / s;
+            }
+        });
+        for (int j = 0; j < n; j++) {
+            nextInv[n * m + j] = -z[j] / s;
+        }
+        nextInv[n * m + n] = 1.0 / s;
+
+        n = m;
+        a = nextA;
+        inv = nextInv;
+        updated();
+    }
+
+    /**
+     * Shrinks the matrix to (n - 1) x (n - 1) by deleting one row and the
+     * column with the same index.
+     *
+     * @param index the row and column to delete
+     * @throws IllegalArgumentException if the matrix is 1 x 1 or would become singular
+     */
+    public void remove(int index) {
+        checkIndex(index);
+        if (n == 1)
+            throw new IllegalArgumentException("Matrix cannot be empty.");
+
+        int m = n - 1;
+        double[] nextA = new double[m * m];
+        for (int i = 0, ii = 0; i < n; i++) {
+            if (i == index) continue;
+            copySkipping(a, i * n, n, index, nextA, ii++ * m);
+        }
+
+        // The Schur complement of the removed diagonal entry of the inverse
+        double pivot = inv[index * n + index];
+        double[] column = column(inv, index);
+        double[] row = new double[n];
+        System.arraycopy(inv, index * n, row, 0, n);
+        double scale = Math.sqrt(maxAbs(column) * maxAbs(row));
+        if (!(Math.abs(pivot) > n * EPSILON * scale))
+            throw new IllegalArgumentException("Update makes the matrix singular.");
+
+        if (Math.abs(pivot) < CANCELLATION_LIMIT * scale) {
+            refactorize(m, nextA);
+            updated();
+            return;
+        }
+
+        double[] nextInv = new double[m * m];
+        int size = n;
+        RowBlocks.run(pool, ParallelMatrixOperations.DEFAULT_THRESHOLD, m, (long) size * size, (from, to) -> {
+            double[] buffer = new double[size];
+            for (int ii = from; ii < to; ii++) {
+                int i = ii < index ? ii : ii + 1;
+                System.arraycopy(inv, i * size, buffer, 0, size);
+                ArrayKernels.INSTANCE.axpy(-column[i] / pivot, row, 0, buffer, 0, size);
+                copySkipping(buffer, 0, size, index, nextInv, ii * m);
+            }
+        });
+
+        n = m;
+        a = nextA;
+        inv = nextInv;
+        updated();
+    }
+
+    /**
+     * Recomputes the inverse from the current matrix, discarding accumulated rounding error.
+     *
+     * @throws IllegalArgumentException if the current matrix is too close to singular to invert; the state is unchanged
+     */
+    public void refactorize() {
+        if (!tryRefactorize(n, a))
+            throw new IllegalArgumentException("Matrix is singular and cannot be inverted.");
+    }
+
+    /**
+     * Measures the residual now and refactorizes if it is over the limit.
+     * If the current matrix is too close to singular for a fresh
+     * factorization, the maintained inverse is kept, since every update to
+     * it passed its own singularity test.
+     *
+     * @return the residual after any refactorization
+     */
+    public double checkAccuracy() {
+        sinceCheck = 0;
+        residual = measureResidual();
+        if (residual > Math.max(tolerance, 100 * baseline)) {
+            tryRefactorize(n, a);
+        }
+        return residual;
+    }
+
+    /**
+     * @return the number of updates applied since construction
+     */
+    public long getUpdateCount() {
+        return updates;
+    }
+
+    /**
+     * @return the number of times the inverse was recomputed after construction
+     */
+    public int getRefactorizationCount() {
+        return refactorizations;
+    }
+
+    /**
+     * @return the most recently measured residual ||A(A<sup>-1</sup>x) - x||<sub>&infin;</sub> for a sign vector x
+     */
+    public double getResidual() {
+        return residual;
+    }
+
+    /**
+     * Applies A := A + u v<sup>T</sup> given w = A<sup>-1</sup>u and z = v<sup>T</sup>A<sup>-1</sup>.
+     *
+     * @param denominator 1 + v<sup>T</sup>w
+     * @param scale       the magnitude of the terms summed into the denominator, for the cancellation test
+     */
+    private void applyRankOne(double[] u, double[] v, double[] w, double[] z, double denominator, double scale) {
+        if (!(Math.abs(denominator) > n * EPSILON * scale))
+            throw new IllegalArgumentException("Update makes the matrix singular.");
+
+        if (Math.abs(denominator) < CANCELLATION_LIMIT * scale) {
+            double[] nextA = a.clone();
+            addOuter(u, v, nextA);
+            refactorize(n, nextA);
+            updated();
+            return;
+        }
+
+        int size = n;
+        RowBlocks.run(pool, ParallelMatrixOperations.DEFAULT_THRESHOLD, size, 2L * size * size, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                if (w[i] != 0.0) {
+                    ArrayKernels.INSTANCE.axpy(-w[i] / denominator, z, 0, inv, i * size, size);
+                }
+                if (u[i] != 0.0) {
+                    ArrayKernels.INSTANCE.axpy(u[i], v, 0, a, i * size, size);
+                }
+            }
+        });
+        updated();
+    }
+
+    private void updated() {
+        updates++;
+        if (++sinceCheck >= checkInterval) {
+            checkAccuracy();
+        }
+    }
+
+    /**
+     * Replaces the matrix and inverts it, for an update that has not changed
+     * the state yet.
+     *
+     * @throws IllegalArgumentException if the new matrix is singular; the state is unchanged
+     */
+    private void refactorize(int size, double[] next) {
+        if (!tryRefactorize(size, next))
+            throw new IllegalArgumentException("Update makes the matrix singular.");
+    }
+
+    /**
+     * Replaces the matrix and inverts it.
+     *
+     * @return false, leaving the state unchanged, if the new matrix is singular
+     */
+    private boolean tryRefactorize(int size, double[] next) {
+        Matrix inverse;
+        try {
+            inverse = new GaussJordanInverse(ACCESS.wrap(size, size, next), GaussJordanInverse.Pivoting.PARTIAL,
+                    pool, ParallelMatrixOperations.DEFAULT_THRESHOLD).getInverse();
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        if (inv != null) {
+            refactorizations++;
+        }
+        n = size;
+        a = next;
+        inv = ACCESS.raw(inverse);
+        sinceCheck = 0;
+        residual = measureResidual();
+        baseline = residual;
+        return true;
+    }
+
+    private double measureResidual() {
+        double[] x = new double[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = random.nextBoolean() ? 1.0 : -1.0;
+        }
+        double[] r = multiply(a, multiply(inv, x));
+        double max = 0.0;
+        for (int i = 0; i < n; i++) {
+            max = Math.max(max, Math.abs(r[i] - x[i]));
+        }
+        return max;
+    }
+
+    /**
+     * @return m x for an n x n row-major m
+     */
+    private double[] multiply(double[] m, double[] x) {
+        double[] y = new double[n];
+        for (int i = 0; i < n; i++) {
+            int row = i * n;
+            double sum = 0.0;
+            for (int j = 0; j < n; j++) {
+                sum += m[row + j] * x[j];
+            }
+            y[i] = sum;
+        }
+        return y;
+    }
+
+    /**
+     * @return x<sup>T</sup> m for an n x n row-major m
+     */
+    private double[] multiplyLeft(double[] x, double[] m) {
+        double[] y = new double[n];
+        for (int i = 0; i < n; i++) {
+            if (x[i] != 0.0) {
+                ArrayKernels.INSTANCE.axpy(x[i], m, i * n, y, 0, n);
+            }
+        }
+        return y;
+    }
+
+    /**
+     * target += alpha * left * right, where left is n x k and right is k x n.
+     */
+    private void addProduct(double alpha, double[] left, int k, double[] right, double[] target) {
+        int size = n;
+        RowBlocks.run(pool, ParallelMatrixOperations.DEFAULT_THRESHOLD, size, 2L * size * size * k, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                for (int l = 0; l < k; l++) {
+                    double factor = left[i * k + l];
+                    if (factor != 0.0) {
+                        ArrayKernels.INSTANCE.axpy(alpha * factor, right, l * size, target, i * size, size);
+                    }
+                }
+            }
+        });
+    }
+
+    private void addOuter(double[] u, double[] v, double[] target) {
+        for (int i = 0; i < n; i++) {
+            if (u[i] != 0.0) {
+                ArrayKernels.INSTANCE.axpy(u[i], v, 0, target, i * n, n);
+            }
+        }
+    }
+
+    private double[] column(double[] m, int col) {
+        double[] c = new double[n];
+        for (int i = 0; i < n; i++) {
+            c[i] = m[i * n + col];
+        }
+        return c;
+    }
+
+    private static void copySkipping(double[] src, int offset, int length, int skip, double[] dest, int destOffset) {
+        System.arraycopy(src, offset, dest, destOffset, skip);
+        System.arraycopy(src, offset + skip + 1, dest, destOffset + skip, length - skip - 1);
+    }
+
+    private static double dot(double[] x, double[] y) {
+        double sum = 0.0;
+        for (int i = 0; i < x.length; i++) {
+            sum += x[i] * y[i];
+        }
+        return sum;
+    }
+
+    private static double sumAbsProducts(double[] x, double[] y) {
+        double sum = 0.0;
+        for (int i = 0; i < x.length; i++) {
+            sum += Math.abs(x[i] * y[i]);
+        }
+        return sum;
+    }
+
+    private static double maxAbs(double[] x) {
+        double max = 0.0;
+        for (double v : x) {
+            max = Math.max(max, Math.abs(v));
+        }
+        return max;
+    }
+
+    private double[] checkLength(Vector v) {
+        if (v.getSize() != n)
+            throw new IllegalArgumentException("Vector length must match the matrix size.");
+        return v.getData();
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= n) throw new IndexOutOfBoundsException("Invalid row index.");
+    }
+}
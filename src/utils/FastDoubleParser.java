@@ -0,0 +1,205 @@
+package utils;
+
+import java.math.BigInteger;
+
+/**
+ * Parses decimal numbers straight out of a {@code char[]} range, without
+ * building a {@code String} per number.
+ * <p>
+ * Decimal digits are gathered into a 64-bit mantissa and a power of ten.
+ * Exactly representable cases (mantissa up to 2^53, power up to 22) are one
+ * multiplication or division, as in Clinger's fast path; everything else goes
+ * through the Eisel-Lemire algorithm, which uses a 128-bit approximation of
+ * the power of ten and gives the correctly rounded double or reports that it
+ * cannot decide. The rare undecided inputs, numbers with more than 19
+ * significant digits, and special forms such as {@code NaN}, {@code Infinity}
+ * or hexadecimal fall back to {@link Double#parseDouble(String)}, so results
+ * always equal the JDK's.
+ *
+ * @author Youssef Amin
+ */
+
+final class FastDoubleParser {
+
+    private static final double[] EXACT_POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private static final int MIN_EXP10 = -348;
+    private static final int MAX_EXP10 = 347;
+
+    /** Truncated 128-bit mantissas of 10^q, high and low words interleaved. */
+    private static final long[] POWERS_OF_TEN = buildPowersOfTen();
+
+    private FastDoubleParser() {
+    }
+
+    /**
+     * Parses chars [start, end) as a double.
+     *
+     * @param buf   the characters
+     * @param start the first character of the number
+     * @param end   one past the last character
+     * @return the parsed value, identical to {@link Double#parseDouble(String)}
+     * @throws NumberFormatException if the range is not a number
+     */
+    static double parse(char[] buf, int start, int end) {
+        int i = start;
+        boolean negative = false;
+        if (i < end && (buf[i] == '-' || buf[i] == '+')) {
+            negative = buf[i] == '-';
+            i++;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int exp10 = 0;
+        boolean anyDigit = false;
+        boolean truncated = false;
+
+        while (i < end && isDigit(buf[i])) {
+            int d = buf[i++] - '0';
+            anyDigit = true;
+            if (digits < 19) {
+                mantissa = mantissa * 10 + d;
+                if (mantissa != 0) digits++;
+            } else {
+                exp10++;
+                if (d != 0) truncated = true;
+            }
+        }
+        if (i < end && buf[i] == '.') {
+            i++;
+            while (i < end && isDigit(buf[i])) {
+                int d = buf[i++] - '0';
+                anyDigit = true;
+                if (digits < 19) {
+                    mantissa = mantissa * 10 + d;
+                    if (mantissa != 0) digits++;
+                    exp10--;
+                } else if (d != 0) {
+                    truncated = true;
+                }
+            }
+        }
+        if (anyDigit && i < end && (buf[i] == 'e' || buf[i] == 'E')) {
+            i++;
+            boolean negativeExp = false;
+            if (i < end && (buf[i] == '-' || buf[i] == '+')) {
+                negativeExp = buf[i] == '-';
+                i++;
+            }
+            if (i == end || !isDigit(buf[i])) {
+                return fallback(buf, start, end);
+            }
+            int exp = 0;
+            while (i < end && isDigit(buf[i])) {
+                if (exp < 100_000) exp = exp * 10 + (buf[i] - '0');
+                i++;
+            }
+            exp10 += negativeExp ? -exp : exp;
+        }
+        if (!anyDigit || i != end || truncated) {
+            return fallback(buf, start, end);
+        }
+
+        if (mantissa == 0) {
+            return negative ? -0.0 : 0.0;
+        }
+        if (mantissa > 0 && mantissa <= (1L << 53) && exp10 >= -22 && exp10 <= 22) {
+            double value = exp10 >= 0
+                    ? mantissa * EXACT_POWERS_OF_TEN[exp10]
+                    : mantissa / EXACT_POWERS_OF_TEN[-exp10];
+            return negative ? -value : value;
+        }
+        long bits = eiselLemire(mantissa, exp10);
+        if (bits < 0) {
+            return fallback(buf, start, end);
+        }
+        double value = Double.longBitsToDouble(bits);
+        return negative ? -value : value;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static double fallback(char[] buf, int start, int end) {
+        return Double.parseDouble(new String(buf, start, end - start));
+    }
+
+    /**
+     * Eisel-Lemire conversion of mantissa * 10^exp10 for a non-zero unsigned
+     * mantissa, following Lemire, "Number Parsing at a Gigabyte per Second" (2021).
+     *
+     * @return the bits of the positive double, or -1 if the result cannot be
+     * decided here or is subnormal, infinite or out of range
+     */
+    private static long eiselLemire(long mantissa, int exp10) {
+        if (exp10 < MIN_EXP10 || exp10 > MAX_EXP10) return -1;
+
+        int clz = Long.numberOfLeadingZeros(mantissa);
+        long man = mantissa << clz;
+        long retExp2 = ((217706L * exp10) >> 16) + 64 + 1023 - clz;
+
+        int index = (exp10 - MIN_EXP10) * 2;
+        long powHi = POWERS_OF_TEN[index];
+        long powLo = POWERS_OF_TEN[index + 1];
+        long xHi = Math.unsignedMultiplyHigh(man, powHi);
+        long xLo = man * powHi;
+
+        if ((xHi & 0x1FF) == 0x1FF && Long.compareUnsigned(xLo + man, man) < 0) {
+            long yHi = Math.unsignedMultiplyHigh(man, powLo);
+            long yLo = man * powLo;
+            long mergedHi = xHi;
+            long mergedLo = xLo + yHi;
+            if (Long.compareUnsigned(mergedLo, xLo) < 0) mergedHi++;
+            if ((mergedHi & 0x1FF) == 0x1FF && mergedLo + 1 == 0 && Long.compareUnsigned(yLo + man, man) < 0) {
+                return -1;
+            }
+            xHi = mergedHi;
+            xLo = mergedLo;
+        }
+
+        long msb = xHi >>> 63;
+        long retMantissa = xHi >>> (msb + 9);
+        retExp2 -= 1 ^ msb;
+
+        if (xLo == 0 && (xHi & 0x1FF) == 0 && (retMantissa & 3) == 1) return -1;
+
+        retMantissa += retMantissa & 1;
+        retMantissa >>>= 1;
+        if ((retMantissa >>> 53) > 0) {
+            retMantissa >>>= 1;
+            retExp2++;
+        }
+        if (retExp2 - 1 < 0 || retExp2 - 1 >= 0x7FF - 1) return -1;
+
+        return retExp2 << 52 | (retMantissa & 0x000F_FFFF_FFFF_FFFFL);
+    }
+
+    /**
+     * Builds floor(10^q * 2^k) normalized to exactly 128 bits for every q in
+     * [MIN_EXP10, MAX_EXP10].
+     */
+    private static long[] buildPowersOfTen() {
+        long[] table = new long[(MAX_EXP10 - MIN_EXP10 + 1) * 2];
+        BigInteger mask = BigInteger.ONE.shiftLeft(64).subtract(BigInteger.ONE);
+        for (int q = MIN_EXP10; q <= MAX_EXP10; q++) {
+            BigInteger m;
+            if (q >= 0) {
+                BigInteger p = BigInteger.TEN.pow(q);
+                int shift = p.bitLength() - 128;
+                m = shift > 0 ? p.shiftRight(shift) : p.shiftLeft(-shift);
+            } else {
+                BigInteger d = BigInteger.TEN.pow(-q);
+                m = BigInteger.ONE.shiftLeft(127 + d.bitLength()).divide(d);
+            }
+            int index = (q - MIN_EXP10) * 2;
+            table[index] = m.shiftRight(64).longValue();
+            table[index + 1] = m.and(mask).longValue();
+        }
+        return table;
+    }
+}
@@ -0,0 +1,339 @@
+package utils;
+
+import java.math.BigInteger;
+
+/**
+ * Writes doubles as decimal text straight into a {@code char[]}, without
+ * building a {@code String} per number.
+ * <p>
+ * The shortest form is found with Giulietti's Schubfach algorithm, the same
+ * one {@link Double#toString(double)} uses since JDK 19: the fewest decimal
+ * digits that still read back as the same double, closest to the exact value
+ * on ties. {@link #writeShortest} lays them out exactly as
+ * {@code Double.toString} does. {@link #writeFixed} rounds those digits half-up
+ * to a fixed number of decimal places, as {@code String.format("%.nf")} does.
+ * <p>
+ * Instances keep the digits of the last number as scratch state, so they are
+ * cheap but not thread-safe.
+ *
+ * @author Youssef Amin
+ */
+
+final class FastDoubleWriter {
+
+    /** Longest output of {@link #writeShortest}, as in "-2.2250738585072014E-308". */
+    static final int MAX_SHORTEST_LENGTH = 24;
+
+    private static final int P = 53;
+    private static final int Q_MIN = -1074;
+    private static final int K_MIN = -324;
+    private static final int K_MAX = 292;
+    private static final int H = 17;
+    private static final long C_MIN = 1L << (P - 1);
+    private static final long C_TINY = 3;
+    private static final long MASK_63 = (1L << 63) - 1;
+
+    /** 126-bit approximations g = floor(10^-k * 2^-r) + 1, split in 63-bit halves. */
+    private static final long[] G = buildPowersOfTen();
+
+    private static final long[] POWERS_OF_TEN = {
+            1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L,
+            100_000_000L, 1_000_000_000L, 10_000_000_000L, 100_000_000_000L,
+            1_000_000_000_000L, 10_000_000_000_000L, 100_000_000_000_000L,
+            1_000_000_000_000_000L, 10_000_000_000_000_000L, 100_000_000_000_000_000L
+    };
+
+    /** The last value is 0.d[0]d[1]...d[length-1] * 10^exponent, with d[0] != 0. */
+    private final byte[] digits = new byte[H + 1];
+    private int length;
+    private int exponent;
+
+    /**
+     * Writes the shortest decimal that reads back as v, formatted exactly as
+     * {@link Double#toString(double)}.
+     *
+     * @param v   the value
+     * @param dst the destination, with at least {@link #MAX_SHORTEST_LENGTH} free
+     * @param at  where to start writing
+     * @return the position after the last character written
+     */
+    int writeShortest(double v, char[] dst, int at) {
+        if (v != v) return put("NaN", dst, at);
+        if (Double.doubleToRawLongBits(v) < 0) {
+            dst[at++] = '-';
+        }
+        if (Double.isInfinite(v)) return put("Infinity", dst, at);
+        if (v == 0) return put("0.0", dst, at);
+
+        toDecimal(Math.abs(v));
+        int e = exponent;
+        if (0 < e && e <= 7) {
+            for (int i = 0; i < e; i++) {
+                dst[at++] = digit(i);
+            }
+            dst[at++] = '.';
+            if (length <= e) {
+                dst[at++] = '0';
+            }
+            for (int i = e; i < length; i++) {
+                dst[at++] = digit(i);
+            }
+        } else if (-3 < e && e <= 0) {
+            dst[at++] = '0';
+            dst[at++] = '.';
+            for (int i = e; i < 0; i++) {
+                dst[at++] = '0';
+            }
+            for (int i = 0; i < length; i++) {
+                dst[at++] = digit(i);
+            }
+        } else {
+            dst[at++] = digit(0);
+            dst[at++] = '.';
+            if (length == 1) {
+                dst[at++] = '0';
+            }
+            for (int i = 1; i < length; i++) {
+                dst[at++] = digit(i);
+            }
+            dst[at++] = 'E';
+            int exp = e - 1;
+            if (exp < 0) {
+                dst[at++] = '-';
+                exp = -exp;
+            }
+            if (exp >= 100) dst[at++] = (char) ('0' + exp / 100);
+            if (exp >= 10) dst[at++] = (char) ('0' + exp / 10 % 10);
+            dst[at++] = (char) ('0' + exp % 10);
+        }
+        return at;
+    }
+
+    /**
+     * Writes v in plain notation with exactly {@code precision} decimal places,
+     * rounding the shortest decimal form half-up.
+     *
+     * @param v         the value
+     * @param precision the number of decimal places
+     * @param dst       the destination, with at least {@link #maxFixedLength(int)} free
+     * @param at        where to start writing
+     * @return the position after the last character written
+     */
+    int writeFixed(double v, int precision, char[] dst, int at) {
+        if (v != v) return put("NaN", dst, at);
+        if (Double.doubleToRawLongBits(v) < 0) {
+            dst[at++] = '-';
+        }
+        if (Double.isInfinite(v)) return put("Infinity", dst, at);
+
+        if (v == 0) {
+            length = 0;
+            exponent = 0;
+        } else {
+            toDecimal(Math.abs(v));
+            roundTo(exponent + precision);
+        }
+
+        int e = exponent;
+        if (e <= 0) {
+            dst[at++] = '0';
+        }
+        for (int i = 0; i < e; i++) {
+            dst[at++] = i < length ? digit(i) : '0';
+        }
+        if (precision > 0) {
+            dst[at++] = '.';
+            for (int i = e; i < e + precision; i++) {
+                dst[at++] = i >= 0 && i < length ? digit(i) : '0';
+            }
+        }
+        return at;
+    }
+
+    /**
+     * @param precision the number of decimal places
+     * @return the longest output of {@link #writeFixed} at that precision
+     */
+    static int maxFixedLength(int precision) {
+        // sign, up to 309 integer digits, point and fraction
+        return 1 + 309 + 1 + Math.max(precision, "Infinity".length());
+    }
+
+    /**
+     * Keeps the first {@code keep} digits, rounding half-up on the next one.
+     */
+    private void roundTo(int keep) {
+        if (keep >= length) return;
+        if (keep < 0) {
+            length = 0;
+            return;
+        }
+        boolean up = digits[keep] >= 5;
+        length = keep;
+        if (!up) {
+            while (length > 0 && digits[length - 1] == 0) length--;
+            return;
+        }
+        int i = keep - 1;
+        while (i >= 0 && digits[i] == 9) {
+            i--;
+        }
+        if (i < 0) {
+            digits[0] = 1;
+            length = 1;
+            exponent++;
+        } else {
+            digits[i]++;
+            length = i + 1;
+        }
+    }
+
+    private char digit(int i) {
+        return (char) ('0' + digits[i]);
+    }
+
+    private static int put(String s, char[] dst, int at) {
+        s.getChars(0, s.length(), dst, at);
+        return at + s.length();
+    }
+
+    /**
+     * Finds the shortest decimal for a finite positive v, following
+     * Giulietti, "The Schubfach way to render doubles" (2020).
+     */
+    private void toDecimal(double v) {
+        long bits = Double.doubleToRawLongBits(v);
+        long t = bits & (C_MIN - 1);
+        int bq = (int) (bits >>> (P - 1));
+        if (bq != 0) {
+            int mq = -Q_MIN + 1 - bq;
+            long c = C_MIN | t;
+            if (0 < mq && mq < P) {
+                long f = c >> mq;
+                if (f << mq == c) {
+                    setDigits(f, 0);
+                    return;
+                }
+            }
+            toDecimal(-mq, c, 0);
+        } else if (t < C_TINY) {
+            toDecimal(Q_MIN, 10 * t, -1);
+        } else {
+            toDecimal(Q_MIN, t, 0);
+        }
+    }
+
+    private void toDecimal(int q, long c, int dk) {
+        int out = (int) c & 1;
+        long cb = c << 2;
+        long cbr = cb + 2;
+        long cbl;
+        int k;
+        if (c != C_MIN || q == Q_MIN) {
+            cbl = cb - 2;
+            k = floorLog10Pow2(q);
+        } else {
+            cbl = cb - 1;
+            k = floorLog10ThreeQuartersPow2(q);
+        }
+        int h = q + floorLog2Pow10(-k) + 2;
+
+        int index = (k - K_MIN) * 2;
+        long g1 = G[index];
+        long g0 = G[index + 1];
+        long vb = roundToOdd(g1, g0, cb << h);
+        long vbl = roundToOdd(g1, g0, cbl << h);
+        long vbr = roundToOdd(g1, g0, cbr << h);
+
+        long s = vb >> 2;
+        if (s >= 100) {
+            long sp10 = 10 * Math.multiplyHigh(s, 115_292_150_460_684_698L << 4);
+            long tp10 = sp10 + 10;
+            boolean upin = vbl + out <= sp10 << 2;
+            boolean wpin = (tp10 << 2) + out <= vbr;
+            if (upin != wpin) {
+                setDigits(upin ? sp10 : tp10, k);
+                return;
+            }
+        }
+        long t = s + 1;
+        boolean uin = vbl + out <= s << 2;
+        boolean win = (t << 2) + out <= vbr;
+        if (uin != win) {
+            setDigits(uin ? s : t, k + dk);
+            return;
+        }
+        long cmp = vb - (s + t << 1);
+        setDigits(cmp < 0 || cmp == 0 && (s & 1) == 0 ? s : t, k + dk);
+    }
+
+    private static long roundToOdd(long g1, long g0, long cp) {
+        long x1 = Math.multiplyHigh(g0, cp);
+        long y0 = g1 * cp;
+        long y1 = Math.multiplyHigh(g1, cp);
+        long z = (y0 >>> 1) + x1;
+        long vbp = y1 + (z >>> 63);
+        return vbp | (z & MASK_63) + MASK_63 >>> 63;
+    }
+
+    /**
+     * Stores f * 10^e as its digits without trailing zeros.
+     */
+    private void setDigits(long f, int e) {
+        int len = floorLog10Pow2(Long.SIZE - Long.numberOfLeadingZeros(f));
+        if (f >= POWERS_OF_TEN[len]) len++;
+        exponent = e + len;
+        // peel eight digits at a time so the inner loops run on ints
+        int end = len;
+        while (end > 8) {
+            long q = f / 100_000_000L;
+            putDigits((int) (f - q * 100_000_000L), end - 8, end);
+            f = q;
+            end -= 8;
+        }
+        putDigits((int) f, 0, end);
+        while (digits[len - 1] == 0) len--;
+        length = len;
+    }
+
+    private void putDigits(int value, int from, int to) {
+        for (int i = to - 1; i >= from; i--) {
+            int q = value / 10;
+            digits[i] = (byte) (value - q * 10);
+            value = q;
+        }
+    }
+
+    private static int floorLog10Pow2(int e) {
+        return (int) (e * 661_971_961_083L >> 41);
+    }
+
+    private static int floorLog10ThreeQuartersPow2(int e) {
+        return (int) (e * 661_971_961_083L - 274_743_187_321L >> 41);
+    }
+
+    private static int floorLog2Pow10(int e) {
+        return (int) (e * 913_124_641_741L >> 38);
+    }
+
+    private static long[] buildPowersOfTen() {
+        long[] table = new long[(K_MAX - K_MIN + 1) * 2];
+        BigInteger mask = BigInteger.ONE.shiftLeft(63).subtract(BigInteger.ONE);
+        for (int k = K_MIN; k <= K_MAX; k++) {
+            int e = -k;
+            int r = floorLog2Pow10(e) - 125;
+            BigInteger g;
+            if (e >= 0) {
+                BigInteger p = BigInteger.TEN.pow(e);
+                g = r >= 0 ? p.shiftRight(r) : p.shiftLeft(-r);
+            } else {
+                g = BigInteger.ONE.shiftLeft(-r).divide(BigInteger.TEN.pow(-e));
+            }
+            g = g.add(BigInteger.ONE);
+            int index = (k - K_MIN) * 2;
+            table[index] = g.shiftRight(63).longValue();
+            table[index + 1] = g.and(mask).longValue();
+        }
+        return table;
+    }
+}
@@ -0,0 +1,178 @@
+package utils;
+
+import model.Matrix;
+import model.SegmentMatrix;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads and writes matrices in MatrixMaster's binary file format.
+ * <p>
+ * A file is a 64-byte header followed by the entries as raw little-endian
+ * doubles. All header fields are little-endian:
+ * <pre>
+ * offset  size  field
+ *      0     4  magic, the ASCII bytes "MTXM"
+ *      4     4  format version, currently 1
+ *      8     4  element type, 1 = float64
+ *     12     4  layout, 0 = row-major, 1 = column-major
+ *     16     8  number of rows
+ *     24     8  number of columns
+ *     32    32  reserved, zero
+ * </pre>
+ * The data starts on a 64-byte boundary so mapped rows stay aligned.
+ * {@link #open(Path)} maps the file instead of reading it, so opening is
+ * constant time whatever the size and pages load lazily as they are read.
+ *
+ * @author Youssef Amin
+ */
+
+public final class MatrixFile {
+
+    /** Size of the header in bytes; the entries start at this offset. */
+    public static final int HEADER_SIZE = 64;
+
+    /** Current format version. */
+    public static final int VERSION = 1;
+
+    private static final byte[] MAGIC = {'M', 'T', 'X', 'M'};
+    private static final int DTYPE_FLOAT64 = 1;
+    private static final ValueLayout.OfInt INT = ValueLayout.JAVA_INT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+    private static final ValueLayout.OfLong LONG = ValueLayout.JAVA_LONG_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+
+    private MatrixFile() {
+    }
+
+    /**
+     * Writes a matrix in row-major layout, replacing any existing file.
+     *
+     * @param m    the matrix to write
+     * @param path the file to write
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(Matrix m, Path path) throws IOException {
+        write(m, path, SegmentMatrix.Layout.ROW_MAJOR);
+    }
+
+    /**
+     * Writes a matrix in the given layout, replacing any existing file. The
+     * file is written through a mapping, one row or column at a time.
+     *
+     * @param m      the matrix to write
+     * @param path   the file to write
+     * @param layout the order to store the entries in
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(Matrix m, Path path, SegmentMatrix.Layout layout) throws IOException {
+        int rows = m.getNumRow();
+        int cols = m.getNumCol();
+        long size = HEADER_SIZE + (long) rows * cols * Double.BYTES;
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+             Arena arena = Arena.ofConfined()) {
+            MemorySegment file = channel.map(FileChannel.MapMode.READ_WRITE, 0, size, arena);
+            MemorySegment.copy(MAGIC, 0, file, ValueLayout.JAVA_BYTE, 0, MAGIC.length);
+            file.set(INT, 4, VERSION);
+            file.set(INT, 8, DTYPE_FLOAT64);
+            file.set(INT, 12, layout.ordinal());
+            file.set(LONG, 16, rows);
+            file.set(LONG, 24, cols);
+
+            if (layout == SegmentMatrix.Layout.ROW_MAJOR) {
+                double[] row = new double[cols];
+                for (int i = 0; i < rows; i++) {
+                    m.copyRow(i, row, 0);
+                    MemorySegment.copy(row, 0, file, SegmentMatrix.ELEMENT,
+                            HEADER_SIZE + (long) i * cols * Double.BYTES, cols);
+                }
+            } else {
+                for (int j = 0; j < cols; j++) {
+                    double[] column = m.getColumn(j);
+                    MemorySegment.copy(column, 0, file, SegmentMatrix.ELEMENT,
+                            HEADER_SIZE + (long) j * rows * Double.BYTES, rows);
+                }
+            }
+            file.force();
+        }
+    }
+
+    /**
+     * Maps a matrix file read-only and returns a view over it. Nothing is read
+     * beyond the header until entries are accessed. Close the returned matrix
+     * to unmap the file.
+     *
+     * @param path the file to open
+     * @return a read-only view backed by the mapped file
+     * @throws IOException if the file cannot be read or is not a valid matrix file
+     */
+    public static SegmentMatrix open(Path path) throws IOException {
+        Arena arena = Arena.ofShared();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < HEADER_SIZE) {
+                throw new IOException("File is too small to be a matrix file: " + path);
+            }
+            MemorySegment file = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize, arena);
+
+            for (int i = 0; i < MAGIC.length; i++) {
+                if (file.get(ValueLayout.JAVA_BYTE, i) != MAGIC[i]) {
+                    throw new IOException("Not a matrix file: " + path);
+                }
+            }
+            int version = file.get(INT, 4);
+            if (version != VERSION) {
+                throw new IOException("Unsupported matrix file version " + version + ": " + path);
+            }
+            int dtype = file.get(INT, 8);
+            if (dtype != DTYPE_FLOAT64) {
+                throw new IOException("Unsupported element type " + dtype + ": " + path);
+            }
+            int layoutCode = file.get(INT, 12);
+            if (layoutCode < 0 || layoutCode >= SegmentMatrix.Layout.values().length) {
+                throw new IOException("Unknown layout " + layoutCode + ": " + path);
+            }
+            long rows = file.get(LONG, 16);
+            long cols = file.get(LONG, 24);
+            if (rows <= 0 || cols <= 0 || rows > Integer.MAX_VALUE || cols > Integer.MAX_VALUE) {
+                throw new IOException("Invalid matrix dimensions " + rows + "x" + cols + ": " + path);
+            }
+            long dataSize;
+            try {
+                dataSize = Math.multiplyExact(Math.multiplyExact(rows, cols), Double.BYTES);
+            } catch (ArithmeticException e) {
+                throw new IOException("Matrix dimensions " + rows + "x" + cols + " are too large: " + path, e);
+            }
+            if (fileSize - HEADER_SIZE < dataSize) {
+                throw new IOException("Matrix file is truncated: " + path);
+            }
+
+            MemorySegment data = file.asSlice(HEADER_SIZE, dataSize);
+            return new SegmentMatrix(data, (int) rows, (int) cols,
+                    SegmentMatrix.Layout.values()[layoutCode], arena);
+        } catch (IOException | RuntimeException e) {
+            arena.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Reads a matrix file fully onto the heap.
+     *
+     * @param path the file to read
+     * @return a heap matrix with the file's entries
+     * @throws IOException if the file cannot be read or is not a valid matrix file
+     */
+    public static Matrix load(Path path) throws IOException {
+        try (SegmentMatrix mapped = open(path)) {
+            return mapped.copy();
+        }
+    }
+}
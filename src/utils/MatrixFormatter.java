@@ -1,4 +1,13 @@
 package utils;
+
+import model.Matrix;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+
 /**
  * Utility class for formatting matrix data for display in the GUI.
  * Responsible for converting internal matrix representations into
@@ -6,9 +15,303 @@ package utils;
  *
  * Intended to support clean and readable output formatting.
  *
+ * Output streams straight into an {@link Appendable}, {@link Writer} or
+ * {@link WritableByteChannel} through a small fixed buffer, one row at a
+ * time, so a 5000x5000 result never exists as one giant string. Numbers are
+ * written by {@link FastDoubleWriter} without a {@code String} per cell:
+ * either the shortest text that reads back as the same double, or a fixed
+ * number of decimal places. Rows end with {@code '\n'}.
+ *
+ * Two layouts are supported: {@link Layout#CSV} for files, which
+ * {@link MatrixParser} reads back, and {@link Layout#ALIGNED} for display,
+ * with right-aligned columns. A preview mode shows only the first and last
+ * few rows and columns, with "..." in between, for looking at big matrices.
+ *
+ * Formatters are immutable and can be shared between threads.
+ *
  * @author Youssef Amin
  */
 
 public class MatrixFormatter {
-    // TODO: Convert matrix data to UI element
+
+    /**
+     * How cells are laid out on a line.
+     */
+    public enum Layout {
+        /** Cells separated by commas. */
+        CSV,
+        /** Cells right-aligned in columns separated by two spaces. */
+        ALIGNED
+    }
+
+    /** Precision for the shortest text that reads back as the same double. */
+    public static final int SHORTEST = -1;
+
+    /** Largest number of decimal places supported. */
+    public static final int MAX_PRECISION = 20;
+
+    /** Edge size that turns the preview off and writes every entry. */
+    public static final int NO_PREVIEW = 0;
+
+    private static final int BUFFER_SIZE = 1 << 13;
+    private static final String ELLIPSIS = "...";
+    private static final String ALIGNED_SEPARATOR = "  ";
+
+    private final Layout layout;
+    private final int precision;
+    private final int edgeItems;
+
+    /**
+     * Creates a formatter writing every entry as shortest round-trip CSV.
+     */
+    public MatrixFormatter() {
+        this(Layout.CSV, SHORTEST, NO_PREVIEW);
+    }
+
+    /**
+     * @param layout    how cells are laid out
+     * @param precision the number of decimal places, or {@link #SHORTEST}
+     * @param edgeItems how many leading and trailing rows and columns to show
+     *                  when a dimension is longer than twice this, or
+     *                  {@link #NO_PREVIEW} to show everything
+     */
+    public MatrixFormatter(Layout layout, int precision, int edgeItems) {
+        if (layout == null) {
+            throw new IllegalArgumentException("Layout cannot be null");
+        }
+        if (precision != SHORTEST && (precision < 0 || precision > MAX_PRECISION)) {
+            throw new IllegalArgumentException("Precision must be SHORTEST or between 0 and " + MAX_PRECISION);
+        }
+        if (edgeItems < 0) {
+            throw new IllegalArgumentException("Preview edge size cannot be negative");
+        }
+        this.layout = layout;
+        this.precision = precision;
+        this.edgeItems = edgeItems;
+    }
+
+    /**
+     * @return how cells are laid out
+     */
+    public Layout getLayout() {
+        return layout;
+    }
+
+    /**
+     * @return the number of decimal places, or {@link #SHORTEST}
+     */
+    public int getPrecision() {
+        return precision;
+    }
+
+    /**
+     * @return the preview edge size, or {@link #NO_PREVIEW}
+     */
+    public int getEdgeItems() {
+        return edgeItems;
+    }
+
+    /**
+     * Formats a matrix into a string. Meant for previews and small matrices;
+     * stream big ones with one of the other overloads.
+     *
+     * @param m the matrix to format
+     * @return the formatted text
+     */
+    public String format(Matrix m) {
+        StringBuilder sb = new StringBuilder();
+        try {
+            format(m, sb);
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Writes a matrix to an appendable. A {@link Writer} is written in bulk
+     * char arrays. The target is neither flushed nor closed.
+     *
+     * @param m   the matrix to format
+     * @param out where to write the text
+     * @throws IOException if writing fails
+     */
+    public void format(Matrix m, Appendable out) throws IOException {
+        if (out == null) {
+            throw new IllegalArgumentException("Output cannot be null");
+        }
+        write(m, new Output(out, null));
+    }
+
+    /**
+     * Writes a matrix to a byte channel as ASCII text. The channel is not closed.
+     *
+     * @param m       the matrix to format
+     * @param channel where to write the text
+     * @throws IOException if writing fails
+     */
+    public void format(Matrix m, WritableByteChannel channel) throws IOException {
+        if (channel == null) {
+            throw new IllegalArgumentException("Channel cannot be null");
+        }
+        write(m, new Output(null, channel));
+    }
+
+    private void write(Matrix m, Output out) throws IOException {
+        if (m == null) {
+            throw new IllegalArgumentException("Matrix cannot be null");
+        }
+        int rows = m.getNumRow();
+        int cols = m.getNumCol();
+        int rowHead = head(rows);
+        int colHead = head(cols);
+        boolean rowsCut = rowHead < rows;
+        boolean colsCut = colHead < cols;
+
+        FastDoubleWriter writer = new FastDoubleWriter();
+        char[] cell = new char[precision == SHORTEST
+                ? FastDoubleWriter.MAX_SHORTEST_LENGTH
+                : FastDoubleWriter.maxFixedLength(precision)];
+        double[] row = new double[colsCut ? 2 * edgeItems : cols];
+
+        int[] widths = null;
+        if (layout == Layout.ALIGNED) {
+            widths = new int[row.length];
+            for (int i = 0; i < rows; i = nextIndex(i, rowHead, rows)) {
+                readRow(m, i, row, colHead, colsCut);
+                for (int j = 0; j < row.length; j++) {
+                    widths[j] = Math.max(widths[j], render(writer, row[j], cell));
+                }
+            }
+        }
+
+        for (int i = 0; i < rows; i = nextIndex(i, rowHead, rows)) {
+            if (rowsCut && i == rows - edgeItems) {
+                out.write(ELLIPSIS);
+                out.write('\n');
+            }
+            readRow(m, i, row, colHead, colsCut);
+            for (int j = 0; j < row.length; j++) {
+                if (j > 0) {
+                    writeSeparator(out);
+                }
+                if (colsCut && j == edgeItems) {
+                    out.write(ELLIPSIS);
+                    writeSeparator(out);
+                }
+                int len = render(writer, row[j], cell);
+                if (widths != null) {
+                    out.pad(widths[j] - len);
+                }
+                out.write(cell, len);
+            }
+            out.write('\n');
+        }
+        out.flush();
+    }
+
+    /**
+     * @return how many leading entries of a dimension to show
+     */
+    private int head(int n) {
+        return edgeItems != NO_PREVIEW && n > 2 * edgeItems ? edgeItems : n;
+    }
+
+    /**
+     * @return the index after i, jumping from the head to the tail when cut
+     */
+    private int nextIndex(int i, int head, int n) {
+        return i + 1 == head && head < n ? n - edgeItems : i + 1;
+    }
+
+    /**
+     * Reads the shown entries of row i. Cut rows are read entry by entry so a
+     * wide mapped matrix is not pulled in whole for a preview.
+     */
+    private void readRow(Matrix m, int i, double[] row, int colHead, boolean colsCut) {
+        if (!colsCut) {
+            m.copyRow(i, row, 0);
+            return;
+        }
+        int cols = m.getNumCol();
+        for (int j = 0; j < colHead; j++) {
+            row[j] = m.get(i, j);
+            row[colHead + j] = m.get(i, cols - edgeItems + j);
+        }
+    }
+
+    private int render(FastDoubleWriter writer, double value, char[] cell) {
+        return precision == SHORTEST
+                ? writer.writeShortest(value, cell, 0)
+                : writer.writeFixed(value, precision, cell, 0);
+    }
+
+    private void writeSeparator(Output out) throws IOException {
+        if (layout == Layout.CSV) {
+            out.write(',');
+        } else {
+            out.write(ALIGNED_SEPARATOR);
+        }
+    }
+
+    /**
+     * Buffers characters and hands them to the target in blocks.
+     */
+    private static final class Output {
+        private final Appendable appendable;
+        private final WritableByteChannel channel;
+        private final char[] buf = new char[BUFFER_SIZE];
+        private final ByteBuffer bytes;
+        private int pos;
+
+        Output(Appendable appendable, WritableByteChannel channel) {
+            this.appendable = appendable;
+            this.channel = channel;
+            this.bytes = channel != null ? ByteBuffer.allocate(BUFFER_SIZE) : null;
+        }
+
+        void write(char c) throws IOException {
+            if (pos == buf.length) flush();
+            buf[pos++] = c;
+        }
+
+        void write(String s) throws IOException {
+            for (int i = 0; i < s.length(); i++) {
+                write(s.charAt(i));
+            }
+        }
+
+        void write(char[] src, int len) throws IOException {
+            if (buf.length - pos < len) flush();
+            System.arraycopy(src, 0, buf, pos, len);
+            pos += len;
+        }
+
+        void pad(int count) throws IOException {
+            for (int i = 0; i < count; i++) {
+                write(' ');
+            }
+        }
+
+        void flush() throws IOException {
+            if (pos == 0) return;
+            if (channel != null) {
+                bytes.clear();
+                for (int i = 0; i < pos; i++) {
+                    bytes.put((byte) buf[i]);
+                }
+                bytes.flip();
+                while (bytes.hasRemaining()) {
+                    channel.write(bytes);
+                }
+            } else if (appendable instanceof Writer writer) {
+                writer.write(buf, 0, pos);
+            } else if (appendable instanceof StringBuilder sb) {
+                sb.append(buf, 0, pos);
+            } else {
+                appendable.append(CharBuffer.wrap(buf, 0, pos));
+            }
+            pos = 0;
+        }
+    }
 }
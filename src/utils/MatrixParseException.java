@@ -0,0 +1,42 @@
+package utils;
+
+/**
+ * Thrown by {@link MatrixParser} when the input text is not a well-formed
+ * matrix. Carries the 1-based line and column of the offending cell so the
+ * GUI can point the user at it.
+ *
+ * @author Youssef Amin
+ */
+
+public class MatrixParseException extends IllegalArgumentException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long line;
+    private final long column;
+
+    /**
+     * @param message what is wrong with the input
+     * @param line    the 1-based line of the problem
+     * @param column  the 1-based column of the problem
+     */
+    public MatrixParseException(String message, long line, long column) {
+        super("Line " + line + ", column " + column + ": " + message);
+        this.line = line;
+        this.column = column;
+    }
+
+    /**
+     * @return the 1-based line of the problem
+     */
+    public long getLine() {
+        return line;
+    }
+
+    /**
+     * @return the 1-based column of the problem
+     */
+    public long getColumn() {
+        return column;
+    }
+}
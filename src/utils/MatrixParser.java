@@ -1,4 +1,20 @@
 package utils;
+
+import model.Matrix;
+import model.MatrixAccess;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Utility class for converting user GUI input into a matrix format.
  * Parses input fields or structured text and produces a 2D array
@@ -6,9 +22,280 @@ package utils;
  *
  * Intended to bridge GUI entry and internal data logic.
  *
+ * Input is one matrix row per line, with cells separated by commas (CSV),
+ * spaces or tabs; blank lines are ignored. Text is read in fixed-size chunks,
+ * numbers are parsed straight out of the chunk by {@link FastDoubleParser}
+ * without a {@code String} per cell.
+ *
+ * A file is first scanned once to count its cells, so values go directly
+ * into an exactly sized row-major array that backs the resulting
+ * {@link Matrix}: memory use is the matrix itself plus one chunk, whatever
+ * the size of the text. Text of unknown length, from a {@link Reader}, is
+ * collected in blocks that are never copied as they grow and are assembled
+ * once at the end, so memory peaks at twice the matrix.
+ *
+ * Malformed input raises a {@link MatrixParseException} with the line and
+ * column of the offending cell.
+ *
  * @author Youssef Amin
  */
 
 public class MatrixParser {
-    // TODO: Convert GUI input to matrix format
+
+    private static final MatrixAccess ACCESS = MatrixAccess.obtain();
+
+    /** Characters read from the input per refill. */
+    static final int CHUNK_SIZE = 1 << 16;
+
+    /** Longest cell accepted, in characters. */
+    static final int MAX_CELL_LENGTH = 1024;
+
+    /** Most entries a dense matrix can hold. */
+    static final int MAX_ENTRIES = Integer.MAX_VALUE - 8;
+
+    /** Sizes of the first and of the largest block collecting values of unknown count. */
+    private static final int FIRST_BLOCK = 1024;
+    private static final int MAX_BLOCK = 1 << 20;
+
+    private final Reader in;
+    private final char[] buf = new char[CHUNK_SIZE];
+    private int pos;
+    private int limit;
+    private boolean eof;
+
+    /** Absolute input position of buf[0], and of the current line's first character. */
+    private long bufferStart;
+    private long lineStart;
+    private long line = 1;
+
+    /** The block being filled, and the full blocks before it holding {@code filled} values. */
+    private double[] values = new double[FIRST_BLOCK];
+    private int count;
+    private final List<double[]> blocks = new ArrayList<>();
+    private long filled;
+    private int rows;
+    private int cols = -1;
+
+    private MatrixParser(Reader in) {
+        this.in = in;
+    }
+
+    /**
+     * Parses a matrix from text, typically entered in the GUI.
+     *
+     * @param text the matrix text
+     * @return the parsed matrix
+     * @throws MatrixParseException if the text is not a well-formed matrix
+     */
+    public static Matrix parse(String text) {
+        try {
+            return parse(new StringReader(text));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Parses a UTF-8 text file.
+     *
+     * @param path the file to read
+     * @return the parsed matrix
+     * @throws IOException          if the file cannot be read
+     * @throws MatrixParseException if the file is not a well-formed matrix
+     */
+    public static Matrix parse(Path path) throws IOException {
+        long cells = countCells(path);
+        try (Reader reader = new InputStreamReader(Files.newInputStream(path), StandardCharsets.UTF_8)) {
+            MatrixParser parser = new MatrixParser(reader);
+            if (cells > 0 && cells <= MAX_ENTRIES) {
+                parser.values = new double[(int) cells];
+            }
+            return parser.run();
+        }
+    }
+
+    /**
+     * Counts the runs of non-delimiter bytes in a file, which is its number
+     * of cells if it is well-formed. Multi-byte UTF-8 characters never
+     * contain delimiter bytes, so the file need not be decoded.
+     */
+    private static long countCells(Path path) throws IOException {
+        byte[] bytes = new byte[CHUNK_SIZE];
+        long cells = 0;
+        boolean inCell = false;
+        try (InputStream stream = Files.newInputStream(path)) {
+            int n;
+            while ((n = stream.read(bytes)) >= 0) {
+                for (int i = 0; i < n; i++) {
+                    byte b = bytes[i];
+                    boolean delimiter = b == ',' || b == ' ' || b == '\t' || b == '\n' || b == '\r';
+                    if (!delimiter && !inCell) cells++;
+                    inCell = !delimiter;
+                }
+            }
+        }
+        return cells;
+    }
+
+    /**
+     * Parses a matrix from a character stream, reading it in bounded chunks.
+     * The reader is not closed.
+     *
+     * @param reader the text source
+     * @return the parsed matrix
+     * @throws IOException          if reading fails
+     * @throws MatrixParseException if the text is not a well-formed matrix
+     */
+    public static Matrix parse(Reader reader) throws IOException {
+        return new MatrixParser(reader).run();
+    }
+
+    private Matrix run() throws IOException {
+        if (fill(0) && buf[0] == '\uFEFF') {
+            pos++;
+            lineStart = 1;
+        }
+
+        int rowCells = 0;
+        boolean afterComma = false;
+        while (pos < limit || fill(pos)) {
+            char c = buf[pos];
+            if (c == ' ' || c == '\t') {
+                pos++;
+            } else if (c == '\n' || c == '\r') {
+                endRow(rowCells, afterComma);
+                rowCells = 0;
+                afterComma = false;
+                pos++;
+                if (c == '\r' && (pos < limit || fill(pos)) && buf[pos] == '\n') {
+                    pos++;
+                }
+                line++;
+                lineStart = bufferStart + pos;
+            } else if (c == ',') {
+                if (rowCells == 0 || afterComma) {
+                    throw error("Empty cell", bufferStart + pos);
+                }
+                afterComma = true;
+                pos++;
+            } else {
+                readCell();
+                rowCells++;
+                afterComma = false;
+            }
+        }
+        endRow(rowCells, afterComma);
+
+        if (rows == 0) {
+            throw new MatrixParseException("Input contains no matrix rows", line, 1);
+        }
+        return ACCESS.wrap(rows, cols, collect());
+    }
+
+    /**
+     * @return the values in one exactly sized array, without a copy if they fill the current block
+     */
+    private double[] collect() {
+        if (blocks.isEmpty() && count == values.length) {
+            return values;
+        }
+        double[] all = new double[(int) (filled + count)];
+        int offset = 0;
+        for (int i = 0; i < blocks.size(); i++) {
+            double[] block = blocks.get(i);
+            System.arraycopy(block, 0, all, offset, block.length);
+            offset += block.length;
+            blocks.set(i, null);
+        }
+        System.arraycopy(values, 0, all, offset, count);
+        values = null;
+        return all;
+    }
+
+    /**
+     * Parses the cell starting at pos. A cell that runs past the end of the
+     * chunk is moved to the front of the buffer before reading more.
+     */
+    private void readCell() throws IOException {
+        int start = pos;
+        while (true) {
+            while (pos < limit && !isDelimiter(buf[pos])) {
+                pos++;
+            }
+            if (pos < limit || eof) break;
+            if (pos - start >= MAX_CELL_LENGTH) {
+                throw error("Cell is longer than " + MAX_CELL_LENGTH + " characters", bufferStart + start);
+            }
+            int kept = pos - start;
+            boolean more = fill(start);
+            start = pos - kept;
+            if (!more) break;
+        }
+
+        double value;
+        try {
+            value = FastDoubleParser.parse(buf, start, pos);
+        } catch (NumberFormatException e) {
+            String cell = new String(buf, start, Math.min(pos - start, 40));
+            throw error("Malformed number '" + cell + "'", bufferStart + start);
+        }
+
+        if (count == values.length) {
+            long total = filled + count;
+            if (total == MAX_ENTRIES) {
+                throw error("Matrix is too large for dense storage", bufferStart + start);
+            }
+            blocks.add(values);
+            filled = total;
+            values = new double[(int) Math.min(MAX_ENTRIES - total, Math.min(MAX_BLOCK, Math.max(FIRST_BLOCK, total)))];
+            count = 0;
+        }
+        values[count++] = value;
+    }
+
+    private void endRow(int rowCells, boolean afterComma) {
+        if (afterComma) {
+            throw error("Empty cell after trailing comma", bufferStart + pos);
+        }
+        if (rowCells == 0) return;
+        if (cols < 0) {
+            cols = rowCells;
+        } else if (rowCells != cols) {
+            throw new MatrixParseException("Expected " + cols + " cells per row but found " + rowCells, line, 1);
+        }
+        rows++;
+    }
+
+    /**
+     * Discards buf[0, keepFrom), moves the rest to the front and reads more.
+     *
+     * @return true if at least one new character was read
+     */
+    private boolean fill(int keepFrom) throws IOException {
+        if (eof) return false;
+        if (keepFrom > 0) {
+            System.arraycopy(buf, keepFrom, buf, 0, limit - keepFrom);
+            bufferStart += keepFrom;
+            pos -= keepFrom;
+            limit -= keepFrom;
+        }
+        int n;
+        do {
+            n = in.read(buf, limit, buf.length - limit);
+        } while (n == 0);
+        if (n < 0) {
+            eof = true;
+            return false;
+        }
+        limit += n;
+        return true;
+    }
+
+    private static boolean isDelimiter(char c) {
+        return c == ',' || c == ' ' || c == '\t' || c == '\n' || c == '\r';
+    }
+
+    private MatrixParseException error(String message, long position) {
+        return new MatrixParseException(message, line, position - lineStart + 1);
+    }
 }
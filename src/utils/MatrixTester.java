@@ -1,11 +1,44 @@
 package utils;
 
+import distributed.LocalWorkerPool;
+import distributed.TileCoordinator;
+import metrics.Instrumentation;
+import metrics.OperationSnapshot;
+import metrics.OperationType;
 import model.Matrix;
+import model.MatrixBatch;
+import model.MutableMatrix;
+import model.OffHeapMatrix;
+import model.SegmentMatrix;
+import model.SparseMatrix;
+import model.Vector;
+import operations.BatchOperations;
+import operations.CachedMatrixOperations;
+import operations.CancellationToken;
+import operations.EigenDecomposition;
+import operations.EigenSolver;
+import operations.LUDecomposition;
+import operations.MatrixExpr;
+import operations.MatrixJobExecutor;
 import operations.MatrixOperations;
+import operations.MultiplicationStrategy;
+import operations.ParallelMatrixOperations;
+import operations.UpdatableInverse;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.io.PrintStream;
+import java.lang.foreign.Arena;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Tests the methods in the MatrixOperations class.
@@ -37,9 +70,40 @@ public class MatrixTester {
             testAddition();
             testSubtraction();
             testMultiplication();
+            testStrassen();
             testInverse();
+            testInverseZeroDiagonal();
+            testInverseBadlyScaled();
+            testUpdatableInverse();
             testDeterminant();
+            testDeterminantLarge();
+            testLUSolve();
+            testSolve();
             testRREF();
+            testExactRref();
+            testExactDeterminantOverflow();
+            testLeastSquares();
+            testParallel();
+            testJobExecutor();
+            testJobExecutorCancelledRunning();
+            testSparse();
+            testSparseNegativeZero();
+            testInPlace();
+            testExpression();
+            testExpressionShared();
+            testExpressionSparseScale();
+            testCache();
+            testInstrumentation();
+            testBatch();
+            testDistributed();
+            testDistributedWorkerFailure();
+            testMatrixFile();
+            testOffHeap();
+            testParser();
+            testParserLarge();
+            testFormatter();
+            testEigenvalues();
+            testEigenvectors();
 
         } catch (FileNotFoundException e) {
             e.printStackTrace();
@@ -112,6 +176,37 @@ public class MatrixTester {
         checkMatrixEquals(expected, result, "Multiplication", a, b);
     }
 
+    /**
+     * Tests Strassen multiplication against the classical product on odd sizes,
+     * with the cutoff lowered so the recursion and peeling are exercised.
+     */
+    private static void testStrassen() {
+        double[][] da = new double[17][13];
+        double[][] db = new double[13][11];
+        for (int i = 0; i < 17; i++) {
+            for (int j = 0; j < 13; j++) {
+                da[i][j] = (i * 7 + j * 3) % 11 - 5;
+            }
+        }
+        for (int i = 0; i < 13; i++) {
+            for (int j = 0; j < 11; j++) {
+                db[i][j] = (i * 5 + j * 2) % 9 - 4;
+            }
+        }
+        Matrix a = new Matrix(da);
+        Matrix b = new Matrix(db);
+
+        int cutoff = MatrixOperations.getStrassenCutoff();
+        MatrixOperations.setStrassenCutoff(2);
+        try {
+            Matrix expected = MatrixOperations.multiply(a, b);
+            Matrix result = MatrixOperations.multiply(a, b, MultiplicationStrategy.STRASSEN);
+            checkMatrixClose(expected, result, "Strassen Multiplication", a, b);
+        } finally {
+            MatrixOperations.setStrassenCutoff(cutoff);
+        }
+    }
+
     /**
      * Tests matrix inversion.
      */
@@ -129,6 +224,62 @@ public class MatrixTester {
         checkMatrixClose(expected, result, "Inverse", m, null);
     }
 
+    /**
+     * Tests that inversion pivots past a zero on the diagonal.
+     */
+    private static void testInverseZeroDiagonal() {
+        Matrix m = new Matrix(new double[][]{
+                {0, 1, 2},
+                {1, 0, 3},
+                {4, -3, 8}
+        });
+        Matrix expected = new Matrix(new double[][]{
+                {-4.5, 7, -1.5},
+                {-2, 4, -1},
+                {1.5, -2, 0.5}
+        });
+
+        Matrix result = MatrixOperations.inverse(m);
+        checkMatrixClose(expected, result, "Inverse (Zero Pivot)", m, null);
+    }
+
+    /**
+     * Tests that a well-posed diagonal matrix whose entries span 17 orders of magnitude is inverted.
+     */
+    private static void testInverseBadlyScaled() {
+        Matrix m = new Matrix(new double[][]{
+                {1e17, 0},
+                {0, 1}
+        });
+        Matrix expected = new Matrix(new double[][]{
+                {1e-17, 0},
+                {0, 1}
+        });
+
+        Matrix result = MatrixOperations.inverse(m);
+        checkMatrixClose(expected, result, "Inverse (Badly Scaled)", m, null);
+    }
+
+    /**
+     * Tests an inverse kept current through a row replacement and a bordering row and column.
+     */
+    private static void testUpdatableInverse() {
+        Matrix m = new Matrix(new double[][]{
+                {4, 7},
+                {2, 6}
+        });
+        Matrix updated = new Matrix(new double[][]{
+                {4, 7, 1},
+                {2, 5, 0},
+                {0, 1, 3}
+        });
+
+        UpdatableInverse inverse = new UpdatableInverse(m);
+        inverse.replaceRow(1, new Vector(new double[]{2, 5}));
+        inverse.append(new Vector(new double[]{1, 0}), new Vector(new double[]{0, 1}), 3);
+        checkMatrixClose(MatrixOperations.inverse(updated), inverse.getInverse(), "Updatable Inverse", updated, null);
+    }
+
     /**
      * Tests determinant calculation.
      */
@@ -148,6 +299,73 @@ public class MatrixTester {
         System.out.println((Math.abs(expected - result) < 1e-6 ? "PASSED" : "FAILED") + "\n");
     }
 
+    /**
+     * Tests the LU-based determinant on a matrix larger than the closed-form cases.
+     */
+    private static void testDeterminantLarge() {
+        Matrix m = new Matrix(new double[][]{
+                {0, 2, 1, 3},
+                {1, 0, 2, 1},
+                {4, 1, 0, 2},
+                {2, 3, 1, 0}
+        });
+        double expected = -79.0;
+        double result = MatrixOperations.determinant(m);
+        System.out.println("=== Determinant (LU) Test ===");
+        System.out.println("Input: \n" + m);
+        System.out.println("Expected: " + expected);
+        System.out.println("Actual: " + result);
+        System.out.println((Math.abs(expected - result) < 1e-6 ? "PASSED" : "FAILED") + "\n");
+    }
+
+    /**
+     * Tests solving a linear system with a reusable LU factorization.
+     */
+    private static void testLUSolve() {
+        Matrix a = new Matrix(new double[][]{
+                {0, 2, 1},
+                {1, 1, 1},
+                {2, 1, 3}
+        });
+        Matrix b = new Matrix(new double[][]{
+                {7},
+                {6},
+                {13}
+        });
+        Matrix expected = new Matrix(new double[][]{
+                {1},
+                {2},
+                {3}
+        });
+
+        Matrix result = new LUDecomposition(a).solve(b);
+        checkMatrixClose(expected, result, "LU Solve", a, b);
+    }
+
+    /**
+     * Tests solving a symmetric positive definite system with several right-hand sides.
+     */
+    private static void testSolve() {
+        Matrix a = new Matrix(new double[][]{
+                {4, 2, 0},
+                {2, 5, 1},
+                {0, 1, 3}
+        });
+        Matrix b = new Matrix(new double[][]{
+                {8, 4},
+                {15, 7},
+                {11, 4}
+        });
+        Matrix expected = new Matrix(new double[][]{
+                {1, 0.5},
+                {2, 1},
+                {3, 1}
+        });
+
+        Matrix result = MatrixOperations.solve(a, b);
+        checkMatrixClose(expected, result, "Solve", a, b);
+    }
+
     /**
      * Tests reduced row echelon form (RREF).
      */
@@ -168,6 +386,643 @@ public class MatrixTester {
         checkMatrixClose(expected, result, "RREF", m, null);
     }
 
+    /**
+     * Tests exact RREF and null space on a matrix whose second pivot, 2^-40, is below
+     * the tolerance of the floating-point RREF.
+     */
+    private static void testExactRref() {
+        double tiny = Math.scalb(1.0, -40);
+        Matrix m = new Matrix(new double[][]{
+                {1, 1, 2},
+                {1, 1 + tiny, 2},
+                {2, 2, 4}
+        });
+
+        Matrix expected = new Matrix(new double[][]{
+                {1, 0, 2},
+                {0, 1, 0},
+                {0, 0, 0}
+        });
+
+        Matrix result = MatrixOperations.rrefExact(m);
+        checkMatrixEquals(expected, result, "Exact RREF", m, null);
+
+        System.out.println("=== Exact Null Space Test ===");
+        List<Vector> nullspace = MatrixOperations.nullspace(m);
+        System.out.println("Expected: [-2.0, 0.0, 1.0], rank 2, determinant 0");
+        StringBuilder basis = new StringBuilder();
+        for (Vector v : nullspace) {
+            basis.append(Arrays.toString(v.getData()));
+        }
+        System.out.println("Actual: " + basis + ", rank " + MatrixOperations.rankExact(m)
+                + ", determinant " + MatrixOperations.determinantExact(m));
+        boolean match = nullspace.size() == 1
+                && Arrays.equals(nullspace.get(0).getData(), new double[]{-2, 0, 1})
+                && MatrixOperations.rankExact(m) == 2
+                && MatrixOperations.determinantExact(m).signum() == 0;
+        System.out.println(match ? "PASSED\n" : "FAILED\n");
+    }
+
+    /**
+     * Tests an exact determinant whose last long step divides -2^63 by -1,
+     * which must move the elimination to BigInteger instead of wrapping.
+     */
+    private static void testExactDeterminantOverflow() {
+        Matrix m = new Matrix(new double[][]{
+                {-1, 0, 0},
+                {0, -4294967296.0, 0},
+                {0, 0, 2147483648.0}
+        });
+        BigDecimal expected = new BigDecimal("9223372036854775808");
+
+        BigDecimal result = MatrixOperations.determinantExact(m);
+        System.out.println("=== Exact Determinant (Long Overflow) Test ===");
+        System.out.println("Input: \n" + m);
+        System.out.println("Expected: " + expected);
+        System.out.println("Actual: " + result);
+        System.out.println(expected.compareTo(result) == 0 ? "PASSED\n" : "FAILED\n");
+    }
+
+    /**
+     * Tests a least-squares line fit whose residual is orthogonal to the columns,
+     * and the SVD rank of a matrix with a dependent row.
+     */
+    private static void testLeastSquares() {
+        Matrix a = new Matrix(new double[][]{
+                {1, 0},
+                {1, 1},
+                {1, 2},
+                {1, 3}
+        });
+        Matrix b = new Matrix(new double[][]{{2}, {2}, {4}, {8}});
+        Matrix expected = new Matrix(new double[][]{{1}, {2}});
+
+        Matrix result = MatrixOperations.leastSquares(a, b);
+        checkMatrixClose(expected, result, "Least Squares", a, b);
+
+        Matrix m = new Matrix(new double[][]{
+                {1, 2, 3},
+                {4, 5, 6},
+                {7, 8, 9}
+        });
+        System.out.println("=== SVD Rank Test ===");
+        System.out.println("Input: \n" + m);
+        System.out.println("Expected: 2");
+        int rank = MatrixOperations.rank(m);
+        System.out.println("Actual: " + rank);
+        System.out.println((rank == 2 ? "PASSED" : "FAILED") + "\n");
+    }
+
+    /**
+     * Tests that the parallel operations match the sequential ones exactly.
+     */
+    private static void testParallel() {
+        double[][] x = new double[96][96];
+        double[][] y = new double[96][96];
+        for (int i = 0; i < 96; i++) {
+            for (int j = 0; j < 96; j++) {
+                x[i][j] = Math.sin(i * 96 + j);
+                y[i][j] = Math.cos(i - 2.0 * j);
+            }
+        }
+        Matrix a = new Matrix(x);
+        Matrix b = new Matrix(y);
+        ParallelMatrixOperations parallel = new ParallelMatrixOperations(new ForkJoinPool(4), 0);
+
+        boolean match = MatrixOperations.add(a, b).equals(parallel.add(a, b))
+                && MatrixOperations.subtract(a, b).equals(parallel.subtract(a, b))
+                && MatrixOperations.multiply(a, b).equals(parallel.multiply(a, b));
+        parallel.getPool().shutdown();
+
+        System.out.println("=== Parallel Test ===");
+        System.out.println("Input: two 96x96 matrices, threshold 0, 4 threads");
+        System.out.println(match ? "PASSED\n" : "FAILED\n");
+    }
+
+    /**
+     * Tests that cancelling a running job frees the executor's only worker for the
+     * queued one, and that admission control rejects jobs beyond the pending limit.
+     */
+    private static void testJobExecutor() {
+        Matrix m = new Matrix(new double[][]{
+                {4, 7},
+                {2, 6}
+        });
+
+        boolean rejected = false;
+        Matrix result;
+        try (MatrixJobExecutor executor = new MatrixJobExecutor(1, 2)) {
+            CountDownLatch started = new CountDownLatch(1);
+            CompletableFuture<Object> spinning = executor.submit(0, () -> {
+                started.countDown();
+                while (true) {
+                    CancellationToken.checkpoint();
+                }
+            });
+            started.await();
+            CompletableFuture<Matrix> queued = executor.inverse(m);
+            try {
+                executor.inverse(m);
+            } catch (RejectedExecutionException e) {
+                rejected = true;
+            }
+            spinning.cancel(true);
+            result = queued.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            result = null;
+        }
+
+        System.out.println("=== Job Executor Test ===");
+        System.out.println("Input: \n" + m);
+        System.out.println("Expected: \n" + MatrixOperations.inverse(m) + "third job rejected");
+        System.out.println("Actual: \n" + result + (rejected ? "third job rejected" : "third job accepted"));
+        System.out.println(rejected && MatrixOperations.inverse(m).equals(result) ? "PASSED\n" : "FAILED\n");
+    }
+
+    /**
+     * Tests that a cancelled job whose kernel is still running keeps its place
+     * under the executor's pending limit.
+     */
+    private static void testJobExecutorCancelledRunning() {
+        int counted = -1;
+        boolean rejected = false;
+        try (MatrixJobExecutor executor = new MatrixJobExecutor(1, 1)) {
+            CountDownLatch started = new CountDownLatch(1);
+            CountDownLatch finish = new CountDownLatch(1);
+            CompletableFuture<Object> stubborn = executor.submit(0, () -> {
+                started.countDown();
+                try {
+                    finish.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return null;
+            });
+            started.await();
+            stubborn.cancel(true);
+            counted = executor.getPendingCount();
+            try {
+                executor.submit(0, () -> null);
+            } catch (RejectedExecutionException e) {
+                rejected = true;
+            }
+            finish.countDown();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        System.out.println("=== Job Executor (Cancelled Running Job) Test ===");
+        System.out.println("Input: \nlimit 1, kernel cancelled while it ignores the token");
+        System.out.println("Expected: 1 pending, next job rejected");
+        System.out.println("Actual: " + counted + " pending, next job " + (rejected ? "rejected" : "accepted"));
+        System.out.println(counted == 1 && rejected ? "PASSED\n" : "FAILED\n");
+    }
+
+    /**
+     * Tests that sparse operands give the same results as their dense forms.
+     */
+    private static void testSparse() {
+        Matrix a = new Matrix(new double[][]{
+                {1, 0, 0, 2},
+                {0, 0, 3, 0},
+                {0, 4, 0, 0}
+        });
+        Matrix b = new Matrix(new double[][]{
+                {0, 1, 0},
+                {2, 0, 0},
+                {0, 0, 1},
+                {1, 0, 0}
+        });
+        SparseMatrix sa = SparseMatrix.fromMatrix(a);
+        SparseMatrix sb = SparseMatrix.fromMatrix(b);
+
+        Matrix expected = MatrixOperations.multiply(a, b);
+        Matrix result = MatrixOperations.multiply(sa, sb);
+        checkMatrixEquals(expected, result, "Sparse Multiplication", sa, sb);
+    }
+
+    /**
+     * Tests that negative zeros are not stored in sparse form and compare equal
+     * to zero, so sparse and dense results agree.
+     */
+    private static void testSparseNegativeZero() {
+        Matrix m = new Matrix(new double[][]{
+                {-0.0, 1},
+                {0, -0.0}
+        });
+        SparseMatrix s = SparseMatrix.fromMatrix(m);
+        Matrix sum = MatrixOperations.add(s, s);
+        Matrix expected = MatrixOperations.add(m, m);
+
+        System.out.println("=== Sparse Negative Zero Test ===");
+        System.out.println("Input: \n" + m);
+        System.out.println("Expected: 1 stored entry, copy and sum equal to the dense ones");
+        System.out.println("Actual: " + s.getNumNonZeros() + " stored entry, copy "
+                + (s.equals(m) ? "equal" : "not equal") + ", sum " + (sum.equals(expected) ? "equal" : "not equal"));
+        System.out.println(s.getNumNonZeros() == 1 && s.equals(m) && m.equals(s) && s.hashCode() == m.hashCode()
+                && sum.equals(expected) && expected.equals(sum) ? "PASSED\n" : "FAILED\n");
+    }
+
+    /**
+     * Tests that the destination and in-place variants match the allocating operations.
+     */
+    private static void testInPlace() {
+        Matrix a = new Matrix(new double[][]{
+                {1, 2},
+                {3, 4}
+        });
+        Matrix b = new Matrix(new double[][]{
+                {5, 6},
+                {7, 8}
+        });
+
+        MutableMatrix product = MatrixOperations.multiply(a, b, new MutableMatrix(2, 2));
+        MutableMatrix acc = MutableMatrix.copyOf(product);
+        MatrixOperations.addInPlace(acc, a);
+        MatrixOperations.subtractInPlace(acc, b);
+        MatrixOperations.scaleInPlace(acc, 2.0);
+
+        Matrix expected = new Matrix(new double[][]{
+                {30, 36},
+                {78, 92}
+        });
+        checkMatrixEquals(expected, acc, "In-Place Operations", a, b);
+    }
+
+    /**
+     * Tests a lazy expression mixing a product chain with fused element-wise operations.
+     */
+    private static void testExpression() {
+        Matrix a = new Matrix(new double[][]{
+                {1, 2},
+                {3, 4}
+        });
+        Matrix b = new Matrix(new double[][]{
+                {5, 6},
+                {7, 8}
+        });
+        Matrix expected = new Matrix(new double[][]{
+                {28, 32},
+                {54, 62}
+        });
+
+        // a * b + 2 * (b - a) + a
+        Matrix result = MatrixExpr.of(a).multiply(b)
+                .add(MatrixExpr.of(b).subtract(a).scale(2))
+                .add(a)
+                .evaluate();
+        checkMatrixEquals(expected, result, "Lazy Expression", a, b);
+    }
+
+    /**
+     * Tests that a shared element-wise sub-expression is computed once: forty
+     * nested doublings of one node would be 2^40 additions if it were inlined.
+     */
+    private static void testExpressionShared() {
+        Matrix a = new Matrix(new double[][]{
+                {1, 2},
+                {3, 4}
+        });
+        Matrix expected = new Matrix(new double[][]{
+                {0x1p40, 0x1p41},
+                {3 * 0x1p40, 0x1p42}
+        });
+
+        MatrixExpr e = MatrixExpr.of(a);
+        for (int i = 0; i < 40; i++) {
+            e = e.add(e);
+        }
+        checkMatrixEquals(expected, e.evaluate(), "Lazy Expression (Shared Sub-expression)", a, null);
+    }
+
+    /**
+     * Tests that a zero factor pulled out of a sparse product chain leaves no
+     * explicit zeros in the sparse result.
+     */
+    private static void testExpressionSparseScale() {
+        SparseMatrix s = SparseMatrix.fromMatrix(new Matrix(new double[][]{
+                {1, 0},
+                {0, 2}
+        }));
+        Matrix result = MatrixExpr.of(s).scale(0).multiply(s).evaluate();
+        int stored = result instanceof SparseMatrix sm ? sm.getNumNonZeros() : -1;
+
+        System.out.println("=== Lazy Expression (Sparse Zero Scale) Test ===");
+        System.out.println("Input: \n" + s);
+        System.out.println("Expected: \n" + new Matrix(new double[2][2]) + "0 stored entries");
+        System.out.println("Actual: \n" + result + stored + " stored entries");
+        System.out.println(stored == 0 && result.equals(new Matrix(new double[2][2])) ? "PASSED\n" : "FAILED\n");
+    }
+
+    /**
+     * Tests that the cache answers equal matrices of any storage with one stored inverse.
+     */
+    private static void testCache() {
+        double[][] entries = {
+                {4, 0, 1},
+                {0, 3, 0},
+                {1, 0, 2}
+        };
+        Matrix m = new Matrix(entries);
+        CachedMatrixOperations cache = new CachedMatrixOperations(16, 1 << 20);
+
+        Matrix result = cache.inverse(m);
+        checkMatrixEquals(MatrixOperations.inverse(m), result, "Cached Inverse", m, null);
+
+        System.out.println("=== Cache Hit Test ===");
+        boolean shared = cache.inverse(new Matrix(entries)) == result
+                && cache.inverse(SparseMatrix.fromMatrix(m)) == result;
+        CachedMatrixOperations.Stats stats = cache.getStats();
+        System.out.println("Expected: hits=2, misses=1, evictions=0, entries=1, weight=18");
+        System.out.println("Actual: " + stats);
+        System.out.println(shared && stats.getHits() == 2 && stats.getMisses() == 1 ? "PASSED\n" : "FAILED\n");
+    }
+
+    /**
+     * Tests that an instrumented multiply is counted with its FLOPs and input size.
+     */
+    private static void testInstrumentation() {
+        Matrix a = new Matrix(new double[][]{
+                {1, 2, 3},
+                {4, 5, 6}
+        });
+        Matrix b = new Matrix(new double[][]{
+                {7, 8},
+                {9, 10},
+                {11, 12}
+        });
+
+        Instrumentation.reset();
+        Instrumentation.setEnabled(true);
+        MatrixOperations.multiply(a, b);
+        Instrumentation.setEnabled(false);
+        MatrixOperations.multiply(a, b);
+        OperationSnapshot stats = Instrumentation.snapshot().get(OperationType.MULTIPLY);
+        Instrumentation.reset();
+
+        System.out.println("=== Instrumentation Test ===");
+        System.out.println("Expected: calls=1, flops=24, input entries=6");
+        System.out.println("Actual: calls=" + stats.getCalls() + ", flops=" + stats.getFlops()
+                + ", input entries=" + stats.getInputSize().getMax());
+        boolean match = stats.getCalls() == 1 && stats.getFlops() == 24
+                && stats.getInputSize().getMax() == 6 && stats.getLatency().getCount() == 1;
+        System.out.println(match ? "PASSED\n" : "FAILED\n");
+    }
+
+    /**
+     * Tests that batched multiply and inverse match the per-matrix operations.
+     */
+    private static void testBatch() {
+        Matrix a = new Matrix(new double[][]{
+                {2, 1, 0},
+                {1, 3, 1},
+                {0, 1, 4}
+        });
+        Matrix b = new Matrix(new double[][]{
+                {1, 2, 3},
+                {0, 1, 4},
+                {5, 6, 0}
+        });
+        MatrixBatch batch = MatrixBatch.of(a, b);
+
+        MatrixBatch squares = BatchOperations.multiply(batch, batch);
+        checkMatrixEquals(MatrixOperations.multiply(b, b), squares.getMatrix(1), "Batch Multiply", b, b);
+
+        MatrixBatch inverses = BatchOperations.inverse(batch);
+        checkMatrixClose(MatrixOperations.inverse(a), inverses.getMatrix(0), "Batch Inverse", a, null);
+
+        // The closed-form determinant underflows to zero, so the matrix goes to Gauss-Jordan
+        Matrix tiny = new Matrix(new double[][]{
+                {1e-170, 2e-170},
+                {3e-170, 4e-170}
+        });
+        MatrixBatch tinyInverse = BatchOperations.inverse(MatrixBatch.of(tiny));
+        checkMatrixEquals(MatrixOperations.inverse(tiny), tinyInverse.getMatrix(0), "Batch Inverse (Tiny Entries)",
+                tiny, null);
+    }
+
+    /**
+     * Tests a tiled multiply spread over two worker processes, with tiles that do not divide the matrices.
+     */
+    private static void testDistributed() {
+        Matrix a = new Matrix(new double[][]{
+                {1, 2, 3, 4, 5},
+                {6, 7, 8, 9, 10},
+                {11, 12, 13, 14, 15}
+        });
+        Matrix b = new Matrix(new double[][]{
+                {1, 0, 2, 1},
+                {0, 1, 3, 1},
+                {4, 0, 1, 1},
+                {2, 2, 0, 1},
+                {1, 3, 1, 1}
+        });
+
+        try (LocalWorkerPool pool = new LocalWorkerPool(2)) {
+            TileCoordinator coordinator = new TileCoordinator(pool.getAddresses(), 2);
+            checkMatrixEquals(MatrixOperations.multiply(a, b), coordinator.multiply(a, b),
+                    "Distributed Multiply", a, b);
+        } catch (IOException e) {
+            System.out.println("=== Distributed Multiply Test ===");
+            System.out.println("FAILED: " + e.getMessage() + "\n");
+        }
+    }
+
+    /**
+     * Tests that a distributed multiply still completes when a worker is
+     * killed after the first tile arrives: its current task, if any, must be
+     * sent again to the surviving worker.
+     */
+    private static void testDistributedWorkerFailure() {
+        Matrix a = new Matrix(new double[][]{
+                {1, 2, 3, 4},
+                {5, 6, 7, 8},
+                {9, 10, 11, 12},
+                {13, 14, 15, 16}
+        });
+        Matrix b = MatrixOperations.transpose(a);
+
+        try (LocalWorkerPool pool = new LocalWorkerPool(2)) {
+            TileCoordinator coordinator = new TileCoordinator(pool.getAddresses(), 1);
+            MutableMatrix result = new MutableMatrix(4, 4);
+            boolean[] killed = {false};
+            coordinator.multiply(a, b, (rowOffset, colOffset, tile) -> {
+                if (!killed[0]) {
+                    pool.kill(0);
+                    killed[0] = true;
+                }
+                result.set(rowOffset, colOffset, tile.get(0, 0));
+            });
+            checkMatrixEquals(MatrixOperations.multiply(a, b), result.toMatrix(), "Distributed Multiply (Worker Killed)",
+                    a, b);
+        } catch (IOException e) {
+            System.out.println("=== Distributed Multiply (Worker Killed) Test ===");
+            System.out.println("FAILED: " + e.getMessage() + "\n");
+        }
+    }
+
+    /**
+     * Tests that a matrix written to a binary file and mapped back multiplies like the original.
+     */
+    private static void testMatrixFile() {
+        Matrix a = new Matrix(new double[][]{
+                {1, 2, 3},
+                {4, 5, 6}
+        });
+        Matrix b = new Matrix(new double[][]{
+                {7, 8},
+                {9, 10},
+                {11, 12}
+        });
+
+        Matrix expected = MatrixOperations.multiply(a, b);
+        try {
+            Path file = Files.createTempFile("matrix", ".mtx");
+            MatrixFile.write(a, file, SegmentMatrix.Layout.COLUMN_MAJOR);
+            try (SegmentMatrix mapped = MatrixFile.open(file)) {
+                checkMatrixEquals(expected, MatrixOperations.multiply(mapped, b), "Mapped Matrix File", mapped, b);
+            }
+            Files.delete(file);
+        } catch (IOException e) {
+            System.out.println("=== Mapped Matrix File Test ===");
+            System.out.println("FAILED: " + e.getMessage() + "\n");
+        }
+    }
+
+    /**
+     * Tests a product written into off-heap storage from off-heap operands, and
+     * that closing the arena frees every matrix allocated in it.
+     */
+    private static void testOffHeap() {
+        Matrix a = new Matrix(new double[][]{
+                {1, 2, 3},
+                {4, 5, 6}
+        });
+        Matrix b = new Matrix(new double[][]{
+                {7, 8},
+                {9, 10},
+                {11, 12}
+        });
+
+        OffHeapMatrix product;
+        try (Arena arena = Arena.ofConfined()) {
+            OffHeapMatrix offA = OffHeapMatrix.copyOf(arena, a);
+            OffHeapMatrix offB = OffHeapMatrix.copyOf(arena, b);
+            product = MatrixOperations.multiply(offA, offB, OffHeapMatrix.allocate(arena, 2, 2));
+            checkMatrixEquals(MatrixOperations.multiply(a, b), product, "Off-Heap Multiply", offA, offB);
+        }
+
+        System.out.println("=== Off-Heap Arena Close Test ===");
+        System.out.println("Expected: freed");
+        System.out.println("Actual: " + (product.isAlive() ? "alive" : "freed"));
+        System.out.println(product.isAlive() ? "FAILED\n" : "PASSED\n");
+    }
+
+    /**
+     * Tests parsing CSV and whitespace-separated text, including the position of a malformed cell.
+     */
+    private static void testParser() {
+        Matrix expected = new Matrix(new double[][]{
+                {1.5, -2, 3e2},
+                {4, 5, 6}
+        });
+
+        Matrix result = MatrixParser.parse("1.5, -2, 3e2\n\n4\t5 6\n");
+        checkMatrixEquals(expected, result, "Parser", null, null);
+
+        System.out.println("=== Parser Error Test ===");
+        try {
+            MatrixParser.parse("1, 2\n3, x4");
+            System.out.println("FAILED: malformed cell was accepted\n");
+        } catch (MatrixParseException e) {
+            System.out.println("Error: " + e.getMessage());
+            System.out.println(e.getLine() == 2 && e.getColumn() == 4 ? "PASSED\n" : "FAILED\n");
+        }
+    }
+
+    /**
+     * Tests text with more cells than the parser's first block, read from a
+     * string in growing blocks and from a file into an exactly sized array.
+     */
+    private static void testParserLarge() {
+        double[][] data = new double[40][60];
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < data.length; i++) {
+            for (int j = 0; j < data[i].length; j++) {
+                data[i][j] = i * 0.5 - j;
+                text.append(j == 0 ? "" : ", ").append(data[i][j]);
+            }
+            text.append('\n');
+        }
+        Matrix expected = new Matrix(data);
+
+        checkMatrixEquals(expected, MatrixParser.parse(text.toString()), "Parser (Large Text)", null, null);
+        try {
+            Path file = Files.createTempFile("matrix", ".csv");
+            Files.writeString(file, text);
+            checkMatrixEquals(expected, MatrixParser.parse(file), "Parser (Large File)", null, null);
+            Files.delete(file);
+        } catch (IOException e) {
+            System.out.println("=== Parser (Large File) Test ===");
+            System.out.println("FAILED: " + e.getMessage() + "\n");
+        }
+    }
+
+    /**
+     * Tests that formatted CSV parses back to the same matrix, and the preview layout.
+     */
+    private static void testFormatter() {
+        Matrix m = new Matrix(new double[][]{
+                {0.1, -2.5, 1e-7, 4},
+                {1.0 / 3, 1e22, -0.0, 8},
+                {9, 10, 11, 12}
+        });
+
+        Matrix result = MatrixParser.parse(new MatrixFormatter().format(m));
+        checkMatrixEquals(m, result, "Formatter Round Trip", m, null);
+
+        System.out.println("=== Formatter Preview Test ===");
+        String preview = new MatrixFormatter(MatrixFormatter.Layout.ALIGNED, 2, 1).format(m);
+        String expected = "0.10  ...   4.00\n...\n9.00  ...  12.00\n";
+        System.out.println("Expected: \n" + expected);
+        System.out.println("Actual: \n" + preview);
+        System.out.println(expected.equals(preview) ? "PASSED\n" : "FAILED\n");
+    }
+
+    /**
+     * Tests the eigenvalues of a symmetric tridiagonal matrix.
+     */
+    private static void testEigenvalues() {
+        Matrix m = new Matrix(new double[][]{
+                {2, -1, 0},
+                {-1, 2, -1},
+                {0, -1, 2}
+        });
+        Matrix expected = new Matrix(new double[][]{
+                {2 - Math.sqrt(2), 2, 2 + Math.sqrt(2)}
+        });
+
+        Matrix result = new Matrix(new double[][]{EigenSolver.decompose(m, false).getRealEigenvalues()});
+        checkMatrixClose(expected, result, "Eigenvalues", m, null);
+    }
+
+    /**
+     * Tests that the eigenvectors of a non-symmetric matrix satisfy A * V = V * D.
+     */
+    private static void testEigenvectors() {
+        Matrix m = new Matrix(new double[][]{
+                {4, 1, 0},
+                {2, 3, 0},
+                {1, 0, 1}
+        });
+
+        EigenDecomposition eigen = EigenSolver.decompose(m);
+        Matrix expected = MatrixOperations.multiply(eigen.getEigenvectors(), eigen.getD());
+        Matrix result = MatrixOperations.multiply(m, eigen.getEigenvectors());
+        checkMatrixClose(expected, result, "Eigenvectors", m, null);
+    }
+
     /**
      * Checks if two matrices are exactly equal and prints results.
      */